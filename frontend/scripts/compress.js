@@ -0,0 +1,48 @@
+// Writes gzip (.gz) and brotli (.br) copies of the text files in build/, so that the
+// Spring Boot backend can serve them precompressed (spring.web.resources.chain.compressed).
+// Runs automatically after `npm run build` as the "postbuild" script.
+
+const fs = require("fs");
+const path = require("path");
+const zlib = require("zlib");
+
+const buildDir = path.join(__dirname, "..", "build");
+const extensions = new Set([".js", ".css", ".html", ".json", ".svg", ".txt", ".map", ".ico"]);
+// Below this size the compressed copy saves less than the extra request headers cost.
+const minimumSize = 1024;
+
+function* files(dir) {
+  for (const entry of fs.readdirSync(dir, { withFileTypes: true })) {
+    const file = path.join(dir, entry.name);
+    if (entry.isDirectory()) {
+      yield* files(file);
+    } else if (extensions.has(path.extname(entry.name))) {
+      yield file;
+    }
+  }
+}
+
+let count = 0;
+for (const file of files(buildDir)) {
+  const contents = fs.readFileSync(file);
+  if (contents.length < minimumSize) {
+    continue;
+  }
+  const variants = {
+    ".gz": zlib.gzipSync(contents, { level: zlib.constants.Z_BEST_COMPRESSION }),
+    ".br": zlib.brotliCompressSync(contents, {
+      params: {
+        [zlib.constants.BROTLI_PARAM_QUALITY]: zlib.constants.BROTLI_MAX_QUALITY,
+        [zlib.constants.BROTLI_PARAM_SIZE_HINT]: contents.length,
+      },
+    }),
+  };
+  for (const [suffix, compressed] of Object.entries(variants)) {
+    // only keep a variant that is actually smaller than the original
+    if (compressed.length < contents.length) {
+      fs.writeFileSync(file + suffix, compressed);
+    }
+  }
+  count++;
+}
+console.log(`compress.js: wrote gzip and brotli variants of ${count} files in ${buildDir}`);
@@ -0,0 +1,100 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.AdminService;
+import edu.ucsb.cs156.example.services.CurrentUserServiceImpl;
+import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.UserCacheService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <code>CurrentUserServiceImpl.getCurrentUser</code> for a user logged in with OAuth2,
+ * both in steady state (user cache hit) and on a cache miss.  The repository is a
+ * mock, so the miss case measures everything except the database round trip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CurrentUserBenchmark {
+
+  private CurrentUserServiceImpl currentUserService;
+
+  private UserCacheService userCache;
+
+  @Setup
+  public void setup() {
+    // keep the per-call info logging out of the numbers (and off the console)
+    ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+    User user = User.builder().id(1L).email("cgaucho@ucsb.edu").googleSub("115856948234298493496")
+        .fullName("Chris Gaucho").givenName("Chris").familyName("Gaucho").emailVerified(true)
+        .locale("en").hostedDomain("ucsb.edu").admin(false).build();
+    UserRepository userRepository = mock(UserRepository.class);
+    when(userRepository.upsertByEmailH2(any())).thenReturn(user);
+
+    userCache = new UserCacheService(10000, Duration.ofMinutes(5));
+    AdminService adminService = new AdminService(List.of("admingaucho@ucsb.edu"), 10000, Duration.ofMinutes(5));
+    ReflectionTestUtils.setField(adminService, "userRepository", userRepository);
+
+    currentUserService = new CurrentUserServiceImpl();
+    ReflectionTestUtils.setField(currentUserService, "userRepository", userRepository);
+    ReflectionTestUtils.setField(currentUserService, "grantedAuthoritiesService", new GrantedAuthoritiesService());
+    ReflectionTestUtils.setField(currentUserService, "userCache", userCache);
+    ReflectionTestUtils.setField(currentUserService, "adminService", adminService);
+
+    List<GrantedAuthority> authorities = List.of(
+        new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_MEMBER"));
+    Map<String, Object> attributes = Map.of(
+        "sub", user.getGoogleSub(), "email", user.getEmail(), "picture", "https://example.org/picture.jpg",
+        "name", user.getFullName(), "given_name", user.getGivenName(), "family_name", user.getFamilyName(),
+        "email_verified", true, "locale", user.getLocale(), "hd", user.getHostedDomain());
+    DefaultOAuth2User principal = new DefaultOAuth2User(authorities, attributes, "sub");
+    SecurityContextHolder.getContext().setAuthentication(
+        new OAuth2AuthenticationToken(principal, authorities, "google"));
+  }
+
+  @Benchmark
+  public CurrentUser getCurrentUser() {
+    return currentUserService.getCurrentUser();
+  }
+
+  @Benchmark
+  public CurrentUser getCurrentUserCacheMiss() {
+    userCache.invalidateAll();
+    return currentUserService.getCurrentUser();
+  }
+}
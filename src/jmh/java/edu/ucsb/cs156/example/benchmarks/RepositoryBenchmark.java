@@ -0,0 +1,89 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import edu.ucsb.cs156.example.ExampleApplication;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The repository paths behind the controllers, against the in-memory H2 database
+ * of the integration profile, with the restaurants table holding 1k, 100k and 1M rows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+
+  @Param({ "1000", "100000", "1000000" })
+  int rows;
+
+  private ConfigurableApplicationContext context;
+
+  private RestaurantRepository restaurantRepository;
+
+  @Setup
+  public void setup() {
+    context = new SpringApplicationBuilder(ExampleApplication.class)
+        .profiles("integration")
+        .properties(
+            "server.port=0",
+            "spring.main.banner-mode=off",
+            "logging.level.root=WARN",
+            "logging.level.sql=WARN",
+            "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+            "app.access-log.mode=off")
+        .run();
+    restaurantRepository = context.getBean(RestaurantRepository.class);
+    context.getBean(JdbcTemplate.class).update(
+        "INSERT INTO restaurants (name, description) SELECT 'Restaurant ' || x, 'Description ' || x FROM SYSTEM_RANGE(1, ?)",
+        rows);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public void findAll(Blackhole blackhole) {
+    for (Restaurant restaurant : restaurantRepository.findAll()) {
+      blackhole.consume(restaurant);
+    }
+  }
+
+  @Benchmark
+  public Optional<Restaurant> findById() {
+    return restaurantRepository.findById(ThreadLocalRandom.current().nextLong(1, rows + 1));
+  }
+
+  @Benchmark
+  public List<Restaurant> keysetPage() {
+    return restaurantRepository.findByIdGreaterThanOrderByIdAsc(
+        ThreadLocalRandom.current().nextLong(0, rows), Limit.of(100));
+  }
+}
@@ -0,0 +1,144 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of each entity, as a single object and as a list
+ * the size of an <code>/all</code> page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+  @Param({ "1", "100" })
+  int count;
+
+  private ObjectWriter writer;
+
+  private List<Articles> articles;
+  private List<HelpRequest> helpRequests;
+  private List<MenuItemReview> menuItemReviews;
+  private List<RecommendationRequest> recommendationRequests;
+  private List<Restaurant> restaurants;
+  private List<UCSBDate> ucsbDates;
+  private List<UCSBDiningCommons> diningCommons;
+  private List<UCSBDiningCommonsMenuItem> menuItems;
+  private List<UCSBOrganization> organizations;
+
+  @Setup
+  public void setup() {
+    // the same settings Spring Boot uses for the ObjectMapper behind the controllers
+    writer = Jackson2ObjectMapperBuilder.json()
+        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build()
+        .writer();
+
+    LocalDateTime ldt = LocalDateTime.parse("2022-01-03T00:00:00");
+
+    articles = Collections.nCopies(count, Articles.builder()
+        .id(1L).title("Using testing-playground with React Testing Library")
+        .url("https://dev.to/katieraby/using-testing-playground-with-react-testing-library-26j7")
+        .explanation("Helpful when we get to front end development").email("phtcon@ucsb.edu")
+        .dateAdded(ldt).build());
+    helpRequests = Collections.nCopies(count, HelpRequest.builder()
+        .id(1L).requesterEmail("cgaucho@ucsb.edu").teamId("s22-5pm-3").tableOrBreakoutRoom("7")
+        .requestTime(ldt).explanation("Need help with Swagger-ui").solved(false).build());
+    menuItemReviews = Collections.nCopies(count, MenuItemReview.builder()
+        .id(1L).itemId(27L).reviewerEmail("cgaucho@ucsb.edu").stars(3)
+        .dateReviewed(ldt).comments("bland af").build());
+    recommendationRequests = Collections.nCopies(count, RecommendationRequest.builder()
+        .id(1L).requesterEmail("cgaucho@ucsb.edu").professorEmail("phtcon@ucsb.edu")
+        .explanation("BS/MS program").dateRequested(ldt).dateNeeded(ldt).done(false).build());
+    restaurants = Collections.nCopies(count, Restaurant.builder()
+        .id(1L).name("Taco Bell").description("Mexican").build());
+    ucsbDates = Collections.nCopies(count, UCSBDate.builder()
+        .id(1L).quarterYYYYQ("20222").name("firstDayOfClasses").localDateTime(ldt).build());
+    diningCommons = Collections.nCopies(count, UCSBDiningCommons.builder()
+        .code("ortega").name("Ortega").hasSackMeal(true).hasTakeOutMeal(true).hasDiningCam(true)
+        .latitude(34.410987).longitude(-119.84709).build());
+    menuItems = Collections.nCopies(count, UCSBDiningCommonsMenuItem.builder()
+        .id(1L).diningCommonsCode("ortega").name("Baked Pesto Pasta with Chicken").station("Entree Specials").build());
+    organizations = Collections.nCopies(count, UCSBOrganization.builder()
+        .orgCode("ZPR").orgTranslationShort("ZETA PHI RHO").orgTranslation("ZETA PHI RHO")
+        .inactive(false).build());
+  }
+
+  @Benchmark
+  public byte[] articles() throws JsonProcessingException {
+    return writer.writeValueAsBytes(articles);
+  }
+
+  @Benchmark
+  public byte[] helpRequests() throws JsonProcessingException {
+    return writer.writeValueAsBytes(helpRequests);
+  }
+
+  @Benchmark
+  public byte[] menuItemReviews() throws JsonProcessingException {
+    return writer.writeValueAsBytes(menuItemReviews);
+  }
+
+  @Benchmark
+  public byte[] recommendationRequests() throws JsonProcessingException {
+    return writer.writeValueAsBytes(recommendationRequests);
+  }
+
+  @Benchmark
+  public byte[] restaurants() throws JsonProcessingException {
+    return writer.writeValueAsBytes(restaurants);
+  }
+
+  @Benchmark
+  public byte[] ucsbDates() throws JsonProcessingException {
+    return writer.writeValueAsBytes(ucsbDates);
+  }
+
+  @Benchmark
+  public byte[] ucsbDiningCommons() throws JsonProcessingException {
+    return writer.writeValueAsBytes(diningCommons);
+  }
+
+  @Benchmark
+  public byte[] ucsbDiningCommonsMenuItems() throws JsonProcessingException {
+    return writer.writeValueAsBytes(menuItems);
+  }
+
+  @Benchmark
+  public byte[] ucsbOrganizations() throws JsonProcessingException {
+    return writer.writeValueAsBytes(organizations);
+  }
+}
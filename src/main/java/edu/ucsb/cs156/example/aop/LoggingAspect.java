@@ -1,23 +1,41 @@
 package edu.ucsb.cs156.example.aop;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Optional;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is an Aspect that logs all invocations of controller methods that are annotated
  * with {@code @RequestMapping}, {@code @GetMapping}, {@code @PostMapping}, {@code @PutMapping}, {@code @DeleteMapping},
  * or {@code @PatchMapping}.
  * 
+ * How much is logged is set by {@code app.access-log.mode}:
+ * <ul>
+ * <li>{@code all} (the default) logs every request,</li>
+ * <li>{@code sampled} logs about one request in {@code app.access-log.sample-every},</li>
+ * <li>{@code async} logs every request from a background thread, dropping lines if it falls behind,</li>
+ * <li>{@code off} logs nothing.</li>
+ * </ul>
+ * Whether a controller method is logged at all is decided once per method and cached.
+ * 
  * For more information on Aspect Oriented Programming (AOP)
  * and AspectJ, including what a {@code JoinPoint} is, 
  * refer to <a href="https://www.baeldung.com/aspectj">https://www.baeldung.com/aspectj</a> 
@@ -38,8 +56,44 @@ public class LoggingAspect {
       @annotation(org.springframework.web.bind.annotation.PatchMapping)
       """;
 
-  private ArrayList<String> stoplist = new ArrayList<String>(Arrays.asList(
-      "edu.ucsb.cs156.example.controllers.FrontendProxyController"));
+  /**
+   * The access log modes, see the class comment.
+   */
+  public enum Mode { OFF, ALL, SAMPLED, ASYNC }
+
+  private static final Set<String> stoplist = Set.of(
+      "edu.ucsb.cs156.example.controllers.FrontendProxyController");
+
+  private final Map<Method, Boolean> decisions = new ConcurrentHashMap<>();
+
+  private final Mode mode;
+
+  private final int sampleEvery;
+
+  private final ThreadPoolExecutor asyncLogger;
+
+  /**
+   * Create the aspect
+   * @param mode the access log mode ({@code app.access-log.mode})
+   * @param sampleEvery in sampled mode, log about one request in this many ({@code app.access-log.sample-every})
+   * @param queueSize in async mode, the most log lines waiting to be written ({@code app.access-log.queue-size})
+   */
+  public LoggingAspect(
+      @Value("${app.access-log.mode:all}") Mode mode,
+      @Value("${app.access-log.sample-every:100}") int sampleEvery,
+      @Value("${app.access-log.queue-size:10000}") int queueSize) {
+    this.mode = mode;
+    this.sampleEvery = Math.max(1, sampleEvery);
+    this.asyncLogger = mode != Mode.ASYNC ? null
+        : new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
+            runnable -> {
+              Thread thread = new Thread(runnable, "access-log");
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.DiscardPolicy());
+    log.info("access log mode={} sampleEvery={}", mode, this.sampleEvery);
+  }
 
   /**
    * This method is called before any controller method that is annotated with
@@ -49,26 +103,39 @@ public class LoggingAspect {
    */
   @Before(pointcut)
   public void logControllers(JoinPoint joinPoint) {
-    getCurrentHttpRequest().ifPresent(
-        request -> {
-          String declaringTypeName = joinPoint.getSignature().getDeclaringTypeName();
-          if (!stoplist.contains(declaringTypeName)) {
-            log.info("===== %s %s handled by %s in %s".formatted(request.getMethod(), request.getRequestURI(),
-                joinPoint.getSignature().getName(), declaringTypeName));
-          }
-        });
+    if (mode == Mode.OFF || !log.isInfoEnabled()) {
+      return;
+    }
+    Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+    if (!decisions.computeIfAbsent(method, m -> !stoplist.contains(m.getDeclaringClass().getName()))) {
+      return;
+    }
+    if (mode == Mode.SAMPLED && ThreadLocalRandom.current().nextInt(sampleEvery) != 0) {
+      return;
+    }
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+      return;
+    }
+    HttpServletRequest request = servletAttributes.getRequest();
+    String httpMethod = request.getMethod();
+    String uri = request.getRequestURI();
+    if (mode == Mode.ASYNC) {
+      asyncLogger.execute(() -> log.info("===== {} {} handled by {} in {}", httpMethod, uri,
+          method.getName(), method.getDeclaringClass().getName()));
+    } else {
+      log.info("===== {} {} handled by {} in {}", httpMethod, uri,
+          method.getName(), method.getDeclaringClass().getName());
+    }
   }
 
   /**
-   * The function `getCurrentHttpRequest` returns an `Optional` containing the current
-   * `HttpServletRequest` if available.
-   * 
-   * @return An Optional object containing the current HttpServletRequest, if available.
+   * Stops the background thread used in async mode.
    */
-  private static Optional<HttpServletRequest> getCurrentHttpRequest() {
-    return Optional.ofNullable(RequestContextHolder.getRequestAttributes())
-        .filter(ServletRequestAttributes.class::isInstance)
-        .map(ServletRequestAttributes.class::cast)
-        .map(ServletRequestAttributes::getRequest);
+  @PreDestroy
+  public void shutdown() {
+    if (asyncLogger != null) {
+      asyncLogger.shutdown();
+    }
   }
 }
@@ -0,0 +1,140 @@
+package edu.ucsb.cs156.example.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * The `BulkRequestSizeConfig` class caps the size of the bodies sent to the bulk create
+ * endpoints (<code>POST /api/.../bulk</code>), so that a JSON array or CSV text is never
+ * read into memory past <code>app.bulk.max-body-size</code>.
+ *
+ * A request whose Content-Length is over the cap is refused with 413 before its body is
+ * read.  A request without a Content-Length (a chunked upload) is read until the cap is
+ * reached, after which reading fails and the request is refused with 400.  The number
+ * of rows is checked separately, by BulkImportService.
+ */
+@Configuration
+public class BulkRequestSizeConfig {
+
+  /**
+   * The filter that caps the size of bulk request bodies.
+   *
+   * @param maxBodySize the largest body that may be sent (<code>app.bulk.max-body-size</code>)
+   * @return the filter, registered for the <code>/api</code> routes
+   */
+  @Bean
+  public FilterRegistrationBean<BulkRequestSizeFilter> bulkRequestSizeFilter(
+      @Value("${app.bulk.max-body-size:10MB}") DataSize maxBodySize) {
+    FilterRegistrationBean<BulkRequestSizeFilter> registration =
+        new FilterRegistrationBean<>(new BulkRequestSizeFilter(maxBodySize.toBytes()));
+    registration.addUrlPatterns("/api/*");
+    return registration;
+  }
+}
+
+final class BulkRequestSizeFilter extends OncePerRequestFilter {
+  private final long maxBytes;
+
+  BulkRequestSizeFilter(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !"POST".equals(request.getMethod()) || !request.getRequestURI().endsWith("/bulk");
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    if (request.getContentLengthLong() > maxBytes) {
+      response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(),
+          "a bulk request body may be at most %d bytes".formatted(maxBytes));
+      return;
+    }
+    filterChain.doFilter(new CappedRequest(request, maxBytes), response);
+  }
+
+  private static final class CappedRequest extends HttpServletRequestWrapper {
+    private final long maxBytes;
+    private ServletInputStream capped;
+
+    CappedRequest(HttpServletRequest request, long maxBytes) {
+      super(request);
+      this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+      if (capped == null) {
+        capped = new CappedInputStream(super.getInputStream(), maxBytes);
+      }
+      return capped;
+    }
+  }
+
+  private static final class CappedInputStream extends ServletInputStream {
+    private final ServletInputStream in;
+    private final long maxBytes;
+    private long read;
+
+    CappedInputStream(ServletInputStream in, long maxBytes) {
+      this.in = in;
+      this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = in.read();
+      if (b != -1) {
+        count(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int n = in.read(buffer, offset, length);
+      if (n > 0) {
+        count(n);
+      }
+      return n;
+    }
+
+    private void count(int n) throws IOException {
+      read += n;
+      if (read > maxBytes) {
+        throw new IOException("a bulk request body may be at most %d bytes".formatted(maxBytes));
+      }
+    }
+
+    @Override
+    public boolean isFinished() {
+      return in.isFinished();
+    }
+
+    @Override
+    public boolean isReady() {
+      return in.isReady();
+    }
+
+    @Override
+    public void setReadListener(ReadListener readListener) {
+      in.setReadListener(readListener);
+    }
+  }
+}
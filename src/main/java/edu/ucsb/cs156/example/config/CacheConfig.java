@@ -0,0 +1,45 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The `CacheConfig` class turns on Spring's annotation-driven caching.
+ *
+ * The small, rarely changing reference tables (dining commons and organizations) are
+ * cached in their repositories with {@code @Cacheable}, and evicted by {@code @CacheEvict}
+ * when a row is saved or deleted.  The caches are Caffeine caches; their names, size and
+ * TTL are set by the <code>spring.cache.*</code> properties in application.properties,
+ * and their hit/miss statistics are published as <code>cache.*</code> metrics.
+ *
+ * The cache manager is transaction aware: inside a transaction (e.g. a bulk create) an
+ * eviction waits until the commit.  Otherwise a concurrent read between the eviction
+ * and the commit would cache the rows from before the transaction for a whole TTL.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+  /**
+   * Wraps the cache manager that Spring Boot builds from the <code>spring.cache.*</code>
+   * properties, so that puts and evictions inside a transaction happen after it commits.
+   *
+   * @return the post processor that wraps the cache manager
+   */
+  @Bean
+  public static BeanPostProcessor transactionAwareCacheManager() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof CacheManager cacheManager && !(bean instanceof TransactionAwareCacheManagerProxy)) {
+          return new TransactionAwareCacheManagerProxy(cacheManager);
+        }
+        return bean;
+      }
+    };
+  }
+}
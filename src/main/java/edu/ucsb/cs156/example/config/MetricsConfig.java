@@ -0,0 +1,207 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.services.AdminService;
+import edu.ucsb.cs156.example.services.UserCacheService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * The `MetricsConfig` class adds the metrics that Spring Boot does not record on its own.
+ *
+ * Per-endpoint timers (<code>http.server.requests</code>, tagged with status, outcome and
+ * exception, so they also give error counts) and per-repository timers
+ * (<code>spring.data.repository.invocations</code>) come from Actuator; their percentiles
+ * are configured in application.properties.  This class adds a response size summary
+ * for the <code>/api</code> routes and the hit/miss statistics of the user caches.
+ * Everything is exposed at <code>/actuator/prometheus</code>, which only admins may read.
+ */
+@Configuration
+public class MetricsConfig {
+
+  /**
+   * Records the number of bytes written for each <code>/api</code> response as the
+   * <code>http.server.response.size</code> distribution summary.
+   * 
+   * @param registry the meter registry (injected by Spring framework)
+   * @return the filter
+   */
+  @Bean
+  public ResponseSizeFilter responseSizeFilter(MeterRegistry registry) {
+    return new ResponseSizeFilter(registry);
+  }
+
+  // The tags match those Spring Boot puts on the Spring caches (see CacheConfig);
+  // Prometheus requires every meter with the same name to have the same tag keys.
+
+  /**
+   * Publishes the statistics of the cache used by the current user lookup.
+   * 
+   * @param userCache the user cache (injected by Spring framework)
+   * @return the binder
+   */
+  @Bean
+  public MeterBinder userCacheMetrics(UserCacheService userCache) {
+    return registry -> CaffeineCacheMetrics.monitor(registry, userCache.getCache(), "users",
+        Tags.of("cache.manager", "userCache", "name", "users"));
+  }
+
+  /**
+   * Publishes the statistics of the cache of admin status.
+   * 
+   * @param adminService the admin service (injected by Spring framework)
+   * @return the binder
+   */
+  @Bean
+  public MeterBinder adminCacheMetrics(AdminService adminService) {
+    return registry -> CaffeineCacheMetrics.monitor(registry, adminService.getCache(), "admins",
+        Tags.of("cache.manager", "adminService", "name", "admins"));
+  }
+}
+
+final class ResponseSizeFilter extends OncePerRequestFilter {
+  private final MeterRegistry registry;
+
+  ResponseSizeFilter(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !request.getRequestURI().startsWith("/api/");
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    CountingResponseWrapper counting = new CountingResponseWrapper(response);
+    filterChain.doFilter(request, counting);
+    counting.flushWriter();
+    if (request.isAsyncStarted()) {
+      // streamed bodies (e.g. NDJSON) are still being written; record once the response completes
+      request.getAsyncContext().addListener(new AsyncListener() {
+        public void onComplete(AsyncEvent event) {
+          record(request, counting);
+        }
+
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        public void onError(AsyncEvent event) {
+        }
+
+        public void onStartAsync(AsyncEvent event) {
+        }
+      });
+    } else {
+      record(request, counting);
+    }
+  }
+
+  private void record(HttpServletRequest request, CountingResponseWrapper response) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    DistributionSummary.builder("http.server.response.size")
+        .description("Size of the body of each /api response")
+        .baseUnit("bytes")
+        .tag("method", request.getMethod())
+        .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+        .tag("status", Integer.toString(response.getStatus()))
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(registry)
+        .record(response.getByteCount());
+  }
+}
+
+final class CountingResponseWrapper extends HttpServletResponseWrapper {
+  private ServletOutputStream outputStream;
+  private PrintWriter writer;
+  private long byteCount;
+
+  CountingResponseWrapper(HttpServletResponse response) {
+    super(response);
+  }
+
+  long getByteCount() {
+    return byteCount;
+  }
+
+  void flushWriter() {
+    if (writer != null) {
+      writer.flush();
+    }
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream() throws IOException {
+    if (outputStream == null) {
+      ServletOutputStream delegate = super.getOutputStream();
+      outputStream = new ServletOutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+          delegate.write(b);
+          byteCount++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+          delegate.write(b, off, len);
+          byteCount += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+          delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+          delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+          return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+          delegate.setWriteListener(writeListener);
+        }
+      };
+    }
+    return outputStream;
+  }
+
+  @Override
+  public PrintWriter getWriter() throws IOException {
+    if (writer == null) {
+      writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+    }
+    return writer;
+  }
+
+  @Override
+  public void flushBuffer() throws IOException {
+    flushWriter();
+    super.flushBuffer();
+  }
+}
@@ -0,0 +1,18 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * The `SchedulingConfig` class turns on {@code @Async} methods and {@code @Scheduled}
+ * jobs (such as the help request event heartbeat, see HelpRequestEventService).
+ *
+ * They are always on; whether they run on platform or virtual threads is decided
+ * separately by <code>spring.threads.virtual.enabled</code> (see VirtualThreadsConfig).
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,44 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.PathResourceResolver;
+
+import java.time.Duration;
+
+/**
+ * The `StaticResourcesConfig` class sets how the built frontend is served.
+ *
+ * Everything under <code>/static/</code> has a content hash in its file name (it is written
+ * by <code>npm run build</code>), so those files are sent with a long-lived, immutable
+ * Cache-Control header.  The build also writes <code>.br</code> and <code>.gz</code> copies of
+ * the larger files (see frontend/scripts/compress.js); the EncodedResourceResolver picks the
+ * copy that matches the request's Accept-Encoding header.  Other files, such as index.html,
+ * are handled by Spring Boot's default resource handler, configured with
+ * <code>spring.web.resources.*</code> in application.properties.
+ *
+ * Like the FrontendController, this is not used in development, where the frontend is
+ * served by the React development server.
+ */
+@Profile("!development")
+@Configuration
+public class StaticResourcesConfig implements WebMvcConfigurer {
+
+  @Value("${app.static.hashed-assets.max-age:P365D}")
+  private Duration hashedAssetsMaxAge;
+
+  @Override
+  public void addResourceHandlers(ResourceHandlerRegistry registry) {
+    registry.addResourceHandler("/static/**")
+        .addResourceLocations("classpath:/public/static/")
+        .setCacheControl(CacheControl.maxAge(hashedAssetsMaxAge).cachePublic().immutable())
+        .resourceChain(true)
+        .addResolver(new EncodedResourceResolver())
+        .addResolver(new PathResourceResolver());
+  }
+}
@@ -0,0 +1,110 @@
+package edu.ucsb.cs156.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * The `VirtualThreadsConfig` class watches for virtual threads being pinned, when
+ * virtual threads are turned on.
+ *
+ * Virtual threads are opt-in: set <code>VIRTUAL_THREADS=true</code>, which sets
+ * <code>spring.threads.virtual.enabled</code>.  Spring Boot then runs Tomcat request
+ * handling, {@code @Async} methods and {@code @Scheduled} jobs (which SchedulingConfig
+ * turns on either way) on virtual threads.
+ *
+ * A virtual thread that blocks inside a {@code synchronized} block (as the H2 driver
+ * and some connection pool paths do) pins its carrier thread.  The monitor streams
+ * the JFR <code>jdk.VirtualThreadPinned</code> event, records every pin in the
+ * <code>jvm.threads.virtual.pinned</code> timer, and logs the stack trace the first
+ * time each distinct pinning site is seen.
+ */
+@Configuration
+public class VirtualThreadsConfig {
+
+  /**
+   * The pinning monitor, only created when virtual threads are enabled.
+   * 
+   * @param registry  the meter registry (injected by Spring framework)
+   * @param threshold report pins that last at least this long
+   *                  (<code>app.virtual-threads.pinned-threshold</code>)
+   * @return the monitor
+   */
+  @Bean
+  @ConditionalOnThreading(Threading.VIRTUAL)
+  public VirtualThreadPinningMonitor virtualThreadPinningMonitor(MeterRegistry registry,
+      @Value("${app.virtual-threads.pinned-threshold:PT0.02S}") Duration threshold) {
+    return new VirtualThreadPinningMonitor(registry, threshold);
+  }
+}
+
+@Slf4j
+final class VirtualThreadPinningMonitor implements SmartLifecycle {
+  private static final String EVENT = "jdk.VirtualThreadPinned";
+  private static final int FRAMES = 12;
+
+  private final Timer pinned;
+  private final Duration threshold;
+  private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+  private RecordingStream stream;
+
+  VirtualThreadPinningMonitor(MeterRegistry registry, Duration threshold) {
+    this.threshold = threshold;
+    this.pinned = Timer.builder("jvm.threads.virtual.pinned")
+        .description("Time virtual threads spent pinned to their carrier thread")
+        .register(registry);
+  }
+
+  @Override
+  public void start() {
+    stream = new RecordingStream();
+    stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+    stream.onEvent(EVENT, this::onPinned);
+    stream.startAsync();
+    log.info("watching for virtual threads pinned longer than {}", threshold);
+  }
+
+  @Override
+  public void stop() {
+    stream.close();
+    stream = null;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return stream != null;
+  }
+
+  private void onPinned(RecordedEvent event) {
+    pinned.record(event.getDuration());
+    if (event.getStackTrace() == null) {
+      return;
+    }
+    String site = event.getStackTrace().getFrames().stream()
+        .limit(FRAMES)
+        .map(VirtualThreadPinningMonitor::format)
+        .collect(Collectors.joining("\n\tat ", "\tat ", ""));
+    if (reportedSites.add(site)) {
+      log.warn("virtual thread pinned for {} ms\n{}", event.getDuration().toMillis(), site);
+    }
+  }
+
+  private static String format(RecordedFrame frame) {
+    return "%s.%s(line %d)".formatted(frame.getMethod().getType().getName(), frame.getMethod().getName(),
+        frame.getLineNumber());
+  }
+}
@@ -1,16 +1,35 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.errors.BulkImportException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 
 import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.EntityStreamingService;
+import edu.ucsb.cs156.example.services.TableVersionService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStream;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * This is an abstract class that provides common functionality for all API controllers.
@@ -18,9 +37,27 @@ import java.util.Map;
 
 @Slf4j
 public abstract class ApiController {
+  /** Page size used when a keyset page is requested without a limit */
+  public static final int DEFAULT_PAGE_SIZE = 100;
+
+  /** Largest page size a client may ask for */
+  public static final int MAX_PAGE_SIZE = 1000;
+
+  /** Content type of CSV request bodies (the bulk create endpoints) */
+  public static final String TEXT_CSV_VALUE = "text/csv";
+
+  /** Content type of gzipped exports */
+  private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
   @Autowired
   private CurrentUserService currentUserService;
 
+  @Autowired
+  private EntityStreamingService entityStreamingService;
+
+  @Autowired
+  private TableVersionService tableVersionService;
+
   /**
    * This method returns the current user.
    * @return the current user
@@ -38,6 +75,121 @@ public abstract class ApiController {
     return Map.of("message", message);
   }
 
+  /**
+   * This method returns one keyset page of rows.  The query is asked for one row more
+   * than the page size so that we know whether a next page exists.
+   * @param <T> the type of the rows
+   * @param limit the requested page size (null for the default); clamped to 1..MAX_PAGE_SIZE
+   * @param query runs the keyset query, given the number of rows to fetch
+   * @param key extracts the key of a row, used as the next cursor
+   * @return the page
+   */
+  protected <T> KeysetPage<T> keysetPage(Integer limit, Function<Limit, List<T>> query, Function<T, Object> key) {
+    int pageSize = pageSize(limit);
+    List<T> rows = query.apply(Limit.of(pageSize + 1));
+    return KeysetPage.of(rows, pageSize, key);
+  }
+
+  /**
+   * This method returns the page size to use for a requested limit.
+   * @param limit the requested page size (null for the default)
+   * @return the limit clamped to 1..MAX_PAGE_SIZE, or DEFAULT_PAGE_SIZE
+   */
+  protected int pageSize(Integer limit) {
+    return (limit == null) ? DEFAULT_PAGE_SIZE : Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+  }
+
+  /**
+   * This method returns a response that streams rows to the client as newline-delimited JSON
+   * while they are read from the database, so memory use does not depend on the number of rows.
+   * @param <T> the type of the rows
+   * @param source opens the stream of rows, e.g. a repository streamAllBy method
+   * @return a response entity whose body writes the rows
+   */
+  protected <T> ResponseEntity<StreamingResponseBody> ndjson(Supplier<Stream<T>> source) {
+    StreamingResponseBody body = out -> entityStreamingService.writeNdjson(source, out);
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
+  /**
+   * This method returns a response that streams rows to the client as one JSON array while
+   * they are read from the database, so memory use does not depend on the number of rows.
+   * @param <T> the type of the rows
+   * @param source opens the stream of rows, e.g. a repository stream method
+   * @return a response entity whose body writes the rows
+   */
+  protected <T> ResponseEntity<StreamingResponseBody> jsonArray(Supplier<Stream<T>> source) {
+    StreamingResponseBody body = out -> entityStreamingService.writeJsonArray(source, out);
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+  }
+
+  /**
+   * This method returns a response that streams all rows of a table to the client as a file
+   * download, in CSV or newline-delimited JSON and optionally gzipped.  As with
+   * {@link #ndjson(Supplier)}, rows are written while they are read from the database.
+   * @param <T> the type of the rows
+   * @param name the name of the file, without an extension
+   * @param type the class of the rows, from which the CSV columns are taken
+   * @param source opens the stream of rows, e.g. a repository streamAllBy method
+   * @param format the format to write
+   * @param gzip whether to gzip the file
+   * @return a response entity whose body writes the rows
+   */
+  protected <T> ResponseEntity<StreamingResponseBody> export(String name, Class<T> type, Supplier<Stream<T>> source,
+      ExportFormat format, boolean gzip) {
+    StreamingResponseBody body = out -> {
+      OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+      if (format == ExportFormat.CSV) {
+        entityStreamingService.writeCsv(type, source, target);
+      } else {
+        entityStreamingService.writeNdjson(source, target);
+      }
+      if (target instanceof GZIPOutputStream gzipped) {
+        gzipped.finish();
+      }
+    };
+    String filename = name + "." + format.getExtension() + (gzip ? ".gz" : "");
+    return ResponseEntity.ok()
+        .contentType(gzip ? GZIP : format.getMediaType())
+        .header(HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename(filename).build().toString())
+        .body(body);
+  }
+
+  /**
+   * This method answers a conditional GET.  The ETag is the current version of the entity's
+   * table, so when it matches the client's If-None-Match header the response is 304 Not Modified
+   * and the body (usually a query) is never computed.  Responses are marked
+   * <code>Cache-Control: private, no-cache</code> so browsers keep them but revalidate each time.
+   * @param <T> the type of the body
+   * @param request the current request
+   * @param entityClass the entity whose table the body is read from
+   * @param body computes the body when the client's copy is out of date
+   * @return a 304 response, or a 200 response with the body and the ETag
+   */
+  protected <T> ResponseEntity<T> conditionalGet(WebRequest request, Class<?> entityClass, Supplier<T> body) {
+    String etag = tableVersionService.etag(entityClass);
+    CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+    if (request.checkNotModified(etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+    }
+    return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(body.get());
+  }
+
+  /**
+   * This method handles the BulkImportException.
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({ BulkImportException.class })
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleBulkImportException(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", e.getMessage()
+    );
+  }
+
   /**
    * This method handles the EntityNotFoundException.
    * @param e the exception
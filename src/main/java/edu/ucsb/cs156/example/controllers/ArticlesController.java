@@ -3,7 +3,12 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ArticleHit;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.services.ArticleSearchService;
+import edu.ucsb.cs156.example.services.BulkImportService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,6 +19,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,10 +30,16 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * This is a REST controller for Articles
@@ -41,17 +54,112 @@ public class ArticlesController extends ApiController {
     @Autowired
     ArticlesRepository ArticlesRepository;
 
+    @Autowired
+    BulkImportService bulkImportService;
+
+    @Autowired
+    ArticleSearchService articleSearchService;
+
     /**
      * List all articles
      * 
+     * @param request the current request, whose If-None-Match header is compared with the table version
      * @return an iterable of Articles
      */
     @Operation(summary= "List all articles", description = "Retrieve all articles from the database")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = { "!after", "!limit" })
+    public ResponseEntity<Iterable<Articles>> allArticles(WebRequest request) {
+        return conditionalGet(request, Articles.class, () -> ArticlesRepository.findAll());
+    }
+
+    /**
+     * List one keyset page of articles; chosen when after or limit is given
+     * 
+     * @param after id of the last article on the previous page
+     * @param limit page size
+     * @param request the current request, whose If-None-Match header is compared with the table version
+     * @return a KeysetPage of Articles
+     */
+    @Operation(summary= "List one page of articles", description = "Retrieve one page of articles from the database")
+    @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<Articles> allArticles() {
-        Iterable<Articles> articles = ArticlesRepository.findAll();
-        return articles;
+    public ResponseEntity<KeysetPage<Articles>> articlesPage(
+            @Parameter(name="after", description="id of the last article on the previous page") @RequestParam(required = false) Long after,
+            @Parameter(name="limit", description="page size") @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        return conditionalGet(request, Articles.class, () -> keysetPage(limit,
+                l -> ArticlesRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0 : after, l),
+                Articles::getId));
+    }
+
+    /**
+     * Search the title, explanation and url of the articles, best match first, one page at a time
+     * 
+     * @param q the words to search for; an article matches if it contains any of them
+     * @param after rank of the last article on the previous page
+     * @param limit page size
+     * @param request the current request, whose If-None-Match header is compared with the table version
+     * @return a KeysetPage of ArticleHit, whose next cursor is the rank of the last match on the page
+     *         (scores depend on every article, so matches are paged by rank, and an article added or
+     *         removed between two pages can move a match across them)
+     */
+    @Operation(summary= "Search articles by keyword")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/search")
+    public ResponseEntity<KeysetPage<ArticleHit>> searchArticles(
+            @Parameter(name="q", description="the words to search for") @RequestParam String q,
+            @Parameter(name="after", description="rank of the last article on the previous page") @RequestParam(defaultValue = "0") int after,
+            @Parameter(name="limit", description="page size") @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        int offset = Math.max(after, 0);
+        int pageSize = pageSize(limit);
+        return conditionalGet(request, Articles.class, () -> {
+            List<ArticleSearchService.Hit> hits = articleSearchService.search(q, offset, pageSize + 1);
+            List<ArticleSearchService.Hit> onPage = hits.subList(0, Math.min(pageSize, hits.size()));
+            Map<Long, Articles> articles = new HashMap<>();
+            ArticlesRepository.findAllById(onPage.stream().map(ArticleSearchService.Hit::id).toList())
+                    .forEach(article -> articles.put(article.getId(), article));
+            List<ArticleHit> page = new ArrayList<>();
+            for (int i = 0; i < onPage.size(); i++) {
+                // skips an article deleted since it was found
+                Articles article = articles.get(onPage.get(i).id());
+                if (article != null) {
+                    page.add(new ArticleHit(article, offset + i + 1, onPage.get(i).score()));
+                }
+            }
+            // decided from the hits rather than the articles left, so a skipped article does not end the paging
+            return new KeysetPage<>(page, hits.size() > pageSize ? (Object) (offset + pageSize) : null);
+        });
+    }
+
+    /**
+     * Stream all articles as newline-delimited JSON; chosen when the client sends Accept: application/x-ndjson
+     * 
+     * @return a response whose body streams the articles
+     */
+    @Operation(summary= "Stream all articles as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = { "!after", "!limit" }, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllArticles() {
+        return ndjson(ArticlesRepository::streamAllBy);
+    }
+
+    /**
+     * Export all articles as a file, streamed from the database so that memory use does not
+     * depend on the size of the table
+     * 
+     * @param format CSV (with a header row, readable by POST /bulk) or NDJSON
+     * @param gzip whether to gzip the file
+     * @return a response whose body streams the articles
+     */
+    @Operation(summary= "Export all articles as CSV or NDJSON")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportArticles(
+            @Parameter(name="format", description="CSV or NDJSON") @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @Parameter(name="gzip", description="whether to gzip the file") @RequestParam(defaultValue = "false") boolean gzip) {
+        return export("articles", Articles.class, ArticlesRepository::streamAllBy, format, gzip);
     }
 
     /**
@@ -90,22 +198,52 @@ public class ArticlesController extends ApiController {
         return savedArticle;        
     }
 
+    /**
+     * Create many articles at once, from a JSON array
+     * 
+     * @param rows the articles to create; any ids are ignored, and new ids are assigned
+     * @return the saved articles
+     */
+    @Operation(summary= "Create many articles at once from a JSON array")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<Articles> postBulkArticles(
+            @RequestBody List<Articles> rows) {
+        rows.forEach(row -> row.setId(0));
+        return bulkImportService.createAll(ArticlesRepository, rows);
+    }
+
+    /**
+     * Create many articles at once, from CSV whose header row names the columns,
+     * e.g. <code>title,url,explanation,email,dateAdded</code>
+     * 
+     * @param csv the CSV text
+     * @return the saved articles
+     */
+    @Operation(summary= "Create many articles at once from CSV with a header row")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = TEXT_CSV_VALUE)
+    public List<Articles> postBulkArticlesCsv(
+            @RequestBody String csv) {
+        return postBulkArticles(bulkImportService.readCsv(csv, Articles.class));
+    }
+
 
      /**
      * Get a single article by id
      * 
      * @param id the id of the article
+     * @param request the current request, whose If-None-Match header is compared with the table version
      * @return an article
      */
     @Operation(summary= "Get a single article", description = "Retrieve a single article by providing the ID")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public Articles getById(
-            @Parameter(name="id") @RequestParam Long id) {
-        Articles article = ArticlesRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
-
-        return article;
+    public ResponseEntity<Articles> getById(
+            @Parameter(name="id") @RequestParam Long id,
+            WebRequest request) {
+        return conditionalGet(request, Articles.class, () -> ArticlesRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(Articles.class, id)));
     }
 
     /**
@@ -0,0 +1,39 @@
+package edu.ucsb.cs156.example.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.ucsb.cs156.example.models.CacheStatistics;
+import edu.ucsb.cs156.example.services.CacheStatisticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+/**
+ * This is a REST controller for getting the statistics of the Hibernate second-level cache.
+ *
+ * These endpoints are only accessible to users with the role "ROLE_ADMIN".
+ *
+ * @see edu.ucsb.cs156.example.services.CacheStatisticsService
+ */
+
+@Tag(name="Cache statistics (admin only)")
+@RequestMapping("/api/admin/cachestats")
+@RestController
+public class CacheStatisticsController extends ApiController {
+    @Autowired
+    CacheStatisticsService cacheStatisticsService;
+
+    /**
+     * This method returns the statistics of the second-level cache.  Accessible only to users with the role "ROLE_ADMIN".
+     * @return the cache statistics
+     */
+    @Operation(summary= "Get the statistics of the Hibernate second-level and query caches")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("")
+    public CacheStatistics cacheStatistics() {
+        return cacheStatisticsService.getCacheStatistics();
+    }
+}
@@ -3,8 +3,12 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.BulkImportService;
+import edu.ucsb.cs156.example.services.HelpRequestEventService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,20 +18,30 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * This is a REST controller for UCSBDates
@@ -42,17 +56,123 @@ public class HelpRequestController extends ApiController {
     @Autowired
     HelpRequestRepository helpRequestRepository;
 
+    @Autowired
+    BulkImportService bulkImportService;
+
+    @Autowired
+    HelpRequestEventService helpRequestEventService;
+
     /**
      * List all help requests
      * 
+     * @param request the current request, whose If-None-Match header is compared with the table version
      * @return an iterable of HelpRequest
      */
     @Operation(summary= "List all help requests")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = { "!after", "!limit" })
+    public ResponseEntity<Iterable<HelpRequest>> allHelpRequests(WebRequest request) {
+        return conditionalGet(request, HelpRequest.class, () -> helpRequestRepository.findAll());
+    }
+
+    /**
+     * List one keyset page of help requests; chosen when after or limit is given
+     * 
+     * @param after id of the last help request on the previous page
+     * @param limit page size
+     * @param request the current request, whose If-None-Match header is compared with the table version
+     * @return a KeysetPage of HelpRequest
+     */
+    @Operation(summary= "List one page of help requests")
+    @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<HelpRequest> allHelpRequests() {
-        Iterable<HelpRequest> requests = helpRequestRepository.findAll();
-        return requests;
+    public ResponseEntity<KeysetPage<HelpRequest>> helpRequestsPage(
+            @Parameter(name="after", description="id of the last help request on the previous page") @RequestParam(required = false) Long after,
+            @Parameter(name="limit", description="page size") @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        return conditionalGet(request, HelpRequest.class, () -> keysetPage(limit,
+                l -> helpRequestRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0 : after, l),
+                HelpRequest::getId));
+    }
+
+    /**
+     * List one keyset page of the open queue: unsolved help requests, oldest first, optionally for one team only
+     * 
+     * @param teamId only list help requests from this team
+     * @param afterRequestTime requestTime of the last help request on the previous page
+     * @param afterId id of the last help request on the previous page
+     * @param limit page size
+     * @param request the current request, whose If-None-Match header is compared with the table version
+     * @return a KeysetPage of HelpRequest, whose next cursor holds the afterRequestTime and afterId
+     *         of the next page
+     */
+    @Operation(summary= "List unsolved help requests, oldest first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/queue")
+    public ResponseEntity<KeysetPage<HelpRequest>> helpRequestQueue(
+            @Parameter(name="teamId", description="only list help requests from this team") @RequestParam(required = false) String teamId,
+            @Parameter(name="afterRequestTime", description="requestTime of the last help request on the previous page") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterRequestTime,
+            @Parameter(name="afterId", description="id of the last help request on the previous page") @RequestParam(defaultValue = "0") long afterId,
+            @Parameter(name="limit", description="page size") @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        Function<Limit, List<HelpRequest>> query;
+        if (teamId == null && afterRequestTime == null) {
+            query = l -> helpRequestRepository.findOpenQueue(l);
+        } else if (teamId == null) {
+            query = l -> helpRequestRepository.findOpenQueueAfter(afterRequestTime, afterId, l);
+        } else if (afterRequestTime == null) {
+            query = l -> helpRequestRepository.findTeamOpenQueue(teamId, l);
+        } else {
+            query = l -> helpRequestRepository.findTeamOpenQueueAfter(teamId, afterRequestTime, afterId, l);
+        }
+        return conditionalGet(request, HelpRequest.class, () -> keysetPage(limit, query,
+                h -> Map.of("afterRequestTime", h.getRequestTime(), "afterId", h.getId())));
+    }
+
+    /**
+     * Stream all help requests as newline-delimited JSON; chosen when the client sends Accept: application/x-ndjson
+     * 
+     * @return a response whose body streams the help requests
+     */
+    @Operation(summary= "Stream all help requests as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = { "!after", "!limit" }, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllHelpRequests() {
+        return ndjson(helpRequestRepository::streamAllBy);
+    }
+
+    /**
+     * Export all help requests as a file, streamed from the database so that memory use does not
+     * depend on the size of the table
+     * 
+     * @param format CSV (with a header row, readable by POST /bulk) or NDJSON
+     * @param gzip whether to gzip the file
+     * @return a response whose body streams the help requests
+     */
+    @Operation(summary= "Export all help requests as CSV or NDJSON")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportHelpRequests(
+            @Parameter(name="format", description="CSV or NDJSON") @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @Parameter(name="gzip", description="whether to gzip the file") @RequestParam(defaultValue = "false") boolean gzip) {
+        return export("helprequests", HelpRequest.class, helpRequestRepository::streamAllBy, format, gzip);
+    }
+
+    /**
+     * Subscribe to changes to help requests as server-sent events: <code>created</code>,
+     * <code>updated</code> and <code>deleted</code>, each with the help request as data.
+     * A client that reconnects with Last-Event-ID is sent the events it missed, or a
+     * <code>reset</code> event if it should reload the list from /all.
+     * 
+     * @param lastEventId the id of the last event the client saw, sent by EventSource when it reconnects
+     * @return the emitter that the events are sent through
+     */
+    @Operation(summary= "Subscribe to help request changes as server-sent events")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter helpRequestEvents(
+            @Parameter(name="Last-Event-ID", description="id of the last event received") @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return helpRequestEventService.subscribe(lastEventId);
     }
 
     /**
@@ -90,21 +210,51 @@ public class HelpRequestController extends ApiController {
         return savedHelpRequest;
     }
 
+    /**
+     * Create many help requests at once, from a JSON array
+     * 
+     * @param rows the help requests to create; any ids are ignored, and new ids are assigned
+     * @return the saved help requests
+     */
+    @Operation(summary= "Create many help requests at once from a JSON array")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<HelpRequest> postBulkHelpRequests(
+            @RequestBody List<HelpRequest> rows) {
+        rows.forEach(row -> row.setId(0));
+        return bulkImportService.createAll(helpRequestRepository, rows);
+    }
+
+    /**
+     * Create many help requests at once, from CSV whose header row names the columns,
+     * e.g. <code>requesterEmail,teamId,tableOrBreakoutRoom,requestTime,explanation,solved</code>
+     * 
+     * @param csv the CSV text
+     * @return the saved help requests
+     */
+    @Operation(summary= "Create many help requests at once from CSV with a header row")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = TEXT_CSV_VALUE)
+    public List<HelpRequest> postBulkHelpRequestsCsv(
+            @RequestBody String csv) {
+        return postBulkHelpRequests(bulkImportService.readCsv(csv, HelpRequest.class));
+    }
+
     /**
      * Get a single help request by id
      * 
      * @param id the id of the help request
+     * @param request the current request, whose If-None-Match header is compared with the table version
      * @return a HelpRequest
      */
     @Operation(summary = "Get a single help request by id")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public HelpRequest getById(
-            @Parameter(name = "id") @RequestParam Long id) {
-        HelpRequest helpRequest = helpRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
-
-        return helpRequest;
+    public ResponseEntity<HelpRequest> getById(
+            @Parameter(name = "id") @RequestParam Long id,
+            WebRequest request) {
+        return conditionalGet(request, HelpRequest.class, () -> helpRequestRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id)));
     }
 
     /**
@@ -3,7 +3,12 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.MenuItemRating;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.BulkImportService;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,6 +19,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,10 +30,13 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Tag(name = "MenuItemReview")
 @RequestMapping("/api/menuitemreview")
@@ -37,14 +47,80 @@ public class MenuItemReviewController extends ApiController{
     @Autowired
     MenuItemReviewRepository menuItemReviewRepository;
 
+    @Autowired
+    BulkImportService bulkImportService;
+
+    @Autowired
+    MenuItemRatingService menuItemRatingService;
+
     @Operation(summary= "List all menu item reviews")
+        @PreAuthorize("hasRole('ROLE_USER')")
+        @GetMapping(value = "/all", params = { "!after", "!limit" })
+        public ResponseEntity<Iterable<MenuItemReview>> allMenuItemReviews(WebRequest request) {
+            return conditionalGet(request, MenuItemReview.class, () -> menuItemReviewRepository.findAll());
+        }
+
+        /**
+         * List one keyset page of menu item reviews; chosen when after or limit is given
+         * 
+         * @param after id of the last review on the previous page
+         * @param limit page size
+         * @param request the current request, whose If-None-Match header is compared with the table version
+         * @return a KeysetPage of MenuItemReview
+         */
+        @Operation(summary= "List one page of menu item reviews")
         @PreAuthorize("hasRole('ROLE_USER')")
         @GetMapping("/all")
-        public Iterable<MenuItemReview> allMenuItemReviews() {
-            Iterable<MenuItemReview> reviews = menuItemReviewRepository.findAll();
-            return reviews;
+        public ResponseEntity<KeysetPage<MenuItemReview>> menuItemReviewsPage(
+                @Parameter(name="after", description="id of the last review on the previous page") @RequestParam(required = false) Long after,
+                @Parameter(name="limit", description="page size") @RequestParam(required = false) Integer limit,
+                WebRequest request) {
+            return conditionalGet(request, MenuItemReview.class, () -> keysetPage(limit,
+                    l -> menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0 : after, l),
+                    MenuItemReview::getId));
         }
 
+        @Operation(summary= "Stream all menu item reviews as newline-delimited JSON")
+        @PreAuthorize("hasRole('ROLE_USER')")
+        @GetMapping(value = "/all", params = { "!after", "!limit" }, produces = MediaType.APPLICATION_NDJSON_VALUE)
+        public ResponseEntity<StreamingResponseBody> streamAllMenuItemReviews() {
+            return ndjson(menuItemReviewRepository::streamAllBy);
+        }
+
+        /**
+         * Export all menu item reviews as a file, streamed from the database so that memory use does not
+         * depend on the size of the table
+         * 
+         * @param format CSV (with a header row, readable by POST /bulk) or NDJSON
+         * @param gzip whether to gzip the file
+         * @return a response whose body streams the menu item reviews
+         */
+        @Operation(summary= "Export all menu item reviews as CSV or NDJSON")
+        @PreAuthorize("hasRole('ROLE_ADMIN')")
+        @GetMapping("/export")
+        public ResponseEntity<StreamingResponseBody> exportMenuItemReviews(
+                @Parameter(name="format", description="CSV or NDJSON") @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+                @Parameter(name="gzip", description="whether to gzip the file") @RequestParam(defaultValue = "false") boolean gzip) {
+            return export("menuitemreviews", MenuItemReview.class, menuItemReviewRepository::streamAllBy, format, gzip);
+        }
+
+    /**
+     * Get the rating statistics of a menu item (number of reviews, total and average stars, and
+     * number of reviews by stars), which are kept up to date in memory rather than read from its reviews
+     * 
+     * @param itemId the id of the menu item
+     * @param request the current request, whose If-None-Match header is compared with the table version
+     * @return the MenuItemRating of the item
+     */
+    @Operation(summary= "Get the rating statistics of a menu item")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/stats")
+    public ResponseEntity<MenuItemRating> menuItemRating(
+            @Parameter(name="itemId") @RequestParam long itemId,
+            WebRequest request) {
+        return conditionalGet(request, MenuItemReview.class, () -> menuItemRatingService.rating(itemId));
+    }
+
     @Operation(summary= "Create a new review")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
@@ -73,15 +149,44 @@ public class MenuItemReviewController extends ApiController{
         return savedMenuItemReview;
     }
 
+    /**
+     * Create many reviews at once, from a JSON array
+     * 
+     * @param rows the reviews to create; any ids are ignored, and new ids are assigned
+     * @return the saved reviews
+     */
+    @Operation(summary= "Create many reviews at once from a JSON array")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<MenuItemReview> postBulkMenuItemReviews(
+            @RequestBody List<MenuItemReview> rows) {
+        rows.forEach(row -> row.setId(0));
+        return bulkImportService.createAll(menuItemReviewRepository, rows);
+    }
+
+    /**
+     * Create many reviews at once, from CSV whose header row names the columns,
+     * e.g. <code>itemId,reviewerEmail,stars,dateReviewed,comments</code>
+     * 
+     * @param csv the CSV text
+     * @return the saved reviews
+     */
+    @Operation(summary= "Create many reviews at once from CSV with a header row")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = TEXT_CSV_VALUE)
+    public List<MenuItemReview> postBulkMenuItemReviewsCsv(
+            @RequestBody String csv) {
+        return postBulkMenuItemReviews(bulkImportService.readCsv(csv, MenuItemReview.class));
+    }
+
     @Operation(summary= "Get a single review")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public MenuItemReview getById(
-            @Parameter(name="id") @RequestParam Long id) {
-        MenuItemReview menuItemReview = menuItemReviewRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
-
-        return menuItemReview;
+    public ResponseEntity<MenuItemReview> getById(
+            @Parameter(name="id") @RequestParam Long id,
+            WebRequest request) {
+        return conditionalGet(request, MenuItemReview.class, () -> menuItemReviewRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id)));
     }
 
     @Operation(summary= "Delete a MenuItemReview")
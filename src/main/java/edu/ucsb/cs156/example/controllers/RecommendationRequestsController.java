@@ -11,15 +11,28 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.BulkImportService;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 @Tag(name = "recommendationRequests")
 @RequestMapping("/api/recommendationrequests")
@@ -30,11 +43,111 @@ public class RecommendationRequestsController extends ApiController {
     @Autowired
     private RecommendationRequestRepository recommendationRequestRepository;
 
+    @Autowired
+    private BulkImportService bulkImportService;
+
     @Operation(summary = "List all recommendation requests")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = { "!after", "!limit" })
+    public ResponseEntity<Iterable<RecommendationRequest>> getAllRequests(WebRequest request) {
+        return conditionalGet(request, RecommendationRequest.class, () -> recommendationRequestRepository.findAll());
+    }
+
+    /**
+     * List one keyset page of recommendation requests; chosen when after or limit is given
+     * 
+     * @param after id of the last recommendation request on the previous page
+     * @param limit page size
+     * @param request the current request, whose If-None-Match header is compared with the table version
+     * @return a KeysetPage of RecommendationRequest
+     */
+    @Operation(summary = "List one page of recommendation requests")
+    @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<RecommendationRequest> getAllRequests() {
-        return recommendationRequestRepository.findAll();
+    public ResponseEntity<KeysetPage<RecommendationRequest>> requestsPage(
+            @Parameter(name="after", description="id of the last recommendation request on the previous page") @RequestParam(required = false) Long after,
+            @Parameter(name="limit", description="page size") @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        return conditionalGet(request, RecommendationRequest.class, () -> keysetPage(limit,
+                l -> recommendationRequestRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0 : after, l),
+                RecommendationRequest::getId));
+    }
+
+    /**
+     * List one keyset page of a professor's pending queue: the recommendation requests that are not done,
+     * soonest needed first
+     * 
+     * @param professorEmail the professor
+     * @param dueWithinDays only list requests needed within this many days from now, including overdue ones
+     * @param afterDateNeeded dateNeeded of the last request on the previous page
+     * @param afterId id of the last request on the previous page
+     * @param limit page size
+     * @param request the current request, whose If-None-Match header is compared with the table version
+     *        when dueWithinDays is not given
+     * @return a KeysetPage of RecommendationRequest, whose next cursor holds the afterDateNeeded and afterId
+     *         of the next page
+     * @throws ResponseStatusException (400) if dueWithinDays is negative
+     */
+    @Operation(summary = "List a professor's pending recommendation requests, soonest needed first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/queue")
+    public ResponseEntity<KeysetPage<RecommendationRequest>> pendingQueue(
+            @Parameter(name="professorEmail") @RequestParam String professorEmail,
+            @Parameter(name="dueWithinDays", description="only list requests needed within this many days from now, including overdue ones") @RequestParam(required = false) Integer dueWithinDays,
+            @Parameter(name="afterDateNeeded", description="dateNeeded of the last request on the previous page") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterDateNeeded,
+            @Parameter(name="afterId", description="id of the last request on the previous page") @RequestParam(defaultValue = "0") long afterId,
+            @Parameter(name="limit", description="page size") @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        if (dueWithinDays != null && dueWithinDays < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "dueWithinDays must not be negative");
+        }
+        if (dueWithinDays != null) {
+            // the deadline moves with the clock, so the table version cannot tell whether the page changed: no ETag
+            return ResponseEntity.ok(pendingPage(professorEmail, afterDateNeeded, afterId, LocalDateTime.now().plusDays(dueWithinDays), limit));
+        }
+        return conditionalGet(request, RecommendationRequest.class,
+                () -> pendingPage(professorEmail, afterDateNeeded, afterId, null, limit));
+    }
+
+    private KeysetPage<RecommendationRequest> pendingPage(String professorEmail, LocalDateTime afterDateNeeded, long afterId,
+            LocalDateTime dueBefore, Integer limit) {
+        // a separate query for each combination, so that each one only holds the conditions it uses
+        Function<Limit, List<RecommendationRequest>> query;
+        if (afterDateNeeded == null && dueBefore == null) {
+            query = l -> recommendationRequestRepository.findPendingQueue(professorEmail, l);
+        } else if (afterDateNeeded == null) {
+            query = l -> recommendationRequestRepository.findPendingQueueDueBefore(professorEmail, dueBefore, l);
+        } else if (dueBefore == null) {
+            query = l -> recommendationRequestRepository.findPendingQueueAfter(professorEmail, afterDateNeeded, afterId, l);
+        } else {
+            query = l -> recommendationRequestRepository.findPendingQueueAfterDueBefore(professorEmail, afterDateNeeded, afterId, dueBefore, l);
+        }
+        return keysetPage(limit, query,
+                r -> Map.of("afterDateNeeded", r.getDateNeeded(), "afterId", r.getId()));
+    }
+
+    @Operation(summary= "Stream all recommendation requests as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = { "!after", "!limit" }, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllRequests() {
+        return ndjson(recommendationRequestRepository::streamAllBy);
+    }
+
+    /**
+     * Export all recommendation requests as a file, streamed from the database so that memory use does not
+     * depend on the size of the table
+     * 
+     * @param format CSV (with a header row, readable by POST /bulk) or NDJSON
+     * @param gzip whether to gzip the file
+     * @return a response whose body streams the recommendation requests
+     */
+    @Operation(summary= "Export all recommendation requests as CSV or NDJSON")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportRecommendationRequests(
+            @Parameter(name="format", description="CSV or NDJSON") @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @Parameter(name="gzip", description="whether to gzip the file") @RequestParam(defaultValue = "false") boolean gzip) {
+        return export("recommendationrequests", RecommendationRequest.class, recommendationRequestRepository::streamAllBy, format, gzip);
     }
 
     @Operation(summary = "Create a new recommendation request")
@@ -66,19 +179,51 @@ public class RecommendationRequestsController extends ApiController {
         return recommendationRequestRepository.save(newRequest);
     }
 
+    /**
+     * Create many recommendation requests at once, from a JSON array
+     * 
+     * @param rows the recommendation requests to create; any ids are ignored, and new ids are assigned
+     * @return the saved recommendation requests
+     */
+    @Operation(summary= "Create many recommendation requests at once from a JSON array")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<RecommendationRequest> postBulkRecommendationRequests(
+            @RequestBody List<RecommendationRequest> rows) {
+        rows.forEach(row -> row.setId(0));
+        return bulkImportService.createAll(recommendationRequestRepository, rows);
+    }
+
+    /**
+     * Create many recommendation requests at once, from CSV whose header row names the columns,
+     * e.g. <code>requesterEmail,professorEmail,explanation,dateRequested,dateNeeded,done</code>
+     * 
+     * @param csv the CSV text
+     * @return the saved recommendation requests
+     */
+    @Operation(summary= "Create many recommendation requests at once from CSV with a header row")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = TEXT_CSV_VALUE)
+    public List<RecommendationRequest> postBulkRecommendationRequestsCsv(
+            @RequestBody String csv) {
+        return postBulkRecommendationRequests(bulkImportService.readCsv(csv, RecommendationRequest.class));
+    }
+
     /**
      * Get a specific recommendation request by its ID
      *
      * @param id the ID of the recommendation request
+     * @param request the current request, whose If-None-Match header is compared with the table version
      * @return the corresponding RecommendationRequest
      */
     @Operation(summary = "Get a single recommendation request by ID")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public RecommendationRequest getRequestById(
-            @Parameter(description = "ID of the recommendation request") @RequestParam Long id) {
-        return recommendationRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
+    public ResponseEntity<RecommendationRequest> getRequestById(
+            @Parameter(description = "ID of the recommendation request") @RequestParam Long id,
+            WebRequest request) {
+        return conditionalGet(request, RecommendationRequest.class, () -> recommendationRequestRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id)));
     }
 
     /**
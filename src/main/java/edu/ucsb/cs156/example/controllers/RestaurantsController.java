@@ -2,13 +2,18 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.BulkImportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,8 +23,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.util.List;
 
 /**
  * This is a REST controller for Restaurants
@@ -33,32 +41,84 @@ public class RestaurantsController extends ApiController {
     @Autowired
     RestaurantRepository restaurantRepository;
 
+    @Autowired
+    BulkImportService bulkImportService;
+
     /**
      * This method returns a list of all restaurants.
+     * @param request the current request, whose If-None-Match header is compared with the table version
      * @return a list of all restaurants
      */
     @Operation(summary = "List all restaurants")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = { "!after", "!limit" })
+    public ResponseEntity<Iterable<Restaurant>> allRestaurants(WebRequest request) {
+        return conditionalGet(request, Restaurant.class, () -> restaurantRepository.findAll());
+    }
+
+    /**
+     * List one keyset page of restaurants; chosen when after or limit is given
+     * 
+     * @param after id of the last restaurant on the previous page
+     * @param limit page size
+     * @param request the current request, whose If-None-Match header is compared with the table version
+     * @return a KeysetPage of Restaurant
+     */
+    @Operation(summary = "List one page of restaurants")
+    @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<Restaurant> allRestaurants() {
-        Iterable<Restaurant> restaurants = restaurantRepository.findAll();
-        return restaurants;
+    public ResponseEntity<KeysetPage<Restaurant>> restaurantsPage(
+            @Parameter(name="after", description="id of the last restaurant on the previous page") @RequestParam(required = false) Long after,
+            @Parameter(name="limit", description="page size") @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        return conditionalGet(request, Restaurant.class, () -> keysetPage(limit,
+                l -> restaurantRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0 : after, l),
+                Restaurant::getId));
+    }
+
+    /**
+     * Stream all restaurants as newline-delimited JSON; chosen when the client sends Accept: application/x-ndjson
+     * 
+     * @return a response whose body streams the restaurants
+     */
+    @Operation(summary= "Stream all restaurants as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = { "!after", "!limit" }, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllRestaurants() {
+        return ndjson(restaurantRepository::streamAllBy);
+    }
+
+    /**
+     * Export all restaurants as a file, streamed from the database so that memory use does not
+     * depend on the size of the table
+     * 
+     * @param format CSV (with a header row, readable by POST /bulk) or NDJSON
+     * @param gzip whether to gzip the file
+     * @return a response whose body streams the restaurants
+     */
+    @Operation(summary= "Export all restaurants as CSV or NDJSON")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportRestaurants(
+            @Parameter(name="format", description="CSV or NDJSON") @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @Parameter(name="gzip", description="whether to gzip the file") @RequestParam(defaultValue = "false") boolean gzip) {
+        return export("restaurants", Restaurant.class, restaurantRepository::streamAllBy, format, gzip);
     }
 
     /**
      * This method returns a single restaurant.
      * @param id id of the restaurant to get
+     * @param request the current request, whose If-None-Match header is compared with the table version
      * @return a single restaurant
      */
     @Operation(summary = "Get a single restaurant")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public Restaurant getById(
-            @Parameter(name = "id") @RequestParam Long id) {
-        Restaurant restaurant = restaurantRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
-
-        return restaurant;
+    public ResponseEntity<Restaurant> getById(
+            @Parameter(name = "id") @RequestParam Long id,
+            WebRequest request) {
+        return conditionalGet(request, Restaurant.class, () -> restaurantRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id)));
     }
 
     /**
@@ -82,6 +142,36 @@ public class RestaurantsController extends ApiController {
         return savedrestaurant;
     }
 
+    /**
+     * Create many restaurants at once, from a JSON array
+     * 
+     * @param rows the restaurants to create; any ids are ignored, and new ids are assigned
+     * @return the saved restaurants
+     */
+    @Operation(summary= "Create many restaurants at once from a JSON array")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<Restaurant> postBulkRestaurants(
+            @RequestBody List<Restaurant> rows) {
+        rows.forEach(row -> row.setId(0));
+        return bulkImportService.createAll(restaurantRepository, rows);
+    }
+
+    /**
+     * Create many restaurants at once, from CSV whose header row names the columns,
+     * e.g. <code>name,description</code>
+     * 
+     * @param csv the CSV text
+     * @return the saved restaurants
+     */
+    @Operation(summary= "Create many restaurants at once from CSV with a header row")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = TEXT_CSV_VALUE)
+    public List<Restaurant> postBulkRestaurantsCsv(
+            @RequestBody String csv) {
+        return postBulkRestaurants(bulkImportService.readCsv(csv, Restaurant.class));
+    }
+
     /**
      * Deletes a restaurant. Accessible only to users with the role "ROLE_ADMIN".
      * @param id id of the restaurant to delete
@@ -2,7 +2,11 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.BulkImportService;
+import edu.ucsb.cs156.example.services.UCSBDateCalendarService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,6 +17,9 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -22,10 +29,14 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * This is a REST controller for UCSBDates
@@ -40,34 +51,139 @@ public class UCSBDatesController extends ApiController {
     @Autowired
     UCSBDateRepository ucsbDateRepository;
 
+    @Autowired
+    BulkImportService bulkImportService;
+
+    @Autowired
+    UCSBDateCalendarService ucsbDateCalendarService;
+
     /**
      * List all UCSB dates
      * 
+     * @param request the current request, whose If-None-Match header is compared with the table version
      * @return an iterable of UCSBDate
      */
     @Operation(summary= "List all ucsb dates")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = { "!after", "!limit" })
+    public ResponseEntity<Iterable<UCSBDate>> allUCSBDates(WebRequest request) {
+        return conditionalGet(request, UCSBDate.class, () -> ucsbDateRepository.findAll());
+    }
+
+    /**
+     * List one keyset page of UCSB dates; chosen when after or limit is given
+     * 
+     * @param after id of the last date on the previous page
+     * @param limit page size
+     * @param request the current request, whose If-None-Match header is compared with the table version
+     * @return a KeysetPage of UCSBDate
+     */
+    @Operation(summary= "List one page of ucsb dates")
+    @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDate> allUCSBDates() {
-        Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
-        return dates;
+    public ResponseEntity<KeysetPage<UCSBDate>> ucsbDatesPage(
+            @Parameter(name="after", description="id of the last date on the previous page") @RequestParam(required = false) Long after,
+            @Parameter(name="limit", description="page size") @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        return conditionalGet(request, UCSBDate.class, () -> keysetPage(limit,
+                l -> ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0 : after, l),
+                UCSBDate::getId));
+    }
+
+    /**
+     * List the dates of a span of quarters, from the calendar kept in memory
+     * 
+     * @param fromQuarter the first quarter, in the format YYYYQ
+     * @param toQuarter the last quarter, in the format YYYYQ; defaults to fromQuarter
+     * @param request the current request, whose If-None-Match header is compared with the table version
+     * @return a list of UCSBDate, ordered by quarter and then by time
+     * @throws ResponseStatusException (400) if a quarter is not in the format YYYYQ, or toQuarter is before fromQuarter
+     */
+    @Operation(summary= "List the dates of a span of quarters")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/calendar")
+    public ResponseEntity<List<UCSBDate>> calendar(
+            @Parameter(name="fromQuarter", description="first quarter, e.g. 20241") @RequestParam String fromQuarter,
+            @Parameter(name="toQuarter", description="last quarter, e.g. 20244; defaults to fromQuarter") @RequestParam(required = false) String toQuarter,
+            WebRequest request) {
+        String to = (toQuarter == null) ? fromQuarter : toQuarter;
+        if (!fromQuarter.matches("\\d{5}") || !to.matches("\\d{5}") || fromQuarter.compareTo(to) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fromQuarter and toQuarter must be YYYYQ, and toQuarter must not be before fromQuarter");
+        }
+        return conditionalGet(request, UCSBDate.class, () -> ucsbDateCalendarService.quarters(fromQuarter, to));
+    }
+
+    /**
+     * List the dates in a window of time, e.g. the next 14 days, from the calendar kept in memory
+     * 
+     * @param start the start of the window; defaults to now
+     * @param days the length of the window in days
+     * @param request the current request, whose If-None-Match header is compared with the table version when start is given
+     * @return a list of UCSBDate, ordered by time
+     * @throws ResponseStatusException (400) if days is not in 1..366
+     */
+    @Operation(summary= "List the dates in a window of time")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/window")
+    public ResponseEntity<List<UCSBDate>> window(
+            @Parameter(name="start", description="start of the window (in iso format, e.g. YYYY-mm-ddTHH:MM:SS); defaults to now") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @Parameter(name="days", description="length of the window in days") @RequestParam(defaultValue = "14") int days,
+            WebRequest request) {
+        if (days < 1 || days > 366) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "days must be in 1..366");
+        }
+        if (start == null) {
+            // the window moves with the clock, so the table version cannot tell whether it changed: no ETag
+            LocalDateTime now = LocalDateTime.now();
+            return ResponseEntity.ok(ucsbDateCalendarService.between(now, now.plusDays(days)));
+        }
+        return conditionalGet(request, UCSBDate.class, () -> ucsbDateCalendarService.between(start, start.plusDays(days)));
+    }
+
+    /**
+     * Stream all ucsb dates as newline-delimited JSON; chosen when the client sends Accept: application/x-ndjson
+     * 
+     * @return a response whose body streams the ucsb dates
+     */
+    @Operation(summary= "Stream all ucsb dates as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = { "!after", "!limit" }, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllUCSBDates() {
+        return ndjson(ucsbDateRepository::streamAllBy);
+    }
+
+    /**
+     * Export all ucsb dates as a file, streamed from the database so that memory use does not
+     * depend on the size of the table
+     * 
+     * @param format CSV (with a header row, readable by POST /bulk) or NDJSON
+     * @param gzip whether to gzip the file
+     * @return a response whose body streams the ucsb dates
+     */
+    @Operation(summary= "Export all ucsb dates as CSV or NDJSON")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUCSBDates(
+            @Parameter(name="format", description="CSV or NDJSON") @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @Parameter(name="gzip", description="whether to gzip the file") @RequestParam(defaultValue = "false") boolean gzip) {
+        return export("ucsbdates", UCSBDate.class, ucsbDateRepository::streamAllBy, format, gzip);
     }
 
     /**
      * Get a single date by id
      * 
      * @param id the id of the date
+     * @param request the current request, whose If-None-Match header is compared with the table version
      * @return a UCSBDate
      */
     @Operation(summary= "Get a single date")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public UCSBDate getById(
-            @Parameter(name="id") @RequestParam Long id) {
-        UCSBDate ucsbDate = ucsbDateRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
-
-        return ucsbDate;
+    public ResponseEntity<UCSBDate> getById(
+            @Parameter(name="id") @RequestParam Long id,
+            WebRequest request) {
+        return conditionalGet(request, UCSBDate.class, () -> ucsbDateRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id)));
     }
 
     /**
@@ -102,6 +218,36 @@ public class UCSBDatesController extends ApiController {
         return savedUcsbDate;
     }
 
+    /**
+     * Create many dates at once, from a JSON array
+     * 
+     * @param rows the dates to create; any ids are ignored, and new ids are assigned
+     * @return the saved dates
+     */
+    @Operation(summary= "Create many dates at once from a JSON array")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<UCSBDate> postBulkUCSBDates(
+            @RequestBody List<UCSBDate> rows) {
+        rows.forEach(row -> row.setId(0));
+        return bulkImportService.createAll(ucsbDateRepository, rows);
+    }
+
+    /**
+     * Create many dates at once, from CSV whose header row names the columns,
+     * e.g. <code>quarterYYYYQ,name,localDateTime</code>
+     * 
+     * @param csv the CSV text
+     * @return the saved dates
+     */
+    @Operation(summary= "Create many dates at once from CSV with a header row")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = TEXT_CSV_VALUE)
+    public List<UCSBDate> postBulkUCSBDatesCsv(
+            @RequestBody String csv) {
+        return postBulkUCSBDates(bulkImportService.readCsv(csv, UCSBDate.class));
+    }
+
     /**
      * Delete a UCSBDate
      * 
@@ -2,7 +2,12 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.BulkImportService;
+import edu.ucsb.cs156.example.services.DiningCommonsLocationService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,6 +15,9 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,8 +27,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.util.List;
 
 /**
  * This is a REST controller for UCSBDiningCommons
@@ -35,32 +47,112 @@ public class UCSBDiningCommonsController extends ApiController {
     @Autowired
     UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+    @Autowired
+    BulkImportService bulkImportService;
+
+    @Autowired
+    DiningCommonsLocationService diningCommonsLocationService;
+
     /**
      * THis method returns a list of all ucsbdiningcommons.
+     * @param request the current request, whose If-None-Match header is compared with the table version
      * @return a list of all ucsbdiningcommons
      */
     @Operation(summary= "List all ucsb dining commons")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = { "!after", "!limit" })
+    public ResponseEntity<Iterable<UCSBDiningCommons>> allCommonss(WebRequest request) {
+        return conditionalGet(request, UCSBDiningCommons.class, () -> ucsbDiningCommonsRepository.findAll());
+    }
+
+    /**
+     * List one keyset page of ucsb dining commons; chosen when after or limit is given
+     * 
+     * @param after code of the last commons on the previous page
+     * @param limit page size
+     * @param request the current request, whose If-None-Match header is compared with the table version
+     * @return a KeysetPage of UCSBDiningCommons
+     */
+    @Operation(summary= "List one page of ucsb dining commons")
+    @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommons> allCommonss() {
-        Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
-        return commons;
+    public ResponseEntity<KeysetPage<UCSBDiningCommons>> commonsPage(
+            @Parameter(name="after", description="code of the last commons on the previous page") @RequestParam(required = false) String after,
+            @Parameter(name="limit", description="page size") @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        return conditionalGet(request, UCSBDiningCommons.class, () -> keysetPage(limit,
+                l -> ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc(after == null ? "" : after, l),
+                UCSBDiningCommons::getCode));
+    }
+
+    /**
+     * Stream all ucsb dining commons as newline-delimited JSON; chosen when the client sends Accept: application/x-ndjson
+     * 
+     * @return a response whose body streams the ucsb dining commons
+     */
+    @Operation(summary= "Stream all ucsb dining commons as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = { "!after", "!limit" }, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllCommons() {
+        return ndjson(ucsbDiningCommonsRepository::streamAllBy);
+    }
+
+    /**
+     * Export all ucsb dining commons as a file, streamed from the database so that memory use does not
+     * depend on the size of the table
+     * 
+     * @param format CSV (with a header row, readable by POST /bulk) or NDJSON
+     * @param gzip whether to gzip the file
+     * @return a response whose body streams the ucsb dining commons
+     */
+    @Operation(summary= "Export all ucsb dining commons as CSV or NDJSON")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportDiningCommons(
+            @Parameter(name="format", description="CSV or NDJSON") @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @Parameter(name="gzip", description="whether to gzip the file") @RequestParam(defaultValue = "false") boolean gzip) {
+        return export("ucsbdiningcommons", UCSBDiningCommons.class, ucsbDiningCommonsRepository::streamAllBy, format, gzip);
     }
 
     /**
      * This method returns a single diningcommons.
      * @param code code of the diningcommons
+     * @param request the current request, whose If-None-Match header is compared with the table version
      * @return a single diningcommons
      */
     @Operation(summary= "Get a single commons")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public UCSBDiningCommons getById(
-            @Parameter(name="code") @RequestParam String code) {
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
+    public ResponseEntity<UCSBDiningCommons> getById(
+            @Parameter(name="code") @RequestParam String code,
+            WebRequest request) {
+        return conditionalGet(request, UCSBDiningCommons.class, () -> ucsbDiningCommonsRepository.findById(code)
+                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code)));
+    }
 
-        return commons;
+    /**
+     * This method returns the diningcommons nearest to a location, nearest first, with their distances in meters.
+     * It uses an in-memory index of their locations; commons without a latitude and longitude are not listed.
+     * @param lat latitude of the location, in degrees
+     * @param lon longitude of the location, in degrees
+     * @param k how many diningcommons to list
+     * @param request the current request, whose If-None-Match header is compared with the table version
+     * @return a list of NearbyDiningCommons
+     * @throws ResponseStatusException (400) if the location is not a valid latitude and longitude
+     */
+    @Operation(summary= "List the commons nearest to a location")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/nearest")
+    public ResponseEntity<List<NearbyDiningCommons>> nearest(
+            @Parameter(name="lat", description="latitude, in degrees") @RequestParam double lat,
+            @Parameter(name="lon", description="longitude, in degrees") @RequestParam double lon,
+            @Parameter(name="k", description="how many commons to list") @RequestParam(defaultValue = "1") int k,
+            WebRequest request) {
+        // NaN is neither greater nor less than anything, so it has to be rejected first
+        if (!Double.isFinite(lat) || !Double.isFinite(lon) || Math.abs(lat) > 90 || Math.abs(lon) > 180) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "lat must be in -90..90 and lon in -180..180");
+        }
+        return conditionalGet(request, UCSBDiningCommons.class, () -> diningCommonsLocationService.nearest(lat, lon, pageSize(k)));
     }
 
     /**
@@ -102,6 +194,35 @@ public class UCSBDiningCommonsController extends ApiController {
         return savedCommons;
     }
 
+    /**
+     * Create many dining commons at once, from a JSON array
+     * 
+     * @param rows the dining commons to create; a row whose code already exists replaces it
+     * @return the saved dining commons
+     */
+    @Operation(summary= "Create many dining commons at once from a JSON array")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<UCSBDiningCommons> postBulkDiningCommons(
+            @RequestBody List<UCSBDiningCommons> rows) {
+        return bulkImportService.createAll(ucsbDiningCommonsRepository, rows);
+    }
+
+    /**
+     * Create many dining commons at once, from CSV whose header row names the columns,
+     * e.g. <code>code,name,hasSackMeal,hasTakeOutMeal,hasDiningCam,latitude,longitude</code>
+     * 
+     * @param csv the CSV text
+     * @return the saved dining commons
+     */
+    @Operation(summary= "Create many dining commons at once from CSV with a header row")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = TEXT_CSV_VALUE)
+    public List<UCSBDiningCommons> postBulkDiningCommonsCsv(
+            @RequestBody String csv) {
+        return postBulkDiningCommons(bulkImportService.readCsv(csv, UCSBDiningCommons.class));
+    }
+
     /**
      * Delete a diningcommons. Accessible only to users with the role "ROLE_ADMIN".
      * @param code code of the commons
@@ -132,7 +253,7 @@ public class UCSBDiningCommonsController extends ApiController {
             @Parameter(name="code") @RequestParam String code,
             @RequestBody @Valid UCSBDiningCommons incoming) {
 
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
+        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findByCode(code)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
 
@@ -3,7 +3,11 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.BulkImportService;
+import edu.ucsb.cs156.example.services.MenuItemTypeaheadService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,6 +18,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,10 +29,13 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 
 @Tag(name = "UCSBDiningCommonsMenuItem")
@@ -37,13 +46,80 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     @Autowired
     UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
+    @Autowired
+    BulkImportService bulkImportService;
+
+    @Autowired
+    MenuItemTypeaheadService menuItemTypeaheadService;
+
     // Get all records in the table and return as a JSON array
     @Operation(summary= "List all ucsb dinging commons menu item")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = { "!after", "!limit" })
+    public ResponseEntity<Iterable<UCSBDiningCommonsMenuItem>> allUCSBDates(WebRequest request) {
+        return conditionalGet(request, UCSBDiningCommonsMenuItem.class, () -> ucsbDiningCommonsMenuItemRepository.findAll());
+    }
+
+    // Get one keyset page ({content, next}) of the records; chosen when after or limit is given
+    @Operation(summary= "List one page of ucsb dining commons menu items")
+    @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommonsMenuItem> allUCSBDates() {
-        Iterable<UCSBDiningCommonsMenuItem> items = ucsbDiningCommonsMenuItemRepository.findAll();
-        return items;
+    public ResponseEntity<KeysetPage<UCSBDiningCommonsMenuItem>> menuItemsPage(
+            @Parameter(name="after", description="id of the last menu item on the previous page") @RequestParam(required = false) Long after,
+            @Parameter(name="limit", description="page size") @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        return conditionalGet(request, UCSBDiningCommonsMenuItem.class, () -> keysetPage(limit,
+                l -> ucsbDiningCommonsMenuItemRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0 : after, l),
+                UCSBDiningCommonsMenuItem::getId));
+    }
+
+    /**
+     * Get the menu items with a word in their name that starts with what the user has typed so far,
+     * from an index kept in memory rather than from the database
+     * 
+     * @param prefix the start of a word of the name; case is ignored
+     * @param diningCommonsCode if given, only menu items of this dining commons are returned
+     * @param station if given, only menu items of this station are returned
+     * @param limit the most menu items to return
+     * @param request the current request, whose If-None-Match header is compared with the table version
+     * @return up to limit menu items, ordered by the name from the matching word on
+     */
+    @Operation(summary= "Get the menu items whose name has a word starting with a prefix")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/typeahead")
+    public ResponseEntity<List<UCSBDiningCommonsMenuItem>> typeahead(
+            @Parameter(name="prefix", description="the start of a word of the name") @RequestParam String prefix,
+            @Parameter(name="diningCommonsCode") @RequestParam(required = false) String diningCommonsCode,
+            @Parameter(name="station") @RequestParam(required = false) String station,
+            @Parameter(name="limit", description="the most menu items to return") @RequestParam(defaultValue = "10") int limit,
+            WebRequest request) {
+        return conditionalGet(request, UCSBDiningCommonsMenuItem.class,
+                () -> menuItemTypeaheadService.suggest(prefix, diningCommonsCode, station, pageSize(limit)));
+    }
+
+    // Stream all records in the table as newline-delimited JSON (Accept: application/x-ndjson)
+    @Operation(summary= "Stream all ucsb dining commons menu items as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = { "!after", "!limit" }, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllMenuItems() {
+        return ndjson(ucsbDiningCommonsMenuItemRepository::streamAllBy);
+    }
+
+    /**
+     * Export all ucsb dining commons menu items as a file, streamed from the database so that memory use does not
+     * depend on the size of the table
+     * 
+     * @param format CSV (with a header row, readable by POST /bulk) or NDJSON
+     * @param gzip whether to gzip the file
+     * @return a response whose body streams the ucsb dining commons menu items
+     */
+    @Operation(summary= "Export all ucsb dining commons menu items as CSV or NDJSON")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportMenuItems(
+            @Parameter(name="format", description="CSV or NDJSON") @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @Parameter(name="gzip", description="whether to gzip the file") @RequestParam(defaultValue = "false") boolean gzip) {
+        return export("ucsbdiningcommonsmenuitems", UCSBDiningCommonsMenuItem.class, ucsbDiningCommonsMenuItemRepository::streamAllBy, format, gzip);
     }
 
     // Use the data in the input parameters to create a new row in the table and return the data as JSON
@@ -66,22 +142,52 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
 
         return savedUCSBDiningCommonsMenuItem;
     }
+
+    /**
+     * Create many menu items at once, from a JSON array
+     * 
+     * @param rows the menu items to create; any ids are ignored, and new ids are assigned
+     * @return the saved menu items
+     */
+    @Operation(summary= "Create many menu items at once from a JSON array")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<UCSBDiningCommonsMenuItem> postBulkMenuItems(
+            @RequestBody List<UCSBDiningCommonsMenuItem> rows) {
+        rows.forEach(row -> row.setId(0));
+        return bulkImportService.createAll(ucsbDiningCommonsMenuItemRepository, rows);
+    }
+
+    /**
+     * Create many menu items at once, from CSV whose header row names the columns,
+     * e.g. <code>diningCommonsCode,name,station</code>
+     * 
+     * @param csv the CSV text
+     * @return the saved menu items
+     */
+    @Operation(summary= "Create many menu items at once from CSV with a header row")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = TEXT_CSV_VALUE)
+    public List<UCSBDiningCommonsMenuItem> postBulkMenuItemsCsv(
+            @RequestBody String csv) {
+        return postBulkMenuItems(bulkImportService.readCsv(csv, UCSBDiningCommonsMenuItem.class));
+    }
     
     /**
      * Get a single date by id
      * 
      * @param id the id of the date
+     * @param request the current request, whose If-None-Match header is compared with the table version
      * @return a UCSBDate
      */
     @Operation(summary= "Get a single Dining Commons MenuItem by id")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public UCSBDiningCommonsMenuItem getById(
-            @Parameter(name="id") @RequestParam Long id) {
-            UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem = ucsbDiningCommonsMenuItemRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
-
-        return ucsbDiningCommonsMenuItem;
+    public ResponseEntity<UCSBDiningCommonsMenuItem> getById(
+            @Parameter(name="id") @RequestParam Long id,
+            WebRequest request) {
+        return conditionalGet(request, UCSBDiningCommonsMenuItem.class, () -> ucsbDiningCommonsMenuItemRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id)));
     }
     
 
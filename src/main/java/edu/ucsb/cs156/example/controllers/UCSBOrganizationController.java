@@ -4,14 +4,19 @@ import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.BulkImportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,8 +26,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.util.List;
 
 @Tag(name = "UCSBOrganization")
 @RequestMapping("/api/ucsborganization")
@@ -33,18 +41,70 @@ public class UCSBOrganizationController extends ApiController {
     @Autowired
     UCSBOrganizationRepository ucsbOrganizationRepository;
 
+    @Autowired
+    BulkImportService bulkImportService;
+
     /**
      * List all UCSB organizations
      * 
+     * @param request the current request, whose If-None-Match header is compared with the table version
      * @return an iterable of UCSBOrganization
      */
 
     @Operation(summary = "List all UCSB organizations")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = { "!after", "!limit" })
+    public ResponseEntity<Iterable<UCSBOrganization>> allOrganizations(WebRequest request) {
+        return conditionalGet(request, UCSBOrganization.class, () -> ucsbOrganizationRepository.findAll());
+    }
+
+    /**
+     * List one keyset page of UCSB organizations; chosen when after or limit is given
+     * 
+     * @param after orgCode of the last organization on the previous page
+     * @param limit page size
+     * @param request the current request, whose If-None-Match header is compared with the table version
+     * @return a KeysetPage of UCSBOrganization
+     */
+    @Operation(summary = "List one page of UCSB organizations")
+    @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBOrganization> allOrganizations() {
-        Iterable<UCSBOrganization> organizations = ucsbOrganizationRepository.findAll();
-        return organizations;
+    public ResponseEntity<KeysetPage<UCSBOrganization>> organizationsPage(
+            @Parameter(name="after", description="orgCode of the last organization on the previous page") @RequestParam(required = false) String after,
+            @Parameter(name="limit", description="page size") @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        return conditionalGet(request, UCSBOrganization.class, () -> keysetPage(limit,
+                l -> ucsbOrganizationRepository.findByOrgCodeGreaterThanOrderByOrgCodeAsc(after == null ? "" : after, l),
+                UCSBOrganization::getOrgCode));
+    }
+
+    /**
+     * Stream all UCSB organizations as newline-delimited JSON; chosen when the client sends Accept: application/x-ndjson
+     * 
+     * @return a response whose body streams the UCSB organizations
+     */
+    @Operation(summary= "Stream all UCSB organizations as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = { "!after", "!limit" }, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllOrganizations() {
+        return ndjson(ucsbOrganizationRepository::streamAllBy);
+    }
+
+    /**
+     * Export all UCSB organizations as a file, streamed from the database so that memory use does not
+     * depend on the size of the table
+     * 
+     * @param format CSV (with a header row, readable by POST /bulk) or NDJSON
+     * @param gzip whether to gzip the file
+     * @return a response whose body streams the UCSB organizations
+     */
+    @Operation(summary= "Export all UCSB organizations as CSV or NDJSON")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrganizations(
+            @Parameter(name="format", description="CSV or NDJSON") @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @Parameter(name="gzip", description="whether to gzip the file") @RequestParam(defaultValue = "false") boolean gzip) {
+        return export("ucsborganizations", UCSBOrganization.class, ucsbOrganizationRepository::streamAllBy, format, gzip);
     }
 
     @Operation(summary = "Create a new organization")
@@ -67,15 +127,44 @@ public class UCSBOrganizationController extends ApiController {
         return savedOrganization;
     }
 
+    /**
+     * Create many organizations at once, from a JSON array
+     * 
+     * @param rows the organizations to create; a row whose orgCode already exists replaces it
+     * @return the saved organizations
+     */
+    @Operation(summary= "Create many organizations at once from a JSON array")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<UCSBOrganization> postBulkOrganizations(
+            @RequestBody List<UCSBOrganization> rows) {
+        return bulkImportService.createAll(ucsbOrganizationRepository, rows);
+    }
+
+    /**
+     * Create many organizations at once, from CSV whose header row names the columns,
+     * e.g. <code>orgCode,orgTranslationShort,orgTranslation,inactive</code>
+     * 
+     * @param csv the CSV text
+     * @return the saved organizations
+     */
+    @Operation(summary= "Create many organizations at once from CSV with a header row")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = TEXT_CSV_VALUE)
+    public List<UCSBOrganization> postBulkOrganizationsCsv(
+            @RequestBody String csv) {
+        return postBulkOrganizations(bulkImportService.readCsv(csv, UCSBOrganization.class));
+    }
+
     @Operation(summary = "Get a single UCSB organization by id (@Id)")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public UCSBOrganization getById(
-            @Parameter(name = "id") @RequestParam String id) {
-        UCSBOrganization organization = ucsbOrganizationRepository
+    public ResponseEntity<UCSBOrganization> getById(
+            @Parameter(name = "id") @RequestParam String id,
+            WebRequest request) {
+        return conditionalGet(request, UCSBOrganization.class, () -> ucsbOrganizationRepository
                 .findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, id));
-        return organization;
+                .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, id)));
     }
 
     @Operation(summary = "Update a single organization")
@@ -85,7 +174,7 @@ public class UCSBOrganizationController extends ApiController {
             @Parameter(name = "id") @RequestParam String id,
             @RequestBody @Valid UCSBOrganization incoming) {
 
-        UCSBOrganization organization = ucsbOrganizationRepository.findById(id)
+        UCSBOrganization organization = ucsbOrganizationRepository.findByOrgCode(id)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, id));
 
         // Remove this line since we don't want to change the ID
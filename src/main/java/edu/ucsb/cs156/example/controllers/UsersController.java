@@ -1,18 +1,21 @@
 package edu.ucsb.cs156.example.controllers;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.UserSummary;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 /**
@@ -28,21 +31,53 @@ public class UsersController extends ApiController {
     @Autowired
     UserRepository userRepository;
 
-    @Autowired
-    ObjectMapper mapper;
-
     /**
      * This method returns a list of all users.  Accessible only to users with the role "ROLE_ADMIN".
-     * @return a list of all users
-     * @throws JsonProcessingException if there is an error processing the JSON
+     * The users are written to the response while they are read from the database, as
+     * {@link UserSummary} projections, so the list is never built up in memory.
+     * @param includePictureUrl whether to include each user's picture URL
+     * @return a response whose body streams a JSON array of all users
      */
     @Operation(summary= "Get a list of all users")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping(value = "", params = { "!after", "!limit" })
+    public ResponseEntity<StreamingResponseBody> users(
+            @Parameter(name="includePictureUrl", description="whether to include each user's picture URL") @RequestParam(defaultValue = "false") boolean includePictureUrl) {
+        return jsonArray(() -> userRepository.streamSummaries(0, includePictureUrl));
+    }
+
+    /**
+     * This method returns one keyset page of users.  Accessible only to users with the role "ROLE_ADMIN".
+     * @param after id of the last user on the previous page
+     * @param limit page size
+     * @param includePictureUrl whether to include each user's picture URL
+     * @return a KeysetPage of UserSummary
+     */
+    @Operation(summary= "Get one page of users")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
     @GetMapping("")
-    public ResponseEntity<String> users()
-            throws JsonProcessingException {
-        Iterable<User> users = userRepository.findAll();
-        String body = mapper.writeValueAsString(users);
-        return ResponseEntity.ok().body(body);
+    public KeysetPage<UserSummary> usersPage(
+            @Parameter(name="after", description="id of the last user on the previous page") @RequestParam(required = false) Long after,
+            @Parameter(name="limit", description="page size") @RequestParam(required = false) Integer limit,
+            @Parameter(name="includePictureUrl", description="whether to include each user's picture URL") @RequestParam(defaultValue = "false") boolean includePictureUrl) {
+        return keysetPage(limit,
+                l -> userRepository.findSummaries(after == null ? 0 : after, includePictureUrl, l),
+                UserSummary::getId);
+    }
+
+    /**
+     * This method exports all users as a file, streamed from the database so that memory use
+     * does not depend on the number of users.  Accessible only to users with the role "ROLE_ADMIN".
+     * @param format CSV or NDJSON
+     * @param gzip whether to gzip the file
+     * @return a response whose body streams the users
+     */
+    @Operation(summary= "Export all users as CSV or NDJSON")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @Parameter(name="format", description="CSV or NDJSON") @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @Parameter(name="gzip", description="whether to gzip the file") @RequestParam(defaultValue = "false") boolean gzip) {
+        return export("users", User.class, userRepository::streamAllBy, format, gzip);
     }
 }
\ No newline at end of file
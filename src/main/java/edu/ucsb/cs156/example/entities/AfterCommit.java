@@ -0,0 +1,121 @@
+package edu.ucsb.cs156.example.entities;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class defers work done by the JPA entity listeners until the current transaction
+ * commits, so that nothing outside the database (a cache, an index, a subscriber) sees
+ * a change that is later rolled back.  Outside a transaction the work is done at once.
+ *
+ * All the work of one transaction is kept by a single synchronization, which is bound
+ * to the transaction as a resource; so a bulk import of many rows registers one
+ * synchronization and finds it again with a map lookup, rather than registering one per
+ * row or searching the list of synchronizations (which Spring copies and sorts on every
+ * call) for each row.
+ *
+ * The work added with {@link #run(Runnable)} runs in the order it was added, and the work
+ * added with {@link #runOnce(Object, Runnable)} runs after all of it.  So a table version
+ * only changes once the in-memory indexes have taken in every row of the transaction; a
+ * reader that sees the new version (and so the new ETag) also sees the new index.
+ *
+ * Hibernate creates the entity listeners through Spring while the entity manager factory
+ * is still being built, so a listener autowires any service that needs a repository
+ * (and so that factory) with {@code @Lazy}; the service is only created when the
+ * listener first uses it.
+ */
+
+public final class AfterCommit {
+
+  private AfterCommit() {
+  }
+
+  /**
+   * This method runs the work after the current transaction commits.
+   * @param work the work to run
+   */
+  public static void run(Runnable work) {
+    Work pending = pending();
+    if (pending == null) {
+      work.run();
+    } else {
+      pending.runnables.add(work);
+    }
+  }
+
+  /**
+   * This method runs the work after the current transaction commits, and after all the
+   * work added with {@link #run(Runnable)}, unless work with the same key has already
+   * been added to the transaction (e.g. one table version increment for all the rows of
+   * a table that a transaction changes).
+   * @param key what the work is for
+   * @param work the work to run
+   */
+  public static void runOnce(Object key, Runnable work) {
+    Work pending = pending();
+    if (pending == null) {
+      work.run();
+    } else if (pending.keys.add(key)) {
+      pending.last.add(work);
+    }
+  }
+
+  // the work of the current transaction, or null if there is no transaction
+  private static Work pending() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return null;
+    }
+    Work pending = (Work) TransactionSynchronizationManager.getResource(Work.class);
+    if (pending == null) {
+      pending = new Work();
+      TransactionSynchronizationManager.bindResource(Work.class, pending);
+      TransactionSynchronizationManager.registerSynchronization(pending);
+    }
+    return pending;
+  }
+
+  /**
+   * The work of one transaction.  It is unbound while the transaction is suspended, so
+   * that an inner transaction (e.g. REQUIRES_NEW) keeps its own work.
+   */
+  private static final class Work implements TransactionSynchronization {
+    private final List<Runnable> runnables = new ArrayList<>();
+    private final List<Runnable> last = new ArrayList<>();
+    private final Set<Object> keys = new HashSet<>();
+
+    @Override
+    public void suspend() {
+      TransactionSynchronizationManager.unbindResource(Work.class);
+    }
+
+    @Override
+    public void resume() {
+      TransactionSynchronizationManager.bindResource(Work.class, this);
+    }
+
+    @Override
+    public void afterCommit() {
+      // by index, since work may add more work while it runs; none of the last work
+      // runs while there is other work left
+      int next = 0;
+      int nextLast = 0;
+      while (next < runnables.size() || nextLast < last.size()) {
+        if (next < runnables.size()) {
+          runnables.get(next++).run();
+        } else {
+          last.get(nextLast++).run();
+        }
+      }
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      TransactionSynchronizationManager.unbindResourceIfPossible(Work.class);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.services.ArticleSearchService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * This is a JPA entity listener that keeps the article search index up to date whenever
+ * an article is created, updated or deleted, once the change is committed (see
+ * {@link AfterCommit}).
+ *
+ * @see edu.ucsb.cs156.example.services.ArticleSearchService
+ */
+
+public class ArticleSearchListener {
+
+  @Lazy
+  @Autowired
+  ArticleSearchService articleSearchService;
+
+  /**
+   * This method is called by JPA after an article is inserted or updated.
+   * @param article the new or changed article
+   */
+  @PostPersist
+  @PostUpdate
+  public void saved(Articles article) {
+    long id = article.getId();
+    String title = article.getTitle();
+    String explanation = article.getExplanation();
+    String url = article.getUrl();
+    AfterCommit.run(() -> articleSearchService.index(id, title, explanation, url));
+  }
+
+  /**
+   * This method is called by JPA after an article is deleted.
+   * @param article the deleted article
+   */
+  @PostRemove
+  public void deleted(Articles article) {
+    long id = article.getId();
+    AfterCommit.run(() -> articleSearchService.remove(id));
+  }
+}
@@ -0,0 +1,47 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.services.DiningCommonsLocationService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * This is a JPA entity listener that keeps the index of dining commons locations up to
+ * date whenever a dining commons is created, updated or deleted, once the change is
+ * committed (see {@link AfterCommit}).
+ *
+ * @see edu.ucsb.cs156.example.services.DiningCommonsLocationService
+ */
+
+public class DiningCommonsLocationListener {
+
+  @Lazy
+  @Autowired
+  DiningCommonsLocationService diningCommonsLocationService;
+
+  /**
+   * This method is called by JPA after a dining commons is inserted or updated.
+   * @param commons the new or changed dining commons
+   */
+  @PostPersist
+  @PostUpdate
+  public void saved(UCSBDiningCommons commons) {
+    String code = commons.getCode();
+    Double latitude = commons.getLatitude();
+    Double longitude = commons.getLongitude();
+    AfterCommit.run(() -> diningCommonsLocationService.put(code, latitude, longitude));
+  }
+
+  /**
+   * This method is called by JPA after a dining commons is deleted.
+   * @param commons the deleted dining commons
+   */
+  @PostRemove
+  public void deleted(UCSBDiningCommons commons) {
+    String code = commons.getCode();
+    AfterCommit.run(() -> diningCommonsLocationService.remove(code));
+  }
+}
@@ -0,0 +1,65 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.services.HelpRequestEventService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * This is a JPA entity listener that publishes an event whenever a help request is
+ * created, updated or deleted, once the change is committed (see {@link AfterCommit}).
+ *
+ * @see edu.ucsb.cs156.example.services.HelpRequestEventService
+ */
+
+public class HelpRequestEventListener {
+
+  @Autowired
+  HelpRequestEventService helpRequestEventService;
+
+  /**
+   * This method is called by JPA after a help request is inserted.
+   * @param helpRequest the new help request
+   */
+  @PostPersist
+  public void created(HelpRequest helpRequest) {
+    HelpRequest copy = copy(helpRequest);
+    AfterCommit.run(() -> helpRequestEventService.publish(HelpRequestEventService.CREATED, copy));
+  }
+
+  /**
+   * This method is called by JPA after a help request is updated.
+   * @param helpRequest the changed help request
+   */
+  @PostUpdate
+  public void updated(HelpRequest helpRequest) {
+    HelpRequest copy = copy(helpRequest);
+    AfterCommit.run(() -> helpRequestEventService.publish(HelpRequestEventService.UPDATED, copy));
+  }
+
+  /**
+   * This method is called by JPA after a help request is deleted.
+   * @param helpRequest the deleted help request
+   */
+  @PostRemove
+  public void deleted(HelpRequest helpRequest) {
+    HelpRequest copy = copy(helpRequest);
+    AfterCommit.run(() -> helpRequestEventService.publish(HelpRequestEventService.DELETED, copy));
+  }
+
+  // the event is sent after the commit, so it is given a copy of the help request as it is
+  // now, rather than the managed entity, which may change again before the commit
+  private static HelpRequest copy(HelpRequest helpRequest) {
+    return HelpRequest.builder()
+        .id(helpRequest.getId())
+        .requesterEmail(helpRequest.getRequesterEmail())
+        .teamId(helpRequest.getTeamId())
+        .tableOrBreakoutRoom(helpRequest.getTableOrBreakoutRoom())
+        .requestTime(helpRequest.getRequestTime())
+        .explanation(helpRequest.getExplanation())
+        .solved(helpRequest.getSolved())
+        .build();
+  }
+}
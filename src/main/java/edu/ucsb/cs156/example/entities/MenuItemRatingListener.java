@@ -0,0 +1,47 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * This is a JPA entity listener that keeps the menu item rating statistics up to date
+ * whenever a menu item review is created, updated or deleted, once the change is
+ * committed (see {@link AfterCommit}).
+ *
+ * @see edu.ucsb.cs156.example.services.MenuItemRatingService
+ */
+
+public class MenuItemRatingListener {
+
+  @Lazy
+  @Autowired
+  MenuItemRatingService menuItemRatingService;
+
+  /**
+   * This method is called by JPA after a review is inserted or updated.
+   * @param review the new or changed review
+   */
+  @PostPersist
+  @PostUpdate
+  public void saved(MenuItemReview review) {
+    long id = review.getId();
+    long itemId = review.getItemId();
+    int stars = review.getStars();
+    AfterCommit.run(() -> menuItemRatingService.record(id, itemId, stars));
+  }
+
+  /**
+   * This method is called by JPA after a review is deleted.
+   * @param review the deleted review
+   */
+  @PostRemove
+  public void deleted(MenuItemReview review) {
+    long id = review.getId();
+    AfterCommit.run(() -> menuItemRatingService.remove(id));
+  }
+}
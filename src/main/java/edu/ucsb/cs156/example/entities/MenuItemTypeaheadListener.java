@@ -0,0 +1,48 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.services.MenuItemTypeaheadService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * This is a JPA entity listener that keeps the menu item typeahead index up to date
+ * whenever a menu item is created, updated or deleted, once the change is committed
+ * (see {@link AfterCommit}).
+ *
+ * @see edu.ucsb.cs156.example.services.MenuItemTypeaheadService
+ */
+
+public class MenuItemTypeaheadListener {
+
+  @Lazy
+  @Autowired
+  MenuItemTypeaheadService menuItemTypeaheadService;
+
+  /**
+   * This method is called by JPA after a menu item is inserted or updated.
+   * @param item the new or changed menu item
+   */
+  @PostPersist
+  @PostUpdate
+  public void saved(UCSBDiningCommonsMenuItem item) {
+    long id = item.getId();
+    String diningCommonsCode = item.getDiningCommonsCode();
+    String name = item.getName();
+    String station = item.getStation();
+    AfterCommit.run(() -> menuItemTypeaheadService.put(id, diningCommonsCode, name, station));
+  }
+
+  /**
+   * This method is called by JPA after a menu item is deleted.
+   * @param item the deleted menu item
+   */
+  @PostRemove
+  public void deleted(UCSBDiningCommonsMenuItem item) {
+    long id = item.getId();
+    AfterCommit.run(() -> menuItemTypeaheadService.remove(id));
+  }
+}
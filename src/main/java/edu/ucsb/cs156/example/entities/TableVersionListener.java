@@ -0,0 +1,41 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.services.TableVersionService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * This is a JPA entity listener that increments the table version of an entity
+ * whenever one is inserted, updated or deleted.
+ *
+ * Hibernate creates the listener through Spring, so its fields are autowired.  Inside
+ * a transaction the version is only incremented after the commit, and after the other
+ * listeners have updated their in-memory indexes (see {@link AfterCommit}); otherwise a
+ * reader could see the new version together with the old rows or the old index results
+ * and cache them under it.
+ *
+ * @see edu.ucsb.cs156.example.services.TableVersionService
+ */
+
+public class TableVersionListener {
+
+  @Autowired
+  TableVersionService tableVersionService;
+
+  /**
+   * This method is called by JPA after an entity is inserted, updated or deleted.
+   * @param entity the entity that changed
+   */
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  public void changed(Object entity) {
+    Class<?> entityClass = Hibernate.getClassLazy(entity);
+    // once per table, so a bulk insert increments each table's version once, when the transaction commits
+    AfterCommit.runOnce(entityClass, () -> tableVersionService.increment(entityClass));
+  }
+}
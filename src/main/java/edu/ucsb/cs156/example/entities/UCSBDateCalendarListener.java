@@ -0,0 +1,50 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.services.UCSBDateCalendarService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+import java.time.LocalDateTime;
+
+/**
+ * This is a JPA entity listener that keeps the calendar of UCSB dates up to date
+ * whenever a date is created, updated or deleted, once the change is committed (see
+ * {@link AfterCommit}).
+ *
+ * @see edu.ucsb.cs156.example.services.UCSBDateCalendarService
+ */
+
+public class UCSBDateCalendarListener {
+
+  @Lazy
+  @Autowired
+  UCSBDateCalendarService ucsbDateCalendarService;
+
+  /**
+   * This method is called by JPA after a date is inserted or updated.
+   * @param date the new or changed date
+   */
+  @PostPersist
+  @PostUpdate
+  public void saved(UCSBDate date) {
+    long id = date.getId();
+    String quarterYYYYQ = date.getQuarterYYYYQ();
+    String name = date.getName();
+    LocalDateTime localDateTime = date.getLocalDateTime();
+    AfterCommit.run(() -> ucsbDateCalendarService.put(id, quarterYYYYQ, name, localDateTime));
+  }
+
+  /**
+   * This method is called by JPA after a date is deleted.
+   * @param date the deleted date
+   */
+  @PostRemove
+  public void deleted(UCSBDate date) {
+    long id = date.getId();
+    AfterCommit.run(() -> ucsbDateCalendarService.remove(id));
+  }
+}
@@ -0,0 +1,45 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.services.AdminService;
+import edu.ucsb.cs156.example.services.UserCacheService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * This is a JPA entity listener that drops the cached copy of a user, and the cached
+ * answer to whether they are an admin, whenever the user is created, updated or deleted,
+ * once the change is committed (see {@link AfterCommit}), so that the next lookup reads
+ * the stored row.
+ *
+ * @see edu.ucsb.cs156.example.services.UserCacheService
+ * @see edu.ucsb.cs156.example.services.AdminService
+ */
+
+public class UserCacheListener {
+
+  @Autowired
+  UserCacheService userCache;
+
+  @Lazy
+  @Autowired
+  AdminService adminService;
+
+  /**
+   * This method is called by JPA after a user is inserted, updated or deleted.
+   * @param user the changed user
+   */
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  public void changed(User user) {
+    String email = user.getEmail();
+    AfterCommit.run(() -> {
+      userCache.invalidate(email);
+      adminService.invalidate(email);
+    });
+  }
+}
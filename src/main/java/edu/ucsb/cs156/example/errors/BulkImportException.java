@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException in Java that is used to indicate
+ * that the rows sent to a bulk create endpoint could not be imported, e.g. because the
+ * CSV could not be parsed or there were too many rows.
+ */
+public class BulkImportException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   * 
+   * @param message what was wrong with the rows
+   */
+  public BulkImportException(String message) {
+    super(message);
+  }
+}
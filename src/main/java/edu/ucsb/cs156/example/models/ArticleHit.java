@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+
+/**
+ * This is a model class that represents an article found by a search, together with
+ * its rank (1 for the best match) and relevance score.  In JSON the fields of the
+ * article appear next to the rank and score.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ArticleHit {
+  @JsonUnwrapped
+  private Articles article;
+  private int rank;
+  private double score;
+}
@@ -0,0 +1,45 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+import java.util.List;
+
+/**
+ * This is a model class that represents the statistics of the Hibernate
+ * second-level cache and query cache.
+ *
+ * This class is used to show admins how well the caches are working.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CacheStatistics {
+  private Boolean secondLevelCacheEnabled;
+  private Boolean queryCacheEnabled;
+  private Boolean statisticsEnabled;
+  private Long queryCacheHitCount;
+  private Long queryCacheMissCount;
+  private Long queryCachePutCount;
+  private List<Region> regions;
+
+  /**
+   * The statistics of one cache region (one entity, or the query results).
+   */
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor(access = AccessLevel.PROTECTED)
+  @Builder
+  public static class Region {
+    private String name;
+    private Long hitCount;
+    private Long missCount;
+    private Long putCount;
+    private Long elementCountInMemory;
+  }
+}
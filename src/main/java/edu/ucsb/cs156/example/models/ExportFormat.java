@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import org.springframework.http.MediaType;
+
+/**
+ * This is an enum of the formats the export endpoints (<code>GET /api/.../export</code>) can write.
+ */
+
+@Getter
+@AllArgsConstructor
+public enum ExportFormat {
+  /** comma separated values with a header row, readable by the bulk create endpoints */
+  CSV(MediaType.parseMediaType("text/csv"), "csv"),
+  /** newline-delimited JSON, one row per line */
+  NDJSON(MediaType.APPLICATION_NDJSON, "ndjson");
+
+  private final MediaType mediaType;
+  private final String extension;
+}
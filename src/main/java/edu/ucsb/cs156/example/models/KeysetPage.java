@@ -0,0 +1,43 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * This is a model class that represents one page of a keyset (cursor) paginated listing.
+ *
+ * The {@code next} field holds the key of the last row on this page; pass it back as
+ * the {@code after} parameter to get the following page.  It is null on the last page.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class KeysetPage<T> {
+  private List<T> content;
+  private Object next;
+
+  /**
+   * This method builds a page from rows fetched with one row more than the page size,
+   * so that we can tell whether there is a next page without a separate count query.
+   * @param <T> the type of the rows
+   * @param rows the rows returned by the repository (at most limit + 1)
+   * @param limit the page size
+   * @param key extracts the key of a row, used as the cursor
+   * @return the page
+   */
+  public static <T> KeysetPage<T> of(List<T> rows, int limit, Function<T, Object> key) {
+    if (rows.size() <= limit) {
+      return new KeysetPage<>(rows, null);
+    }
+    List<T> content = rows.subList(0, limit);
+    return new KeysetPage<>(content, key.apply(content.get(limit - 1)));
+  }
+}
@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+
+import java.util.SortedMap;
+
+/**
+ * This is a model class that represents the rating statistics of a menu item:
+ * how many reviews it has, their total and average stars, and how many reviews
+ * gave each number of stars.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MenuItemRating {
+  private long itemId;
+  private long count;
+  private long sum;
+  /** null when the item has no reviews */
+  private Double average;
+  /** number of reviews by star value, for the star values that have any */
+  private SortedMap<Integer, Long> histogram;
+}
@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+
+/**
+ * This is a model class that represents a dining commons found near a location,
+ * together with its distance from the location.  In JSON the fields of the dining
+ * commons appear next to the distance.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class NearbyDiningCommons {
+  @JsonUnwrapped
+  private UCSBDiningCommons diningCommons;
+  /** great-circle distance from the location, in meters */
+  private double distanceMeters;
+}
@@ -0,0 +1,35 @@
+package edu.ucsb.cs156.example.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * This is a model class that represents a user in the admin user listing.
+ *
+ * It is a projection of the User entity: the repository selects only these columns, so
+ * the listing does not load the whole row.  The picture URL is only selected when it is
+ * asked for, and is left out of the JSON when it is null.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class UserSummary {
+  private long id;
+  private String email;
+  private String fullName;
+  private String givenName;
+  private String familyName;
+  private boolean emailVerified;
+  private String locale;
+  private String hostedDomain;
+  private boolean admin;
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String pictureUrl;
+}
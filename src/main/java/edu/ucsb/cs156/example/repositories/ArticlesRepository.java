@@ -1,15 +1,67 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Articles;
+import jakarta.persistence.QueryHint;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * The ArticlesRepository is a repository for Articles entities
  */
 @Repository
-public interface ArticlesRepository extends CrudRepository<Articles, Long> {
-    
+public interface ArticlesRepository extends CrudRepository<Articles, Long>, PagingAndSortingRepository<Articles, Long> {
+  /**
+   * The columns of an article that the search index is built from.
+   */
+  interface Text {
+    /** @return the id of the article */
+    long getId();
+
+    /** @return its title */
+    String getTitle();
+
+    /** @return its explanation */
+    String getExplanation();
+
+    /** @return its url */
+    String getUrl();
+  }
+
+  /**
+   * This method returns the articles whose id is after the given key, in key order (for keyset pagination).
+   * @param id the key of the last row of the previous page
+   * @param limit the maximum number of rows to return
+   * @return up to limit articles, ordered by id
+   */
+  List<Articles> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+  /**
+   * This method streams all articles, fetching rows from the database in batches.
+   * The stream must be consumed inside a transaction and closed afterwards.
+   * @return a stream of all articles
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+  Stream<Articles> streamAllBy();
+
+  /**
+   * This method streams the id, title, explanation and url of all articles (and none of their
+   * other columns), fetching rows from the database in batches.
+   * The stream must be consumed inside a transaction and closed afterwards.
+   * @return a stream of the text of all articles
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+  Stream<Text> streamTextBy();
 }
@@ -1,11 +1,91 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import jakarta.persistence.QueryHint;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
-public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {
-  
-}
\ No newline at end of file
+public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long>, PagingAndSortingRepository<HelpRequest, Long> {
+  /**
+   * This method returns the help requests whose id is after the given key, in key order (for keyset pagination).
+   * @param id the key of the last row of the previous page
+   * @param limit the maximum number of rows to return
+   * @return up to limit help requests, ordered by id
+   */
+  List<HelpRequest> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+  /**
+   * This method returns the first keyset page of the open queue: unsolved help requests,
+   * oldest first (and then by id).  Help requests with no requestTime are not in the queue.
+   * It is served by the HELPREQUESTS_OPEN_QUEUE_IDX index, which on Postgres only holds
+   * unsolved rows, so it stays small however much solved history the table keeps.
+   * @param limit the maximum number of rows to return
+   * @return up to limit unsolved help requests, ordered by request time and then id
+   */
+  @Query("SELECT h FROM helprequests h WHERE h.solved = false AND h.requestTime IS NOT NULL"
+      + " ORDER BY h.requestTime, h.id")
+  List<HelpRequest> findOpenQueue(Limit limit);
+
+  /**
+   * This method returns a later keyset page of the open queue (see {@link #findOpenQueue(Limit)});
+   * the (requestTime, id) comparison lets the index seek straight to the page.
+   * @param afterRequestTime the requestTime of the last help request on the previous page
+   * @param afterId the id of the last help request on the previous page
+   * @param limit the maximum number of rows to return
+   * @return up to limit unsolved help requests, ordered by request time and then id
+   */
+  @Query("SELECT h FROM helprequests h WHERE h.solved = false"
+      + " AND (h.requestTime, h.id) > (:afterRequestTime, :afterId)"
+      + " ORDER BY h.requestTime, h.id")
+  List<HelpRequest> findOpenQueueAfter(@Param("afterRequestTime") LocalDateTime afterRequestTime,
+      @Param("afterId") long afterId, Limit limit);
+
+  /**
+   * This method returns the first keyset page of one team's part of the open queue: its
+   * unsolved help requests, oldest first (see {@link #findOpenQueue(Limit)}).
+   * It is served by the HELPREQUESTS_OPEN_TEAM_QUEUE_IDX index.
+   * @param teamId the team
+   * @param limit the maximum number of rows to return
+   * @return up to limit unsolved help requests from the team, ordered by request time and then id
+   */
+  @Query("SELECT h FROM helprequests h WHERE h.teamId = :teamId AND h.solved = false AND h.requestTime IS NOT NULL"
+      + " ORDER BY h.requestTime, h.id")
+  List<HelpRequest> findTeamOpenQueue(@Param("teamId") String teamId, Limit limit);
+
+  /**
+   * This method returns a later keyset page of one team's part of the open queue
+   * (see {@link #findTeamOpenQueue(String, Limit)}).
+   * @param teamId the team
+   * @param afterRequestTime the requestTime of the last help request on the previous page
+   * @param afterId the id of the last help request on the previous page
+   * @param limit the maximum number of rows to return
+   * @return up to limit unsolved help requests from the team, ordered by request time and then id
+   */
+  @Query("SELECT h FROM helprequests h WHERE h.teamId = :teamId AND h.solved = false"
+      + " AND (h.requestTime, h.id) > (:afterRequestTime, :afterId)"
+      + " ORDER BY h.requestTime, h.id")
+  List<HelpRequest> findTeamOpenQueueAfter(@Param("teamId") String teamId,
+      @Param("afterRequestTime") LocalDateTime afterRequestTime, @Param("afterId") long afterId, Limit limit);
+
+  /**
+   * This method streams all help requests, fetching rows from the database in batches.
+   * The stream must be consumed inside a transaction and closed afterwards.
+   * @return a stream of all help requests
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+  Stream<HelpRequest> streamAllBy();
+}
@@ -1,15 +1,64 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import jakarta.persistence.QueryHint;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * The Menuitemeview repository for MenuItemReview entities.
  */
 
 @Repository
-public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long> {
-  
-}
\ No newline at end of file
+public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long>, PagingAndSortingRepository<MenuItemReview, Long> {
+  /**
+   * The columns of a review that its rating statistics are built from.
+   */
+  interface Stars {
+    /** @return the id of the review */
+    long getId();
+
+    /** @return the menu item it reviews */
+    long getItemId();
+
+    /** @return the stars it gives */
+    int getStars();
+  }
+
+  /**
+   * This method returns the menu item reviews whose id is after the given key, in key order (for keyset pagination).
+   * @param id the key of the last row of the previous page
+   * @param limit the maximum number of rows to return
+   * @return up to limit menu item reviews, ordered by id
+   */
+  List<MenuItemReview> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+  /**
+   * This method streams all menu item reviews, fetching rows from the database in batches.
+   * The stream must be consumed inside a transaction and closed afterwards.
+   * @return a stream of all menu item reviews
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+  Stream<MenuItemReview> streamAllBy();
+
+  /**
+   * This method streams the id, menu item and stars of all menu item reviews (and none of their
+   * other columns), fetching rows from the database in batches.
+   * The stream must be consumed inside a transaction and closed afterwards.
+   * @return a stream of the stars of all menu item reviews
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+  Stream<Stars> streamStarsBy();
+}
@@ -1,11 +1,103 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import jakarta.persistence.QueryHint;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
-public interface RecommendationRequestRepository extends CrudRepository<RecommendationRequest, Long> {
-    
-}
\ No newline at end of file
+public interface RecommendationRequestRepository extends CrudRepository<RecommendationRequest, Long>, PagingAndSortingRepository<RecommendationRequest, Long> {
+  /**
+   * This method returns the recommendation requests whose id is after the given key, in key order (for keyset pagination).
+   * @param id the key of the last row of the previous page
+   * @param limit the maximum number of rows to return
+   * @return up to limit recommendation requests, ordered by id
+   */
+  List<RecommendationRequest> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+  /**
+   * This method returns the first keyset page of a professor's pending queue: the
+   * recommendation requests that are not done, in order of when they are needed (and then
+   * of id).  Requests with no dateNeeded are not in the queue.
+   *
+   * The queue is read by one of four queries (first or later page, with or without a
+   * deadline), each holding only the conditions it uses, so that the planner can seek the
+   * RECOMMENDATION_REQUESTS_PENDING_IDX index (which on Postgres only holds requests that
+   * are not done) straight to the page and stop at the deadline, rather than planning
+   * around <code>:param IS NULL OR ...</code> conditions.
+   * @param professorEmail the professor
+   * @param limit the maximum number of rows to return
+   * @return up to limit pending recommendation requests, ordered by dateNeeded and then id
+   */
+  @Query("SELECT r FROM recommendationRequests r WHERE r.professorEmail = :professorEmail AND r.done = false"
+      + " AND r.dateNeeded IS NOT NULL"
+      + " ORDER BY r.dateNeeded, r.id")
+  List<RecommendationRequest> findPendingQueue(@Param("professorEmail") String professorEmail, Limit limit);
+
+  /**
+   * This method returns a later keyset page of a professor's pending queue (see
+   * {@link #findPendingQueue(String, Limit)}).
+   * @param professorEmail the professor
+   * @param afterDateNeeded the dateNeeded of the last request on the previous page
+   * @param afterId the id of the last request on the previous page
+   * @param limit the maximum number of rows to return
+   * @return up to limit pending recommendation requests, ordered by dateNeeded and then id
+   */
+  @Query("SELECT r FROM recommendationRequests r WHERE r.professorEmail = :professorEmail AND r.done = false"
+      + " AND (r.dateNeeded, r.id) > (:afterDateNeeded, :afterId)"
+      + " ORDER BY r.dateNeeded, r.id")
+  List<RecommendationRequest> findPendingQueueAfter(@Param("professorEmail") String professorEmail,
+      @Param("afterDateNeeded") LocalDateTime afterDateNeeded, @Param("afterId") long afterId, Limit limit);
+
+  /**
+   * This method returns the first keyset page of the requests in a professor's pending
+   * queue that are needed before a deadline (see {@link #findPendingQueue(String, Limit)}).
+   * @param professorEmail the professor
+   * @param dueBefore only requests needed before this are returned
+   * @param limit the maximum number of rows to return
+   * @return up to limit pending recommendation requests, ordered by dateNeeded and then id
+   */
+  @Query("SELECT r FROM recommendationRequests r WHERE r.professorEmail = :professorEmail AND r.done = false"
+      + " AND r.dateNeeded < :dueBefore"
+      + " ORDER BY r.dateNeeded, r.id")
+  List<RecommendationRequest> findPendingQueueDueBefore(@Param("professorEmail") String professorEmail,
+      @Param("dueBefore") LocalDateTime dueBefore, Limit limit);
+
+  /**
+   * This method returns a later keyset page of the requests in a professor's pending
+   * queue that are needed before a deadline (see {@link #findPendingQueue(String, Limit)}).
+   * @param professorEmail the professor
+   * @param afterDateNeeded the dateNeeded of the last request on the previous page
+   * @param afterId the id of the last request on the previous page
+   * @param dueBefore only requests needed before this are returned
+   * @param limit the maximum number of rows to return
+   * @return up to limit pending recommendation requests, ordered by dateNeeded and then id
+   */
+  @Query("SELECT r FROM recommendationRequests r WHERE r.professorEmail = :professorEmail AND r.done = false"
+      + " AND (r.dateNeeded, r.id) > (:afterDateNeeded, :afterId) AND r.dateNeeded < :dueBefore"
+      + " ORDER BY r.dateNeeded, r.id")
+  List<RecommendationRequest> findPendingQueueAfterDueBefore(@Param("professorEmail") String professorEmail,
+      @Param("afterDateNeeded") LocalDateTime afterDateNeeded, @Param("afterId") long afterId,
+      @Param("dueBefore") LocalDateTime dueBefore, Limit limit);
+
+  /**
+   * This method streams all recommendation requests, fetching rows from the database in batches.
+   * The stream must be consumed inside a transaction and closed afterwards.
+   * @return a stream of all recommendation requests
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+  Stream<RecommendationRequest> streamAllBy();
+}
@@ -1,15 +1,126 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import jakarta.persistence.QueryHint;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 /**
  * The UCSBDiningCommonsRepository is a repository for UCSBDiningCommons entities
  */
 @Repository
-public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {
- 
-}
\ No newline at end of file
+public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String>, PagingAndSortingRepository<UCSBDiningCommons, String> {
+  /**
+   * The columns of a dining commons that the index of their locations is built from.
+   */
+  interface Location {
+    /** @return the code of the dining commons */
+    String getCode();
+
+    /** @return its latitude, or null */
+    Double getLatitude();
+
+    /** @return its longitude, or null */
+    Double getLongitude();
+  }
+
+  /**
+   * This method returns all dining commons.  The result is cached (cache "diningCommonsAll") until
+   * a dining commons is saved or deleted.
+   * @return all dining commons
+   */
+  @Override
+  @Cacheable(cacheNames = "diningCommonsAll", key = "'all'")
+  Iterable<UCSBDiningCommons> findAll();
+
+  /**
+   * This method returns the dining commons with the given key.  The result is cached (cache "diningCommons").
+   * @param id the key
+   * @return Optional of UCSBDiningCommons (empty if not found)
+   */
+  @Override
+  @Cacheable(cacheNames = "diningCommons", key = "#p0")
+  Optional<UCSBDiningCommons> findById(String id);
+
+  /**
+   * This method returns the dining commons with the given key, read from the database and never
+   * from the cache.  Updates use it, so that they change a fresh instance and not the cached one.
+   * @param code the key
+   * @return Optional of UCSBDiningCommons (empty if not found)
+   */
+  Optional<UCSBDiningCommons> findByCode(String code);
+
+  /**
+   * This method saves the entity and evicts it from the caches.
+   * @param entity the entity to save
+   * @return the saved entity
+   */
+  @Override
+  @Caching(evict = {
+      @CacheEvict(cacheNames = "diningCommons", key = "#p0.code"),
+      @CacheEvict(cacheNames = "diningCommonsAll", allEntries = true) })
+  <S extends UCSBDiningCommons> S save(S entity);
+
+  /**
+   * This method saves the entities (e.g. from a bulk create) and clears the caches.
+   * @param entities the entities to save
+   * @return the saved entities
+   */
+  @Override
+  @Caching(evict = {
+      @CacheEvict(cacheNames = "diningCommons", allEntries = true),
+      @CacheEvict(cacheNames = "diningCommonsAll", allEntries = true) })
+  <S extends UCSBDiningCommons> Iterable<S> saveAll(Iterable<S> entities);
+
+  /**
+   * This method deletes the entity and evicts it from the caches.
+   * @param entity the entity to delete
+   */
+  @Override
+  @Caching(evict = {
+      @CacheEvict(cacheNames = "diningCommons", key = "#p0.code"),
+      @CacheEvict(cacheNames = "diningCommonsAll", allEntries = true) })
+  void delete(UCSBDiningCommons entity);
+
+  /**
+   * This method returns the dining commons whose code is after the given key, in key order (for keyset pagination).
+   * @param code the key of the last row of the previous page
+   * @param limit the maximum number of rows to return
+   * @return up to limit dining commons, ordered by code
+   */
+  List<UCSBDiningCommons> findByCodeGreaterThanOrderByCodeAsc(String code, Limit limit);
+
+  /**
+   * This method streams all dining commons, fetching rows from the database in batches.
+   * The stream must be consumed inside a transaction and closed afterwards.
+   * @return a stream of all dining commons
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+  Stream<UCSBDiningCommons> streamAllBy();
+
+  /**
+   * This method streams the code, latitude and longitude of all dining commons (and none of their
+   * other columns), fetching rows from the database in batches.
+   * The stream must be consumed inside a transaction and closed afterwards.
+   * @return a stream of the locations of all dining commons
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+  Stream<Location> streamLocationsBy();
+}
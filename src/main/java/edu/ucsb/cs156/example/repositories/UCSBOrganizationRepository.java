@@ -1,10 +1,97 @@
 package edu.ucsb.cs156.example.repositories;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface UCSBOrganizationRepository extends CrudRepository<UCSBOrganization, String> {
-}
\ No newline at end of file
+public interface UCSBOrganizationRepository extends CrudRepository<UCSBOrganization, String>, PagingAndSortingRepository<UCSBOrganization, String> {
+  /**
+   * This method returns all organizations.  The result is cached (cache "organizationsAll") until
+   * a organization is saved or deleted.
+   * @return all organizations
+   */
+  @Override
+  @Cacheable(cacheNames = "organizationsAll", key = "'all'")
+  Iterable<UCSBOrganization> findAll();
+
+  /**
+   * This method returns the organization with the given key.  The result is cached (cache "organizations").
+   * @param id the key
+   * @return Optional of UCSBOrganization (empty if not found)
+   */
+  @Override
+  @Cacheable(cacheNames = "organizations", key = "#p0")
+  Optional<UCSBOrganization> findById(String id);
+
+  /**
+   * This method returns the organization with the given key, read from the database and never
+   * from the cache.  Updates use it, so that they change a fresh instance and not the cached one.
+   * @param orgCode the key
+   * @return Optional of UCSBOrganization (empty if not found)
+   */
+  Optional<UCSBOrganization> findByOrgCode(String orgCode);
+
+  /**
+   * This method saves the entity and evicts it from the caches.
+   * @param entity the entity to save
+   * @return the saved entity
+   */
+  @Override
+  @Caching(evict = {
+      @CacheEvict(cacheNames = "organizations", key = "#p0.orgCode"),
+      @CacheEvict(cacheNames = "organizationsAll", allEntries = true) })
+  <S extends UCSBOrganization> S save(S entity);
+
+  /**
+   * This method saves the entities (e.g. from a bulk create) and clears the caches.
+   * @param entities the entities to save
+   * @return the saved entities
+   */
+  @Override
+  @Caching(evict = {
+      @CacheEvict(cacheNames = "organizations", allEntries = true),
+      @CacheEvict(cacheNames = "organizationsAll", allEntries = true) })
+  <S extends UCSBOrganization> Iterable<S> saveAll(Iterable<S> entities);
+
+  /**
+   * This method deletes the entity and evicts it from the caches.
+   * @param entity the entity to delete
+   */
+  @Override
+  @Caching(evict = {
+      @CacheEvict(cacheNames = "organizations", key = "#p0.orgCode"),
+      @CacheEvict(cacheNames = "organizationsAll", allEntries = true) })
+  void delete(UCSBOrganization entity);
+
+  /**
+   * This method returns the organizations whose orgCode is after the given key, in key order (for keyset pagination).
+   * @param orgCode the key of the last row of the previous page
+   * @param limit the maximum number of rows to return
+   * @return up to limit organizations, ordered by orgCode
+   */
+  List<UCSBOrganization> findByOrgCodeGreaterThanOrderByOrgCodeAsc(String orgCode, Limit limit);
+
+  /**
+   * This method streams all organizations, fetching rows from the database in batches.
+   * The stream must be consumed inside a transaction and closed afterwards.
+   * @return a stream of all organizations
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+  Stream<UCSBOrganization> streamAllBy();
+}
@@ -1,20 +1,110 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.UserSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * The UserRepository is a repository for User entities.
  */
 @Repository
 public interface UserRepository extends CrudRepository<User, Long> {
+  /** JPQL that selects the {@link UserSummary} of each user after a given id, in id order */
+  String SUMMARIES = "SELECT new edu.ucsb.cs156.example.models.UserSummary(u.id, u.email, u.fullName,"
+      + " u.givenName, u.familyName, u.emailVerified, u.locale, u.hostedDomain, u.admin,"
+      + " CASE WHEN :includePictureUrl = TRUE THEN u.pictureUrl ELSE NULL END)"
+      + " FROM users u WHERE u.id > :after ORDER BY u.id";
+
   /**
    * This method returns a User entity with a given email.
    * @param email email address of the user
    * @return Optional of User (empty if not found)
    */
   Optional<User> findByEmail(String email);
+
+  /**
+   * This method streams all users, fetching rows from the database in batches.
+   * The stream must be consumed inside a transaction and closed afterwards.
+   * @return a stream of all users
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+  Stream<User> streamAllBy();
+
+  /**
+   * This method streams the summaries of all users after a given id, fetching rows
+   * from the database in batches.  The stream must be consumed inside a transaction
+   * and closed afterwards.
+   * @param after only users with a greater id are returned (0 for all users)
+   * @param includePictureUrl whether to select the picture URL
+   * @return a stream of user summaries, ordered by id
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+  @Query(SUMMARIES)
+  Stream<UserSummary> streamSummaries(@Param("after") long after, @Param("includePictureUrl") boolean includePictureUrl);
+
+  /**
+   * This method returns one keyset page of user summaries.
+   * @param after only users with a greater id are returned (0 for the first page)
+   * @param includePictureUrl whether to select the picture URL
+   * @param limit the most summaries to return
+   * @return up to limit user summaries, ordered by id
+   */
+  @Query(SUMMARIES)
+  List<UserSummary> findSummaries(@Param("after") long after, @Param("includePictureUrl") boolean includePictureUrl,
+      Limit limit);
+
+  /**
+   * This method inserts the user if there is no row with its email yet, and otherwise
+   * sets admin on the existing row if the given user is an admin.  It relies on the
+   * unique index on email, so concurrent first logins cannot create two rows.
+   * This version uses Postgres <code>INSERT ... ON CONFLICT</code>.
+   * @param user the user to insert; its id is ignored
+   * @return the row as stored in the database
+   */
+  @Transactional
+  @Query(value = "INSERT INTO users (email, google_sub, picture_url, full_name, given_name, family_name,"
+      + " email_verified, locale, hosted_domain, admin)"
+      + " VALUES (:#{#user.email}, :#{#user.googleSub}, :#{#user.pictureUrl}, :#{#user.fullName},"
+      + " :#{#user.givenName}, :#{#user.familyName}, :#{#user.emailVerified}, :#{#user.locale},"
+      + " :#{#user.hostedDomain}, :#{#user.admin})"
+      + " ON CONFLICT (email) DO UPDATE SET admin = users.admin OR EXCLUDED.admin"
+      + " RETURNING *", nativeQuery = true)
+  User upsertByEmailPostgres(@Param("user") User user);
+
+  /**
+   * This method is the same as {@link #upsertByEmailPostgres(User)}, but uses the
+   * H2 <code>MERGE</code> statement.
+   * @param user the user to insert; its id is ignored
+   * @return the row as stored in the database
+   */
+  @Transactional
+  @Query(value = "SELECT * FROM FINAL TABLE (MERGE INTO users u USING (SELECT"
+      + " CAST(:#{#user.email} AS VARCHAR) AS email, CAST(:#{#user.googleSub} AS VARCHAR) AS google_sub,"
+      + " CAST(:#{#user.pictureUrl} AS VARCHAR) AS picture_url, CAST(:#{#user.fullName} AS VARCHAR) AS full_name,"
+      + " CAST(:#{#user.givenName} AS VARCHAR) AS given_name, CAST(:#{#user.familyName} AS VARCHAR) AS family_name,"
+      + " CAST(:#{#user.emailVerified} AS BOOLEAN) AS email_verified, CAST(:#{#user.locale} AS VARCHAR) AS locale,"
+      + " CAST(:#{#user.hostedDomain} AS VARCHAR) AS hosted_domain, CAST(:#{#user.admin} AS BOOLEAN) AS admin) s"
+      + " ON u.email = s.email"
+      + " WHEN MATCHED THEN UPDATE SET u.admin = u.admin OR s.admin"
+      + " WHEN NOT MATCHED THEN INSERT (email, google_sub, picture_url, full_name, given_name, family_name,"
+      + " email_verified, locale, hosted_domain, admin)"
+      + " VALUES (s.email, s.google_sub, s.picture_url, s.full_name, s.given_name, s.family_name,"
+      + " s.email_verified, s.locale, s.hosted_domain, s.admin))", nativeQuery = true)
+  User upsertByEmailH2(@Param("user") User user);
 }
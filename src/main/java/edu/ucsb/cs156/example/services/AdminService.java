@@ -0,0 +1,101 @@
+package edu.ucsb.cs156.example.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This is a service that decides whether a user is an admin.
+ *
+ * A user is an admin if their email is listed in <code>app.admin.emails</code>, or if
+ * the admin flag is set on their row in the users table.  The configured emails are
+ * kept in a hash set, and the answers read from the database are cached (including
+ * negative answers), so repeated logins do not query the users table.  An answer is
+ * dropped when its user is saved or deleted through JPA (see UserCacheListener), or
+ * promoted to admin at login; changes made directly in the database are picked up after
+ * at most one TTL.
+ *
+ * @see edu.ucsb.cs156.example.entities.UserCacheListener
+ */
+
+@Slf4j
+@Service("adminService")
+public class AdminService {
+
+  @Autowired
+  UserRepository userRepository;
+
+  private final Set<String> configuredAdminEmails;
+
+  private final Cache<String, Boolean> databaseAdmins;
+
+  /**
+   * Create the service
+   * @param adminEmails the emails listed in <code>app.admin.emails</code>
+   * @param maximumSize the most emails kept in the cache of database answers
+   * @param ttl how long a database answer stays in the cache
+   */
+  public AdminService(
+      @Value("${app.admin.emails}") List<String> adminEmails,
+      @Value("${app.admins.cache.maximum-size:10000}") long maximumSize,
+      @Value("${app.admins.cache.ttl:PT5M}") Duration ttl) {
+    this.configuredAdminEmails = new HashSet<>(adminEmails);
+    this.databaseAdmins = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * This method checks whether the email is listed in <code>app.admin.emails</code>.
+   * @param email email address of the user
+   * @return whether the email is a configured admin
+   */
+  public boolean isConfiguredAdmin(String email) {
+    return configuredAdminEmails.contains(email);
+  }
+
+  /**
+   * This method checks whether the user with the given email is an admin, either
+   * because the email is configured or because the users table says so.
+   * @param email email address of the user
+   * @return whether the user with the given email is an admin
+   */
+  public boolean isAdmin(String email) {
+    if (isConfiguredAdmin(email)) {
+      return true;
+    }
+    return databaseAdmins.get(email, e -> userRepository.findByEmail(e).map(User::getAdmin).orElse(false));
+  }
+
+  /**
+   * This method forgets the cached answer for one email, so that the next
+   * check reads the database.
+   * @param email email address of the user
+   */
+  public void invalidate(String email) {
+    log.info("invalidating cached admin status for {}", email);
+    databaseAdmins.invalidate(email);
+  }
+
+  /**
+   * This method returns the underlying cache of database answers (e.g. for registering metrics).
+   * @return the cache
+   */
+  public Cache<String, Boolean> getCache() {
+    return databaseAdmins;
+  }
+}
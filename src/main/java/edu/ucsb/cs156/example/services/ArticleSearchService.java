@@ -0,0 +1,197 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * This is a service that searches the title, explanation and url of the articles with
+ * an in-memory inverted index, so that a search reads only the articles that contain
+ * one of its words rather than the whole table.
+ *
+ * Text is split into lowercase words at anything that is not a letter or digit (so a url
+ * is indexed by its parts).  Articles are ranked with BM25, counting a word in the title
+ * TITLE_WEIGHT times; ties are broken by id.
+ *
+ * The index is loaded at startup and then kept up to date after every committed insert,
+ * update or delete of an article (see ArticleSearchListener).  Rows changed outside JPA
+ * (e.g. with SQL against the database) are not seen until a restart.
+ *
+ * @see edu.ucsb.cs156.example.entities.ArticleSearchListener
+ */
+
+@Slf4j
+@Service("articleSearch")
+public class ArticleSearchService {
+  /** How many times a word in the title counts, compared with one in the explanation or url */
+  public static final int TITLE_WEIGHT = 3;
+
+  // the usual BM25 parameters: term frequency saturation, and how much document length matters
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+
+  private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  /**
+   * An article matched by a search.
+   * @param id the id of the article
+   * @param score its BM25 score
+   */
+  public record Hit(long id, double score) {
+  }
+
+  private record Document(Map<String, Integer> termFrequencies, int length) {
+  }
+
+  @Autowired
+  ArticlesRepository articlesRepository;
+
+  // guarded by lock
+  private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+  private final Map<Long, Document> documents = new HashMap<>();
+  private long totalLength = 0;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * This method loads the index from the articles; it is called at startup,
+   * before the web server takes requests (see InMemoryIndexLoaderService).
+   */
+  @Transactional(readOnly = true)
+  public void load() {
+    try (Stream<ArticlesRepository.Text> articles = articlesRepository.streamTextBy()) {
+      articles.forEach(article -> index(article.getId(), article.getTitle(), article.getExplanation(), article.getUrl()));
+    }
+    log.info("indexed {} articles", documents.size());
+  }
+
+  /**
+   * This method indexes a new or changed article, replacing what was indexed for it before.
+   * @param id the id of the article
+   * @param title its title
+   * @param explanation its explanation
+   * @param url its url
+   */
+  public void index(long id, String title, String explanation, String url) {
+    Map<String, Integer> termFrequencies = new HashMap<>();
+    for (String word : words(title)) {
+      termFrequencies.merge(word, TITLE_WEIGHT, Integer::sum);
+    }
+    for (String word : words(explanation)) {
+      termFrequencies.merge(word, 1, Integer::sum);
+    }
+    for (String word : words(url)) {
+      termFrequencies.merge(word, 1, Integer::sum);
+    }
+    Document document = new Document(termFrequencies,
+        termFrequencies.values().stream().mapToInt(Integer::intValue).sum());
+
+    lock.writeLock().lock();
+    try {
+      unindex(id);
+      documents.put(id, document);
+      totalLength += document.length();
+      document.termFrequencies().forEach((term, tf) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, tf));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * This method removes a deleted article from the index.
+   * @param id the id of the article
+   */
+  public void remove(long id) {
+    lock.writeLock().lock();
+    try {
+      unindex(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * This method searches the articles, best match first.
+   * @param query the words to search for; an article matches if it contains any of them
+   * @param offset how many of the best matches to skip
+   * @param limit the most matches to return
+   * @return up to limit matches after the first offset, ordered by score and then id
+   */
+  public List<Hit> search(String query, int offset, int limit) {
+    Set<String> terms = new LinkedHashSet<>(words(query));
+    int wanted = offset + limit;
+    Comparator<Hit> best = Comparator.comparingDouble(Hit::score).reversed().thenComparingLong(Hit::id);
+    // the wanted best so far, with the worst of them at the head
+    PriorityQueue<Hit> top = new PriorityQueue<>(best.reversed());
+
+    lock.readLock().lock();
+    try {
+      Map<Long, Double> scores = new HashMap<>();
+      double averageLength = documents.isEmpty() ? 0 : (double) totalLength / documents.size();
+      for (String term : terms) {
+        Map<Long, Integer> matches = postings.getOrDefault(term, Map.of());
+        double idf = Math.log(1 + (documents.size() - matches.size() + 0.5) / (matches.size() + 0.5));
+        matches.forEach((id, tf) -> {
+          double norm = K1 * (1 - B + B * documents.get(id).length() / averageLength);
+          scores.merge(id, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+        });
+      }
+      scores.forEach((id, score) -> {
+        top.add(new Hit(id, score));
+        if (top.size() > wanted) {
+          top.poll();
+        }
+      });
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    List<Hit> hits = new ArrayList<>(top);
+    hits.sort(best);
+    return hits.subList(Math.min(offset, hits.size()), hits.size());
+  }
+
+  static List<String> words(String text) {
+    List<String> words = new ArrayList<>();
+    if (text != null) {
+      for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+        if (!word.isEmpty()) {
+          words.add(word);
+        }
+      }
+    }
+    return words;
+  }
+
+  private void unindex(long id) {
+    Document old = documents.remove(id);
+    if (old == null) {
+      return;
+    }
+    totalLength -= old.length();
+    for (String term : old.termFrequencies().keySet()) {
+      Map<Long, Integer> matches = postings.get(term);
+      matches.remove(id);
+      if (matches.isEmpty()) {
+        postings.remove(term);
+      }
+    }
+  }
+}
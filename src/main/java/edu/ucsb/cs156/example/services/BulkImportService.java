@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import edu.ucsb.cs156.example.errors.BulkImportException;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is a service that creates many rows at once for the bulk create endpoints
+ * (<code>POST /api/.../bulk</code>).
+ *
+ * All the rows are saved in one transaction, so either all of them are created or none.
+ * Because the entities take their ids from pooled sequences, Hibernate does not need a
+ * round trip per row to learn the id, and the inserts go to the database in JDBC batches
+ * of <code>hibernate.jdbc.batch_size</code>.
+ *
+ * The size of a bulk request body is capped before it is read (see BulkRequestSizeConfig).
+ */
+
+@Slf4j
+@Service("bulkImportService")
+public class BulkImportService {
+
+  private final CsvMapper csvMapper = CsvMapper.builder().addModule(new JavaTimeModule()).build();
+
+  private final int maxRows;
+
+  /**
+   * Create the service
+   * @param maxRows the most rows that may be created by one request
+   */
+  public BulkImportService(@Value("${app.bulk.max-rows:10000}") int maxRows) {
+    this.maxRows = maxRows;
+  }
+
+  /**
+   * This method reads rows from CSV text.  The first line is a header naming the
+   * properties of the entity (e.g. <code>quarterYYYYQ,name,localDateTime</code>); the
+   * columns may be in any order, and properties that are left out keep their defaults.
+   * @param <T> the entity type
+   * @param csv the CSV text
+   * @param type the entity class
+   * @return the rows
+   * @throws BulkImportException if the CSV cannot be read, or has more than
+   *         <code>app.bulk.max-rows</code> rows (checked as the rows are read, so the
+   *         rows after the limit are never parsed)
+   */
+  public <T> List<T> readCsv(String csv, Class<T> type) {
+    ObjectReader reader = csvMapper.readerFor(type).with(CsvSchema.emptySchema().withHeader());
+    try (MappingIterator<T> iterator = reader.readValues(csv)) {
+      List<T> rows = new ArrayList<>();
+      while (iterator.hasNextValue()) {
+        if (rows.size() == maxRows) {
+          throw new BulkImportException("at most %d rows can be created at once, but more were sent"
+              .formatted(maxRows));
+        }
+        rows.add(iterator.nextValue());
+      }
+      return rows;
+    } catch (IOException e) {
+      throw new BulkImportException("could not read CSV: " + e.getMessage());
+    }
+  }
+
+  /**
+   * This method saves the rows in one transaction.
+   * @param <T> the entity type
+   * @param repository the repository of the entity
+   * @param rows the rows to save
+   * @return the saved rows, with their ids
+   * @throws BulkImportException if there are more than <code>app.bulk.max-rows</code> rows
+   */
+  @Transactional
+  public <T> List<T> createAll(CrudRepository<T, ?> repository, List<T> rows) {
+    if (rows.size() > maxRows) {
+      throw new BulkImportException("at most %d rows can be created at once, but %d were sent"
+          .formatted(maxRows, rows.size()));
+    }
+    List<T> saved = new ArrayList<>(rows.size());
+    repository.saveAll(rows).forEach(saved::add);
+    log.info("bulk import saved {} rows", saved.size());
+    return saved;
+  }
+}
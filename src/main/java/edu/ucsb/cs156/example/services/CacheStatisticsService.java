@@ -0,0 +1,70 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.CacheStatistics;
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This is a service that reports the statistics of the Hibernate second-level
+ * cache and query cache.
+ *
+ * Hibernate only counts hits and misses when <code>hibernate.generate_statistics</code>
+ * is set, which application.properties ties to the same flag that turns the caches on
+ * (<code>HIBERNATE_L2_CACHE</code>); otherwise every count is zero.
+ */
+
+@Service("cacheStatisticsService")
+public class CacheStatisticsService {
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  /**
+   * This method returns the current statistics of the second-level cache, one entry per region.
+   * @return the cache statistics
+   */
+  public CacheStatistics getCacheStatistics() {
+    SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    SessionFactoryOptions options = sessionFactory.getSessionFactoryOptions();
+    Statistics statistics = sessionFactory.getStatistics();
+
+    List<CacheStatistics.Region> regions = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+        .sorted()
+        .map(name -> region(name, statistics.getCacheRegionStatistics(name)))
+        .filter(Objects::nonNull)
+        .toList();
+
+    return CacheStatistics.builder()
+        .secondLevelCacheEnabled(options.isSecondLevelCacheEnabled())
+        .queryCacheEnabled(options.isQueryCacheEnabled())
+        .statisticsEnabled(statistics.isStatisticsEnabled())
+        .queryCacheHitCount(statistics.getQueryCacheHitCount())
+        .queryCacheMissCount(statistics.getQueryCacheMissCount())
+        .queryCachePutCount(statistics.getQueryCachePutCount())
+        .regions(regions)
+        .build();
+  }
+
+  private static CacheStatistics.Region region(String name, CacheRegionStatistics regionStatistics) {
+    if (regionStatistics == null) {
+      return null;
+    }
+    return CacheStatistics.Region.builder()
+        .name(name)
+        .hitCount(regionStatistics.getHitCount())
+        .missCount(regionStatistics.getMissCount())
+        .putCount(regionStatistics.getPutCount())
+        .elementCountInMemory(regionStatistics.getElementCountInMemory())
+        .build();
+  }
+}
@@ -3,15 +3,16 @@ package edu.ucsb.cs156.example.services;
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.models.CurrentUser;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Primary;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -37,8 +38,17 @@ public class CurrentUserServiceImpl extends CurrentUserService {
   @Autowired
   GrantedAuthoritiesService grantedAuthoritiesService;
 
-  @Value("${app.admin.emails}")
-  final private List<String> adminEmails = new ArrayList<String>();
+  @Autowired
+  UserCacheService userCache;
+
+  @Autowired
+  AdminService adminService;
+
+  @Lazy
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  private volatile Boolean postgres;
 
   /**
    * This method returns the current user as a User object.
@@ -57,7 +67,10 @@ public class CurrentUserServiceImpl extends CurrentUserService {
    * This method obtains the current user that is logged in with OAuth2, if any.
    * The parameters are automatically injected by Spring.
    * 
-   * This method also has a side effect of storing the user in the database if they are not already there.
+   * This method also has a side effect of storing the user in the database if they are not already there
+   * (or of making them an admin if they are listed in app.admin.emails); this is a single upsert statement.
+   * 
+   * Resolved users are kept in the user cache, so in steady state this method does not query the database.
    * 
    * @param securityContext the security context (provided by Spring)
    * @param authentication the authentication token (provided by Spring)
@@ -67,6 +80,12 @@ public class CurrentUserServiceImpl extends CurrentUserService {
   public User getOAuth2AuthenticatedUser(SecurityContext securityContext, Authentication authentication) {
     OAuth2User oAuthUser = ((OAuth2AuthenticationToken) authentication).getPrincipal();
     String email = oAuthUser.getAttribute("email");
+
+    Optional<User> cached = userCache.get(email);
+    if (cached.isPresent() && (cached.get().getAdmin() || !adminService.isConfiguredAdmin(email))) {
+      return cached.get();
+    }
+
     String googleSub = oAuthUser.getAttribute("sub");
     String pictureUrl = oAuthUser.getAttribute("picture");
     String fullName = oAuthUser.getAttribute("name");
@@ -79,16 +98,6 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     java.util.Map<java.lang.String,java.lang.Object> attrs = oAuthUser.getAttributes();
     log.info("attrs={}",attrs);
 
-    Optional<User> ou = userRepository.findByEmail(email);
-    if (ou.isPresent()) {
-      User u = ou.get();
-      if (adminEmails.contains(email) && !u.getAdmin()) {
-        u.setAdmin(true);
-        userRepository.save(u);
-      }
-      return u;
-    }
-
     User u = User.builder()
         .googleSub(googleSub)
         .email(email)
@@ -99,10 +108,30 @@ public class CurrentUserServiceImpl extends CurrentUserService {
         .emailVerified(emailVerified)
         .locale(locale)
         .hostedDomain(hostedDomain)
-        .admin(adminEmails.contains(email))
+        .admin(adminService.isConfiguredAdmin(email))
         .build();
-    userRepository.save(u);
-    return u;
+    User stored = isPostgres()
+        ? userRepository.upsertByEmailPostgres(u)
+        : userRepository.upsertByEmailH2(u);
+    userCache.put(stored);
+    if (stored.getAdmin()) {
+      // a negative answer may have been cached before the upsert made the user an admin
+      adminService.invalidate(email);
+    }
+    return stored;
+  }
+
+  /**
+   * This method tells which upsert statement the database understands; the answer
+   * comes from the dialect Hibernate chose for the database, and is asked for once.
+   * @return true if the database is Postgres
+   */
+  boolean isPostgres() {
+    if (postgres == null) {
+      postgres = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+          .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+    return postgres;
   }
 
   /**
@@ -0,0 +1,193 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * This is a service that finds the dining commons nearest to a location, using an
+ * in-memory k-d tree of their coordinates instead of reading the table.
+ *
+ * Each location is kept as a point on the unit sphere (x, y, z).  The straight-line
+ * distance between two such points grows with the great-circle distance between the
+ * locations, so an ordinary Euclidean k-d tree finds the nearest commons exactly, even
+ * across the antimeridian.
+ *
+ * The locations are loaded at startup and then kept up to date after every committed
+ * insert, update or delete of a dining commons (see DiningCommonsLocationListener).  A
+ * change only updates the map of locations; the tree, which is small, is rebuilt from the
+ * map by the next lookup after a change.  Only the codes are kept, and the dining commons
+ * themselves are read through the repository's cache.  Dining commons without a
+ * latitude and longitude are never found.
+ *
+ * @see edu.ucsb.cs156.example.entities.DiningCommonsLocationListener
+ */
+
+@Slf4j
+@Service("diningCommonsLocations")
+public class DiningCommonsLocationService {
+  /** Mean radius of the earth, in meters */
+  public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+  record Point(String code, double[] xyz) {
+  }
+
+  private record Neighbor(Point point, double chordSquared) {
+  }
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  private final ConcurrentHashMap<String, Point> points = new ConcurrentHashMap<>();
+
+  // incremented after every change to points, so a tree built before the change is not used after it
+  private final AtomicLong version = new AtomicLong();
+  private volatile KdTree tree = new KdTree(-1, List.of());
+
+  /**
+   * This method loads the locations of all dining commons; it is called at startup,
+   * before the web server takes requests (see InMemoryIndexLoaderService).
+   */
+  @Transactional(readOnly = true)
+  public void load() {
+    try (Stream<UCSBDiningCommonsRepository.Location> locations = ucsbDiningCommonsRepository.streamLocationsBy()) {
+      locations.forEach(location -> put(location.getCode(), location.getLatitude(), location.getLongitude()));
+    }
+    log.info("loaded the locations of {} dining commons", points.size());
+  }
+
+  /**
+   * This method records the location of a new or changed dining commons.
+   * @param code the code of the dining commons
+   * @param latitude its latitude, in degrees, or null
+   * @param longitude its longitude, in degrees, or null
+   */
+  public void put(String code, Double latitude, Double longitude) {
+    if (latitude == null || longitude == null) {
+      remove(code);
+      return;
+    }
+    points.put(code, new Point(code, xyz(latitude, longitude)));
+    version.incrementAndGet();
+  }
+
+  /**
+   * This method records that a dining commons was deleted.
+   * @param code the code of the dining commons
+   */
+  public void remove(String code) {
+    points.remove(code);
+    version.incrementAndGet();
+  }
+
+  /**
+   * This method returns the dining commons nearest to a location, nearest first.
+   * @param latitude the latitude of the location, in degrees
+   * @param longitude the longitude of the location, in degrees
+   * @param k how many dining commons to return
+   * @return up to k dining commons, with their distances from the location
+   */
+  public List<NearbyDiningCommons> nearest(double latitude, double longitude, int k) {
+    List<NearbyDiningCommons> nearest = new ArrayList<>();
+    for (Neighbor neighbor : currentTree().nearest(xyz(latitude, longitude), k)) {
+      ucsbDiningCommonsRepository.findById(neighbor.point().code()).ifPresent(commons -> nearest.add(
+          new NearbyDiningCommons(commons, 2 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(neighbor.chordSquared()) / 2))));
+    }
+    return nearest;
+  }
+
+  private KdTree currentTree() {
+    KdTree current = tree;
+    return current.version() == version.get() ? current : rebuild();
+  }
+
+  private synchronized KdTree rebuild() {
+    // read the version first, so that a change made while building makes the tree stale
+    long v = version.get();
+    tree = new KdTree(v, points.values());
+    return tree;
+  }
+
+  static double[] xyz(double latitude, double longitude) {
+    double lat = Math.toRadians(latitude);
+    double lon = Math.toRadians(longitude);
+    return new double[] { Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat) };
+  }
+
+  /**
+   * An immutable k-d tree, stored implicitly in an array: the root of each subarray is its
+   * middle element, split on axis depth % 3, with the smaller coordinates to its left.
+   */
+  static class KdTree {
+    private final long version;
+    private final Point[] points;
+
+    KdTree(long version, Collection<Point> points) {
+      this.version = version;
+      this.points = points.toArray(new Point[0]);
+      build(0, this.points.length, 0);
+    }
+
+    long version() {
+      return version;
+    }
+
+    private void build(int lo, int hi, int depth) {
+      if (hi - lo < 2) {
+        return;
+      }
+      int axis = depth % 3;
+      Arrays.sort(points, lo, hi, Comparator.comparingDouble(p -> p.xyz()[axis]));
+      int mid = (lo + hi) >>> 1;
+      build(lo, mid, depth + 1);
+      build(mid + 1, hi, depth + 1);
+    }
+
+    List<Neighbor> nearest(double[] target, int k) {
+      // a max-heap of the best k so far, so the farthest of them is at the head
+      PriorityQueue<Neighbor> best = new PriorityQueue<>(Comparator.comparingDouble(Neighbor::chordSquared).reversed());
+      search(0, points.length, 0, target, k, best);
+      List<Neighbor> nearest = new ArrayList<>(best);
+      nearest.sort(Comparator.comparingDouble(Neighbor::chordSquared));
+      return nearest;
+    }
+
+    private void search(int lo, int hi, int depth, double[] target, int k, PriorityQueue<Neighbor> best) {
+      if (lo >= hi) {
+        return;
+      }
+      int mid = (lo + hi) >>> 1;
+      Point point = points[mid];
+      double[] xyz = point.xyz();
+      double dx = target[0] - xyz[0];
+      double dy = target[1] - xyz[1];
+      double dz = target[2] - xyz[2];
+      best.add(new Neighbor(point, dx * dx + dy * dy + dz * dz));
+      if (best.size() > k) {
+        best.poll();
+      }
+      int axis = depth % 3;
+      double diff = target[axis] - xyz[axis];
+      boolean left = diff < 0;
+      search(left ? lo : mid + 1, left ? mid : hi, depth + 1, target, k, best);
+      // the other side can only hold a nearer point if the splitting plane is nearer than the farthest of the best
+      if (best.size() < k || diff * diff < best.peek().chordSquared()) {
+        search(left ? mid + 1 : lo, left ? hi : mid, depth + 1, target, k, best);
+      }
+    }
+  }
+}
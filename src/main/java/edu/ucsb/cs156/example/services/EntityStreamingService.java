@@ -0,0 +1,141 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * This is a service that writes the rows of a repository stream straight to an output stream,
+ * so that large tables can be sent to a client without first loading them into memory.
+ *
+ * The stream is opened and consumed inside a read-only transaction (needed for the JDBC driver
+ * to fetch rows in batches), and each entity is detached once it has been written so that the
+ * persistence context does not grow with the size of the table.
+ */
+
+@Slf4j
+@Service("entityStreaming")
+public class EntityStreamingService {
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Autowired(required = false)
+  EntityManager entityManager;
+
+  // columns in the order the fields are declared, like the JSON, and values quoted only when they must be
+  private final CsvMapper csvMapper = CsvMapper.builder()
+      .addModule(new JavaTimeModule())
+      .disable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+      .enable(CsvGenerator.Feature.STRICT_CHECK_FOR_QUOTING)
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+      .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+      .build();
+
+  /**
+   * This method writes each row of the stream as one line of JSON (newline-delimited JSON).
+   * @param <T> the type of the rows
+   * @param source opens the stream of rows, e.g. a repository streamAllBy method
+   * @param out where the rows are written; it is flushed but not closed
+   * @throws IOException if the rows cannot be written
+   */
+  @Transactional(readOnly = true)
+  public <T> void writeNdjson(Supplier<Stream<T>> source, OutputStream out) throws IOException {
+    // each row ends with its own newline, so no separator between root values, and no flush per row
+    ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    long count = 0;
+    try (Stream<T> rows = source.get();
+        JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      generator.setRootValueSeparator(null);
+      for (T row : (Iterable<T>) rows::iterator) {
+        writer.writeValue(generator, row);
+        generator.writeRaw('\n');
+        detach(row);
+        count++;
+      }
+    }
+    out.flush();
+    log.info("writeNdjson wrote {} rows", count);
+  }
+
+  /**
+   * This method writes the rows as one JSON array.  Each row is serialized straight to the
+   * output stream, so neither the list of rows nor the JSON text is ever held in memory.
+   * @param <T> the type of the rows
+   * @param source opens the stream of rows, e.g. a repository streamAllBy method
+   * @param out where the rows are written; it is flushed but not closed
+   * @throws IOException if the rows cannot be written
+   */
+  @Transactional(readOnly = true)
+  public <T> void writeJsonArray(Supplier<Stream<T>> source, OutputStream out) throws IOException {
+    ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    long count = 0;
+    try (Stream<T> rows = source.get();
+        JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      generator.writeStartArray();
+      for (T row : (Iterable<T>) rows::iterator) {
+        writer.writeValue(generator, row);
+        detach(row);
+        count++;
+      }
+      generator.writeEndArray();
+    }
+    out.flush();
+    log.info("writeJsonArray wrote {} rows", count);
+  }
+
+  /**
+   * This method writes the rows as CSV, starting with a header row that names the
+   * properties of the type.  The output can be sent back to a bulk create endpoint.
+   * @param <T> the type of the rows
+   * @param type the class of the rows, from which the columns are taken
+   * @param source opens the stream of rows, e.g. a repository streamAllBy method
+   * @param out where the rows are written; it is flushed but not closed
+   * @throws IOException if the rows cannot be written
+   */
+  @Transactional(readOnly = true)
+  public <T> void writeCsv(Class<T> type, Supplier<Stream<T>> source, OutputStream out) throws IOException {
+    CsvSchema schema = csvMapper.schemaFor(type).withHeader();
+    long count = 0;
+    try (Stream<T> rows = source.get();
+        SequenceWriter writer = csvMapper.writer(schema).writeValues(out)) {
+      for (T row : (Iterable<T>) rows::iterator) {
+        writer.write(row);
+        detach(row);
+        count++;
+      }
+    }
+    out.flush();
+    log.info("writeCsv wrote {} rows of {}", count, type.getSimpleName());
+  }
+
+  // projections (e.g. UserSummary) are not managed, and detaching them would throw
+  private void detach(Object row) {
+    if (entityManager != null && row.getClass().isAnnotationPresent(Entity.class)) {
+      entityManager.detach(row);
+    }
+  }
+}
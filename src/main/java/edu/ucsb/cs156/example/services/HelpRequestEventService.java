@@ -0,0 +1,286 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * This is a service that pushes changes to help requests to subscribed clients as
+ * server-sent events, so that the TA view of the queue does not have to poll
+ * <code>/api/helprequests/all</code>.
+ *
+ * Each subscriber is an {@link SseEmitter}, i.e. an async request: no thread is held
+ * while it waits.  An event is serialized to JSON once, however many subscribers there
+ * are, and is queued for each of them under a short lock; the writes to the subscribers
+ * then happen on the application task executor, one task at a time per subscriber, so
+ * that neither the thread that changed the help request nor the other subscribers wait
+ * for a slow client.  A subscriber that falls more than
+ * <code>app.help-request-events.max-pending</code> events behind is dropped, and
+ * catches up when it reconnects.
+ *
+ * The last <code>app.help-request-events.replay-size</code> events are kept, so a client
+ * that reconnects with a <code>Last-Event-ID</code> header (as EventSource does) is sent the
+ * events it missed.  If the events it missed are no longer kept, or the id is from before
+ * the server restarted, it is sent a <code>reset</code> event and should reload the queue.
+ */
+
+@Slf4j
+@Service("helpRequestEvents")
+public class HelpRequestEventService {
+  /** Event name for a new help request */
+  public static final String CREATED = "created";
+  /** Event name for a changed help request */
+  public static final String UPDATED = "updated";
+  /** Event name for a deleted help request */
+  public static final String DELETED = "deleted";
+  /** Event name telling a client that events were missed and it should reload the queue */
+  public static final String RESET = "reset";
+
+  private record Event(String id, String name, String data) {
+  }
+
+  private final ObjectMapper mapper;
+  private final Executor executor;
+  private final int replaySize;
+  private final int maxPending;
+  private final Duration timeout;
+
+  // ids are epoch-sequence, so that ids from before a restart are never taken for current ones
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+  private long sequence = 0;
+
+  // guarded by this; held only to queue events, never while sending them
+  private final Deque<Event> replay = new ArrayDeque<>();
+  private final List<Subscriber> subscribers = new ArrayList<>();
+
+  /**
+   * Create the service
+   * @param mapper the object mapper used to write help requests as JSON
+   * @param executor the executor that sends the events to the subscribers
+   * @param replaySize how many recent events are kept for reconnecting clients
+   * @param maxPending how many events may wait to be sent to a subscriber before it is dropped
+   * @param timeout how long a subscription lasts before the client has to reconnect
+   */
+  public HelpRequestEventService(ObjectMapper mapper,
+      @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor,
+      @Value("${app.help-request-events.replay-size:100}") int replaySize,
+      @Value("${app.help-request-events.max-pending:200}") int maxPending,
+      @Value("${app.help-request-events.timeout:PT30M}") Duration timeout) {
+    this.mapper = mapper;
+    this.executor = executor;
+    this.replaySize = replaySize;
+    this.maxPending = maxPending;
+    this.timeout = timeout;
+  }
+
+  /**
+   * This method subscribes a client to the events.
+   * @param lastEventId the id of the last event the client saw (its Last-Event-ID header), or null
+   * @return the emitter that the events are sent through
+   */
+  public SseEmitter subscribe(String lastEventId) {
+    SseEmitter emitter = createEmitter();
+    Subscriber subscriber = new Subscriber(emitter);
+    synchronized (this) {
+      if (lastEventId == null) {
+        // gives the client an id to reconnect with even if no event arrives before it does
+        String id = currentId();
+        subscriber.enqueue(() -> SseEmitter.event().id(id).comment("subscribed"));
+      } else {
+        for (Event event : missedEvents(lastEventId)) {
+          subscriber.enqueue(() -> event(event));
+        }
+      }
+      subscribers.add(subscriber);
+    }
+    emitter.onCompletion(() -> remove(subscriber));
+    emitter.onError(e -> remove(subscriber));
+    emitter.onTimeout(emitter::complete);
+    drainLater(subscriber);
+    return emitter;
+  }
+
+  /**
+   * This method sends an event to every subscriber and keeps it for reconnecting clients.
+   * @param name CREATED, UPDATED or DELETED
+   * @param helpRequest the help request that changed
+   */
+  public void publish(String name, HelpRequest helpRequest) {
+    String data = mapper.valueToTree(helpRequest).toString();
+    List<Subscriber> recipients;
+    synchronized (this) {
+      Event event = new Event(nextId(), name, data);
+      replay.addLast(event);
+      if (replay.size() > replaySize) {
+        replay.removeFirst();
+      }
+      recipients = enqueueForAll(() -> event(event));
+    }
+    recipients.forEach(this::drainLater);
+  }
+
+  /**
+   * This method sends a comment to every subscriber, so that proxies do not close idle
+   * connections, and drops subscribers whose connection has gone away.
+   */
+  @Scheduled(fixedDelayString = "${app.help-request-events.heartbeat:PT25S}")
+  public void heartbeat() {
+    List<Subscriber> recipients;
+    synchronized (this) {
+      recipients = enqueueForAll(() -> SseEmitter.event().comment("heartbeat"));
+    }
+    recipients.forEach(this::drainLater);
+  }
+
+  /**
+   * This method returns the number of subscribers.
+   * @return the number of subscribers
+   */
+  public synchronized int subscriberCount() {
+    return subscribers.size();
+  }
+
+  SseEmitter createEmitter() {
+    return new SseEmitter(timeout.toMillis());
+  }
+
+  private List<Event> missedEvents(String lastEventId) {
+    List<Event> missed = new ArrayList<>();
+    boolean found = false;
+    for (Event event : replay) {
+      if (found) {
+        missed.add(event);
+      }
+      found = found || event.id().equals(lastEventId);
+    }
+    if (found || lastEventId.equals(currentId())) {
+      return missed;
+    }
+    return List.of(new Event(currentId(), RESET, "{}"));
+  }
+
+  // called with the lock held, so that every subscriber has its events queued in id order
+  private List<Subscriber> enqueueForAll(Supplier<SseEmitter.SseEventBuilder> event) {
+    List<Subscriber> recipients = List.copyOf(subscribers);
+    for (Subscriber subscriber : recipients) {
+      if (!subscriber.enqueue(event)) {
+        log.debug("dropping help request event subscriber that is {} events behind", maxPending);
+        subscribers.remove(subscriber);
+      }
+    }
+    // a dropped subscriber is still drained, so that its emitter is completed
+    return recipients;
+  }
+
+  private void drainLater(Subscriber subscriber) {
+    if (subscriber.claim()) {
+      executor.execute(subscriber::drain);
+    }
+  }
+
+  private synchronized void remove(Subscriber subscriber) {
+    subscribers.remove(subscriber);
+  }
+
+  private String nextId() {
+    sequence++;
+    return currentId();
+  }
+
+  private String currentId() {
+    return epoch + "-" + sequence;
+  }
+
+  private SseEmitter.SseEventBuilder event(Event event) {
+    return SseEmitter.event().id(event.id()).name(event.name()).data(event.data(), MediaType.APPLICATION_JSON);
+  }
+
+  /**
+   * A subscriber and the events waiting to be sent to it.  At most one task drains it at
+   * a time, so it is sent its events in the order they were queued.
+   */
+  private final class Subscriber {
+    private final SseEmitter emitter;
+
+    // guarded by this subscriber; an event builder can only be built once, so each is a supplier
+    private final Deque<Supplier<SseEmitter.SseEventBuilder>> pending = new ArrayDeque<>();
+    private boolean draining = false;
+    private boolean dropped = false;
+
+    Subscriber(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    // false if the subscriber is, or has now been, dropped for falling too far behind
+    synchronized boolean enqueue(Supplier<SseEmitter.SseEventBuilder> event) {
+      if (pending.size() >= maxPending) {
+        dropped = true;
+        pending.clear();
+      }
+      if (dropped) {
+        return false;
+      }
+      pending.addLast(event);
+      return true;
+    }
+
+    // true if the caller should start a drain (one with nothing to send just stops)
+    synchronized boolean claim() {
+      if (draining) {
+        return false;
+      }
+      draining = true;
+      return true;
+    }
+
+    void drain() {
+      for (Supplier<SseEmitter.SseEventBuilder> event = next(); event != null; event = next()) {
+        try {
+          emitter.send(event.get());
+        } catch (IOException | IllegalStateException e) {
+          log.debug("dropping help request event subscriber: {}", e.toString());
+          drop();
+        }
+      }
+      if (isDropped()) {
+        emitter.complete();
+      }
+    }
+
+    private synchronized Supplier<SseEmitter.SseEventBuilder> next() {
+      Supplier<SseEmitter.SseEventBuilder> event = dropped ? null : pending.pollFirst();
+      draining = event != null;
+      return event;
+    }
+
+    private void drop() {
+      synchronized (this) {
+        dropped = true;
+        pending.clear();
+      }
+      remove(this);
+    }
+
+    private synchronized boolean isDropped() {
+      return dropped;
+    }
+  }
+}
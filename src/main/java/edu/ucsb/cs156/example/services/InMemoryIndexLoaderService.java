@@ -0,0 +1,50 @@
+package edu.ucsb.cs156.example.services;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that fills the in-memory indexes (article search, menu item ratings
+ * and typeahead, dining commons locations and the calendar of UCSB dates) from the
+ * database once every bean has been created, and so before the web server starts
+ * taking requests.
+ *
+ * Loading the indexes any later (e.g. on ApplicationReadyEvent) would let requests in
+ * while they are still empty: the endpoints would answer with empty results under the
+ * current ETag, and go on answering 304 for them, and a write committed while an index
+ * was being loaded could be overwritten by the older rows being loaded.
+ */
+
+@Service("inMemoryIndexLoader")
+public class InMemoryIndexLoaderService implements SmartInitializingSingleton {
+
+  @Autowired
+  ArticleSearchService articleSearchService;
+
+  @Autowired
+  MenuItemRatingService menuItemRatingService;
+
+  @Autowired
+  MenuItemTypeaheadService menuItemTypeaheadService;
+
+  @Autowired
+  DiningCommonsLocationService diningCommonsLocationService;
+
+  @Autowired
+  UCSBDateCalendarService ucsbDateCalendarService;
+
+  /**
+   * This method loads the indexes; it is called by Spring once every bean has been
+   * created, before the web server is started.  Each load runs in its own read-only
+   * transaction.
+   */
+  @Override
+  public void afterSingletonsInstantiated() {
+    articleSearchService.load();
+    menuItemRatingService.load();
+    menuItemTypeaheadService.load();
+    diningCommonsLocationService.load();
+    ucsbDateCalendarService.load();
+  }
+}
@@ -0,0 +1,126 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.MenuItemRating;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * This is a service that keeps the rating statistics of each menu item in memory, so
+ * that the rating of an item can be looked up without reading its reviews.
+ *
+ * The statistics are loaded from the menu item reviews at startup, and then kept up to
+ * date after every committed insert, update or delete of a review (see
+ * MenuItemRatingListener).  The stars each review contributes are remembered by review
+ * id, so an update first takes back what the old version of the review contributed, and
+ * applying the same change twice has no effect.  The counters are LongAdders, so
+ * concurrent reviews of a popular item do not contend on one counter; a rating that is
+ * read while reviews are being changed may not yet include all of them.  Rows changed
+ * outside JPA (e.g. with SQL against the database) are not seen until a restart.
+ *
+ * @see edu.ucsb.cs156.example.entities.MenuItemRatingListener
+ */
+
+@Slf4j
+@Service("menuItemRatings")
+public class MenuItemRatingService {
+
+  private record Contribution(long itemId, int stars) {
+  }
+
+  private static class Counters {
+    final LongAdder count = new LongAdder();
+    final LongAdder sum = new LongAdder();
+    final ConcurrentHashMap<Integer, LongAdder> histogram = new ConcurrentHashMap<>();
+
+    void add(int stars, int sign) {
+      count.add(sign);
+      sum.add((long) sign * stars);
+      histogram.computeIfAbsent(stars, s -> new LongAdder()).add(sign);
+    }
+  }
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  private final ConcurrentHashMap<Long, Contribution> contributions = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Long, Counters> items = new ConcurrentHashMap<>();
+
+  /**
+   * This method loads the statistics from the menu item reviews; it is called at startup,
+   * before the web server takes requests (see InMemoryIndexLoaderService).
+   */
+  @Transactional(readOnly = true)
+  public void load() {
+    try (Stream<MenuItemReviewRepository.Stars> reviews = menuItemReviewRepository.streamStarsBy()) {
+      reviews.forEach(review -> record(review.getId(), review.getItemId(), review.getStars()));
+    }
+    log.info("loaded ratings of {} reviews of {} menu items", contributions.size(), items.size());
+  }
+
+  /**
+   * This method records a new or changed review.
+   * @param reviewId the id of the review
+   * @param itemId the menu item it reviews
+   * @param stars the stars it gives
+   */
+  public void record(long reviewId, long itemId, int stars) {
+    Contribution contribution = new Contribution(itemId, stars);
+    apply(contribution, 1);
+    Contribution old = contributions.put(reviewId, contribution);
+    if (old != null) {
+      apply(old, -1);
+    }
+  }
+
+  /**
+   * This method records that a review was deleted.
+   * @param reviewId the id of the review
+   */
+  public void remove(long reviewId) {
+    Contribution old = contributions.remove(reviewId);
+    if (old != null) {
+      apply(old, -1);
+    }
+  }
+
+  /**
+   * This method returns the rating statistics of a menu item.
+   * @param itemId the menu item
+   * @return its statistics; the count is 0 if it has no reviews
+   */
+  public MenuItemRating rating(long itemId) {
+    Counters counters = items.get(itemId);
+    if (counters == null) {
+      return MenuItemRating.builder().itemId(itemId).histogram(new TreeMap<>()).build();
+    }
+    long count = counters.count.sum();
+    long sum = counters.sum.sum();
+    SortedMap<Integer, Long> histogram = new TreeMap<>();
+    counters.histogram.forEach((stars, n) -> {
+      if (n.sum() != 0) {
+        histogram.put(stars, n.sum());
+      }
+    });
+    return MenuItemRating.builder()
+        .itemId(itemId)
+        .count(count)
+        .sum(sum)
+        .average(count == 0 ? null : (double) sum / count)
+        .histogram(histogram)
+        .build();
+  }
+
+  private void apply(Contribution contribution, int sign) {
+    items.computeIfAbsent(contribution.itemId(), id -> new Counters()).add(contribution.stars(), sign);
+  }
+}
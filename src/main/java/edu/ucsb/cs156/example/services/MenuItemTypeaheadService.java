@@ -0,0 +1,156 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * This is a service that keeps the names of the menu items in memory, sorted, so that
+ * the menu items whose name starts with what a user has typed so far can be found
+ * without downloading or scanning the whole list.
+ *
+ * Each menu item is indexed under every word of its name, from that word to the end of
+ * the name and ignoring case, so "chi" finds both "Chicken Tenders" and "Grilled
+ * Chicken".  The index is a ConcurrentSkipListMap, so a lookup is a seek to the prefix
+ * followed by a walk over the matching names, and takes no lock.  It is loaded at
+ * startup and kept up to date after every committed insert, update or delete of a
+ * menu item (see MenuItemTypeaheadListener); rows changed outside JPA are not seen
+ * until a restart.
+ *
+ * @see edu.ucsb.cs156.example.entities.MenuItemTypeaheadListener
+ */
+
+@Slf4j
+@Service("menuItemTypeahead")
+public class MenuItemTypeaheadService {
+
+  private record Key(String words, long id) implements Comparable<Key> {
+    @Override
+    public int compareTo(Key other) {
+      int c = words.compareTo(other.words);
+      return (c != 0) ? c : Long.compare(id, other.id);
+    }
+  }
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  private final ConcurrentSkipListMap<Key, UCSBDiningCommonsMenuItem> index = new ConcurrentSkipListMap<>();
+  private final Map<Long, UCSBDiningCommonsMenuItem> items = new ConcurrentHashMap<>();
+
+  /**
+   * This method loads the index from the menu items; it is called at startup,
+   * before the web server takes requests (see InMemoryIndexLoaderService).
+   */
+  @Transactional(readOnly = true)
+  public void load() {
+    try (Stream<UCSBDiningCommonsMenuItemRepository.Name> names = ucsbDiningCommonsMenuItemRepository.streamNamesBy()) {
+      names.forEach(item -> put(item.getId(), item.getDiningCommonsCode(), item.getName(), item.getStation()));
+    }
+    log.info("loaded {} menu item names", items.size());
+  }
+
+  /**
+   * This method indexes a new or changed menu item.
+   * @param id the id of the menu item
+   * @param diningCommonsCode the dining commons that serves it
+   * @param name its name
+   * @param station the station that serves it
+   */
+  public synchronized void put(long id, String diningCommonsCode, String name, String station) {
+    UCSBDiningCommonsMenuItem item = UCSBDiningCommonsMenuItem.builder()
+        .id(id).diningCommonsCode(diningCommonsCode).name(name).station(station).build();
+    // the new keys go in before the old ones go out, so the item can always be found
+    for (String words : suffixes(name)) {
+      index.put(new Key(words, id), item);
+    }
+    UCSBDiningCommonsMenuItem old = items.put(id, item);
+    if (old != null) {
+      unindex(old, suffixes(name));
+    }
+  }
+
+  /**
+   * This method removes a deleted menu item from the index.
+   * @param id the id of the menu item
+   */
+  public synchronized void remove(long id) {
+    UCSBDiningCommonsMenuItem old = items.remove(id);
+    if (old != null) {
+      unindex(old, List.of());
+    }
+  }
+
+  /**
+   * This method returns the menu items with a word in their name that starts with the
+   * prefix, ordered by the name from that word on.
+   * @param prefix what the user has typed so far; case is ignored
+   * @param diningCommonsCode if not null, only menu items of this dining commons are returned
+   * @param station if not null, only menu items of this station are returned
+   * @param limit the most menu items to return
+   * @return up to limit menu items
+   */
+  public List<UCSBDiningCommonsMenuItem> suggest(String prefix, String diningCommonsCode, String station, int limit) {
+    String start = normalize(prefix);
+    List<UCSBDiningCommonsMenuItem> suggestions = new ArrayList<>();
+    // an item is under more than one key when several of its words match, or while it is being renamed
+    Set<Long> seen = new HashSet<>();
+    for (Map.Entry<Key, UCSBDiningCommonsMenuItem> entry : index.tailMap(new Key(start, Long.MIN_VALUE)).entrySet()) {
+      if (suggestions.size() == limit || !entry.getKey().words().startsWith(start)) {
+        break;
+      }
+      UCSBDiningCommonsMenuItem item = entry.getValue();
+      if (matches(diningCommonsCode, item.getDiningCommonsCode()) && matches(station, item.getStation())
+          && seen.add(item.getId())) {
+        suggestions.add(item);
+      }
+    }
+    return suggestions;
+  }
+
+  /**
+   * This method returns each word of a name through to the end of the name, in lower case.
+   * @param name the name of a menu item, or null
+   * @return e.g. ["grilled chicken", "chicken"] for "Grilled Chicken"
+   */
+  static List<String> suffixes(String name) {
+    List<String> suffixes = new ArrayList<>();
+    String words = normalize(name);
+    for (int i = 0; i < words.length(); i++) {
+      if (Character.isLetterOrDigit(words.charAt(i)) && (i == 0 || !Character.isLetterOrDigit(words.charAt(i - 1)))) {
+        suffixes.add(words.substring(i));
+      }
+    }
+    return suffixes;
+  }
+
+  private static String normalize(String text) {
+    return (text == null) ? "" : text.strip().toLowerCase(Locale.ROOT);
+  }
+
+  private static boolean matches(String filter, String value) {
+    return filter == null || filter.equals(value);
+  }
+
+  private void unindex(UCSBDiningCommonsMenuItem old, List<String> keep) {
+    for (String words : suffixes(old.getName())) {
+      if (!keep.contains(words)) {
+        index.remove(new Key(words, old.getId()), old);
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package edu.ucsb.cs156.example.services;
+
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This is a service that keeps a version counter for each entity table, used to build
+ * the ETags of the API's GET endpoints.
+ *
+ * The counter of a table is incremented after every committed insert, update or delete
+ * of one of its entities (see TableVersionListener), so a client whose ETag still matches
+ * has seen the latest rows and can be answered with 304 Not Modified without querying
+ * the table.  The counters live in memory; each ETag also contains the time the service
+ * was created, so ETags handed out before a restart never match afterwards.  Rows changed
+ * outside JPA (e.g. with SQL against the database) are not seen.
+ *
+ * @see edu.ucsb.cs156.example.entities.TableVersionListener
+ */
+
+@Service("tableVersionService")
+public class TableVersionService {
+
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+  private final ConcurrentHashMap<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+
+  /**
+   * This method returns the current version of an entity's table.
+   * @param entityClass the entity class
+   * @return the number of committed changes to the table since startup
+   */
+  public long version(Class<?> entityClass) {
+    AtomicLong version = versions.get(entityClass);
+    return version == null ? 0 : version.get();
+  }
+
+  /**
+   * This method records that an entity's table has changed.
+   * @param entityClass the entity class
+   */
+  public void increment(Class<?> entityClass) {
+    versions.computeIfAbsent(entityClass, c -> new AtomicLong()).incrementAndGet();
+  }
+
+  /**
+   * This method returns the strong ETag (including the quotes) for the current version of an entity's table.
+   * @param entityClass the entity class
+   * @return the ETag
+   */
+  public String etag(Class<?> entityClass) {
+    return "\"" + entityClass.getSimpleName() + "-" + epoch + "-" + version(entityClass) + "\"";
+  }
+}
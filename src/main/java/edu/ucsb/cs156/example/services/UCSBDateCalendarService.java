@@ -0,0 +1,158 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * This is a service that keeps the UCSB dates in memory, grouped by quarter and sorted
+ * by time within each quarter, so that calendar views can ask for the dates of a span
+ * of quarters, or for the dates in a window of time, without scanning all dates.
+ *
+ * The quarters are kept in quarter order, and each quarter's dates are an immutable
+ * sorted list that is replaced, not changed, when one of its dates changes; so a
+ * lookup takes no lock.  A window of time only looks inside the quarters whose first
+ * and last dates overlap it, and finds where the window starts in each by binary search.
+ * Dates without a quarter or a time are not kept, since they cannot be placed.
+ *
+ * The dates are loaded at startup and kept up to date after every committed insert,
+ * update or delete of a date (see UCSBDateCalendarListener); rows changed outside JPA
+ * are not seen until a restart.
+ *
+ * @see edu.ucsb.cs156.example.entities.UCSBDateCalendarListener
+ */
+
+@Slf4j
+@Service("ucsbDateCalendar")
+public class UCSBDateCalendarService {
+
+  private static final Comparator<UCSBDate> BY_TIME =
+      Comparator.comparing(UCSBDate::getLocalDateTime).thenComparingLong(UCSBDate::getId);
+
+  private record Quarter(List<UCSBDate> dates) {
+    LocalDateTime first() {
+      return dates.get(0).getLocalDateTime();
+    }
+
+    LocalDateTime last() {
+      return dates.get(dates.size() - 1).getLocalDateTime();
+    }
+  }
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  private final ConcurrentSkipListMap<String, Quarter> quarters = new ConcurrentSkipListMap<>();
+  private final Map<Long, UCSBDate> dates = new ConcurrentHashMap<>();
+
+  /**
+   * This method loads the calendar from the UCSB dates; it is called at startup,
+   * before the web server takes requests (see InMemoryIndexLoaderService).
+   */
+  @Transactional(readOnly = true)
+  public void load() {
+    try (Stream<UCSBDateRepository.CalendarEntry> entries = ucsbDateRepository.streamCalendarBy()) {
+      entries.forEach(entry -> put(entry.getId(), entry.getQuarterYYYYQ(), entry.getName(), entry.getLocalDateTime()));
+    }
+    log.info("loaded {} dates in {} quarters", dates.size(), quarters.size());
+  }
+
+  /**
+   * This method adds a new or changed date to the calendar.
+   * @param id the id of the date
+   * @param quarterYYYYQ its quarter, in the format YYYYQ
+   * @param name its name
+   * @param localDateTime its date and time
+   */
+  public synchronized void put(long id, String quarterYYYYQ, String name, LocalDateTime localDateTime) {
+    UCSBDate old = dates.remove(id);
+    if (old != null) {
+      without(old);
+    }
+    if (quarterYYYYQ != null && localDateTime != null) {
+      UCSBDate date = UCSBDate.builder()
+          .id(id).quarterYYYYQ(quarterYYYYQ).name(name).localDateTime(localDateTime).build();
+      dates.put(id, date);
+      with(date);
+    }
+  }
+
+  /**
+   * This method removes a deleted date from the calendar.
+   * @param id the id of the date
+   */
+  public synchronized void remove(long id) {
+    UCSBDate old = dates.remove(id);
+    if (old != null) {
+      without(old);
+    }
+  }
+
+  /**
+   * This method returns the dates of a span of quarters.
+   * @param fromQuarter the first quarter, in the format YYYYQ
+   * @param toQuarter the last quarter, in the format YYYYQ; not before fromQuarter
+   * @return the dates, ordered by quarter and then by time
+   */
+  public List<UCSBDate> quarters(String fromQuarter, String toQuarter) {
+    List<UCSBDate> span = new ArrayList<>();
+    for (Quarter quarter : quarters.subMap(fromQuarter, true, toQuarter, true).values()) {
+      span.addAll(quarter.dates());
+    }
+    return span;
+  }
+
+  /**
+   * This method returns the dates in a window of time, whatever their quarter.
+   * @param start the start of the window
+   * @param end the end of the window, which is not included
+   * @return the dates, ordered by time
+   */
+  public List<UCSBDate> between(LocalDateTime start, LocalDateTime end) {
+    List<UCSBDate> window = new ArrayList<>();
+    UCSBDate probe = UCSBDate.builder().id(Long.MIN_VALUE).localDateTime(start).build();
+    for (Quarter quarter : quarters.values()) {
+      if (quarter.first().isBefore(end) && !quarter.last().isBefore(start)) {
+        List<UCSBDate> sorted = quarter.dates();
+        // no date has the probe's id, so the search always returns -(insertion point) - 1
+        for (int i = -Collections.binarySearch(sorted, probe, BY_TIME) - 1;
+            i < sorted.size() && sorted.get(i).getLocalDateTime().isBefore(end); i++) {
+          window.add(sorted.get(i));
+        }
+      }
+    }
+    // a date can be outside its quarter's weeks (e.g. a registration deadline), so quarters can overlap
+    window.sort(BY_TIME);
+    return window;
+  }
+
+  private void with(UCSBDate date) {
+    quarters.merge(date.getQuarterYYYYQ(), new Quarter(List.of(date)), (quarter, added) -> {
+      List<UCSBDate> sorted = new ArrayList<>(quarter.dates());
+      sorted.add(-Collections.binarySearch(sorted, date, BY_TIME) - 1, date);
+      return new Quarter(List.copyOf(sorted));
+    });
+  }
+
+  private void without(UCSBDate date) {
+    quarters.computeIfPresent(date.getQuarterYYYYQ(), (q, quarter) -> {
+      List<UCSBDate> rest = new ArrayList<>(quarter.dates());
+      rest.remove(date);
+      return rest.isEmpty() ? null : new Quarter(List.copyOf(rest));
+    });
+  }
+}
@@ -0,0 +1,81 @@
+package edu.ucsb.cs156.example.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import edu.ucsb.cs156.example.entities.User;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * This is a service that caches the User entities resolved for logged in users, keyed by email,
+ * so that resolving the current user on each request does not need a database round trip.
+ *
+ * The cache is bounded in size and entries expire a fixed time after they are written.
+ * A user saved or deleted through JPA is dropped from the cache once the change is
+ * committed (see UserCacheListener), and a user stored at login is put in it; changes
+ * made directly in the database are picked up after at most one TTL.
+ *
+ * @see edu.ucsb.cs156.example.entities.UserCacheListener
+ */
+
+@Slf4j
+@Service("userCache")
+public class UserCacheService {
+
+  private final Cache<String, User> cache;
+
+  /**
+   * Create the cache
+   * @param maximumSize the most users kept in the cache
+   * @param ttl how long a user stays in the cache after it is written
+   */
+  public UserCacheService(
+      @Value("${app.users.cache.maximum-size:10000}") long maximumSize,
+      @Value("${app.users.cache.ttl:PT5M}") Duration ttl) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * This method returns the cached user with the given email, if any.
+   * @param email email address of the user
+   * @return Optional of User (empty if not cached)
+   */
+  public Optional<User> get(String email) {
+    return Optional.ofNullable(cache.getIfPresent(email));
+  }
+
+  /**
+   * This method adds or replaces the cached copy of a user.
+   * @param user the user; it is keyed by its email
+   */
+  public void put(User user) {
+    cache.put(user.getEmail(), user);
+  }
+
+  /**
+   * This method removes a user from the cache, so that the next lookup reads the database.
+   * @param email email address of the user
+   */
+  public void invalidate(String email) {
+    log.info("invalidating cached user {}", email);
+    cache.invalidate(email);
+  }
+
+  /**
+   * This method returns the underlying cache (e.g. for registering metrics).
+   * @return the cache
+   */
+  public Cache<String, User> getCache() {
+    return cache;
+  }
+}
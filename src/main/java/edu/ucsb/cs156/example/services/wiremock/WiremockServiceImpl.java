@@ -106,6 +106,52 @@ public class WiremockServiceImpl extends WiremockService {
 
   }
 
+  /**
+   * This method sets up mocks for logging in any number of synthetic users,
+   * e.g. for load testing.  Logging in with username <code>loaduser17</code>
+   * yields the user <code>loaduser17@ucsb.edu</code>: the username is carried
+   * through the authorization code and the access token, and the userinfo
+   * endpoint builds the profile from the token.
+   * 
+   * @param s in an instance of a WireMockServer or WireMockExtension
+   */
+  public static void setupSyntheticUserMocks(Stubbing s) {
+
+    s.stubFor(get(urlPathMatching("/oauth/authorize.*"))
+        .willReturn(aResponse()
+            .withStatus(200)
+            .withHeader("Content-Type", "text/html")
+            .withBodyFile("login.html")));
+
+    s.stubFor(post(urlPathEqualTo("/login"))
+        .willReturn(temporaryRedirect(
+            "{{formData request.body 'form' urlDecode=true}}{{{form.redirectUri}}}?code={{{form.username}}}&state={{{form.state}}}")));
+
+    s.stubFor(post(urlPathEqualTo("/oauth/token"))
+        .willReturn(
+            okJson(
+                "{{formData request.body 'form' urlDecode=true}}{\"access_token\":\"{{{form.code}}}\",\"token_type\": \"Bearer\",\"expires_in\":\"3600\",\"scope\":\"https://www.googleapis.com/auth/userinfo.profile https://www.googleapis.com/auth/userinfo.email openid\"}")));
+
+    s.stubFor(get(urlPathMatching("/userinfo"))
+        .willReturn(aResponse()
+            .withStatus(200)
+            .withHeader("Content-Type", "application/json")
+            .withBody(
+                """
+                    {
+                      "sub": "{{regexExtract request.headers.Authorization '[A-Za-z0-9]+$'}}",
+                      "name": "Load {{regexExtract request.headers.Authorization '[A-Za-z0-9]+$'}}",
+                      "given_name": "Load",
+                      "family_name": "{{regexExtract request.headers.Authorization '[A-Za-z0-9]+$'}}",
+                      "picture": "https://lh3.googleusercontent.com/a/ACg8ocJpOe2SqIpirdIMx7KTj1W4OQ45t6FwpUo40K2V2JON=s96-c",
+                      "email": "{{regexExtract request.headers.Authorization '[A-Za-z0-9]+$'}}@ucsb.edu",
+                      "email_verified": true,
+                      "locale": "en",
+                      "hd": "ucsb.edu"
+                    }
+                    """)));
+  }
+
   /**
    * This method initializes the WireMockServer
    */
@@ -4,29 +4,55 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.TableVersionService;
 import edu.ucsb.cs156.example.services.wiremock.WiremockService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 @ActiveProfiles("test")
-@Import(TestConfig.class)
+@Import({ TestConfig.class, ControllerTestCase.SyncTaskExecutorConfig.class })
 public abstract class ControllerTestCase {
+  /**
+   * Runs streamed response bodies on the request thread.  On a pool thread they can commit
+   * the response while the security filter is still writing its headers on the request
+   * thread, and MockHttpServletResponse is not thread-safe.
+   */
+  @TestConfiguration
+  static class SyncTaskExecutorConfig {
+    @Bean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    AsyncTaskExecutor applicationTaskExecutor() {
+      return new TaskExecutorAdapter(Runnable::run);
+    }
+  }
+
   @Autowired
   public CurrentUserService currentUserService;
 
   @Autowired
   public GrantedAuthoritiesService grantedAuthoritiesService;
 
+  @Autowired
+  public TableVersionService tableVersionService;
+
   @Autowired
   public MockMvc mockMvc;
 
@@ -40,4 +66,10 @@ public abstract class ControllerTestCase {
     String responseString = result.getResponse().getContentAsString();
     return mapper.readValue(responseString, Map.class);
   }
+
+  protected String gunzip(MvcResult result) throws IOException {
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
 }
@@ -1,23 +1,31 @@
 package edu.ucsb.cs156.example.controllers;
 
+import static org.mockito.ArgumentMatchers.eq;
+import java.util.Arrays;
+import java.util.ArrayList;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.ArticleSearchService;
 
 import java.util.*;
 import java.util.Optional;
+import java.util.stream.Stream;
 import java.time.LocalDateTime;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.data.domain.Limit;
 
 import static org.mockito.Mockito.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -27,7 +35,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 @WebMvcTest(controllers = ArticlesController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, ArticleSearchService.class })
 public class ArticlesControllerTests extends ControllerTestCase {
 
     @MockBean
@@ -36,6 +44,9 @@ public class ArticlesControllerTests extends ControllerTestCase {
     @MockBean
     UserRepository userRepository;
 
+    @Autowired
+    ArticleSearchService articleSearchService;
+
     @Test
     public void loggedOutUsersCannotGetAll() throws Exception {
         mockMvc.perform(get("/api/articles/all"))
@@ -301,4 +312,314 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
         assertEquals("Articles with id 15 not found", json.get("message"));
     }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_a_keyset_page_with_a_next_cursor() throws Exception {
+
+        // arrange
+
+        Articles row1 = Articles.builder().id(1L).build();
+        Articles row2 = Articles.builder().id(2L).build();
+        Articles row3 = Articles.builder().id(3L).build();
+
+        when(articleRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3)))).thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+        // act
+
+        MvcResult response = mockMvc.perform(get("/api/articles/all?limit=2"))
+            .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        verify(articleRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3)));
+        KeysetPage<Articles> expected = KeysetPage.<Articles>builder().content(Arrays.asList(row1, row2)).next(2L).build();
+        String expectedJson = mapper.writeValueAsString(expected);
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_last_keyset_page_with_no_next_cursor() throws Exception {
+
+        // arrange
+
+        Articles row3 = Articles.builder().id(3L).build();
+
+        when(articleRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)))).thenReturn(new ArrayList<>(Arrays.asList(row3)));
+
+        // act
+
+        MvcResult response = mockMvc.perform(get("/api/articles/all?after=2"))
+            .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        verify(articleRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)));
+        verify(articleRepository, times(0)).findAll();
+        KeysetPage<Articles> expected = KeysetPage.<Articles>builder().content(Arrays.asList(row3)).next(null).build();
+        String expectedJson = mapper.writeValueAsString(expected);
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @Test
+    public void logged_out_users_cannot_stream_all() throws Exception {
+        mockMvc.perform(get("/api/articles/all").accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_stream_all_as_ndjson() throws Exception {
+
+        // arrange
+
+        Articles row1 = Articles.builder().id(1L).build();
+        Articles row2 = Articles.builder().id(2L).build();
+
+        when(articleRepository.streamAllBy()).thenReturn(Stream.of(row1, row2));
+
+        // act
+
+        MvcResult started = mockMvc.perform(get("/api/articles/all").accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(request().asyncStarted()).andReturn();
+        MvcResult response = mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_NDJSON)).andReturn();
+
+        // assert
+
+        verify(articleRepository, times(1)).streamAllBy();
+        verify(articleRepository, times(0)).findAll();
+        String expected = mapper.writeValueAsString(row1) + "\n" + mapper.writeValueAsString(row2) + "\n";
+        assertEquals(expected, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_304_from_get_all_when_the_etag_matches() throws Exception {
+        String etag = tableVersionService.etag(Articles.class);
+        mockMvc.perform(get("/api/articles/all").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+        verify(articleRepository, never()).findAll();
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_all_again_after_the_table_changes() throws Exception {
+        String etag = tableVersionService.etag(Articles.class);
+        tableVersionService.increment(Articles.class);
+        when(articleRepository.findAll()).thenReturn(new ArrayList<>());
+        mockMvc.perform(get("/api/articles/all").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", tableVersionService.etag(Articles.class)))
+                .andExpect(header().string("Cache-Control", "no-cache, private"));
+        verify(articleRepository, times(1)).findAll();
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_304_from_get_by_id_when_the_etag_matches() throws Exception {
+        String etag = tableVersionService.etag(Articles.class);
+        mockMvc.perform(get("/api/articles?id=7").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        verify(articleRepository, never()).findById(any());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_bulk_create_articles() throws Exception {
+        mockMvc.perform(post("/api/articles/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().is(403));
+        verify(articleRepository, never()).saveAll(any());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_bulk_create_articles_from_json() throws Exception {
+        Articles sent = Articles.builder()
+                .title("Using testing-playground")
+                .url("https://testing-playground.com/")
+                .explanation("helpful when we get to front end development")
+                .email("phtcon@ucsb.edu")
+                .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .id(17)
+                .build();
+        Articles saved = Articles.builder()
+                .title("Using testing-playground")
+                .url("https://testing-playground.com/")
+                .explanation("helpful when we get to front end development")
+                .email("phtcon@ucsb.edu")
+                .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .build();
+        when(articleRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        MvcResult response = mockMvc.perform(post("/api/articles/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(List.of(sent))))
+                .andExpect(status().isOk()).andReturn();
+
+        verify(articleRepository, times(1)).saveAll(List.of(saved));
+        assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_bulk_create_articles_from_csv() throws Exception {
+        Articles saved = Articles.builder()
+                .title("Using testing-playground")
+                .url("https://testing-playground.com/")
+                .explanation("helpful when we get to front end development")
+                .email("phtcon@ucsb.edu")
+                .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .build();
+        when(articleRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        MvcResult response = mockMvc.perform(post("/api/articles/bulk").with(csrf())
+                .contentType("text/csv")
+                .content("title,url,explanation,email,dateAdded\nUsing testing-playground,https://testing-playground.com/,helpful when we get to front end development,phtcon@ucsb.edu,2022-01-03T00:00:00\n"))
+                .andExpect(status().isOk()).andReturn();
+
+        verify(articleRepository, times(1)).saveAll(List.of(saved));
+        assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_export_articles() throws Exception {
+        mockMvc.perform(get("/api/articles/export"))
+                .andExpect(status().is(403));
+        verify(articleRepository, never()).streamAllBy();
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_export_articles_as_csv() throws Exception {
+        Articles row = Articles.builder()
+                .title("Using testing-playground")
+                .url("https://testing-playground.com/")
+                .explanation("helpful when we get to front end development")
+                .email("phtcon@ucsb.edu")
+                .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .id(1)
+                .build();
+        when(articleRepository.streamAllBy()).thenReturn(Stream.of(row));
+
+        MvcResult started = mockMvc.perform(get("/api/articles/export?format=CSV"))
+                .andExpect(request().asyncStarted()).andReturn();
+        MvcResult response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"articles.csv\"")).andReturn();
+
+        assertEquals("id,title,url,explanation,email,dateAdded\n1,Using testing-playground,https://testing-playground.com/,helpful when we get to front end development,phtcon@ucsb.edu,2022-01-03T00:00:00\n", response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_export_articles_as_gzipped_ndjson() throws Exception {
+        Articles row = Articles.builder()
+                .title("Using testing-playground")
+                .url("https://testing-playground.com/")
+                .explanation("helpful when we get to front end development")
+                .email("phtcon@ucsb.edu")
+                .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .id(1)
+                .build();
+        when(articleRepository.streamAllBy()).thenReturn(Stream.of(row));
+
+        MvcResult started = mockMvc.perform(get("/api/articles/export?format=NDJSON&gzip=true"))
+                .andExpect(request().asyncStarted()).andReturn();
+        MvcResult response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"articles.ndjson.gz\"")).andReturn();
+
+        assertEquals(mapper.writeValueAsString(row) + "\n", gunzip(response));
+    }
+
+    @Test
+    public void logged_out_users_cannot_search() throws Exception {
+        mockMvc.perform(get("/api/articles/search?q=pasta"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_search_articles_a_page_at_a_time() throws Exception {
+
+        // arrange
+
+        Articles pasta = Articles.builder().id(1L).title("Pasta night").explanation("pasta at Ortega").url("https://example.org/a").build();
+        Articles soup = Articles.builder().id(2L).title("Soup").explanation("soup and pasta").url("https://example.org/b").build();
+        Articles pizza = Articles.builder().id(3L).title("Pizza").explanation("no noodles").url("https://example.org/c").build();
+        for (Articles article : List.of(pasta, soup, pizza)) {
+            articleSearchService.index(article.getId(), article.getTitle(), article.getExplanation(), article.getUrl());
+        }
+        when(articleRepository.findAllById(List.of(1L))).thenReturn(List.of(pasta));
+        when(articleRepository.findAllById(List.of(2L))).thenReturn(List.of(soup));
+
+        // act
+
+        MvcResult first = mockMvc.perform(get("/api/articles/search?q=Pasta&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", tableVersionService.etag(Articles.class))).andReturn();
+        MvcResult second = mockMvc.perform(get("/api/articles/search?q=Pasta&limit=1&after=1"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        Map<String, Object> firstPage = responseToJson(first);
+        List<Map<String, Object>> firstHits = (List<Map<String, Object>>) firstPage.get("content");
+        assertEquals(1, firstHits.size());
+        assertEquals(1, firstHits.get(0).get("id"));
+        assertEquals("Pasta night", firstHits.get(0).get("title"));
+        assertEquals(1, firstHits.get(0).get("rank"));
+        assertEquals(1, firstPage.get("next"));
+
+        Map<String, Object> secondPage = responseToJson(second);
+        List<Map<String, Object>> secondHits = (List<Map<String, Object>>) secondPage.get("content");
+        assertEquals(1, secondHits.size());
+        assertEquals(2, secondHits.get(0).get("id"));
+        assertEquals(2, secondHits.get(0).get("rank"));
+        assertEquals(null, secondPage.get("next"));
+        verify(articleRepository, never()).findAll();
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_does_not_get_articles_deleted_since_the_search() throws Exception {
+        articleSearchService.index(1L, "Pasta night", null, null);
+        articleSearchService.index(2L, "Pasta", null, null);
+        when(articleRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(Articles.builder().id(1L).title("Pasta night").build()));
+
+        MvcResult response = mockMvc.perform(get("/api/articles/search?q=pasta&after=-5"))
+                .andExpect(status().isOk()).andReturn();
+
+        List<Map<String, Object>> hits = (List<Map<String, Object>>) responseToJson(response).get("content");
+        assertEquals(1, hits.size());
+        assertEquals(1, hits.get(0).get("id"));
+        assertEquals(2, hits.get(0).get("rank"));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_a_next_page_even_when_an_article_on_this_one_was_deleted() throws Exception {
+        for (long id = 1; id <= 3; id++) {
+            articleSearchService.index(id, "Pasta", null, null);
+        }
+        when(articleRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(Articles.builder().id(2L).title("Pasta").build()));
+
+        MvcResult response = mockMvc.perform(get("/api/articles/search?q=pasta&limit=2"))
+                .andExpect(status().isOk()).andReturn();
+
+        Map<String, Object> page = responseToJson(response);
+        List<Map<String, Object>> hits = (List<Map<String, Object>>) page.get("content");
+        assertEquals(1, hits.size());
+        assertEquals(2, hits.get(0).get("id"));
+        assertEquals(2, hits.get(0).get("rank"));
+        assertEquals(2, page.get("next"));
+    }
 }
@@ -0,0 +1,78 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.CacheStatistics;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.CacheStatisticsService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.List;
+
+@WebMvcTest(controllers = CacheStatisticsController.class)
+@Import(TestConfig.class)
+public class CacheStatisticsControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  CacheStatisticsService cacheStatisticsService;
+
+  @Test
+  public void cachestats__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/cachestats"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void cachestats__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/cachestats"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void cachestats__admin_logged_in() throws Exception {
+
+    // arrange
+
+    CacheStatistics cacheStatistics = CacheStatistics.builder()
+        .secondLevelCacheEnabled(true)
+        .queryCacheEnabled(true)
+        .statisticsEnabled(true)
+        .queryCacheHitCount(3L)
+        .queryCacheMissCount(1L)
+        .queryCachePutCount(1L)
+        .regions(List.of(CacheStatistics.Region.builder()
+            .name("ucsbdates").hitCount(5L).missCount(2L).putCount(2L).elementCountInMemory(2L).build()))
+        .build();
+    when(cacheStatisticsService.getCacheStatistics()).thenReturn(cacheStatistics);
+    String expectedJson = mapper.writeValueAsString(cacheStatistics);
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/cachestats"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(cacheStatisticsService, times(1)).getCacheStatistics();
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+}
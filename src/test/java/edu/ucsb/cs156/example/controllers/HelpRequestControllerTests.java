@@ -7,16 +7,21 @@ import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.HelpRequestEventService;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.data.domain.Limit;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -25,10 +30,13 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -40,6 +48,9 @@ public class HelpRequestControllerTests extends ControllerTestCase {
         @MockBean
         HelpRequestRepository helpRequestRepository;
 
+        @Autowired
+        HelpRequestEventService helpRequestEventService;
+
         @MockBean
         UserRepository userRepository;
 
@@ -339,4 +350,377 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("HelpRequest with id 67 not found", json.get("message"));
         }
-}
\ No newline at end of file
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_keyset_page_with_a_next_cursor() throws Exception {
+
+                // arrange
+
+                HelpRequest row1 = HelpRequest.builder().id(1L).build();
+                HelpRequest row2 = HelpRequest.builder().id(2L).build();
+                HelpRequest row3 = HelpRequest.builder().id(3L).build();
+
+                when(helpRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3)))).thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+                // act
+
+                MvcResult response = mockMvc.perform(get("/api/helprequests/all?limit=2"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(helpRequestRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3)));
+                KeysetPage<HelpRequest> expected = KeysetPage.<HelpRequest>builder().content(Arrays.asList(row1, row2)).next(2L).build();
+                String expectedJson = mapper.writeValueAsString(expected);
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_last_keyset_page_with_no_next_cursor() throws Exception {
+
+                // arrange
+
+                HelpRequest row3 = HelpRequest.builder().id(3L).build();
+
+                when(helpRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)))).thenReturn(new ArrayList<>(Arrays.asList(row3)));
+
+                // act
+
+                MvcResult response = mockMvc.perform(get("/api/helprequests/all?after=2"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(helpRequestRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)));
+                verify(helpRequestRepository, times(0)).findAll();
+                KeysetPage<HelpRequest> expected = KeysetPage.<HelpRequest>builder().content(Arrays.asList(row3)).next(null).build();
+                String expectedJson = mapper.writeValueAsString(expected);
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @Test
+        public void logged_out_users_cannot_get_the_queue() throws Exception {
+                mockMvc.perform(get("/api/helprequests/queue"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_the_first_page_of_the_queue() throws Exception {
+
+                // arrange
+
+                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T09:00:00");
+                LocalDateTime ldt2 = LocalDateTime.parse("2022-01-03T10:00:00");
+                HelpRequest row1 = HelpRequest.builder().id(4L).teamId("09").requestTime(ldt1).solved(false).build();
+                HelpRequest row2 = HelpRequest.builder().id(2L).teamId("10").requestTime(ldt2).solved(false).build();
+                HelpRequest row3 = HelpRequest.builder().id(3L).teamId("10").requestTime(ldt2).solved(false).build();
+
+                when(helpRequestRepository.findOpenQueue(Limit.of(3))).thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+                // act
+
+                MvcResult response = mockMvc.perform(get("/api/helprequests/queue?limit=2"))
+                        .andExpect(status().isOk())
+                        .andExpect(header().string("ETag", tableVersionService.etag(HelpRequest.class))).andReturn();
+
+                // assert
+
+                verify(helpRequestRepository, times(1)).findOpenQueue(Limit.of(3));
+                KeysetPage<HelpRequest> expected = KeysetPage.<HelpRequest>builder()
+                        .content(Arrays.asList(row1, row2)).next(Map.of("afterRequestTime", ldt2, "afterId", 2L)).build();
+                assertEquals(mapper.readValue(mapper.writeValueAsString(expected), Map.class),
+                        mapper.readValue(response.getResponse().getContentAsString(), Map.class));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_a_later_page_of_the_queue() throws Exception {
+
+                // arrange
+
+                HelpRequest row = HelpRequest.builder().id(3L).teamId("10").requestTime(LocalDateTime.parse("2022-01-03T10:00:00")).build();
+                when(helpRequestRepository.findOpenQueueAfter(LocalDateTime.parse("2022-01-03T10:00:00"), 2L, Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)))
+                        .thenReturn(new ArrayList<>(Arrays.asList(row)));
+
+                // act
+
+                MvcResult response = mockMvc.perform(get("/api/helprequests/queue?afterRequestTime=2022-01-03T10:00:00&afterId=2"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(helpRequestRepository, times(1)).findOpenQueueAfter(LocalDateTime.parse("2022-01-03T10:00:00"), 2L, Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1));
+                KeysetPage<HelpRequest> expected = KeysetPage.<HelpRequest>builder().content(Arrays.asList(row)).next(null).build();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_one_teams_queue() throws Exception {
+
+                // arrange
+
+                HelpRequest row1 = HelpRequest.builder().id(4L).teamId("09").solved(false).build();
+
+                when(helpRequestRepository.findTeamOpenQueue("09", Limit.of(ApiController.MAX_PAGE_SIZE + 1))).thenReturn(new ArrayList<>(Arrays.asList(row1)));
+
+                // act
+
+                MvcResult response = mockMvc.perform(get("/api/helprequests/queue?teamId=09&limit=5000"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(helpRequestRepository, times(1)).findTeamOpenQueue("09", Limit.of(ApiController.MAX_PAGE_SIZE + 1));
+                verify(helpRequestRepository, never()).findOpenQueue(any());
+                KeysetPage<HelpRequest> expected = KeysetPage.<HelpRequest>builder().content(Arrays.asList(row1)).next(null).build();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_a_later_page_of_one_teams_queue() throws Exception {
+
+                // arrange
+
+                HelpRequest row = HelpRequest.builder().id(5L).teamId("09").requestTime(LocalDateTime.parse("2022-01-03T11:00:00")).build();
+                when(helpRequestRepository.findTeamOpenQueueAfter("09", LocalDateTime.parse("2022-01-03T10:00:00"), 4L, Limit.of(2)))
+                        .thenReturn(new ArrayList<>(Arrays.asList(row)));
+
+                // act
+
+                MvcResult response = mockMvc.perform(get("/api/helprequests/queue?teamId=09&afterRequestTime=2022-01-03T10:00:00&afterId=4&limit=1"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(helpRequestRepository, times(1)).findTeamOpenQueueAfter("09", LocalDateTime.parse("2022-01-03T10:00:00"), 4L, Limit.of(2));
+                KeysetPage<HelpRequest> expected = KeysetPage.<HelpRequest>builder().content(Arrays.asList(row)).next(null).build();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_304_from_the_queue_when_the_etag_matches() throws Exception {
+                String etag = tableVersionService.etag(HelpRequest.class);
+                mockMvc.perform(get("/api/helprequests/queue").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified());
+                verify(helpRequestRepository, never()).findOpenQueue(any());
+        }
+
+        @Test
+        public void logged_out_users_cannot_stream_all() throws Exception {
+                mockMvc.perform(get("/api/helprequests/all").accept(MediaType.APPLICATION_NDJSON))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_stream_all_as_ndjson() throws Exception {
+
+                // arrange
+
+                HelpRequest row1 = HelpRequest.builder().id(1L).build();
+                HelpRequest row2 = HelpRequest.builder().id(2L).build();
+
+                when(helpRequestRepository.streamAllBy()).thenReturn(Stream.of(row1, row2));
+
+                // act
+
+                MvcResult started = mockMvc.perform(get("/api/helprequests/all").accept(MediaType.APPLICATION_NDJSON))
+                        .andExpect(request().asyncStarted()).andReturn();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                        .andExpect(status().isOk())
+                        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON)).andReturn();
+
+                // assert
+
+                verify(helpRequestRepository, times(1)).streamAllBy();
+                verify(helpRequestRepository, times(0)).findAll();
+                String expected = mapper.writeValueAsString(row1) + "\n" + mapper.writeValueAsString(row2) + "\n";
+                assertEquals(expected, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_304_from_get_all_when_the_etag_matches() throws Exception {
+                String etag = tableVersionService.etag(HelpRequest.class);
+                mockMvc.perform(get("/api/helprequests/all").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified())
+                                .andExpect(header().string("ETag", etag));
+                verify(helpRequestRepository, never()).findAll();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_all_again_after_the_table_changes() throws Exception {
+                String etag = tableVersionService.etag(HelpRequest.class);
+                tableVersionService.increment(HelpRequest.class);
+                when(helpRequestRepository.findAll()).thenReturn(new ArrayList<>());
+                mockMvc.perform(get("/api/helprequests/all").header("If-None-Match", etag))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", tableVersionService.etag(HelpRequest.class)))
+                                .andExpect(header().string("Cache-Control", "no-cache, private"));
+                verify(helpRequestRepository, times(1)).findAll();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_304_from_get_by_id_when_the_etag_matches() throws Exception {
+                String etag = tableVersionService.etag(HelpRequest.class);
+                mockMvc.perform(get("/api/helprequests?id=7").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified());
+                verify(helpRequestRepository, never()).findById(any());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_create_help_requests() throws Exception {
+                mockMvc.perform(post("/api/helprequests/bulk").with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                                .andExpect(status().is(403));
+                verify(helpRequestRepository, never()).saveAll(any());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_bulk_create_help_requests_from_json() throws Exception {
+                HelpRequest sent = HelpRequest.builder()
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s22-5pm-3")
+                                .tableOrBreakoutRoom("7")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .id(17)
+                                .build();
+                HelpRequest saved = HelpRequest.builder()
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s22-5pm-3")
+                                .tableOrBreakoutRoom("7")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .build();
+                when(helpRequestRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                MvcResult response = mockMvc.perform(post("/api/helprequests/bulk").with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(List.of(sent))))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(helpRequestRepository, times(1)).saveAll(List.of(saved));
+                assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_bulk_create_help_requests_from_csv() throws Exception {
+                HelpRequest saved = HelpRequest.builder()
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s22-5pm-3")
+                                .tableOrBreakoutRoom("7")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .build();
+                when(helpRequestRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                MvcResult response = mockMvc.perform(post("/api/helprequests/bulk").with(csrf())
+                                .contentType("text/csv")
+                                .content("requesterEmail,teamId,tableOrBreakoutRoom,requestTime,explanation,solved\ncgaucho@ucsb.edu,s22-5pm-3,7,2022-01-03T00:00:00,Need help with Swagger-ui,false\n"))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(helpRequestRepository, times(1)).saveAll(List.of(saved));
+                assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_export_help_requests() throws Exception {
+                mockMvc.perform(get("/api/helprequests/export"))
+                                .andExpect(status().is(403));
+                verify(helpRequestRepository, never()).streamAllBy();
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_export_help_requests_as_csv() throws Exception {
+                HelpRequest row = HelpRequest.builder()
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s22-5pm-3")
+                                .tableOrBreakoutRoom("7")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .id(1)
+                                .build();
+                when(helpRequestRepository.streamAllBy()).thenReturn(Stream.of(row));
+
+                MvcResult started = mockMvc.perform(get("/api/helprequests/export?format=CSV"))
+                                .andExpect(request().asyncStarted()).andReturn();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType("text/csv"))
+                                .andExpect(header().string("Content-Disposition", "attachment; filename=\"helprequests.csv\"")).andReturn();
+
+                assertEquals("id,requesterEmail,teamId,tableOrBreakoutRoom,requestTime,explanation,solved\n1,cgaucho@ucsb.edu,s22-5pm-3,7,2022-01-03T00:00:00,Need help with Swagger-ui,false\n", response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_export_help_requests_as_gzipped_ndjson() throws Exception {
+                HelpRequest row = HelpRequest.builder()
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s22-5pm-3")
+                                .tableOrBreakoutRoom("7")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .id(1)
+                                .build();
+                when(helpRequestRepository.streamAllBy()).thenReturn(Stream.of(row));
+
+                MvcResult started = mockMvc.perform(get("/api/helprequests/export?format=NDJSON&gzip=true"))
+                                .andExpect(request().asyncStarted()).andReturn();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType("application/gzip"))
+                                .andExpect(header().string("Content-Disposition", "attachment; filename=\"helprequests.ndjson.gz\"")).andReturn();
+
+                assertEquals(mapper.writeValueAsString(row) + "\n", gunzip(response));
+        }
+
+        @Test
+        public void logged_out_users_cannot_subscribe_to_events() throws Exception {
+                mockMvc.perform(get("/api/helprequests/events"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_subscribe_to_events() throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/helprequests/events"))
+                                .andExpect(request().asyncStarted())
+                                .andExpect(content().contentType("text/event-stream")).andReturn();
+
+                HelpRequest helpRequest = HelpRequest.builder().id(7L).requesterEmail("cgaucho@ucsb.edu").build();
+                helpRequestEventService.publish(HelpRequestEventService.CREATED, helpRequest);
+
+                String events = response.getResponse().getContentAsString();
+                assertTrue(events.contains(":subscribed\n\n"));
+                assertTrue(events.contains("event:created\ndata:" + mapper.writeValueAsString(helpRequest) + "\n\n"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_reconnecting_with_an_unknown_id_is_told_to_reset() throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/helprequests/events").header("Last-Event-ID", "lqz3k2a-12"))
+                                .andExpect(request().asyncStarted()).andReturn();
+
+                assertTrue(response.getResponse().getContentAsString().contains("event:reset\n"));
+        }
+}
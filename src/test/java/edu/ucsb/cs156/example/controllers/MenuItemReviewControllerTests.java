@@ -6,17 +6,23 @@ import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.MenuItemRating;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.data.domain.Limit;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -25,16 +31,19 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = MenuItemReviewController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, MenuItemRatingService.class })
 public class MenuItemReviewControllerTests extends ControllerTestCase{
 
     @MockBean
@@ -43,6 +52,9 @@ public class MenuItemReviewControllerTests extends ControllerTestCase{
     @MockBean
     UserRepository userRepository;
 
+    @Autowired
+    MenuItemRatingService menuItemRatingService;
+
     // Authorization tests for /api/menuitemreview/admin/all
 
     @Test
@@ -323,5 +335,261 @@ public class MenuItemReviewControllerTests extends ControllerTestCase{
 
         }
 
-    
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_a_keyset_page_with_a_next_cursor() throws Exception {
+
+        // arrange
+
+        MenuItemReview row1 = MenuItemReview.builder().id(1L).build();
+        MenuItemReview row2 = MenuItemReview.builder().id(2L).build();
+        MenuItemReview row3 = MenuItemReview.builder().id(3L).build();
+
+        when(menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3)))).thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+        // act
+
+        MvcResult response = mockMvc.perform(get("/api/menuitemreview/all?limit=2"))
+            .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        verify(menuItemReviewRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3)));
+        KeysetPage<MenuItemReview> expected = KeysetPage.<MenuItemReview>builder().content(Arrays.asList(row1, row2)).next(2L).build();
+        String expectedJson = mapper.writeValueAsString(expected);
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_last_keyset_page_with_no_next_cursor() throws Exception {
+
+        // arrange
+
+        MenuItemReview row3 = MenuItemReview.builder().id(3L).build();
+
+        when(menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)))).thenReturn(new ArrayList<>(Arrays.asList(row3)));
+
+        // act
+
+        MvcResult response = mockMvc.perform(get("/api/menuitemreview/all?after=2"))
+            .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        verify(menuItemReviewRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)));
+        verify(menuItemReviewRepository, times(0)).findAll();
+        KeysetPage<MenuItemReview> expected = KeysetPage.<MenuItemReview>builder().content(Arrays.asList(row3)).next(null).build();
+        String expectedJson = mapper.writeValueAsString(expected);
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @Test
+    public void logged_out_users_cannot_stream_all() throws Exception {
+        mockMvc.perform(get("/api/menuitemreview/all").accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_stream_all_as_ndjson() throws Exception {
+
+        // arrange
+
+        MenuItemReview row1 = MenuItemReview.builder().id(1L).build();
+        MenuItemReview row2 = MenuItemReview.builder().id(2L).build();
+
+        when(menuItemReviewRepository.streamAllBy()).thenReturn(Stream.of(row1, row2));
+
+        // act
+
+        MvcResult started = mockMvc.perform(get("/api/menuitemreview/all").accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(request().asyncStarted()).andReturn();
+        MvcResult response = mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_NDJSON)).andReturn();
+
+        // assert
+
+        verify(menuItemReviewRepository, times(1)).streamAllBy();
+        verify(menuItemReviewRepository, times(0)).findAll();
+        String expected = mapper.writeValueAsString(row1) + "\n" + mapper.writeValueAsString(row2) + "\n";
+        assertEquals(expected, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_304_from_get_all_when_the_etag_matches() throws Exception {
+        String etag = tableVersionService.etag(MenuItemReview.class);
+        mockMvc.perform(get("/api/menuitemreview/all").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+        verify(menuItemReviewRepository, never()).findAll();
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_all_again_after_the_table_changes() throws Exception {
+        String etag = tableVersionService.etag(MenuItemReview.class);
+        tableVersionService.increment(MenuItemReview.class);
+        when(menuItemReviewRepository.findAll()).thenReturn(new ArrayList<>());
+        mockMvc.perform(get("/api/menuitemreview/all").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", tableVersionService.etag(MenuItemReview.class)))
+                .andExpect(header().string("Cache-Control", "no-cache, private"));
+        verify(menuItemReviewRepository, times(1)).findAll();
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_304_from_get_by_id_when_the_etag_matches() throws Exception {
+        String etag = tableVersionService.etag(MenuItemReview.class);
+        mockMvc.perform(get("/api/menuitemreview?id=7").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        verify(menuItemReviewRepository, never()).findById(any());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_bulk_create_menu_item_reviews() throws Exception {
+        mockMvc.perform(post("/api/menuitemreview/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().is(403));
+        verify(menuItemReviewRepository, never()).saveAll(any());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_bulk_create_menu_item_reviews_from_json() throws Exception {
+        MenuItemReview sent = MenuItemReview.builder()
+                .itemId(7)
+                .reviewerEmail("cgaucho@ucsb.edu")
+                .stars(4)
+                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .comments("good pasta")
+                .id(17)
+                .build();
+        MenuItemReview saved = MenuItemReview.builder()
+                .itemId(7)
+                .reviewerEmail("cgaucho@ucsb.edu")
+                .stars(4)
+                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .comments("good pasta")
+                .build();
+        when(menuItemReviewRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        MvcResult response = mockMvc.perform(post("/api/menuitemreview/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(List.of(sent))))
+                .andExpect(status().isOk()).andReturn();
+
+        verify(menuItemReviewRepository, times(1)).saveAll(List.of(saved));
+        assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_bulk_create_menu_item_reviews_from_csv() throws Exception {
+        MenuItemReview saved = MenuItemReview.builder()
+                .itemId(7)
+                .reviewerEmail("cgaucho@ucsb.edu")
+                .stars(4)
+                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .comments("good pasta")
+                .build();
+        when(menuItemReviewRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        MvcResult response = mockMvc.perform(post("/api/menuitemreview/bulk").with(csrf())
+                .contentType("text/csv")
+                .content("itemId,reviewerEmail,stars,dateReviewed,comments\n7,cgaucho@ucsb.edu,4,2022-01-03T00:00:00,good pasta\n"))
+                .andExpect(status().isOk()).andReturn();
+
+        verify(menuItemReviewRepository, times(1)).saveAll(List.of(saved));
+        assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_export_menu_item_reviews() throws Exception {
+        mockMvc.perform(get("/api/menuitemreview/export"))
+                .andExpect(status().is(403));
+        verify(menuItemReviewRepository, never()).streamAllBy();
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_export_menu_item_reviews_as_csv() throws Exception {
+        MenuItemReview row = MenuItemReview.builder()
+                .itemId(7)
+                .reviewerEmail("cgaucho@ucsb.edu")
+                .stars(4)
+                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .comments("good pasta")
+                .id(1)
+                .build();
+        when(menuItemReviewRepository.streamAllBy()).thenReturn(Stream.of(row));
+
+        MvcResult started = mockMvc.perform(get("/api/menuitemreview/export?format=CSV"))
+                .andExpect(request().asyncStarted()).andReturn();
+        MvcResult response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"menuitemreviews.csv\"")).andReturn();
+
+        assertEquals("id,itemId,reviewerEmail,stars,dateReviewed,comments\n1,7,cgaucho@ucsb.edu,4,2022-01-03T00:00:00,good pasta\n", response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_export_menu_item_reviews_as_gzipped_ndjson() throws Exception {
+        MenuItemReview row = MenuItemReview.builder()
+                .itemId(7)
+                .reviewerEmail("cgaucho@ucsb.edu")
+                .stars(4)
+                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .comments("good pasta")
+                .id(1)
+                .build();
+        when(menuItemReviewRepository.streamAllBy()).thenReturn(Stream.of(row));
+
+        MvcResult started = mockMvc.perform(get("/api/menuitemreview/export?format=NDJSON&gzip=true"))
+                .andExpect(request().asyncStarted()).andReturn();
+        MvcResult response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"menuitemreviews.ndjson.gz\"")).andReturn();
+
+        assertEquals(mapper.writeValueAsString(row) + "\n", gunzip(response));
+    }
+
+    @Test
+    public void logged_out_users_cannot_get_stats() throws Exception {
+        mockMvc.perform(get("/api/menuitemreview/stats?itemId=7"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_the_stats_of_a_menu_item() throws Exception {
+        menuItemRatingService.record(1, 7, 4);
+        menuItemRatingService.record(2, 7, 5);
+        menuItemRatingService.record(3, 8, 1);
+
+        MvcResult response = mockMvc.perform(get("/api/menuitemreview/stats?itemId=7"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", tableVersionService.etag(MenuItemReview.class))).andReturn();
+
+        MenuItemRating expected = MenuItemRating.builder()
+                .itemId(7).count(2).sum(9).average(4.5).histogram(new TreeMap<>(Map.of(4, 1L, 5, 1L))).build();
+        assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        verify(menuItemReviewRepository, never()).findAll();
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_304_from_stats_when_the_etag_matches() throws Exception {
+        String etag = tableVersionService.etag(MenuItemReview.class);
+        mockMvc.perform(get("/api/menuitemreview/stats?itemId=7").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
 }
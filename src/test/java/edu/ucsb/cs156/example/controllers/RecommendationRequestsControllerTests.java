@@ -1,19 +1,27 @@
 package edu.ucsb.cs156.example.controllers;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import java.util.Arrays;
+import java.util.ArrayList;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.data.domain.Limit;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -239,4 +247,357 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
                 .done(done)
                 .build();
     }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_a_keyset_page_with_a_next_cursor() throws Exception {
+
+        // arrange
+
+        RecommendationRequest row1 = RecommendationRequest.builder().id(1L).build();
+        RecommendationRequest row2 = RecommendationRequest.builder().id(2L).build();
+        RecommendationRequest row3 = RecommendationRequest.builder().id(3L).build();
+
+        when(recRequestRepo.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3)))).thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+        // act
+
+        MvcResult response = mockMvc.perform(get("/api/recommendationrequests/all?limit=2"))
+            .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        verify(recRequestRepo, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3)));
+        KeysetPage<RecommendationRequest> expected = KeysetPage.<RecommendationRequest>builder().content(Arrays.asList(row1, row2)).next(2L).build();
+        String expectedJson = mapper.writeValueAsString(expected);
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_last_keyset_page_with_no_next_cursor() throws Exception {
+
+        // arrange
+
+        RecommendationRequest row3 = RecommendationRequest.builder().id(3L).build();
+
+        when(recRequestRepo.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)))).thenReturn(new ArrayList<>(Arrays.asList(row3)));
+
+        // act
+
+        MvcResult response = mockMvc.perform(get("/api/recommendationrequests/all?after=2"))
+            .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        verify(recRequestRepo, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)));
+        verify(recRequestRepo, times(0)).findAll();
+        KeysetPage<RecommendationRequest> expected = KeysetPage.<RecommendationRequest>builder().content(Arrays.asList(row3)).next(null).build();
+        String expectedJson = mapper.writeValueAsString(expected);
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @Test
+    public void logged_out_users_cannot_stream_all() throws Exception {
+        mockMvc.perform(get("/api/recommendationrequests/all").accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_stream_all_as_ndjson() throws Exception {
+
+        // arrange
+
+        RecommendationRequest row1 = RecommendationRequest.builder().id(1L).build();
+        RecommendationRequest row2 = RecommendationRequest.builder().id(2L).build();
+
+        when(recRequestRepo.streamAllBy()).thenReturn(Stream.of(row1, row2));
+
+        // act
+
+        MvcResult started = mockMvc.perform(get("/api/recommendationrequests/all").accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(request().asyncStarted()).andReturn();
+        MvcResult response = mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_NDJSON)).andReturn();
+
+        // assert
+
+        verify(recRequestRepo, times(1)).streamAllBy();
+        verify(recRequestRepo, times(0)).findAll();
+        String expected = mapper.writeValueAsString(row1) + "\n" + mapper.writeValueAsString(row2) + "\n";
+        assertEquals(expected, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_304_from_get_all_when_the_etag_matches() throws Exception {
+        String etag = tableVersionService.etag(RecommendationRequest.class);
+        mockMvc.perform(get("/api/recommendationrequests/all").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+        verify(recRequestRepo, never()).findAll();
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_all_again_after_the_table_changes() throws Exception {
+        String etag = tableVersionService.etag(RecommendationRequest.class);
+        tableVersionService.increment(RecommendationRequest.class);
+        when(recRequestRepo.findAll()).thenReturn(new ArrayList<>());
+        mockMvc.perform(get("/api/recommendationrequests/all").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", tableVersionService.etag(RecommendationRequest.class)))
+                .andExpect(header().string("Cache-Control", "no-cache, private"));
+        verify(recRequestRepo, times(1)).findAll();
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_304_from_get_by_id_when_the_etag_matches() throws Exception {
+        String etag = tableVersionService.etag(RecommendationRequest.class);
+        mockMvc.perform(get("/api/recommendationrequests?id=7").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        verify(recRequestRepo, never()).findById(any());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_bulk_create_recommendation_requests() throws Exception {
+        mockMvc.perform(post("/api/recommendationrequests/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().is(403));
+        verify(recRequestRepo, never()).saveAll(any());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_bulk_create_recommendation_requests_from_json() throws Exception {
+        RecommendationRequest sent = RecommendationRequest.builder()
+                .requesterEmail("cgaucho@ucsb.edu")
+                .professorEmail("phtcon@ucsb.edu")
+                .explanation("BS/MS program")
+                .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .dateNeeded(LocalDateTime.parse("2022-03-11T00:00:00"))
+                .done(false)
+                .id(17)
+                .build();
+        RecommendationRequest saved = RecommendationRequest.builder()
+                .requesterEmail("cgaucho@ucsb.edu")
+                .professorEmail("phtcon@ucsb.edu")
+                .explanation("BS/MS program")
+                .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .dateNeeded(LocalDateTime.parse("2022-03-11T00:00:00"))
+                .done(false)
+                .build();
+        when(recRequestRepo.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        MvcResult response = mockMvc.perform(post("/api/recommendationrequests/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(List.of(sent))))
+                .andExpect(status().isOk()).andReturn();
+
+        verify(recRequestRepo, times(1)).saveAll(List.of(saved));
+        assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_bulk_create_recommendation_requests_from_csv() throws Exception {
+        RecommendationRequest saved = RecommendationRequest.builder()
+                .requesterEmail("cgaucho@ucsb.edu")
+                .professorEmail("phtcon@ucsb.edu")
+                .explanation("BS/MS program")
+                .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .dateNeeded(LocalDateTime.parse("2022-03-11T00:00:00"))
+                .done(false)
+                .build();
+        when(recRequestRepo.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        MvcResult response = mockMvc.perform(post("/api/recommendationrequests/bulk").with(csrf())
+                .contentType("text/csv")
+                .content("requesterEmail,professorEmail,explanation,dateRequested,dateNeeded,done\ncgaucho@ucsb.edu,phtcon@ucsb.edu,BS/MS program,2022-01-03T00:00:00,2022-03-11T00:00:00,false\n"))
+                .andExpect(status().isOk()).andReturn();
+
+        verify(recRequestRepo, times(1)).saveAll(List.of(saved));
+        assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_export_recommendation_requests() throws Exception {
+        mockMvc.perform(get("/api/recommendationrequests/export"))
+                .andExpect(status().is(403));
+        verify(recRequestRepo, never()).streamAllBy();
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_export_recommendation_requests_as_csv() throws Exception {
+        RecommendationRequest row = RecommendationRequest.builder()
+                .requesterEmail("cgaucho@ucsb.edu")
+                .professorEmail("phtcon@ucsb.edu")
+                .explanation("BS/MS program")
+                .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .dateNeeded(LocalDateTime.parse("2022-03-11T00:00:00"))
+                .done(false)
+                .id(1)
+                .build();
+        when(recRequestRepo.streamAllBy()).thenReturn(Stream.of(row));
+
+        MvcResult started = mockMvc.perform(get("/api/recommendationrequests/export?format=CSV"))
+                .andExpect(request().asyncStarted()).andReturn();
+        MvcResult response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"recommendationrequests.csv\"")).andReturn();
+
+        assertEquals("id,requesterEmail,professorEmail,explanation,dateRequested,dateNeeded,done\n1,cgaucho@ucsb.edu,phtcon@ucsb.edu,BS/MS program,2022-01-03T00:00:00,2022-03-11T00:00:00,false\n", response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_export_recommendation_requests_as_gzipped_ndjson() throws Exception {
+        RecommendationRequest row = RecommendationRequest.builder()
+                .requesterEmail("cgaucho@ucsb.edu")
+                .professorEmail("phtcon@ucsb.edu")
+                .explanation("BS/MS program")
+                .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .dateNeeded(LocalDateTime.parse("2022-03-11T00:00:00"))
+                .done(false)
+                .id(1)
+                .build();
+        when(recRequestRepo.streamAllBy()).thenReturn(Stream.of(row));
+
+        MvcResult started = mockMvc.perform(get("/api/recommendationrequests/export?format=NDJSON&gzip=true"))
+                .andExpect(request().asyncStarted()).andReturn();
+        MvcResult response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"recommendationrequests.ndjson.gz\"")).andReturn();
+
+        assertEquals(mapper.writeValueAsString(row) + "\n", gunzip(response));
+    }
+
+    @Test
+    public void logged_out_users_cannot_get_the_pending_queue() throws Exception {
+        mockMvc.perform(get("/api/recommendationrequests/queue?professorEmail=phtcon@ucsb.edu"))
+            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_the_first_page_of_the_pending_queue() throws Exception {
+
+        // arrange
+
+        LocalDateTime ldt1 = LocalDateTime.parse("2024-11-01T00:00:00");
+        LocalDateTime ldt2 = LocalDateTime.parse("2024-11-05T00:00:00");
+        RecommendationRequest row1 = RecommendationRequest.builder().id(7L).professorEmail("phtcon@ucsb.edu").dateNeeded(ldt1).build();
+        RecommendationRequest row2 = RecommendationRequest.builder().id(3L).professorEmail("phtcon@ucsb.edu").dateNeeded(ldt2).build();
+        RecommendationRequest row3 = RecommendationRequest.builder().id(4L).professorEmail("phtcon@ucsb.edu").dateNeeded(ldt2).build();
+
+        when(recRequestRepo.findPendingQueue("phtcon@ucsb.edu", Limit.of(3)))
+            .thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+        // act
+
+        MvcResult response = mockMvc.perform(get("/api/recommendationrequests/queue?professorEmail=phtcon@ucsb.edu&limit=2"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", tableVersionService.etag(RecommendationRequest.class))).andReturn();
+
+        // assert
+
+        verify(recRequestRepo, times(1)).findPendingQueue("phtcon@ucsb.edu", Limit.of(3));
+        verify(recRequestRepo, times(0)).findAll();
+        KeysetPage<RecommendationRequest> expected = KeysetPage.<RecommendationRequest>builder()
+            .content(Arrays.asList(row1, row2)).next(Map.of("afterDateNeeded", ldt2, "afterId", 3L)).build();
+        assertEquals(mapper.readValue(mapper.writeValueAsString(expected), Map.class),
+            mapper.readValue(response.getResponse().getContentAsString(), Map.class));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_a_later_page_of_requests_due_within_some_days_without_an_etag() throws Exception {
+
+        // arrange
+
+        RecommendationRequest row = RecommendationRequest.builder().id(4L).dateNeeded(LocalDateTime.parse("2024-11-05T00:00:00")).build();
+        ArgumentCaptor<LocalDateTime> dueBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(recRequestRepo.findPendingQueueAfterDueBefore(eq("phtcon@ucsb.edu"), eq(LocalDateTime.parse("2024-11-05T00:00:00")), eq(3L), any(), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1))))
+            .thenReturn(new ArrayList<>(Arrays.asList(row)));
+
+        // act
+
+        LocalDateTime before = LocalDateTime.now().plusDays(7);
+        MvcResult response = mockMvc.perform(get("/api/recommendationrequests/queue?professorEmail=phtcon@ucsb.edu&dueWithinDays=7&afterDateNeeded=2024-11-05T00:00:00&afterId=3")
+                .header("If-None-Match", tableVersionService.etag(RecommendationRequest.class)))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("ETag")).andReturn();
+        LocalDateTime after = LocalDateTime.now().plusDays(7);
+
+        // assert
+
+        verify(recRequestRepo, times(1)).findPendingQueueAfterDueBefore(eq("phtcon@ucsb.edu"), eq(LocalDateTime.parse("2024-11-05T00:00:00")), eq(3L), dueBefore.capture(), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)));
+        assertEquals(true, !dueBefore.getValue().isBefore(before) && !dueBefore.getValue().isAfter(after));
+        KeysetPage<RecommendationRequest> expected = KeysetPage.<RecommendationRequest>builder().content(Arrays.asList(row)).next(null).build();
+        assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_a_later_page_of_the_pending_queue() throws Exception {
+
+        // arrange
+
+        RecommendationRequest row = RecommendationRequest.builder().id(4L).dateNeeded(LocalDateTime.parse("2024-11-05T00:00:00")).build();
+        when(recRequestRepo.findPendingQueueAfter("phtcon@ucsb.edu", LocalDateTime.parse("2024-11-05T00:00:00"), 3L, Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)))
+            .thenReturn(new ArrayList<>(Arrays.asList(row)));
+
+        // act
+
+        MvcResult response = mockMvc.perform(get("/api/recommendationrequests/queue?professorEmail=phtcon@ucsb.edu&afterDateNeeded=2024-11-05T00:00:00&afterId=3"))
+            .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        verify(recRequestRepo, times(1)).findPendingQueueAfter("phtcon@ucsb.edu", LocalDateTime.parse("2024-11-05T00:00:00"), 3L, Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1));
+        KeysetPage<RecommendationRequest> expected = KeysetPage.<RecommendationRequest>builder().content(Arrays.asList(row)).next(null).build();
+        assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_the_first_page_of_requests_due_within_some_days() throws Exception {
+
+        // arrange
+
+        RecommendationRequest row = RecommendationRequest.builder().id(4L).dateNeeded(LocalDateTime.parse("2024-11-05T00:00:00")).build();
+        ArgumentCaptor<LocalDateTime> dueBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(recRequestRepo.findPendingQueueDueBefore(eq("phtcon@ucsb.edu"), any(), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1))))
+            .thenReturn(new ArrayList<>(Arrays.asList(row)));
+
+        // act
+
+        LocalDateTime before = LocalDateTime.now();
+        MvcResult response = mockMvc.perform(get("/api/recommendationrequests/queue?professorEmail=phtcon@ucsb.edu&dueWithinDays=0"))
+            .andExpect(status().isOk()).andReturn();
+        LocalDateTime after = LocalDateTime.now();
+
+        // assert
+
+        verify(recRequestRepo, times(1)).findPendingQueueDueBefore(eq("phtcon@ucsb.edu"), dueBefore.capture(), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)));
+        assertEquals(true, !dueBefore.getValue().isBefore(before) && !dueBefore.getValue().isAfter(after));
+        KeysetPage<RecommendationRequest> expected = KeysetPage.<RecommendationRequest>builder().content(Arrays.asList(row)).next(null).build();
+        assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void the_pending_queue_rejects_a_negative_number_of_days() throws Exception {
+        mockMvc.perform(get("/api/recommendationrequests/queue?professorEmail=phtcon@ucsb.edu&dueWithinDays=-1"))
+            .andExpect(status().isBadRequest());
+        verifyNoInteractions(recRequestRepo);
+    }
 }
@@ -5,9 +5,12 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -16,16 +19,19 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.data.domain.Limit;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -294,4 +300,216 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                 assertEquals("Restaurant with id 67 not found", json.get("message"));
 
         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_keyset_page_with_a_next_cursor() throws Exception {
+
+                // arrange
+
+                Restaurant row1 = Restaurant.builder().id(1L).build();
+                Restaurant row2 = Restaurant.builder().id(2L).build();
+                Restaurant row3 = Restaurant.builder().id(3L).build();
+
+                when(restaurantRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3)))).thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+                // act
+
+                MvcResult response = mockMvc.perform(get("/api/restaurants/all?limit=2"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(restaurantRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3)));
+                KeysetPage<Restaurant> expected = KeysetPage.<Restaurant>builder().content(Arrays.asList(row1, row2)).next(2L).build();
+                String expectedJson = mapper.writeValueAsString(expected);
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_last_keyset_page_with_no_next_cursor() throws Exception {
+
+                // arrange
+
+                Restaurant row3 = Restaurant.builder().id(3L).build();
+
+                when(restaurantRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)))).thenReturn(new ArrayList<>(Arrays.asList(row3)));
+
+                // act
+
+                MvcResult response = mockMvc.perform(get("/api/restaurants/all?after=2"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(restaurantRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)));
+                verify(restaurantRepository, times(0)).findAll();
+                KeysetPage<Restaurant> expected = KeysetPage.<Restaurant>builder().content(Arrays.asList(row3)).next(null).build();
+                String expectedJson = mapper.writeValueAsString(expected);
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @Test
+        public void logged_out_users_cannot_stream_all() throws Exception {
+                mockMvc.perform(get("/api/restaurants/all").accept(MediaType.APPLICATION_NDJSON))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_stream_all_as_ndjson() throws Exception {
+
+                // arrange
+
+                Restaurant row1 = Restaurant.builder().id(1L).build();
+                Restaurant row2 = Restaurant.builder().id(2L).build();
+
+                when(restaurantRepository.streamAllBy()).thenReturn(Stream.of(row1, row2));
+
+                // act
+
+                MvcResult started = mockMvc.perform(get("/api/restaurants/all").accept(MediaType.APPLICATION_NDJSON))
+                        .andExpect(request().asyncStarted()).andReturn();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                        .andExpect(status().isOk())
+                        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON)).andReturn();
+
+                // assert
+
+                verify(restaurantRepository, times(1)).streamAllBy();
+                verify(restaurantRepository, times(0)).findAll();
+                String expected = mapper.writeValueAsString(row1) + "\n" + mapper.writeValueAsString(row2) + "\n";
+                assertEquals(expected, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_304_from_get_all_when_the_etag_matches() throws Exception {
+                String etag = tableVersionService.etag(Restaurant.class);
+                mockMvc.perform(get("/api/restaurants/all").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified())
+                                .andExpect(header().string("ETag", etag));
+                verify(restaurantRepository, never()).findAll();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_all_again_after_the_table_changes() throws Exception {
+                String etag = tableVersionService.etag(Restaurant.class);
+                tableVersionService.increment(Restaurant.class);
+                when(restaurantRepository.findAll()).thenReturn(new ArrayList<>());
+                mockMvc.perform(get("/api/restaurants/all").header("If-None-Match", etag))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", tableVersionService.etag(Restaurant.class)))
+                                .andExpect(header().string("Cache-Control", "no-cache, private"));
+                verify(restaurantRepository, times(1)).findAll();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_304_from_get_by_id_when_the_etag_matches() throws Exception {
+                String etag = tableVersionService.etag(Restaurant.class);
+                mockMvc.perform(get("/api/restaurants?id=7").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified());
+                verify(restaurantRepository, never()).findById(any());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_create_restaurants() throws Exception {
+                mockMvc.perform(post("/api/restaurants/bulk").with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                                .andExpect(status().is(403));
+                verify(restaurantRepository, never()).saveAll(any());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_bulk_create_restaurants_from_json() throws Exception {
+                Restaurant sent = Restaurant.builder()
+                                .name("Freebirds")
+                                .description("Burritos")
+                                .id(17)
+                                .build();
+                Restaurant saved = Restaurant.builder()
+                                .name("Freebirds")
+                                .description("Burritos")
+                                .build();
+                when(restaurantRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                MvcResult response = mockMvc.perform(post("/api/restaurants/bulk").with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(List.of(sent))))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(restaurantRepository, times(1)).saveAll(List.of(saved));
+                assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_bulk_create_restaurants_from_csv() throws Exception {
+                Restaurant saved = Restaurant.builder()
+                                .name("Freebirds")
+                                .description("Burritos")
+                                .build();
+                when(restaurantRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                MvcResult response = mockMvc.perform(post("/api/restaurants/bulk").with(csrf())
+                                .contentType("text/csv")
+                                .content("name,description\nFreebirds,Burritos\n"))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(restaurantRepository, times(1)).saveAll(List.of(saved));
+                assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_export_restaurants() throws Exception {
+                mockMvc.perform(get("/api/restaurants/export"))
+                                .andExpect(status().is(403));
+                verify(restaurantRepository, never()).streamAllBy();
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_export_restaurants_as_csv() throws Exception {
+                Restaurant row = Restaurant.builder()
+                                .name("Freebirds")
+                                .description("Burritos")
+                                .id(1)
+                                .build();
+                when(restaurantRepository.streamAllBy()).thenReturn(Stream.of(row));
+
+                MvcResult started = mockMvc.perform(get("/api/restaurants/export?format=CSV"))
+                                .andExpect(request().asyncStarted()).andReturn();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType("text/csv"))
+                                .andExpect(header().string("Content-Disposition", "attachment; filename=\"restaurants.csv\"")).andReturn();
+
+                assertEquals("id,name,description\n1,Freebirds,Burritos\n", response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_export_restaurants_as_gzipped_ndjson() throws Exception {
+                Restaurant row = Restaurant.builder()
+                                .name("Freebirds")
+                                .description("Burritos")
+                                .id(1)
+                                .build();
+                when(restaurantRepository.streamAllBy()).thenReturn(Stream.of(row));
+
+                MvcResult started = mockMvc.perform(get("/api/restaurants/export?format=NDJSON&gzip=true"))
+                                .andExpect(request().asyncStarted()).andReturn();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType("application/gzip"))
+                                .andExpect(header().string("Content-Disposition", "attachment; filename=\"restaurants.ndjson.gz\"")).andReturn();
+
+                assertEquals(mapper.writeValueAsString(row) + "\n", gunzip(response));
+        }
 }
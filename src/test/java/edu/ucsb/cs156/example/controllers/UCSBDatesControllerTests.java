@@ -5,17 +5,22 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.UCSBDateCalendarService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.data.domain.Limit;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -24,16 +29,18 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = UCSBDatesController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, UCSBDateCalendarService.class })
 public class UCSBDatesControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -42,6 +49,9 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        UCSBDateCalendarService ucsbDateCalendarService;
+
         // Authorization tests for /api/ucsbdates/admin/all
 
         @Test
@@ -315,4 +325,344 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 assertEquals("UCSBDate with id 67 not found", json.get("message"));
 
         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_keyset_page_with_a_next_cursor() throws Exception {
+
+                // arrange
+
+                UCSBDate row1 = UCSBDate.builder().id(1L).build();
+                UCSBDate row2 = UCSBDate.builder().id(2L).build();
+                UCSBDate row3 = UCSBDate.builder().id(3L).build();
+
+                when(ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3)))).thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+                // act
+
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/all?limit=2"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDateRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3)));
+                KeysetPage<UCSBDate> expected = KeysetPage.<UCSBDate>builder().content(Arrays.asList(row1, row2)).next(2L).build();
+                String expectedJson = mapper.writeValueAsString(expected);
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_last_keyset_page_with_no_next_cursor() throws Exception {
+
+                // arrange
+
+                UCSBDate row3 = UCSBDate.builder().id(3L).build();
+
+                when(ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)))).thenReturn(new ArrayList<>(Arrays.asList(row3)));
+
+                // act
+
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/all?after=2"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDateRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)));
+                verify(ucsbDateRepository, times(0)).findAll();
+                KeysetPage<UCSBDate> expected = KeysetPage.<UCSBDate>builder().content(Arrays.asList(row3)).next(null).build();
+                String expectedJson = mapper.writeValueAsString(expected);
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @Test
+        public void logged_out_users_cannot_stream_all() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/all").accept(MediaType.APPLICATION_NDJSON))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_stream_all_as_ndjson() throws Exception {
+
+                // arrange
+
+                UCSBDate row1 = UCSBDate.builder().id(1L).build();
+                UCSBDate row2 = UCSBDate.builder().id(2L).build();
+
+                when(ucsbDateRepository.streamAllBy()).thenReturn(Stream.of(row1, row2));
+
+                // act
+
+                MvcResult started = mockMvc.perform(get("/api/ucsbdates/all").accept(MediaType.APPLICATION_NDJSON))
+                        .andExpect(request().asyncStarted()).andReturn();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                        .andExpect(status().isOk())
+                        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON)).andReturn();
+
+                // assert
+
+                verify(ucsbDateRepository, times(1)).streamAllBy();
+                verify(ucsbDateRepository, times(0)).findAll();
+                String expected = mapper.writeValueAsString(row1) + "\n" + mapper.writeValueAsString(row2) + "\n";
+                assertEquals(expected, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_304_from_get_all_when_the_etag_matches() throws Exception {
+                String etag = tableVersionService.etag(UCSBDate.class);
+                mockMvc.perform(get("/api/ucsbdates/all").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified())
+                                .andExpect(header().string("ETag", etag));
+                verify(ucsbDateRepository, never()).findAll();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_all_again_after_the_table_changes() throws Exception {
+                String etag = tableVersionService.etag(UCSBDate.class);
+                tableVersionService.increment(UCSBDate.class);
+                when(ucsbDateRepository.findAll()).thenReturn(new ArrayList<>());
+                mockMvc.perform(get("/api/ucsbdates/all").header("If-None-Match", etag))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", tableVersionService.etag(UCSBDate.class)))
+                                .andExpect(header().string("Cache-Control", "no-cache, private"));
+                verify(ucsbDateRepository, times(1)).findAll();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_304_from_get_by_id_when_the_etag_matches() throws Exception {
+                String etag = tableVersionService.etag(UCSBDate.class);
+                mockMvc.perform(get("/api/ucsbdates?id=7").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified());
+                verify(ucsbDateRepository, never()).findById(any());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_create_ucsbdates() throws Exception {
+                mockMvc.perform(post("/api/ucsbdates/bulk").with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                                .andExpect(status().is(403));
+                verify(ucsbDateRepository, never()).saveAll(any());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_bulk_create_ucsbdates_from_json() throws Exception {
+                UCSBDate sent = UCSBDate.builder()
+                                .quarterYYYYQ("20222")
+                                .name("firstDayOfClasses")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .id(17)
+                                .build();
+                UCSBDate saved = UCSBDate.builder()
+                                .quarterYYYYQ("20222")
+                                .name("firstDayOfClasses")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+                when(ucsbDateRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                MvcResult response = mockMvc.perform(post("/api/ucsbdates/bulk").with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(List.of(sent))))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(ucsbDateRepository, times(1)).saveAll(List.of(saved));
+                assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_bulk_create_ucsbdates_from_csv() throws Exception {
+                UCSBDate saved = UCSBDate.builder()
+                                .quarterYYYYQ("20222")
+                                .name("firstDayOfClasses")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+                when(ucsbDateRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                MvcResult response = mockMvc.perform(post("/api/ucsbdates/bulk").with(csrf())
+                                .contentType("text/csv")
+                                .content("quarterYYYYQ,name,localDateTime\n20222,firstDayOfClasses,2022-01-03T00:00:00\n"))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(ucsbDateRepository, times(1)).saveAll(List.of(saved));
+                assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_gets_400_when_the_bulk_csv_cannot_be_read() throws Exception {
+                MvcResult response = mockMvc.perform(post("/api/ucsbdates/bulk").with(csrf())
+                                .contentType("text/csv")
+                                .content("quarterYYYYQ,name,localDateTime\n20222,firstDayOfClasses,not a date\n"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                verify(ucsbDateRepository, never()).saveAll(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BulkImportException", json.get("type"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_export_ucsbdates() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/export"))
+                                .andExpect(status().is(403));
+                verify(ucsbDateRepository, never()).streamAllBy();
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_export_ucsbdates_as_csv() throws Exception {
+                UCSBDate row = UCSBDate.builder()
+                                .quarterYYYYQ("20222")
+                                .name("firstDayOfClasses")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .id(1)
+                                .build();
+                when(ucsbDateRepository.streamAllBy()).thenReturn(Stream.of(row));
+
+                MvcResult started = mockMvc.perform(get("/api/ucsbdates/export?format=CSV"))
+                                .andExpect(request().asyncStarted()).andReturn();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType("text/csv"))
+                                .andExpect(header().string("Content-Disposition", "attachment; filename=\"ucsbdates.csv\"")).andReturn();
+
+                assertEquals("id,quarterYYYYQ,name,localDateTime\n1,20222,firstDayOfClasses,2022-01-03T00:00:00\n", response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_export_ucsbdates_as_gzipped_ndjson() throws Exception {
+                UCSBDate row = UCSBDate.builder()
+                                .quarterYYYYQ("20222")
+                                .name("firstDayOfClasses")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .id(1)
+                                .build();
+                when(ucsbDateRepository.streamAllBy()).thenReturn(Stream.of(row));
+
+                MvcResult started = mockMvc.perform(get("/api/ucsbdates/export?format=NDJSON&gzip=true"))
+                                .andExpect(request().asyncStarted()).andReturn();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType("application/gzip"))
+                                .andExpect(header().string("Content-Disposition", "attachment; filename=\"ucsbdates.ndjson.gz\"")).andReturn();
+
+                assertEquals(mapper.writeValueAsString(row) + "\n", gunzip(response));
+        }
+
+        @Test
+        public void logged_out_users_cannot_get_the_calendar() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/calendar?fromQuarter=20241"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/ucsbdates/window"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_dates_of_a_span_of_quarters() throws Exception {
+                LocalDateTime ldt1 = LocalDateTime.parse("2031-01-06T00:00:00");
+                LocalDateTime ldt2 = LocalDateTime.parse("2031-03-31T00:00:00");
+                LocalDateTime ldt3 = LocalDateTime.parse("2031-09-25T00:00:00");
+                ucsbDateCalendarService.put(11, "20312", "firstDayOfClasses", ldt2);
+                ucsbDateCalendarService.put(12, "20311", "firstDayOfClasses", ldt1);
+                ucsbDateCalendarService.put(13, "20314", "firstDayOfClasses", ldt3);
+
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/calendar?fromQuarter=20311&toQuarter=20313"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", tableVersionService.etag(UCSBDate.class))).andReturn();
+
+                List<UCSBDate> expected = List.of(
+                                UCSBDate.builder().id(12).quarterYYYYQ("20311").name("firstDayOfClasses").localDateTime(ldt1).build(),
+                                UCSBDate.builder().id(11).quarterYYYYQ("20312").name("firstDayOfClasses").localDateTime(ldt2).build());
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+                verify(ucsbDateRepository, never()).findAll();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void the_calendar_defaults_to_one_quarter() throws Exception {
+                LocalDateTime ldt = LocalDateTime.parse("2032-04-05T00:00:00");
+                ucsbDateCalendarService.put(21, "20322", "firstDayOfClasses", ldt);
+                ucsbDateCalendarService.put(22, "20323", "firstDayOfClasses", ldt.plusMonths(3));
+
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/calendar?fromQuarter=20322"))
+                                .andExpect(status().isOk()).andReturn();
+
+                List<UCSBDate> expected = List.of(
+                                UCSBDate.builder().id(21).quarterYYYYQ("20322").name("firstDayOfClasses").localDateTime(ldt).build());
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void the_calendar_rejects_a_bad_span_of_quarters() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/calendar?fromQuarter=2024"))
+                                .andExpect(status().isBadRequest());
+                mockMvc.perform(get("/api/ucsbdates/calendar?fromQuarter=20241&toQuarter=F2024"))
+                                .andExpect(status().isBadRequest());
+                mockMvc.perform(get("/api/ucsbdates/calendar?fromQuarter=20244&toQuarter=20241"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_dates_in_a_window() throws Exception {
+                LocalDateTime start = LocalDateTime.parse("2033-01-01T00:00:00");
+                ucsbDateCalendarService.put(31, "20331", "a", start.plusDays(3));
+                ucsbDateCalendarService.put(32, "20331", "b", start.plusDays(10));
+                ucsbDateCalendarService.put(33, "20331", "c", start.plusDays(14));
+
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/window?start=2033-01-01T00:00:00&days=10"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", tableVersionService.etag(UCSBDate.class))).andReturn();
+
+                List<UCSBDate> expected = List.of(
+                                UCSBDate.builder().id(31).quarterYYYYQ("20331").name("a").localDateTime(start.plusDays(3)).build());
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+
+                response = mockMvc.perform(get("/api/ucsbdates/window?start=2033-01-01T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+                assertEquals(2, mapper.readValue(response.getResponse().getContentAsString(), List.class).size());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void the_window_starts_now_by_default() throws Exception {
+                LocalDateTime now = LocalDateTime.now();
+                ucsbDateCalendarService.put(41, "20001", "past", now.minusDays(1));
+                ucsbDateCalendarService.put(42, "20001", "soon", now.plusDays(1));
+
+                String etag = tableVersionService.etag(UCSBDate.class);
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/window?days=2").header("If-None-Match", etag))
+                                .andExpect(status().isOk())
+                                .andExpect(header().doesNotExist("ETag")).andReturn();
+
+                List<UCSBDate> expected = List.of(
+                                UCSBDate.builder().id(42).quarterYYYYQ("20001").name("soon").localDateTime(now.plusDays(1)).build());
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void the_window_rejects_a_bad_number_of_days() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/window?days=0"))
+                                .andExpect(status().isBadRequest());
+                mockMvc.perform(get("/api/ucsbdates/window?days=367"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_304_from_the_calendar_when_the_etag_matches() throws Exception {
+                String etag = tableVersionService.etag(UCSBDate.class);
+                mockMvc.perform(get("/api/ucsbdates/calendar?fromQuarter=20241").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified());
+        }
 }
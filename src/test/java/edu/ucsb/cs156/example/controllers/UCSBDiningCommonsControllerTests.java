@@ -5,33 +5,41 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.DiningCommonsLocationService;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.data.domain.Limit;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = UCSBDiningCommonsController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, DiningCommonsLocationService.class })
 public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -40,6 +48,9 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        DiningCommonsLocationService diningCommonsLocationService;
+
         // Authorization tests for /api/ucsbdiningcommons/admin/all
 
         @Test
@@ -280,7 +291,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(carrilloEdited);
 
-                when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(carrilloOrig));
+                when(ucsbDiningCommonsRepository.findByCode(eq("carrillo"))).thenReturn(Optional.of(carrilloOrig));
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -292,7 +303,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsRepository, times(1)).findById("carrillo");
+                verify(ucsbDiningCommonsRepository, times(1)).findByCode("carrillo");
                 verify(ucsbDiningCommonsRepository, times(1)).save(carrilloEdited); // should be saved with updated info
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
@@ -315,7 +326,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(editedCommons);
 
-                when(ucsbDiningCommonsRepository.findById(eq("munger-hall"))).thenReturn(Optional.empty());
+                when(ucsbDiningCommonsRepository.findByCode(eq("munger-hall"))).thenReturn(Optional.empty());
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -327,9 +338,293 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsRepository, times(1)).findById("munger-hall");
+                verify(ucsbDiningCommonsRepository, times(1)).findByCode("munger-hall");
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
 
         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_keyset_page_with_a_next_cursor() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons row1 = UCSBDiningCommons.builder().code("carrillo").build();
+                UCSBDiningCommons row2 = UCSBDiningCommons.builder().code("de-la-guerra").build();
+                UCSBDiningCommons row3 = UCSBDiningCommons.builder().code("ortega").build();
+
+                when(ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc(eq(""), eq(Limit.of(3)))).thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+                // act
+
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/all?limit=2"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDiningCommonsRepository, times(1)).findByCodeGreaterThanOrderByCodeAsc(eq(""), eq(Limit.of(3)));
+                KeysetPage<UCSBDiningCommons> expected = KeysetPage.<UCSBDiningCommons>builder().content(Arrays.asList(row1, row2)).next("de-la-guerra").build();
+                String expectedJson = mapper.writeValueAsString(expected);
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_last_keyset_page_with_no_next_cursor() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons row3 = UCSBDiningCommons.builder().code("ortega").build();
+
+                when(ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc(eq("de-la-guerra"), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)))).thenReturn(new ArrayList<>(Arrays.asList(row3)));
+
+                // act
+
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/all?after=de-la-guerra"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDiningCommonsRepository, times(1)).findByCodeGreaterThanOrderByCodeAsc(eq("de-la-guerra"), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)));
+                verify(ucsbDiningCommonsRepository, times(0)).findAll();
+                KeysetPage<UCSBDiningCommons> expected = KeysetPage.<UCSBDiningCommons>builder().content(Arrays.asList(row3)).next(null).build();
+                String expectedJson = mapper.writeValueAsString(expected);
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @Test
+        public void logged_out_users_cannot_stream_all() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/all").accept(MediaType.APPLICATION_NDJSON))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_stream_all_as_ndjson() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons row1 = UCSBDiningCommons.builder().code("carrillo").build();
+                UCSBDiningCommons row2 = UCSBDiningCommons.builder().code("ortega").build();
+
+                when(ucsbDiningCommonsRepository.streamAllBy()).thenReturn(Stream.of(row1, row2));
+
+                // act
+
+                MvcResult started = mockMvc.perform(get("/api/ucsbdiningcommons/all").accept(MediaType.APPLICATION_NDJSON))
+                        .andExpect(request().asyncStarted()).andReturn();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                        .andExpect(status().isOk())
+                        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON)).andReturn();
+
+                // assert
+
+                verify(ucsbDiningCommonsRepository, times(1)).streamAllBy();
+                verify(ucsbDiningCommonsRepository, times(0)).findAll();
+                String expected = mapper.writeValueAsString(row1) + "\n" + mapper.writeValueAsString(row2) + "\n";
+                assertEquals(expected, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_304_from_get_all_when_the_etag_matches() throws Exception {
+                String etag = tableVersionService.etag(UCSBDiningCommons.class);
+                mockMvc.perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified())
+                                .andExpect(header().string("ETag", etag));
+                verify(ucsbDiningCommonsRepository, never()).findAll();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_all_again_after_the_table_changes() throws Exception {
+                String etag = tableVersionService.etag(UCSBDiningCommons.class);
+                tableVersionService.increment(UCSBDiningCommons.class);
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(new ArrayList<>());
+                mockMvc.perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", etag))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", tableVersionService.etag(UCSBDiningCommons.class)))
+                                .andExpect(header().string("Cache-Control", "no-cache, private"));
+                verify(ucsbDiningCommonsRepository, times(1)).findAll();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_304_from_get_by_id_when_the_etag_matches() throws Exception {
+                String etag = tableVersionService.etag(UCSBDiningCommons.class);
+                mockMvc.perform(get("/api/ucsbdiningcommons?code=ortega").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified());
+                verify(ucsbDiningCommonsRepository, never()).findById(any());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_create_dining_commons() throws Exception {
+                mockMvc.perform(post("/api/ucsbdiningcommons/bulk").with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                                .andExpect(status().is(403));
+                verify(ucsbDiningCommonsRepository, never()).saveAll(any());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_bulk_create_dining_commons_from_json() throws Exception {
+                UCSBDiningCommons saved = UCSBDiningCommons.builder()
+                                .code("ortega")
+                                .name("Ortega")
+                                .hasSackMeal(true)
+                                .hasTakeOutMeal(true)
+                                .hasDiningCam(true)
+                                .latitude(34.410987)
+                                .longitude(-119.84709)
+                                .build();
+                when(ucsbDiningCommonsRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                MvcResult response = mockMvc.perform(post("/api/ucsbdiningcommons/bulk").with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(List.of(saved))))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(ucsbDiningCommonsRepository, times(1)).saveAll(List.of(saved));
+                assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_bulk_create_dining_commons_from_csv() throws Exception {
+                UCSBDiningCommons saved = UCSBDiningCommons.builder()
+                                .code("ortega")
+                                .name("Ortega")
+                                .hasSackMeal(true)
+                                .hasTakeOutMeal(true)
+                                .hasDiningCam(true)
+                                .latitude(34.410987)
+                                .longitude(-119.84709)
+                                .build();
+                when(ucsbDiningCommonsRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                MvcResult response = mockMvc.perform(post("/api/ucsbdiningcommons/bulk").with(csrf())
+                                .contentType("text/csv")
+                                .content("code,name,hasSackMeal,hasTakeOutMeal,hasDiningCam,latitude,longitude\nortega,Ortega,true,true,true,34.410987,-119.84709\n"))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(ucsbDiningCommonsRepository, times(1)).saveAll(List.of(saved));
+                assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_export_dining_commons() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/export"))
+                                .andExpect(status().is(403));
+                verify(ucsbDiningCommonsRepository, never()).streamAllBy();
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_export_dining_commons_as_csv() throws Exception {
+                UCSBDiningCommons row = UCSBDiningCommons.builder()
+                                .code("ortega")
+                                .name("Ortega")
+                                .hasSackMeal(true)
+                                .hasTakeOutMeal(true)
+                                .hasDiningCam(true)
+                                .latitude(34.410987)
+                                .longitude(-119.84709)
+                                .build();
+                when(ucsbDiningCommonsRepository.streamAllBy()).thenReturn(Stream.of(row));
+
+                MvcResult started = mockMvc.perform(get("/api/ucsbdiningcommons/export?format=CSV"))
+                                .andExpect(request().asyncStarted()).andReturn();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType("text/csv"))
+                                .andExpect(header().string("Content-Disposition", "attachment; filename=\"ucsbdiningcommons.csv\"")).andReturn();
+
+                assertEquals("code,name,hasSackMeal,hasTakeOutMeal,hasDiningCam,latitude,longitude\nortega,Ortega,true,true,true,34.410987,-119.84709\n", response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_export_dining_commons_as_gzipped_ndjson() throws Exception {
+                UCSBDiningCommons row = UCSBDiningCommons.builder()
+                                .code("ortega")
+                                .name("Ortega")
+                                .hasSackMeal(true)
+                                .hasTakeOutMeal(true)
+                                .hasDiningCam(true)
+                                .latitude(34.410987)
+                                .longitude(-119.84709)
+                                .build();
+                when(ucsbDiningCommonsRepository.streamAllBy()).thenReturn(Stream.of(row));
+
+                MvcResult started = mockMvc.perform(get("/api/ucsbdiningcommons/export?format=NDJSON&gzip=true"))
+                                .andExpect(request().asyncStarted()).andReturn();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType("application/gzip"))
+                                .andExpect(header().string("Content-Disposition", "attachment; filename=\"ucsbdiningcommons.ndjson.gz\"")).andReturn();
+
+                assertEquals(mapper.writeValueAsString(row) + "\n", gunzip(response));
+        }
+
+        @Test
+        public void logged_out_users_cannot_get_the_nearest_dining_commons() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_nearest_dining_commons() throws Exception {
+                UCSBDiningCommons ortega = UCSBDiningCommons.builder().code("ortega").name("Ortega")
+                                .latitude(34.410987).longitude(-119.84709).build();
+                UCSBDiningCommons dlg = UCSBDiningCommons.builder().code("de-la-guerra").name("De La Guerra")
+                                .latitude(34.409811).longitude(-119.845026).build();
+                UCSBDiningCommons carrillo = UCSBDiningCommons.builder().code("carrillo").name("Carrillo")
+                                .latitude(34.409953).longitude(-119.85277).build();
+                for (UCSBDiningCommons commons : List.of(ortega, dlg, carrillo)) {
+                        diningCommonsLocationService.put(commons.getCode(), commons.getLatitude(), commons.getLongitude());
+                        when(ucsbDiningCommonsRepository.findById(eq(commons.getCode()))).thenReturn(Optional.of(commons));
+                }
+
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34.410987&lon=-119.84709&k=2"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", tableVersionService.etag(UCSBDiningCommons.class))).andReturn();
+
+                List<Map<String, Object>> nearest = mapper.readValue(response.getResponse().getContentAsString(), List.class);
+                assertEquals(2, nearest.size());
+                assertEquals("ortega", nearest.get(0).get("code"));
+                assertEquals(0.0, nearest.get(0).get("distanceMeters"));
+                assertEquals("de-la-guerra", nearest.get(1).get("code"));
+                assertEquals("De La Guerra", nearest.get(1).get("name"));
+                assertEquals(230.1, (double) nearest.get(1).get("distanceMeters"), 0.1);
+                verify(ucsbDiningCommonsRepository, never()).findById(eq("carrillo"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_400_for_a_latitude_out_of_range() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=91&lon=-119.85"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_400_for_a_longitude_out_of_range() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-181"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_400_for_a_latitude_or_longitude_that_is_not_a_number() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=NaN&lon=-119.85"))
+                                .andExpect(status().isBadRequest());
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=NaN"))
+                                .andExpect(status().isBadRequest());
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=Infinity&lon=-119.85"))
+                                .andExpect(status().isBadRequest());
+        }
 }
@@ -6,34 +6,41 @@ import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.MenuItemTypeaheadService;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.data.domain.Limit;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = UCSBDiningCommonsMenuItemController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, MenuItemTypeaheadService.class })
 public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase{
         @MockBean
         UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
@@ -41,6 +48,9 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        MenuItemTypeaheadService menuItemTypeaheadService;
+
          // Authorization tests for /api/ucsbdates/admin/all
 
          @Test
@@ -308,6 +318,267 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 assertEquals("UCSBDiningCommonsMenuItem with id 15 not found", json.get("message"));
         }
 
+         @WithMockUser(roles = { "USER" })
+         @Test
+         public void logged_in_user_can_get_a_keyset_page_with_a_next_cursor() throws Exception {
+
+                  // arrange
+
+                  UCSBDiningCommonsMenuItem row1 = UCSBDiningCommonsMenuItem.builder().id(1L).build();
+                  UCSBDiningCommonsMenuItem row2 = UCSBDiningCommonsMenuItem.builder().id(2L).build();
+                  UCSBDiningCommonsMenuItem row3 = UCSBDiningCommonsMenuItem.builder().id(3L).build();
+
+                  when(ucsbDiningCommonsMenuItemRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3)))).thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+                  // act
+
+                  MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/all?limit=2"))
+                           .andExpect(status().isOk()).andReturn();
+
+                  // assert
+
+                  verify(ucsbDiningCommonsMenuItemRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3)));
+                  KeysetPage<UCSBDiningCommonsMenuItem> expected = KeysetPage.<UCSBDiningCommonsMenuItem>builder().content(Arrays.asList(row1, row2)).next(2L).build();
+                  String expectedJson = mapper.writeValueAsString(expected);
+                  assertEquals(expectedJson, response.getResponse().getContentAsString());
+         }
+
+         @WithMockUser(roles = { "USER" })
+         @Test
+         public void logged_in_user_gets_last_keyset_page_with_no_next_cursor() throws Exception {
+
+                  // arrange
+
+                  UCSBDiningCommonsMenuItem row3 = UCSBDiningCommonsMenuItem.builder().id(3L).build();
+
+                  when(ucsbDiningCommonsMenuItemRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)))).thenReturn(new ArrayList<>(Arrays.asList(row3)));
+
+                  // act
+
+                  MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/all?after=2"))
+                           .andExpect(status().isOk()).andReturn();
+
+                  // assert
+
+                  verify(ucsbDiningCommonsMenuItemRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)));
+                  verify(ucsbDiningCommonsMenuItemRepository, times(0)).findAll();
+                  KeysetPage<UCSBDiningCommonsMenuItem> expected = KeysetPage.<UCSBDiningCommonsMenuItem>builder().content(Arrays.asList(row3)).next(null).build();
+                  String expectedJson = mapper.writeValueAsString(expected);
+                  assertEquals(expectedJson, response.getResponse().getContentAsString());
+         }
+
+         @Test
+         public void logged_out_users_cannot_stream_all() throws Exception {
+                  mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/all").accept(MediaType.APPLICATION_NDJSON))
+                           .andExpect(status().is(403));
+         }
+
+         @WithMockUser(roles = { "USER" })
+         @Test
+         public void logged_in_user_can_stream_all_as_ndjson() throws Exception {
+
+                  // arrange
+
+                  UCSBDiningCommonsMenuItem row1 = UCSBDiningCommonsMenuItem.builder().id(1L).build();
+                  UCSBDiningCommonsMenuItem row2 = UCSBDiningCommonsMenuItem.builder().id(2L).build();
+
+                  when(ucsbDiningCommonsMenuItemRepository.streamAllBy()).thenReturn(Stream.of(row1, row2));
+
+                  // act
+
+                  MvcResult started = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/all").accept(MediaType.APPLICATION_NDJSON))
+                           .andExpect(request().asyncStarted()).andReturn();
+                  MvcResult response = mockMvc.perform(asyncDispatch(started))
+                           .andExpect(status().isOk())
+                           .andExpect(content().contentType(MediaType.APPLICATION_NDJSON)).andReturn();
+
+                  // assert
+
+                  verify(ucsbDiningCommonsMenuItemRepository, times(1)).streamAllBy();
+                  verify(ucsbDiningCommonsMenuItemRepository, times(0)).findAll();
+                  String expected = mapper.writeValueAsString(row1) + "\n" + mapper.writeValueAsString(row2) + "\n";
+                  assertEquals(expected, response.getResponse().getContentAsString());
+         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_304_from_get_all_when_the_etag_matches() throws Exception {
+                String etag = tableVersionService.etag(UCSBDiningCommonsMenuItem.class);
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/all").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified())
+                                .andExpect(header().string("ETag", etag));
+                verify(ucsbDiningCommonsMenuItemRepository, never()).findAll();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_all_again_after_the_table_changes() throws Exception {
+                String etag = tableVersionService.etag(UCSBDiningCommonsMenuItem.class);
+                tableVersionService.increment(UCSBDiningCommonsMenuItem.class);
+                when(ucsbDiningCommonsMenuItemRepository.findAll()).thenReturn(new ArrayList<>());
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/all").header("If-None-Match", etag))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", tableVersionService.etag(UCSBDiningCommonsMenuItem.class)))
+                                .andExpect(header().string("Cache-Control", "no-cache, private"));
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).findAll();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_304_from_get_by_id_when_the_etag_matches() throws Exception {
+                String etag = tableVersionService.etag(UCSBDiningCommonsMenuItem.class);
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem?id=7").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified());
+                verify(ucsbDiningCommonsMenuItemRepository, never()).findById(any());
+        }
+
+         @WithMockUser(roles = { "USER" })
+         @Test
+         public void logged_in_regular_users_cannot_bulk_create_menu_items() throws Exception {
+                  mockMvc.perform(post("/api/ucsbdiningcommonsmenuitem/bulk").with(csrf())
+                                    .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                                    .andExpect(status().is(403));
+                  verify(ucsbDiningCommonsMenuItemRepository, never()).saveAll(any());
+         }
+
+         @WithMockUser(roles = { "ADMIN", "USER" })
+         @Test
+         public void an_admin_user_can_bulk_create_menu_items_from_json() throws Exception {
+                  UCSBDiningCommonsMenuItem sent = UCSBDiningCommonsMenuItem.builder()
+                                    .diningCommonsCode("ortega")
+                                    .name("Baked Pesto Pasta with Chicken")
+                                    .station("Entree Specials")
+                                    .id(17)
+                                    .build();
+                  UCSBDiningCommonsMenuItem saved = UCSBDiningCommonsMenuItem.builder()
+                                    .diningCommonsCode("ortega")
+                                    .name("Baked Pesto Pasta with Chicken")
+                                    .station("Entree Specials")
+                                    .build();
+                  when(ucsbDiningCommonsMenuItemRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                  MvcResult response = mockMvc.perform(post("/api/ucsbdiningcommonsmenuitem/bulk").with(csrf())
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(mapper.writeValueAsString(List.of(sent))))
+                                    .andExpect(status().isOk()).andReturn();
+
+                  verify(ucsbDiningCommonsMenuItemRepository, times(1)).saveAll(List.of(saved));
+                  assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+         }
+
+         @WithMockUser(roles = { "ADMIN", "USER" })
+         @Test
+         public void an_admin_user_can_bulk_create_menu_items_from_csv() throws Exception {
+                  UCSBDiningCommonsMenuItem saved = UCSBDiningCommonsMenuItem.builder()
+                                    .diningCommonsCode("ortega")
+                                    .name("Baked Pesto Pasta with Chicken")
+                                    .station("Entree Specials")
+                                    .build();
+                  when(ucsbDiningCommonsMenuItemRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                  MvcResult response = mockMvc.perform(post("/api/ucsbdiningcommonsmenuitem/bulk").with(csrf())
+                                    .contentType("text/csv")
+                                    .content("diningCommonsCode,name,station\nortega,Baked Pesto Pasta with Chicken,Entree Specials\n"))
+                                    .andExpect(status().isOk()).andReturn();
+
+                  verify(ucsbDiningCommonsMenuItemRepository, times(1)).saveAll(List.of(saved));
+                  assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+         }
+
+         @WithMockUser(roles = { "USER" })
+         @Test
+         public void logged_in_regular_users_cannot_export_menu_items() throws Exception {
+                  mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/export"))
+                                    .andExpect(status().is(403));
+                  verify(ucsbDiningCommonsMenuItemRepository, never()).streamAllBy();
+         }
+
+         @WithMockUser(roles = { "ADMIN", "USER" })
+         @Test
+         public void an_admin_user_can_export_menu_items_as_csv() throws Exception {
+                  UCSBDiningCommonsMenuItem row = UCSBDiningCommonsMenuItem.builder()
+                                    .diningCommonsCode("ortega")
+                                    .name("Baked Pesto Pasta with Chicken")
+                                    .station("Entree Specials")
+                                    .id(1)
+                                    .build();
+                  when(ucsbDiningCommonsMenuItemRepository.streamAllBy()).thenReturn(Stream.of(row));
+
+                  MvcResult started = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/export?format=CSV"))
+                                    .andExpect(request().asyncStarted()).andReturn();
+                  MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                    .andExpect(status().isOk())
+                                    .andExpect(content().contentType("text/csv"))
+                                    .andExpect(header().string("Content-Disposition", "attachment; filename=\"ucsbdiningcommonsmenuitems.csv\"")).andReturn();
+
+                  assertEquals("id,diningCommonsCode,name,station\n1,ortega,Baked Pesto Pasta with Chicken,Entree Specials\n", response.getResponse().getContentAsString());
+         }
 
+         @WithMockUser(roles = { "ADMIN", "USER" })
+         @Test
+         public void an_admin_user_can_export_menu_items_as_gzipped_ndjson() throws Exception {
+                  UCSBDiningCommonsMenuItem row = UCSBDiningCommonsMenuItem.builder()
+                                    .diningCommonsCode("ortega")
+                                    .name("Baked Pesto Pasta with Chicken")
+                                    .station("Entree Specials")
+                                    .id(1)
+                                    .build();
+                  when(ucsbDiningCommonsMenuItemRepository.streamAllBy()).thenReturn(Stream.of(row));
+
+                  MvcResult started = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/export?format=NDJSON&gzip=true"))
+                                    .andExpect(request().asyncStarted()).andReturn();
+                  MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                    .andExpect(status().isOk())
+                                    .andExpect(content().contentType("application/gzip"))
+                                    .andExpect(header().string("Content-Disposition", "attachment; filename=\"ucsbdiningcommonsmenuitems.ndjson.gz\"")).andReturn();
+
+                  assertEquals(mapper.writeValueAsString(row) + "\n", gunzip(response));
+         }
 
+         @Test
+         public void logged_out_users_cannot_get_typeahead() throws Exception {
+                  mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/typeahead?prefix=chi"))
+                                    .andExpect(status().is(403));
+         }
+
+         @WithMockUser(roles = { "USER" })
+         @Test
+         public void logged_in_user_can_get_typeahead_suggestions_from_the_index() throws Exception {
+                  menuItemTypeaheadService.put(41, "portola", "Shrimp Tacos", "Grill");
+                  menuItemTypeaheadService.put(42, "portola", "Fish Tacos", "Grill");
+                  menuItemTypeaheadService.put(43, "portola", "Tacos Al Pastor", "Grill");
+                  menuItemTypeaheadService.put(44, "carrillo", "Tacos Al Pastor", "Grill");
+
+                  MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/typeahead?prefix=Tac&diningCommonsCode=portola&limit=2"))
+                                    .andExpect(status().isOk())
+                                    .andExpect(header().string("ETag", tableVersionService.etag(UCSBDiningCommonsMenuItem.class))).andReturn();
+
+                  List<UCSBDiningCommonsMenuItem> expected = List.of(
+                                    UCSBDiningCommonsMenuItem.builder().id(41).diningCommonsCode("portola").name("Shrimp Tacos").station("Grill").build(),
+                                    UCSBDiningCommonsMenuItem.builder().id(42).diningCommonsCode("portola").name("Fish Tacos").station("Grill").build());
+                  assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+                  verify(ucsbDiningCommonsMenuItemRepository, never()).findAll();
+         }
+
+         @WithMockUser(roles = { "USER" })
+         @Test
+         public void typeahead_returns_ten_suggestions_by_default() throws Exception {
+                  for (long id = 50; id < 62; id++) {
+                           menuItemTypeaheadService.put(id, "de-la-guerra", "Waffle " + id, "Breakfast");
+                  }
+
+                  MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/typeahead?prefix=waffle&station=Breakfast"))
+                                    .andExpect(status().isOk()).andReturn();
+
+                  List<?> suggestions = mapper.readValue(response.getResponse().getContentAsString(), List.class);
+                  assertEquals(10, suggestions.size());
+         }
+
+         @WithMockUser(roles = { "USER" })
+         @Test
+         public void logged_in_user_gets_304_from_typeahead_when_the_etag_matches() throws Exception {
+                  String etag = tableVersionService.etag(UCSBDiningCommonsMenuItem.class);
+                  mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/typeahead?prefix=chi").header("If-None-Match", etag))
+                                    .andExpect(status().isNotModified());
+         }
 }
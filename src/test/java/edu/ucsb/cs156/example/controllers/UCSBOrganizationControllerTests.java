@@ -6,9 +6,12 @@ import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -17,16 +20,19 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.data.domain.Limit;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -227,7 +233,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
         String requestBody = mapper.writeValueAsString(editedOrganization);
 
-        when(ucsbOrganizationRepository.findById(eq("org1"))).thenReturn(Optional.of(origOrganization));
+        when(ucsbOrganizationRepository.findByOrgCode(eq("org1"))).thenReturn(Optional.of(origOrganization));
 
         // act
         MvcResult response = mockMvc.perform(
@@ -239,7 +245,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                 .andExpect(status().isOk()).andReturn();
 
         // assert
-        verify(ucsbOrganizationRepository, times(1)).findById("org1");
+        verify(ucsbOrganizationRepository, times(1)).findByOrgCode("org1");
         verify(ucsbOrganizationRepository, times(1)).save(origOrganization);
 
         String responseString = response.getResponse().getContentAsString();
@@ -259,7 +265,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
         String requestBody = mapper.writeValueAsString(editedOrganization);
 
-        when(ucsbOrganizationRepository.findById(eq("org1"))).thenReturn(Optional.empty());
+        when(ucsbOrganizationRepository.findByOrgCode(eq("org1"))).thenReturn(Optional.empty());
 
         // act
         MvcResult response = mockMvc.perform(
@@ -271,7 +277,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                 .andExpect(status().isNotFound()).andReturn();
 
         // assert
-        verify(ucsbOrganizationRepository, times(1)).findById("org1");
+        verify(ucsbOrganizationRepository, times(1)).findByOrgCode("org1");
         Map<String, Object> json = responseToJson(response);
         assertEquals("UCSBOrganization with id org1 not found", json.get("message"));
     }
@@ -339,7 +345,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
         String requestBody = mapper.writeValueAsString(editedOrganization);
 
-        when(ucsbOrganizationRepository.findById(eq("org1"))).thenReturn(Optional.of(origOrganization));
+        when(ucsbOrganizationRepository.findByOrgCode(eq("org1"))).thenReturn(Optional.of(origOrganization));
 
         MvcResult response = mockMvc.perform(
                 put("/api/ucsborganization?id=org1")
@@ -349,7 +355,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                         .with(csrf()))
                 .andExpect(status().isOk()).andReturn();
 
-        verify(ucsbOrganizationRepository, times(1)).findById("org1");
+        verify(ucsbOrganizationRepository, times(1)).findByOrgCode("org1");
         verify(ucsbOrganizationRepository, times(1)).save(origOrganization);
 
         String responseString = response.getResponse().getContentAsString();
@@ -434,4 +440,217 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                         .with(csrf()))
                 .andExpect(status().isForbidden());
     }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_a_keyset_page_with_a_next_cursor() throws Exception {
+
+        // arrange
+
+        UCSBOrganization row1 = UCSBOrganization.builder().orgCode("AAA").build();
+        UCSBOrganization row2 = UCSBOrganization.builder().orgCode("BBB").build();
+        UCSBOrganization row3 = UCSBOrganization.builder().orgCode("CCC").build();
+
+        when(ucsbOrganizationRepository.findByOrgCodeGreaterThanOrderByOrgCodeAsc(eq(""), eq(Limit.of(3)))).thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+        // act
+
+        MvcResult response = mockMvc.perform(get("/api/ucsborganization/all?limit=2"))
+            .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        verify(ucsbOrganizationRepository, times(1)).findByOrgCodeGreaterThanOrderByOrgCodeAsc(eq(""), eq(Limit.of(3)));
+        KeysetPage<UCSBOrganization> expected = KeysetPage.<UCSBOrganization>builder().content(Arrays.asList(row1, row2)).next("BBB").build();
+        String expectedJson = mapper.writeValueAsString(expected);
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_last_keyset_page_with_no_next_cursor() throws Exception {
+
+        // arrange
+
+        UCSBOrganization row3 = UCSBOrganization.builder().orgCode("CCC").build();
+
+        when(ucsbOrganizationRepository.findByOrgCodeGreaterThanOrderByOrgCodeAsc(eq("BBB"), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)))).thenReturn(new ArrayList<>(Arrays.asList(row3)));
+
+        // act
+
+        MvcResult response = mockMvc.perform(get("/api/ucsborganization/all?after=BBB"))
+            .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        verify(ucsbOrganizationRepository, times(1)).findByOrgCodeGreaterThanOrderByOrgCodeAsc(eq("BBB"), eq(Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1)));
+        verify(ucsbOrganizationRepository, times(0)).findAll();
+        KeysetPage<UCSBOrganization> expected = KeysetPage.<UCSBOrganization>builder().content(Arrays.asList(row3)).next(null).build();
+        String expectedJson = mapper.writeValueAsString(expected);
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @Test
+    public void logged_out_users_cannot_stream_all() throws Exception {
+        mockMvc.perform(get("/api/ucsborganization/all").accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_stream_all_as_ndjson() throws Exception {
+
+        // arrange
+
+        UCSBOrganization row1 = UCSBOrganization.builder().orgCode("AAA").build();
+        UCSBOrganization row2 = UCSBOrganization.builder().orgCode("BBB").build();
+
+        when(ucsbOrganizationRepository.streamAllBy()).thenReturn(Stream.of(row1, row2));
+
+        // act
+
+        MvcResult started = mockMvc.perform(get("/api/ucsborganization/all").accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(request().asyncStarted()).andReturn();
+        MvcResult response = mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_NDJSON)).andReturn();
+
+        // assert
+
+        verify(ucsbOrganizationRepository, times(1)).streamAllBy();
+        verify(ucsbOrganizationRepository, times(0)).findAll();
+        String expected = mapper.writeValueAsString(row1) + "\n" + mapper.writeValueAsString(row2) + "\n";
+        assertEquals(expected, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_304_from_get_all_when_the_etag_matches() throws Exception {
+        String etag = tableVersionService.etag(UCSBOrganization.class);
+        mockMvc.perform(get("/api/ucsborganization/all").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+        verify(ucsbOrganizationRepository, never()).findAll();
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_all_again_after_the_table_changes() throws Exception {
+        String etag = tableVersionService.etag(UCSBOrganization.class);
+        tableVersionService.increment(UCSBOrganization.class);
+        when(ucsbOrganizationRepository.findAll()).thenReturn(new ArrayList<>());
+        mockMvc.perform(get("/api/ucsborganization/all").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", tableVersionService.etag(UCSBOrganization.class)))
+                .andExpect(header().string("Cache-Control", "no-cache, private"));
+        verify(ucsbOrganizationRepository, times(1)).findAll();
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_304_from_get_by_id_when_the_etag_matches() throws Exception {
+        String etag = tableVersionService.etag(UCSBOrganization.class);
+        mockMvc.perform(get("/api/ucsborganization?id=ZPR").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        verify(ucsbOrganizationRepository, never()).findById(any());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_bulk_create_organizations() throws Exception {
+        mockMvc.perform(post("/api/ucsborganization/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().is(403));
+        verify(ucsbOrganizationRepository, never()).saveAll(any());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_bulk_create_organizations_from_json() throws Exception {
+        UCSBOrganization saved = UCSBOrganization.builder()
+                .orgCode("ZPR")
+                .orgTranslationShort("ZETA PHI RHO")
+                .orgTranslation("ZETA PHI RHO")
+                .inactive(false)
+                .build();
+        when(ucsbOrganizationRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        MvcResult response = mockMvc.perform(post("/api/ucsborganization/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(List.of(saved))))
+                .andExpect(status().isOk()).andReturn();
+
+        verify(ucsbOrganizationRepository, times(1)).saveAll(List.of(saved));
+        assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_bulk_create_organizations_from_csv() throws Exception {
+        UCSBOrganization saved = UCSBOrganization.builder()
+                .orgCode("ZPR")
+                .orgTranslationShort("ZETA PHI RHO")
+                .orgTranslation("ZETA PHI RHO")
+                .inactive(false)
+                .build();
+        when(ucsbOrganizationRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        MvcResult response = mockMvc.perform(post("/api/ucsborganization/bulk").with(csrf())
+                .contentType("text/csv")
+                .content("orgCode,orgTranslationShort,orgTranslation,inactive\nZPR,ZETA PHI RHO,ZETA PHI RHO,false\n"))
+                .andExpect(status().isOk()).andReturn();
+
+        verify(ucsbOrganizationRepository, times(1)).saveAll(List.of(saved));
+        assertEquals(mapper.writeValueAsString(List.of(saved)), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_export_organizations() throws Exception {
+        mockMvc.perform(get("/api/ucsborganization/export"))
+                .andExpect(status().is(403));
+        verify(ucsbOrganizationRepository, never()).streamAllBy();
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_export_organizations_as_csv() throws Exception {
+        UCSBOrganization row = UCSBOrganization.builder()
+                .orgCode("ZPR")
+                .orgTranslationShort("ZETA PHI RHO")
+                .orgTranslation("ZETA PHI RHO")
+                .inactive(false)
+                .build();
+        when(ucsbOrganizationRepository.streamAllBy()).thenReturn(Stream.of(row));
+
+        MvcResult started = mockMvc.perform(get("/api/ucsborganization/export?format=CSV"))
+                .andExpect(request().asyncStarted()).andReturn();
+        MvcResult response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"ucsborganizations.csv\"")).andReturn();
+
+        assertEquals("orgCode,orgTranslationShort,orgTranslation,inactive\nZPR,ZETA PHI RHO,ZETA PHI RHO,false\n", response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_export_organizations_as_gzipped_ndjson() throws Exception {
+        UCSBOrganization row = UCSBOrganization.builder()
+                .orgCode("ZPR")
+                .orgTranslationShort("ZETA PHI RHO")
+                .orgTranslation("ZETA PHI RHO")
+                .inactive(false)
+                .build();
+        when(ucsbOrganizationRepository.streamAllBy()).thenReturn(Stream.of(row));
+
+        MvcResult started = mockMvc.perform(get("/api/ucsborganization/export?format=NDJSON&gzip=true"))
+                .andExpect(request().asyncStarted()).andReturn();
+        MvcResult response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"ucsborganizations.ndjson.gz\"")).andReturn();
+
+        assertEquals(mapper.writeValueAsString(row) + "\n", gunzip(response));
+    }
 }
@@ -2,6 +2,8 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.UserSummary;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 
@@ -9,18 +11,24 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.times;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
 
 @WebMvcTest(controllers = UsersController.class)
 @Import(TestConfig.class)
@@ -48,26 +56,158 @@ public class UsersControllerTests extends ControllerTestCase {
 
     // arrange
 
-    User u1 = User.builder().id(1L).build();
-    User u2 = User.builder().id(2L).build();
-    User u = currentUserService.getCurrentUser().getUser();
+    UserSummary u1 = UserSummary.builder().id(1L).email("cgaucho@ucsb.edu").build();
+    UserSummary u2 = UserSummary.builder().id(2L).email("ldelplaya@ucsb.edu").admin(true).build();
 
-    ArrayList<User> expectedUsers = new ArrayList<>();
-    expectedUsers.addAll(Arrays.asList(u1, u2, u));
-
-    when(userRepository.findAll()).thenReturn(expectedUsers);
-    String expectedJson = mapper.writeValueAsString(expectedUsers);
+    when(userRepository.streamSummaries(0, false)).thenReturn(Stream.of(u1, u2));
+    String expectedJson = mapper.writeValueAsString(List.of(u1, u2));
     
     // act
 
-    MvcResult response = mockMvc.perform(get("/api/admin/users"))
-        .andExpect(status().isOk()).andReturn();
+    MvcResult started = mockMvc.perform(get("/api/admin/users"))
+        .andExpect(request().asyncStarted()).andReturn();
+    MvcResult response = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON)).andReturn();
 
     // assert
 
-    verify(userRepository, times(1)).findAll();
+    verify(userRepository, never()).findAll();
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
+    assertFalse(responseString.contains("pictureUrl"));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users__admin_logged_in_with_picture_urls() throws Exception {
+
+    // arrange
+
+    UserSummary u1 = UserSummary.builder().id(1L).email("cgaucho@ucsb.edu")
+        .pictureUrl("https://lh3.googleusercontent.com/a/cgaucho").build();
+
+    when(userRepository.streamSummaries(0, true)).thenReturn(Stream.of(u1));
+
+    // act
+
+    MvcResult started = mockMvc.perform(get("/api/admin/users?includePictureUrl=true"))
+        .andExpect(request().asyncStarted()).andReturn();
+    MvcResult response = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(List.of(u1)), response.getResponse().getContentAsString());
+    assertTrue(response.getResponse().getContentAsString().contains("\"pictureUrl\":\"https://lh3.googleusercontent.com/a/cgaucho\""));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void users_page__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/users?limit=2"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users_page__admin_logged_in_gets_a_page_with_a_next_cursor() throws Exception {
+
+    // arrange
+
+    UserSummary u3 = UserSummary.builder().id(3L).email("a@ucsb.edu").build();
+    UserSummary u4 = UserSummary.builder().id(4L).email("b@ucsb.edu").build();
+    UserSummary u5 = UserSummary.builder().id(5L).email("c@ucsb.edu").build();
+
+    when(userRepository.findSummaries(2L, false, Limit.of(3))).thenReturn(List.of(u3, u4, u5));
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/users?after=2&limit=2"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(userRepository, never()).streamSummaries(anyLong(), anyBoolean());
+    assertEquals(mapper.writeValueAsString(new KeysetPage<>(List.of(u3, u4), 4L)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users_page__admin_logged_in_gets_the_first_page_with_picture_urls() throws Exception {
+
+    // arrange
+
+    UserSummary u1 = UserSummary.builder().id(1L).email("cgaucho@ucsb.edu").pictureUrl("https://example.org/1.png").build();
+
+    when(userRepository.findSummaries(0L, true, Limit.of(ApiController.DEFAULT_PAGE_SIZE + 1))).thenReturn(List.of(u1));
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/users?limit=&includePictureUrl=true"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(new KeysetPage<>(List.of(u1), null)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void export__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/users/export"))
+        .andExpect(status().is(403));
+    verify(userRepository, never()).streamAllBy();
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void export__admin_logged_in_csv() throws Exception {
+
+    // arrange
+
+    User u1 = User.builder().id(1L).email("cgaucho@ucsb.edu").fullName("Chris Gaucho").emailVerified(true).build();
+    when(userRepository.streamAllBy()).thenReturn(Stream.of(u1));
+
+    // act
+
+    MvcResult started = mockMvc.perform(get("/api/admin/users/export?format=CSV"))
+        .andExpect(request().asyncStarted()).andReturn();
+    MvcResult response = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("text/csv"))
+        .andExpect(header().string("Content-Disposition", "attachment; filename=\"users.csv\"")).andReturn();
+
+    // assert
+
+    verify(userRepository, never()).findAll();
+    assertEquals("id,email,googleSub,pictureUrl,fullName,givenName,familyName,emailVerified,locale,hostedDomain,admin\n"
+        + "1,cgaucho@ucsb.edu,,,Chris Gaucho,,,true,,,false\n", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void export__admin_logged_in_gzipped_ndjson() throws Exception {
+
+    // arrange
+
+    User u1 = User.builder().id(1L).email("cgaucho@ucsb.edu").build();
+    User u2 = User.builder().id(2L).email("ldelplaya@ucsb.edu").build();
+    when(userRepository.streamAllBy()).thenReturn(Stream.of(u1, u2));
+
+    // act
+
+    MvcResult started = mockMvc.perform(get("/api/admin/users/export?gzip=true"))
+        .andExpect(request().asyncStarted()).andReturn();
+    MvcResult response = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("application/gzip"))
+        .andExpect(header().string("Content-Disposition", "attachment; filename=\"users.ndjson.gz\"")).andReturn();
+
+    // assert
 
+    assertEquals(mapper.writeValueAsString(u1) + "\n" + mapper.writeValueAsString(u2) + "\n", gunzip(response));
   }
 }
@@ -0,0 +1,139 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class AfterCommitTests {
+
+  private final List<String> ran = new ArrayList<>();
+
+  /** Starts a transaction, as far as the listeners can tell */
+  static void begin() {
+    TransactionSynchronizationManager.initSynchronization();
+  }
+
+  /** Commits the transaction started by begin(), as the transaction manager would */
+  static void commit() {
+    List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+    synchronizations.forEach(TransactionSynchronization::afterCommit);
+    synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    TransactionSynchronizationManager.clearSynchronization();
+  }
+
+  /** Rolls back the transaction started by begin(), as the transaction manager would */
+  static void rollback() {
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    TransactionSynchronizationManager.clearSynchronization();
+  }
+
+  /** Ends any transaction that a failed test left behind */
+  static void clear() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    List.copyOf(TransactionSynchronizationManager.getResourceMap().keySet())
+        .forEach(TransactionSynchronizationManager::unbindResource);
+  }
+
+  @AfterEach
+  void reset() {
+    clear();
+  }
+
+  @Test
+  void test_work_outside_a_transaction_runs_at_once() {
+    AfterCommit.run(() -> ran.add("a"));
+    AfterCommit.runOnce("key", () -> ran.add("b"));
+    AfterCommit.runOnce("key", () -> ran.add("c"));
+    assertEquals(List.of("a", "b", "c"), ran);
+  }
+
+  @Test
+  void test_work_inside_a_transaction_runs_after_commit_in_order_with_work_run_once_last() {
+    begin();
+    AfterCommit.run(() -> ran.add("a"));
+    AfterCommit.runOnce("key", () -> ran.add("b"));
+    AfterCommit.run(() -> ran.add("c"));
+    AfterCommit.runOnce("other key", () -> ran.add("d"));
+    assertEquals(List.of(), ran);
+
+    commit();
+    assertEquals(List.of("a", "c", "b", "d"), ran);
+    assertEquals(0, TransactionSynchronizationManager.getResourceMap().size());
+  }
+
+  @Test
+  void test_a_transaction_registers_one_synchronization_however_much_work_it_adds() {
+    begin();
+    for (int i = 0; i < 1000; i++) {
+      AfterCommit.run(() -> ran.add("row"));
+    }
+    assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+
+    commit();
+    assertEquals(1000, ran.size());
+  }
+
+  @Test
+  void test_work_with_the_same_key_runs_once_per_transaction() {
+    begin();
+    AfterCommit.runOnce("restaurants", () -> ran.add("restaurants"));
+    AfterCommit.runOnce("restaurants", () -> ran.add("restaurants again"));
+    AfterCommit.runOnce("dates", () -> ran.add("dates"));
+    commit();
+
+    begin();
+    AfterCommit.runOnce("restaurants", () -> ran.add("next transaction"));
+    commit();
+    assertEquals(List.of("restaurants", "dates", "next transaction"), ran);
+  }
+
+  @Test
+  void test_work_added_while_committing_also_runs() {
+    begin();
+    AfterCommit.runOnce("key", () -> AfterCommit.run(() -> ran.add("added by the last work")));
+    AfterCommit.run(() -> AfterCommit.run(() -> ran.add("added")));
+    commit();
+    assertEquals(List.of("added", "added by the last work"), ran);
+  }
+
+  @Test
+  void test_work_of_a_rolled_back_transaction_never_runs() {
+    begin();
+    AfterCommit.run(() -> ran.add("a"));
+    rollback();
+
+    begin();
+    commit();
+    assertEquals(List.of(), ran);
+  }
+
+  @Test
+  void test_a_suspended_transaction_keeps_its_work_apart_from_the_inner_one() {
+    begin();
+    AfterCommit.run(() -> ran.add("outer"));
+    List<TransactionSynchronization> outer = TransactionSynchronizationManager.getSynchronizations();
+    outer.forEach(TransactionSynchronization::suspend);
+    TransactionSynchronizationManager.clearSynchronization();
+
+    begin();
+    AfterCommit.run(() -> ran.add("inner"));
+    commit();
+    assertEquals(List.of("inner"), ran);
+
+    begin();
+    outer.forEach(TransactionSynchronization::resume);
+    outer.forEach(TransactionSynchronizationManager::registerSynchronization);
+    AfterCommit.run(() -> ran.add("outer again"));
+    commit();
+    assertEquals(List.of("inner", "outer", "outer again"), ran);
+  }
+}
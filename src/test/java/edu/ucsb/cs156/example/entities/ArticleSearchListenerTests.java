@@ -0,0 +1,59 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.services.ArticleSearchService;
+
+class ArticleSearchListenerTests {
+
+  private final ArticleSearchListener listener = new ArticleSearchListener();
+
+  ArticleSearchListenerTests() {
+    listener.articleSearchService = new ArticleSearchService();
+  }
+
+  @AfterEach
+  void reset() {
+    AfterCommitTests.clear();
+  }
+
+  private List<Long> search(String query) {
+    return listener.articleSearchService.search(query, 0, 10).stream().map(ArticleSearchService.Hit::id).toList();
+  }
+
+  @Test
+  void test_an_article_saved_twice_in_one_transaction_is_found_by_its_last_words_after_commit() {
+    Articles article = Articles.builder()
+        .id(3L).title("Pasta night").explanation("at Ortega").url("https://example.org").build();
+    AfterCommitTests.begin();
+    listener.saved(article);
+    article.setTitle("Soup night");
+    listener.saved(article);
+    assertEquals(List.of(), search("night"));
+
+    AfterCommitTests.commit();
+    assertEquals(List.of(3L), search("soup"));
+    assertEquals(List.of(), search("pasta"));
+  }
+
+  @Test
+  void test_a_rolled_back_delete_leaves_the_article_in_the_index() {
+    Articles article = Articles.builder().id(3L).title("Pasta night").build();
+    listener.saved(article);
+
+    AfterCommitTests.begin();
+    listener.deleted(article);
+    AfterCommitTests.rollback();
+    assertEquals(List.of(3L), search("pasta"));
+
+    AfterCommitTests.begin();
+    listener.deleted(article);
+    AfterCommitTests.commit();
+    assertEquals(List.of(), search("pasta"));
+  }
+}
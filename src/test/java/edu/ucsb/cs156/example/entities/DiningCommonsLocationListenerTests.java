@@ -0,0 +1,52 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import edu.ucsb.cs156.example.services.DiningCommonsLocationService;
+
+class DiningCommonsLocationListenerTests {
+
+  private final DiningCommonsLocationListener listener = new DiningCommonsLocationListener();
+
+  DiningCommonsLocationListenerTests() {
+    listener.diningCommonsLocationService = mock(DiningCommonsLocationService.class);
+  }
+
+  @AfterEach
+  void reset() {
+    AfterCommitTests.clear();
+  }
+
+  @Test
+  void test_a_move_and_then_a_delete_are_applied_in_order_with_the_location_at_each_step() {
+    UCSBDiningCommons commons = UCSBDiningCommons.builder()
+        .code("ortega").name("Ortega").latitude(34.410987).longitude(-119.84709).build();
+    AfterCommitTests.begin();
+    listener.saved(commons);
+    commons.setLatitude(34.4);
+    listener.saved(commons);
+    listener.deleted(commons);
+    verifyNoInteractions(listener.diningCommonsLocationService);
+
+    AfterCommitTests.commit();
+    InOrder inOrder = inOrder(listener.diningCommonsLocationService);
+    inOrder.verify(listener.diningCommonsLocationService).put("ortega", 34.410987, -119.84709);
+    inOrder.verify(listener.diningCommonsLocationService).put("ortega", 34.4, -119.84709);
+    inOrder.verify(listener.diningCommonsLocationService).remove("ortega");
+  }
+
+  @Test
+  void test_a_rolled_back_change_is_never_applied() {
+    AfterCommitTests.begin();
+    listener.saved(UCSBDiningCommons.builder().code("ortega").latitude(34.410987).longitude(-119.84709).build());
+    AfterCommitTests.rollback();
+
+    verifyNoInteractions(listener.diningCommonsLocationService);
+  }
+}
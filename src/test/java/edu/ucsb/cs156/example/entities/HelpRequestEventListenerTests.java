@@ -0,0 +1,48 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import edu.ucsb.cs156.example.services.HelpRequestEventService;
+
+class HelpRequestEventListenerTests {
+
+  private final HelpRequestEventListener listener = new HelpRequestEventListener();
+
+  HelpRequestEventListenerTests() {
+    listener.helpRequestEventService = mock(HelpRequestEventService.class);
+  }
+
+  @AfterEach
+  void reset() {
+    AfterCommitTests.clear();
+  }
+
+  @Test
+  void test_changes_are_published_after_commit_in_order_as_they_were_when_made() {
+    HelpRequest helpRequest = HelpRequest.builder().id(7L).requesterEmail("cgaucho@ucsb.edu").teamId("09").build();
+    AfterCommitTests.begin();
+    listener.created(helpRequest);
+    helpRequest.setSolved(true);
+    listener.updated(helpRequest);
+    helpRequest.setExplanation("never mind");
+    listener.deleted(helpRequest);
+    helpRequest.setTeamId("10");
+    verifyNoInteractions(listener.helpRequestEventService);
+
+    AfterCommitTests.commit();
+    InOrder inOrder = inOrder(listener.helpRequestEventService);
+    HelpRequest created = HelpRequest.builder().id(7L).requesterEmail("cgaucho@ucsb.edu").teamId("09").build();
+    inOrder.verify(listener.helpRequestEventService).publish(HelpRequestEventService.CREATED, created);
+    created.setSolved(true);
+    inOrder.verify(listener.helpRequestEventService).publish(HelpRequestEventService.UPDATED, created);
+    created.setExplanation("never mind");
+    inOrder.verify(listener.helpRequestEventService).publish(HelpRequestEventService.DELETED, created);
+  }
+}
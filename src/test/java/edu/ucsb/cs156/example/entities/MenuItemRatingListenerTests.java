@@ -0,0 +1,78 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
+import edu.ucsb.cs156.example.services.TableVersionService;
+
+class MenuItemRatingListenerTests {
+
+  private final MenuItemRatingListener listener = new MenuItemRatingListener();
+
+  MenuItemRatingListenerTests() {
+    listener.menuItemRatingService = new MenuItemRatingService();
+  }
+
+  @AfterEach
+  void reset() {
+    AfterCommitTests.clear();
+  }
+
+  @Test
+  void test_a_review_changed_in_one_transaction_counts_once_with_its_last_stars() {
+    MenuItemReview review = MenuItemReview.builder().id(3L).itemId(7L).stars(4).build();
+    AfterCommitTests.begin();
+    listener.saved(review);
+    review.setStars(2);
+    listener.saved(review);
+    assertEquals(0, listener.menuItemRatingService.rating(7L).getCount());
+
+    AfterCommitTests.commit();
+    assertEquals(1, listener.menuItemRatingService.rating(7L).getCount());
+    assertEquals(2, listener.menuItemRatingService.rating(7L).getSum());
+  }
+
+  @Test
+  void test_a_review_added_and_deleted_in_one_transaction_leaves_no_trace() {
+    MenuItemReview review = MenuItemReview.builder().id(3L).itemId(7L).stars(4).build();
+    AfterCommitTests.begin();
+    listener.saved(review);
+    listener.deleted(review);
+    AfterCommitTests.commit();
+
+    assertEquals(0, listener.menuItemRatingService.rating(7L).getCount());
+    assertEquals(null, listener.menuItemRatingService.rating(7L).getAverage());
+  }
+
+  @Test
+  void test_the_table_version_changes_after_the_rating() {
+    TableVersionListener tableVersionListener = new TableVersionListener();
+    tableVersionListener.tableVersionService = spy(new TableVersionService());
+    List<Long> countsSeenByTheIncrement = new ArrayList<>();
+    doAnswer(invocation -> {
+      countsSeenByTheIncrement.add(listener.menuItemRatingService.rating(7L).getCount());
+      return invocation.callRealMethod();
+    }).when(tableVersionListener.tableVersionService).increment(MenuItemReview.class);
+
+    AfterCommitTests.begin();
+    for (long id = 1; id <= 2; id++) {
+      MenuItemReview review = MenuItemReview.builder().id(id).itemId(7L).stars(5).build();
+      // in the order of MenuItemReview's @EntityListeners
+      tableVersionListener.changed(review);
+      listener.saved(review);
+    }
+    AfterCommitTests.commit();
+
+    verify(tableVersionListener.tableVersionService).increment(MenuItemReview.class);
+    assertEquals(List.of(2L), countsSeenByTheIncrement);
+  }
+}
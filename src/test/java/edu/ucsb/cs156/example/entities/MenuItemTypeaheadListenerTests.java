@@ -0,0 +1,57 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.services.MenuItemTypeaheadService;
+
+class MenuItemTypeaheadListenerTests {
+
+  private final MenuItemTypeaheadListener listener = new MenuItemTypeaheadListener();
+
+  MenuItemTypeaheadListenerTests() {
+    listener.menuItemTypeaheadService = new MenuItemTypeaheadService();
+  }
+
+  @AfterEach
+  void reset() {
+    AfterCommitTests.clear();
+  }
+
+  private List<String> suggest(String prefix) {
+    return listener.menuItemTypeaheadService.suggest(prefix, null, null, 10).stream()
+        .map(UCSBDiningCommonsMenuItem::getName).toList();
+  }
+
+  @Test
+  void test_a_renamed_item_is_suggested_only_by_its_new_name_after_commit() {
+    UCSBDiningCommonsMenuItem item = UCSBDiningCommonsMenuItem.builder()
+        .id(3L).diningCommonsCode("ortega").name("Chicken Tenders").station("Entrees").build();
+    listener.saved(item);
+
+    AfterCommitTests.begin();
+    item.setName("Tofu Tenders");
+    listener.saved(item);
+    assertEquals(List.of("Chicken Tenders"), suggest("tenders"));
+
+    AfterCommitTests.commit();
+    assertEquals(List.of("Tofu Tenders"), suggest("tenders"));
+    assertEquals(List.of(), suggest("chicken"));
+  }
+
+  @Test
+  void test_an_item_added_and_deleted_in_one_transaction_is_never_suggested() {
+    UCSBDiningCommonsMenuItem item = UCSBDiningCommonsMenuItem.builder()
+        .id(3L).diningCommonsCode("ortega").name("Chicken Tenders").station("Entrees").build();
+    AfterCommitTests.begin();
+    listener.saved(item);
+    listener.deleted(item);
+    AfterCommitTests.commit();
+
+    assertEquals(List.of(), suggest("chicken"));
+  }
+}
@@ -0,0 +1,60 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import edu.ucsb.cs156.example.services.ArticleSearchService;
+import edu.ucsb.cs156.example.services.TableVersionService;
+
+class TableVersionListenerTests {
+
+  private final TableVersionListener listener = new TableVersionListener();
+
+  TableVersionListenerTests() {
+    listener.tableVersionService = new TableVersionService();
+  }
+
+  @AfterEach
+  void reset() {
+    AfterCommitTests.clear();
+  }
+
+  @Test
+  void test_many_changes_in_one_transaction_increment_each_table_once_after_commit() {
+    AfterCommitTests.begin();
+    listener.changed(Restaurant.builder().name("Freebirds").build());
+    listener.changed(Restaurant.builder().name("Woodstock's").build());
+    listener.changed(UCSBDate.builder().name("firstDayOfClasses").build());
+    assertEquals(0, listener.tableVersionService.version(Restaurant.class));
+
+    AfterCommitTests.commit();
+    assertEquals(1, listener.tableVersionService.version(Restaurant.class));
+    assertEquals(1, listener.tableVersionService.version(UCSBDate.class));
+  }
+
+  @Test
+  void test_the_version_changes_only_after_the_index_has_taken_in_every_row() {
+    ArticleSearchListener index = new ArticleSearchListener();
+    index.articleSearchService = mock(ArticleSearchService.class);
+    listener.tableVersionService = spy(new TableVersionService());
+    AfterCommitTests.begin();
+    for (long id = 1; id <= 2; id++) {
+      Articles article = Articles.builder().id(id).title("Learn Spring").build();
+      // JPA calls the listeners in the order of @EntityListeners, the version listener first
+      listener.changed(article);
+      index.saved(article);
+    }
+
+    AfterCommitTests.commit();
+    InOrder inOrder = inOrder(index.articleSearchService, listener.tableVersionService);
+    inOrder.verify(index.articleSearchService).index(1L, "Learn Spring", null, null);
+    inOrder.verify(index.articleSearchService).index(2L, "Learn Spring", null, null);
+    inOrder.verify(listener.tableVersionService).increment(Articles.class);
+  }
+}
@@ -0,0 +1,65 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.services.UCSBDateCalendarService;
+
+class UCSBDateCalendarListenerTests {
+
+  private final UCSBDateCalendarListener listener = new UCSBDateCalendarListener();
+
+  UCSBDateCalendarListenerTests() {
+    listener.ucsbDateCalendarService = new UCSBDateCalendarService();
+  }
+
+  @AfterEach
+  void reset() {
+    AfterCommitTests.clear();
+  }
+
+  private List<String> names(String quarterYYYYQ) {
+    return listener.ucsbDateCalendarService.quarters(quarterYYYYQ, quarterYYYYQ).stream().map(UCSBDate::getName).toList();
+  }
+
+  @Test
+  void test_a_date_moved_to_another_quarter_is_only_in_the_new_one_after_commit() {
+    UCSBDate date = UCSBDate.builder()
+        .id(3L).quarterYYYYQ("20222").name("firstDayOfClasses").localDateTime(LocalDateTime.parse("2022-03-28T00:00:00"))
+        .build();
+    listener.saved(date);
+
+    AfterCommitTests.begin();
+    date.setQuarterYYYYQ("20223");
+    date.setLocalDateTime(LocalDateTime.parse("2022-06-21T00:00:00"));
+    listener.saved(date);
+    assertEquals(List.of("firstDayOfClasses"), names("20222"));
+
+    AfterCommitTests.commit();
+    assertEquals(List.of(), names("20222"));
+    assertEquals(List.of("firstDayOfClasses"), names("20223"));
+  }
+
+  @Test
+  void test_a_rolled_back_delete_leaves_the_date_in_the_calendar() {
+    UCSBDate date = UCSBDate.builder()
+        .id(3L).quarterYYYYQ("20222").name("firstDayOfClasses").localDateTime(LocalDateTime.parse("2022-03-28T00:00:00"))
+        .build();
+    listener.saved(date);
+
+    AfterCommitTests.begin();
+    listener.deleted(date);
+    AfterCommitTests.rollback();
+    assertEquals(List.of("firstDayOfClasses"), names("20222"));
+
+    AfterCommitTests.begin();
+    listener.deleted(date);
+    AfterCommitTests.commit();
+    assertEquals(List.of(), names("20222"));
+  }
+}
@@ -0,0 +1,61 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.services.AdminService;
+import edu.ucsb.cs156.example.services.UserCacheService;
+
+class UserCacheListenerTests {
+
+  private final UserCacheListener listener = new UserCacheListener();
+
+  UserCacheListenerTests() {
+    listener.userCache = new UserCacheService(100, Duration.ofMinutes(5));
+    listener.adminService = mock(AdminService.class);
+  }
+
+  @AfterEach
+  void reset() {
+    AfterCommitTests.clear();
+  }
+
+  @Test
+  void test_a_changed_user_stays_cached_until_the_commit_and_is_then_dropped_by_its_email_at_the_time() {
+    User user = User.builder().id(1L).email("cgaucho@ucsb.edu").build();
+    listener.userCache.put(user);
+
+    AfterCommitTests.begin();
+    user.setAdmin(true);
+    listener.changed(user);
+    user.setEmail("ldelplaya@ucsb.edu");
+    assertEquals(Optional.of(user), listener.userCache.get("cgaucho@ucsb.edu"));
+    verifyNoInteractions(listener.adminService);
+
+    AfterCommitTests.commit();
+    assertTrue(listener.userCache.get("cgaucho@ucsb.edu").isEmpty());
+    verify(listener.adminService).invalidate("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  void test_a_rolled_back_change_keeps_the_cached_answers() {
+    User user = User.builder().id(1L).email("cgaucho@ucsb.edu").build();
+    listener.userCache.put(user);
+
+    AfterCommitTests.begin();
+    listener.changed(user);
+    AfterCommitTests.rollback();
+
+    assertEquals(Optional.of(user), listener.userCache.get("cgaucho@ucsb.edu"));
+    verifyNoInteractions(listener.adminService);
+  }
+}
@@ -20,6 +20,8 @@ import org.springframework.test.web.servlet.MvcResult;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -107,4 +109,45 @@ public class ArticleIT {
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void search_ranks_articles_and_follows_updates_and_deletes() throws Exception {
+                // arrange
+                LocalDateTime dateAdded = LocalDateTime.of(2024, 10, 23, 0, 0);
+                Articles spring = articlesRepository.save(Articles.builder()
+                                .title("Spring Boot testing")
+                                .url("https://spring.com")
+                                .explanation("How to write tests")
+                                .email("first@example.com")
+                                .dateAdded(dateAdded)
+                                .build());
+                Articles java = articlesRepository.save(Articles.builder()
+                                .title("Java records")
+                                .url("https://java.com")
+                                .explanation("Records work well with Spring")
+                                .email("second@example.com")
+                                .dateAdded(dateAdded)
+                                .build());
+
+                // act and assert
+                assertEquals(List.of(spring.getId(), java.getId()), search("spring"));
+
+                java.setTitle("Spring records");
+                articlesRepository.save(java);
+                assertEquals(List.of(java.getId(), spring.getId()), search("spring records"));
+
+                mockMvc.perform(delete("/api/articles?id=" + spring.getId()).with(csrf()))
+                                .andExpect(status().isOk());
+                assertEquals(List.of(java.getId()), search("spring"));
+        }
+
+        private List<Long> search(String q) throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/articles/search").param("q", q))
+                                .andExpect(status().isOk()).andReturn();
+                Map<String, Object> page = mapper.readValue(response.getResponse().getContentAsString(), Map.class);
+                return ((List<Map<String, Object>>) page.get("content")).stream()
+                                .map(hit -> ((Number) hit.get("id")).longValue())
+                                .toList();
+        }
 }
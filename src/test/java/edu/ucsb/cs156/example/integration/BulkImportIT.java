@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+@TestPropertySource(properties = { "app.bulk.max-rows=3", "app.bulk.max-body-size=1KB" })
+public class BulkImportIT {
+        @Autowired
+        public MockMvc mockMvc;
+
+        @Autowired
+        public ObjectMapper mapper;
+
+        @Autowired
+        UCSBDateRepository ucsbDateRepository;
+
+        @MockBean
+        UserRepository userRepository;
+
+        @WithMockUser(roles = { "USER", "ADMIN" })
+        @Test
+        public void bulk_created_rows_get_ids_from_the_sequence() throws Exception {
+                String csv = mockMvc.perform(post("/api/ucsbdates/bulk").with(csrf())
+                                .contentType("text/csv")
+                                .content("quarterYYYYQ,name,localDateTime\n"
+                                                + "20222,firstDayOfClasses,2022-03-28T00:00:00\n"
+                                                + "20222,lastDayOfClasses,2022-06-03T00:00:00\n"))
+                                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+                String json = mockMvc.perform(post("/api/ucsbdates/bulk").with(csrf())
+                                .contentType("application/json")
+                                .content("[{\"id\":1,\"quarterYYYYQ\":\"20223\",\"name\":\"noon on Friday\","
+                                                + "\"localDateTime\":\"2022-09-30T12:00:00\"}]"))
+                                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+
+                JsonNode fromCsv = mapper.readTree(csv);
+                JsonNode fromJson = mapper.readTree(json);
+                long first = fromCsv.get(0).get("id").asLong();
+                assertNotEquals(0, first);
+                assertEquals(first + 1, fromCsv.get(1).get("id").asLong());
+                assertEquals(first + 2, fromJson.get(0).get("id").asLong());
+                assertEquals(3, ucsbDateRepository.count());
+        }
+
+        @WithMockUser(roles = { "USER", "ADMIN" })
+        @Test
+        public void bulk_create_of_too_many_rows_saves_none_of_them() throws Exception {
+                mockMvc.perform(post("/api/ucsbdates/bulk").with(csrf())
+                                .contentType("text/csv")
+                                .content("quarterYYYYQ,name\n20222,a\n20222,b\n20222,c\n20222,d\n"))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.type").value("BulkImportException"));
+                assertEquals(0, ucsbDateRepository.count());
+        }
+
+        @WithMockUser(roles = { "USER", "ADMIN" })
+        @Test
+        public void bulk_create_of_a_body_over_the_size_cap_is_refused_before_it_is_read() throws Exception {
+                String name = "x".repeat(1024);
+                mockMvc.perform(post("/api/ucsbdates/bulk").with(csrf())
+                                .contentType("application/json")
+                                .content("[{\"quarterYYYYQ\":\"20223\",\"name\":\"" + name + "\"}]"))
+                                .andExpect(status().isPayloadTooLarge());
+                assertEquals(0, ucsbDateRepository.count());
+        }
+}
@@ -0,0 +1,88 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+public class CompressionIT {
+        @LocalServerPort
+        int port;
+
+        @MockBean
+        UserRepository userRepository;
+
+        private final HttpClient client = HttpClient.newHttpClient();
+
+        private HttpResponse<byte[]> get(String path, Optional<String> acceptEncoding) throws Exception {
+                HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+                acceptEncoding.ifPresent(encoding -> request.header("Accept-Encoding", encoding));
+                return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        }
+
+        private static String gunzip(byte[] body) throws Exception {
+                try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+        }
+
+        @Test
+        public void large_json_responses_are_gzipped_when_the_client_accepts_it() throws Exception {
+                HttpResponse<byte[]> plain = get("/v3/api-docs", Optional.empty());
+                assertEquals(200, plain.statusCode());
+                assertTrue(plain.headers().firstValue("Content-Encoding").isEmpty());
+
+                HttpResponse<byte[]> gzipped = get("/v3/api-docs", Optional.of("gzip"));
+                assertEquals(200, gzipped.statusCode());
+                assertEquals(Optional.of("gzip"), gzipped.headers().firstValue("Content-Encoding"));
+                assertTrue(gzipped.body().length < plain.body().length);
+                assertEquals(new String(plain.body(), StandardCharsets.UTF_8), gunzip(gzipped.body()));
+        }
+
+        @Test
+        public void hashed_assets_are_served_precompressed_and_immutable() throws Exception {
+                String original = new ClassPathResource("public/static/js/main.0123abcd.js")
+                                .getContentAsString(StandardCharsets.UTF_8);
+                byte[] precompressed = new ClassPathResource("public/static/js/main.0123abcd.js.gz")
+                                .getContentAsByteArray();
+
+                HttpResponse<byte[]> gzipped = get("/static/js/main.0123abcd.js", Optional.of("br, gzip"));
+                assertEquals(200, gzipped.statusCode());
+                assertEquals(Optional.of("gzip"), gzipped.headers().firstValue("Content-Encoding"));
+                assertTrue(gzipped.headers().allValues("Vary").contains("Accept-Encoding"));
+                assertEquals(Optional.of("max-age=31536000, public, immutable"),
+                                gzipped.headers().firstValue("Cache-Control"));
+                assertEquals(precompressed.length, gzipped.body().length);
+                assertEquals(original, gunzip(gzipped.body()));
+
+                HttpResponse<byte[]> plain = get("/static/js/main.0123abcd.js", Optional.empty());
+                assertEquals(200, plain.statusCode());
+                assertTrue(plain.headers().firstValue("Content-Encoding").isEmpty());
+                assertEquals(original, new String(plain.body(), StandardCharsets.UTF_8));
+        }
+}
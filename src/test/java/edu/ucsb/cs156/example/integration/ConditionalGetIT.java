@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ConditionalGetIT {
+        @Autowired
+        public MockMvc mockMvc;
+
+        @MockBean
+        UserRepository userRepository;
+
+        @WithMockUser(roles = { "USER", "ADMIN" })
+        @Test
+        public void etag_of_get_all_changes_when_a_row_is_added_updated_or_deleted() throws Exception {
+                String etag = mockMvc.perform(get("/api/restaurants/all"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().exists("ETag"))
+                                .andReturn().getResponse().getHeader("ETag");
+                mockMvc.perform(get("/api/restaurants/all").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified());
+
+                String body = mockMvc.perform(post("/api/restaurants/post?name=Freebirds&description=Burritos").with(csrf()))
+                                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+                String id = body.replaceAll(".*\"id\":(\\d+).*", "$1");
+
+                String afterPost = mockMvc.perform(get("/api/restaurants/all").header("If-None-Match", etag))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].name").value("Freebirds"))
+                                .andReturn().getResponse().getHeader("ETag");
+                assertNotEquals(etag, afterPost);
+                mockMvc.perform(get("/api/restaurants?id=" + id).header("If-None-Match", afterPost))
+                                .andExpect(status().isNotModified());
+
+                mockMvc.perform(put("/api/restaurants?id=" + id).with(csrf())
+                                .contentType("application/json")
+                                .content("{\"name\":\"Freebirds\",\"description\":\"World Burrito\"}"))
+                                .andExpect(status().isOk());
+                String afterPut = mockMvc.perform(get("/api/restaurants?id=" + id).header("If-None-Match", afterPost))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.description").value("World Burrito"))
+                                .andReturn().getResponse().getHeader("ETag");
+
+                mockMvc.perform(delete("/api/restaurants?id=" + id).with(csrf())).andExpect(status().isOk());
+                mockMvc.perform(get("/api/restaurants/all").header("If-None-Match", afterPut))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.length()").value(0));
+        }
+}
@@ -0,0 +1,91 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ExportIT {
+        @Autowired
+        public MockMvc mockMvc;
+
+        @MockBean
+        UserRepository userRepository;
+
+        private static final String RESTAURANTS = "name,description\n"
+                        + "Freebirds,Burritos\n"
+                        + "Woodstock's,\"Pizza, by the slice\"\n"
+                        + "Blaze,Pizza\n";
+
+        @WithMockUser(roles = { "USER", "ADMIN" })
+        @Test
+        public void exported_csv_has_every_row_and_can_be_imported_again() throws Exception {
+                mockMvc.perform(post("/api/restaurants/bulk").with(csrf()).contentType("text/csv").content(RESTAURANTS))
+                                .andExpect(status().isOk());
+
+                MvcResult started = mockMvc.perform(get("/api/restaurants/export?format=CSV"))
+                                .andExpect(request().asyncStarted()).andReturn();
+                String csv = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+
+                String[] lines = csv.split("\n");
+                assertEquals(4, lines.length);
+                assertEquals("id,name,description", lines[0]);
+                assertTrue(lines[2].endsWith(",Woodstock's,\"Pizza, by the slice\""));
+
+                mockMvc.perform(post("/api/restaurants/bulk").with(csrf()).contentType("text/csv").content(csv))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.length()").value(3));
+        }
+
+        @WithMockUser(roles = { "USER", "ADMIN" })
+        @Test
+        public void exported_ndjson_can_be_gzipped() throws Exception {
+                mockMvc.perform(post("/api/restaurants/bulk").with(csrf()).contentType("text/csv").content(RESTAURANTS))
+                                .andExpect(status().isOk());
+
+                MvcResult started = mockMvc.perform(get("/api/restaurants/export?format=NDJSON&gzip=true"))
+                                .andExpect(request().asyncStarted()).andReturn();
+                byte[] gzipped = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Content-Disposition", "attachment; filename=\"restaurants.ndjson.gz\""))
+                                .andReturn().getResponse().getContentAsByteArray();
+
+                String ndjson;
+                try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+                        ndjson = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                assertEquals(3, ndjson.lines().count());
+        }
+}
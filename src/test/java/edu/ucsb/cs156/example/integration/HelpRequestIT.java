@@ -1,6 +1,8 @@
 package edu.ucsb.cs156.example.integration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,6 +11,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
@@ -30,6 +33,8 @@ import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -111,4 +116,145 @@ public class HelpRequestIT {
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_walk_all_help_requests_by_keyset_pages() throws Exception {
+
+                // arrange
+                LocalDateTime ldt = LocalDateTime.parse("2022-01-03T00:00");
+
+                for (int i = 0; i < 3; i++) {
+                        helpRequestRepository.save(HelpRequest.builder()
+                                        .requesterEmail("tester" + i + "@gmail.com")
+                                        .teamId("09")
+                                        .requestTime(ldt)
+                                        .tableOrBreakoutRoom("table" + i)
+                                        .explanation("test explanation")
+                                        .solved(false)
+                                        .build());
+                }
+
+                // act
+                MvcResult first = mockMvc.perform(get("/api/helprequests/all?limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+                Map<String, Object> firstPage = mapper.readValue(first.getResponse().getContentAsString(), Map.class);
+
+                MvcResult second = mockMvc.perform(get("/api/helprequests/all?limit=2&after=" + firstPage.get("next")))
+                                .andExpect(status().isOk()).andReturn();
+                Map<String, Object> secondPage = mapper.readValue(second.getResponse().getContentAsString(), Map.class);
+
+                // assert
+                assertEquals(2, ((List<?>) firstPage.get("content")).size());
+                assertEquals(1, ((List<?>) secondPage.get("content")).size());
+                assertNull(secondPage.get("next"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_pages_through_the_unsolved_help_requests_oldest_first() throws Exception {
+
+                // arrange
+                HelpRequest newer = save("09", "2022-01-03T10:00", false);
+                save("09", "2022-01-03T08:00", true);
+                HelpRequest older = save("10", "2022-01-03T09:00", false);
+                HelpRequest sameTime = save("09", "2022-01-03T10:00", false);
+
+                // act
+                Map<String, Object> first = queue("limit=2");
+                Map<String, Object> cursor = (Map<String, Object>) first.get("next");
+                Map<String, Object> second = queue("limit=2&afterRequestTime=" + cursor.get("afterRequestTime")
+                                + "&afterId=" + cursor.get("afterId"));
+                Map<String, Object> team = queue("teamId=09&limit=1");
+                Map<String, Object> teamCursor = (Map<String, Object>) team.get("next");
+                Map<String, Object> teamSecond = queue("teamId=09&limit=1&afterRequestTime=" + teamCursor.get("afterRequestTime")
+                                + "&afterId=" + teamCursor.get("afterId"));
+
+                // assert
+                assertEquals(List.of(older.getId(), newer.getId()), ids(first));
+                assertEquals(List.of(sameTime.getId()), ids(second));
+                assertNull(second.get("next"));
+                assertEquals(List.of(newer.getId()), ids(team));
+                assertEquals(List.of(sameTime.getId()), ids(teamSecond));
+                assertNull(teamSecond.get("next"));
+        }
+
+        private Map<String, Object> queue(String query) throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/helprequests/queue?" + query))
+                                .andExpect(status().isOk()).andReturn();
+                return mapper.readValue(response.getResponse().getContentAsString(), Map.class);
+        }
+
+        private List<Long> ids(Map<String, Object> page) {
+                return ((List<Map<String, Object>>) page.get("content")).stream()
+                                .map(h -> ((Number) h.get("id")).longValue()).toList();
+        }
+
+        private HelpRequest save(String teamId, String requestTime, boolean solved) {
+                return helpRequestRepository.save(HelpRequest.builder()
+                                .requesterEmail("tester@gmail.com")
+                                .teamId(teamId)
+                                .requestTime(LocalDateTime.parse(requestTime))
+                                .tableOrBreakoutRoom("table" + teamId)
+                                .explanation("test explanation")
+                                .solved(solved)
+                                .build());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_stream_all_help_requests_as_ndjson() throws Exception {
+
+                // arrange
+                HelpRequest helpRequest = helpRequestRepository.save(HelpRequest.builder()
+                                .requesterEmail("tester@gmail.com")
+                                .teamId("09")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00"))
+                                .tableOrBreakoutRoom("table09")
+                                .explanation("test explanation")
+                                .solved(false)
+                                .build());
+
+                // act
+                MvcResult started = mockMvc.perform(get("/api/helprequests/all").accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(request().asyncStarted()).andReturn();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                String expected = mapper.writeValueAsString(helpRequest) + "\n";
+                assertEquals(expected, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void subscribers_are_sent_an_event_when_a_help_request_is_created_updated_and_deleted() throws Exception {
+                // arrange
+                MvcResult events = mockMvc.perform(get("/api/helprequests/events"))
+                                .andExpect(request().asyncStarted()).andReturn();
+
+                // act
+                String posted = mockMvc.perform(
+                                post("/api/helprequests/post?requesterEmail=tester@hotmail.com&teamId=09&tableOrBreakoutRoom=table09&explanation=test exp&solved=false&requestTime=2022-01-03T00:00")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+                HelpRequest helpRequest = mapper.readValue(posted, HelpRequest.class);
+                helpRequest.setSolved(true);
+                mockMvc.perform(put("/api/helprequests?id=" + helpRequest.getId()).with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(helpRequest)))
+                                .andExpect(status().isOk());
+                mockMvc.perform(delete("/api/helprequests?id=" + helpRequest.getId()).with(csrf()))
+                                .andExpect(status().isOk());
+
+                // assert; the events are sent on the task executor, so they may still be on their way
+                String sent = events.getResponse().getContentAsString();
+                for (int i = 0; i < 100 && !sent.contains("event:deleted\n"); i++) {
+                        Thread.sleep(50);
+                        sent = events.getResponse().getContentAsString();
+                }
+                assertTrue(sent.contains("event:created\ndata:" + posted + "\n"));
+                assertTrue(sent.contains("event:updated\ndata:" + mapper.writeValueAsString(helpRequest) + "\n"));
+                assertTrue(sent.contains("event:deleted\n"));
+        }
 }
@@ -9,6 +9,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
@@ -23,6 +24,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
@@ -31,6 +33,7 @@ import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 
 @ExtendWith(SpringExtension.class)
@@ -55,6 +58,9 @@ public class MenuItemReviewIT {
         @Autowired
         public ObjectMapper mapper;
 
+        @Autowired
+        MenuItemRatingService menuItemRatingService;
+
         @MockBean
         UserRepository userRepository;
 
@@ -108,4 +114,61 @@ public class MenuItemReviewIT {
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void the_stats_follow_reviews_as_they_are_created_updated_and_deleted() throws Exception {
+                // arrange
+                LocalDateTime ldt = LocalDateTime.parse("2022-01-03T00:00:00");
+                MenuItemReview review = MenuItemReview.builder()
+                                .itemId(3)
+                                .reviewerEmail("johndoe@ucsb.edu")
+                                .stars(4)
+                                .dateReviewed(ldt)
+                                .comments("very good")
+                                .build();
+
+                // act and assert
+                mockMvc.perform(post("/api/menuitemreview/post?itemId=3&reviewerEmail=johndoe@ucsb.edu&stars=4&dateReviewed=2022-01-03T00:00:00&comments=very good")
+                                .with(csrf())).andExpect(status().isOk());
+                MvcResult created = mockMvc.perform(post("/api/menuitemreview/post?itemId=3&reviewerEmail=janedoe@ucsb.edu&stars=2&dateReviewed=2022-01-03T00:00:00&comments=cold")
+                                .with(csrf())).andExpect(status().isOk()).andReturn();
+                long id = mapper.readValue(created.getResponse().getContentAsString(), MenuItemReview.class).getId();
+                assertEquals(Map.of("itemId", 3, "count", 2, "sum", 6, "average", 3.0, "histogram", Map.of("2", 1, "4", 1)), stats(3));
+
+                mockMvc.perform(put("/api/menuitemreview?id=" + id).with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(review)))
+                                .andExpect(status().isOk());
+                assertEquals(Map.of("itemId", 3, "count", 2, "sum", 8, "average", 4.0, "histogram", Map.of("4", 2)), stats(3));
+
+                mockMvc.perform(delete("/api/menuitemreview?id=" + id).with(csrf()))
+                                .andExpect(status().isOk());
+                assertEquals(Map.of("itemId", 3, "count", 1, "sum", 4, "average", 4.0, "histogram", Map.of("4", 1)), stats(3));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void loading_the_stats_again_reads_the_stored_reviews_without_counting_them_twice() throws Exception {
+                // arrange
+                menuItemReviewRepository.save(MenuItemReview.builder()
+                                .itemId(5)
+                                .reviewerEmail("johndoe@ucsb.edu")
+                                .stars(3)
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .comments("ok")
+                                .build());
+
+                // act
+                menuItemRatingService.load();
+
+                // assert
+                assertEquals(Map.of("itemId", 5, "count", 1, "sum", 3, "average", 3.0, "histogram", Map.of("3", 1)), stats(5));
+        }
+
+        private Map<String, Object> stats(long itemId) throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/stats?itemId=" + itemId))
+                                .andExpect(status().isOk()).andReturn();
+                return mapper.readValue(response.getResponse().getContentAsString(), Map.class);
+        }
 }
@@ -0,0 +1,73 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class MetricsIT {
+        @Autowired
+        RestaurantRepository restaurantRepository;
+
+        @Autowired
+        public MockMvc mockMvc;
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void prometheus_endpoint_reports_endpoint_repository_and_size_metrics() throws Exception {
+                restaurantRepository.save(Restaurant.builder().name("Taco Bell").description("Mexican").build());
+
+                mockMvc.perform(get("/api/restaurants/all")).andExpect(status().isOk());
+
+                String body = mockMvc.perform(get("/actuator/prometheus"))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+
+                assertTrue(body.contains("http_server_requests_seconds_count{"), body);
+                assertTrue(body.contains("quantile=\"0.99\""), body);
+                assertTrue(body.contains("uri=\"/api/restaurants/all\""), body);
+                assertTrue(body.contains("spring_data_repository_invocations_seconds_count{"), body);
+                assertTrue(body.contains("http_server_response_size_bytes_sum{"), body);
+                assertTrue(body.contains("cache_gets_total{cache=\"users\""), body);
+                assertTrue(body.contains("cache_gets_total{cache=\"diningCommons\""), body);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void prometheus_endpoint_is_forbidden_to_non_admins() throws Exception {
+                mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+                mockMvc.perform(get("/actuator/metrics")).andExpect(status().isForbidden());
+                mockMvc.perform(get("/actuator/mappings")).andExpect(status().isForbidden());
+        }
+
+        @Test
+        public void prometheus_endpoint_is_forbidden_to_anonymous_users_but_health_is_not() throws Exception {
+                mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+                mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+        }
+}
@@ -20,6 +20,8 @@ import org.springframework.test.web.servlet.MvcResult;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -112,4 +114,56 @@ public class RecommendationRequestIT {
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
-}
\ No newline at end of file
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void the_pending_queue_pages_through_a_professors_open_requests_soonest_needed_first() throws Exception {
+                // arrange
+                LocalDateTime now = LocalDateTime.now().withNano(0);
+                long soon = save("phtcon@ucsb.edu", now.plusDays(2), false);
+                long later = save("phtcon@ucsb.edu", now.plusDays(30), false);
+                long overdue = save("phtcon@ucsb.edu", now.minusDays(1), false);
+                long tied = save("phtcon@ucsb.edu", now.plusDays(2), false);
+                save("phtcon@ucsb.edu", now.plusDays(1), true);
+                save("ziad@ucsb.edu", now.plusDays(1), false);
+
+                // act
+                Map<String, Object> first = queue("professorEmail=phtcon@ucsb.edu&limit=2");
+                Map<String, Object> cursor = (Map<String, Object>) first.get("next");
+                Map<String, Object> second = queue("professorEmail=phtcon@ucsb.edu&limit=2&afterDateNeeded=" + cursor.get("afterDateNeeded")
+                                + "&afterId=" + cursor.get("afterId"));
+                Map<String, Object> dueThisWeek = queue("professorEmail=phtcon@ucsb.edu&dueWithinDays=7");
+                Map<String, Object> restDueThisWeek = queue("professorEmail=phtcon@ucsb.edu&dueWithinDays=7&afterDateNeeded="
+                                + cursor.get("afterDateNeeded") + "&afterId=" + cursor.get("afterId"));
+
+                // assert
+                assertEquals(List.of(overdue, soon), ids(first));
+                assertEquals(List.of(tied, later), ids(second));
+                assertEquals(null, second.get("next"));
+                assertEquals(List.of(overdue, soon, tied), ids(dueThisWeek));
+                assertEquals(List.of(tied), ids(restDueThisWeek));
+        }
+
+        private long save(String professorEmail, LocalDateTime dateNeeded, boolean done) {
+                return recommendationRequestRepository.save(RecommendationRequest.builder()
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .professorEmail(professorEmail)
+                                .explanation("BS/MS program")
+                                .dateRequested(dateNeeded.minusDays(14))
+                                .dateNeeded(dateNeeded)
+                                .done(done)
+                                .build()).getId();
+        }
+
+        private Map<String, Object> queue(String query) throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/queue?" + query))
+                                .andExpect(status().isOk()).andReturn();
+                return mapper.readValue(response.getResponse().getContentAsString(), Map.class);
+        }
+
+        private List<Long> ids(Map<String, Object> page) {
+                return ((List<Map<String, Object>>) page.get("content")).stream()
+                                .map(row -> ((Number) row.get("id")).longValue())
+                                .toList();
+        }
+}
@@ -0,0 +1,140 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ReferenceDataCacheIT {
+        @Autowired
+        UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+        @Autowired
+        UCSBOrganizationRepository ucsbOrganizationRepository;
+
+        @Autowired
+        CacheManager cacheManager;
+
+        @Autowired
+        TransactionTemplate transactionTemplate;
+
+        @Autowired
+        public MockMvc mockMvc;
+
+        @Autowired
+        public ObjectMapper mapper;
+
+        @MockBean
+        UserRepository userRepository;
+
+        @WithMockUser(roles = { "USER", "ADMIN" })
+        @Test
+        public void dining_commons_are_cached_and_evicted_on_update() throws Exception {
+                UCSBDiningCommons ortega = UCSBDiningCommons.builder()
+                                .code("ortega").name("Ortega").hasSackMeal(true).hasTakeOutMeal(true)
+                                .hasDiningCam(true).latitude(34.410987).longitude(-119.84709).build();
+                ucsbDiningCommonsRepository.save(ortega);
+
+                mockMvc.perform(get("/api/ucsbdiningcommons?code=ortega")).andExpect(status().isOk());
+                mockMvc.perform(get("/api/ucsbdiningcommons/all")).andExpect(status().isOk());
+                assertNotNull(cacheManager.getCache("diningCommons").get("ortega"));
+                assertNotNull(cacheManager.getCache("diningCommonsAll").get("all"));
+                UCSBDiningCommons cached = cacheManager.getCache("diningCommons").get("ortega", UCSBDiningCommons.class);
+
+                ortega.setName("Ortega Commons");
+                mockMvc.perform(put("/api/ucsbdiningcommons?code=ortega").with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(ortega)))
+                                .andExpect(status().isOk());
+                assertNull(cacheManager.getCache("diningCommons").get("ortega"));
+                assertNull(cacheManager.getCache("diningCommonsAll").get("all"));
+                assertEquals("Ortega", cached.getName());
+
+                String body = mockMvc.perform(get("/api/ucsbdiningcommons?code=ortega"))
+                                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+                assertEquals("Ortega Commons", mapper.readValue(body, UCSBDiningCommons.class).getName());
+        }
+
+        @WithMockUser(roles = { "USER", "ADMIN" })
+        @Test
+        public void organization_list_is_evicted_on_create_and_delete() throws Exception {
+                ucsbOrganizationRepository.save(UCSBOrganization.builder()
+                                .orgCode("ZPR").orgTranslationShort("ZETA PHI RHO").orgTranslation("ZETA PHI RHO")
+                                .inactive(false).build());
+                mockMvc.perform(get("/api/ucsborganization/all")).andExpect(status().isOk());
+                assertNotNull(cacheManager.getCache("organizationsAll").get("all"));
+
+                mockMvc.perform(post("/api/ucsborganization/post?orgCode=SKY&orgTranslationShort=SKYDIVING%20CLUB"
+                                + "&orgTranslation=SKYDIVING%20CLUB%20AT%20UCSB&inactive=false").with(csrf()))
+                                .andExpect(status().isOk());
+                String body = mockMvc.perform(get("/api/ucsborganization/all"))
+                                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+                assertEquals(2, mapper.readTree(body).size());
+
+                mockMvc.perform(get("/api/ucsborganization?id=SKY")).andExpect(status().isOk());
+                mockMvc.perform(delete("/api/ucsborganization?id=SKY").with(csrf())).andExpect(status().isOk());
+                assertNull(cacheManager.getCache("organizations").get("SKY"));
+                mockMvc.perform(get("/api/ucsborganization?id=SKY")).andExpect(status().isNotFound());
+                body = mockMvc.perform(get("/api/ucsborganization/all"))
+                                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+                assertEquals(1, mapper.readTree(body).size());
+        }
+
+        @Test
+        public void a_list_read_while_a_transaction_is_open_is_not_kept_after_it_commits() throws Exception {
+                ucsbOrganizationRepository.save(UCSBOrganization.builder()
+                                .orgCode("ZPR").orgTranslationShort("ZETA PHI RHO").orgTranslation("ZETA PHI RHO")
+                                .inactive(false).build());
+
+                transactionTemplate.executeWithoutResult(status -> {
+                        ucsbOrganizationRepository.saveAll(List.of(UCSBOrganization.builder()
+                                        .orgCode("SKY").orgTranslationShort("SKYDIVING CLUB").orgTranslation("SKYDIVING CLUB AT UCSB")
+                                        .inactive(false).build()));
+                        // another request reads (and caches) the list before this transaction commits
+                        CompletableFuture.runAsync(() -> ucsbOrganizationRepository.findAll()).join();
+                        assertNotNull(cacheManager.getCache("organizationsAll").get("all"));
+                });
+
+                assertNull(cacheManager.getCache("organizationsAll").get("all"));
+                assertEquals(2, ((Collection<?>) ucsbOrganizationRepository.findAll()).size());
+        }
+}
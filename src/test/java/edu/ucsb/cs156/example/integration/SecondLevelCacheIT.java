@@ -0,0 +1,102 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.CacheStatistics;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@TestPropertySource(properties = "HIBERNATE_L2_CACHE=true")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class SecondLevelCacheIT {
+        @Autowired
+        UCSBDateRepository ucsbDateRepository;
+
+        @Autowired
+        public MockMvc mockMvc;
+
+        @Autowired
+        public ObjectMapper mapper;
+
+        @MockBean
+        UserRepository userRepository;
+
+        private CacheStatistics cacheStatistics() throws Exception {
+                String body = mockMvc.perform(get("/api/admin/cachestats"))
+                                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+                return mapper.readValue(body, CacheStatistics.class);
+        }
+
+        private CacheStatistics.Region region(CacheStatistics cacheStatistics, String name) {
+                return cacheStatistics.getRegions().stream()
+                                .filter(r -> r.getName().equals(name)).findFirst().orElseThrow();
+        }
+
+        @WithMockUser(roles = { "USER", "ADMIN" })
+        @Test
+        public void repeated_get_by_id_is_served_from_the_entity_region() throws Exception {
+                UCSBDate date = ucsbDateRepository.save(UCSBDate.builder().quarterYYYYQ("20241").name("firstDayOfClasses")
+                                .localDateTime(LocalDateTime.parse("2024-01-08T00:00:00")).build());
+
+                mockMvc.perform(get("/api/ucsbdates?id=" + date.getId())).andExpect(status().isOk());
+                CacheStatistics before = cacheStatistics();
+                assertTrue(before.getSecondLevelCacheEnabled());
+                assertTrue(before.getQueryCacheEnabled());
+
+                mockMvc.perform(get("/api/ucsbdates?id=" + date.getId())).andExpect(status().isOk());
+
+                CacheStatistics after = cacheStatistics();
+                assertEquals(1, region(after, "ucsbdates").getHitCount() - region(before, "ucsbdates").getHitCount());
+                assertEquals(0, region(after, "ucsbdates").getMissCount() - region(before, "ucsbdates").getMissCount());
+        }
+
+        @WithMockUser(roles = { "USER", "ADMIN" })
+        @Test
+        public void quarter_query_is_served_from_the_query_cache_until_the_table_changes() throws Exception {
+                ucsbDateRepository.save(UCSBDate.builder().quarterYYYYQ("20241").name("firstDayOfClasses")
+                                .localDateTime(LocalDateTime.parse("2024-01-08T00:00:00")).build());
+
+                assertEquals(1, ucsbDateRepository.findAllByQuarterYYYYQ("20241").spliterator().getExactSizeIfKnown());
+                assertEquals(1, ucsbDateRepository.findAllByQuarterYYYYQ("20241").spliterator().getExactSizeIfKnown());
+
+                CacheStatistics cached = cacheStatistics();
+                assertEquals(1, cached.getQueryCacheMissCount());
+                assertEquals(1, cached.getQueryCacheHitCount());
+
+                ucsbDateRepository.save(UCSBDate.builder().quarterYYYYQ("20241").name("lastDayOfClasses")
+                                .localDateTime(LocalDateTime.parse("2024-03-15T00:00:00")).build());
+
+                assertEquals(2, ucsbDateRepository.findAllByQuarterYYYYQ("20241").spliterator().getExactSizeIfKnown());
+                assertEquals(2, cacheStatistics().getQueryCacheMissCount());
+        }
+}
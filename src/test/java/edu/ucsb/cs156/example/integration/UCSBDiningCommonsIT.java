@@ -0,0 +1,72 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class UCSBDiningCommonsIT {
+        @Autowired
+        public MockMvc mockMvc;
+
+        @Autowired
+        public ObjectMapper mapper;
+
+        @MockBean
+        UserRepository userRepository;
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void the_nearest_dining_commons_follow_commons_as_they_are_created_and_deleted() throws Exception {
+                // arrange
+                mockMvc.perform(post("/api/ucsbdiningcommons/post?code=ortega&name=Ortega&hasSackMeal=true&hasTakeOutMeal=true&hasDiningCam=true&latitude=34.410987&longitude=-119.84709")
+                                .with(csrf())).andExpect(status().isOk());
+                mockMvc.perform(post("/api/ucsbdiningcommons/post?code=carrillo&name=Carrillo&hasSackMeal=false&hasTakeOutMeal=false&hasDiningCam=true&latitude=34.409953&longitude=-119.85277")
+                                .with(csrf())).andExpect(status().isOk());
+
+                // act and assert
+                assertEquals(List.of("ortega", "carrillo"), nearest("lat=34.4105&lon=-119.8470&k=5"));
+                assertEquals(List.of("carrillo"), nearest("lat=34.4100&lon=-119.8527"));
+
+                mockMvc.perform(delete("/api/ucsbdiningcommons?code=carrillo").with(csrf()))
+                                .andExpect(status().isOk());
+                assertEquals(List.of("ortega"), nearest("lat=34.4100&lon=-119.8527"));
+        }
+
+        private List<Object> nearest(String query) throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/nearest?" + query))
+                                .andExpect(status().isOk()).andReturn();
+                List<Map<String, Object>> nearest = mapper.readValue(response.getResponse().getContentAsString(), List.class);
+                return nearest.stream().map(commons -> commons.get("code")).toList();
+        }
+}
@@ -29,6 +29,8 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.List;
+import java.util.Map;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -101,4 +103,42 @@ public class UCSBDiningCommonsMenuItemIT {
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void typeahead_follows_menu_items_as_they_are_created_renamed_and_deleted() throws Exception {
+                // arrange
+                UCSBDiningCommonsMenuItem grilled = ucsbDiningCommonsMenuItemRepository.save(UCSBDiningCommonsMenuItem.builder()
+                                .diningCommonsCode("dlg")
+                                .name("Grilled Chicken")
+                                .station("grill")
+                                .build());
+                UCSBDiningCommonsMenuItem soup = ucsbDiningCommonsMenuItemRepository.save(UCSBDiningCommonsMenuItem.builder()
+                                .diningCommonsCode("ortega")
+                                .name("Chicken Soup")
+                                .station("soups")
+                                .build());
+
+                // act and assert
+                assertEquals(List.of(grilled.getId(), soup.getId()), typeahead("prefix=chick"));
+                assertEquals(List.of(soup.getId()), typeahead("prefix=chick&diningCommonsCode=ortega"));
+
+                grilled.setName("Grilled Salmon");
+                ucsbDiningCommonsMenuItemRepository.save(grilled);
+                assertEquals(List.of(soup.getId()), typeahead("prefix=chick"));
+                assertEquals(List.of(grilled.getId()), typeahead("prefix=salm"));
+
+                mockMvc.perform(delete("/api/ucsbdiningcommonsmenuitem?id=" + soup.getId()).with(csrf()))
+                                .andExpect(status().isOk());
+                assertEquals(List.of(), typeahead("prefix=chick"));
+        }
+
+        private List<Long> typeahead(String query) throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/typeahead?" + query))
+                                .andExpect(status().isOk()).andReturn();
+                List<Map<String, Object>> items = mapper.readValue(response.getResponse().getContentAsString(), List.class);
+                return items.stream()
+                                .map(item -> ((Number) item.get("id")).longValue())
+                                .toList();
+        }
 }
@@ -0,0 +1,138 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.UserSummary;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.AdminService;
+import edu.ucsb.cs156.example.services.UserCacheService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class UserIT {
+
+        @Autowired
+        UserRepository userRepository;
+
+        @Autowired
+        UserCacheService userCache;
+
+        @Autowired
+        AdminService adminService;
+
+        private User user(boolean admin) {
+                return User.builder()
+                                .email("cgaucho@ucsb.edu")
+                                .googleSub("115856948234298493496")
+                                .fullName("Chris Gaucho")
+                                .givenName("Chris")
+                                .familyName("Gaucho")
+                                .emailVerified(true)
+                                .locale("en")
+                                .hostedDomain("ucsb.edu")
+                                .admin(admin)
+                                .build();
+        }
+
+        private User user(String email) {
+                User user = user(false);
+                user.setEmail(email);
+                return user;
+        }
+
+        @Test
+        public void upsert_inserts_a_new_user_once() throws Exception {
+                User first = userRepository.upsertByEmailH2(user(false));
+                User second = userRepository.upsertByEmailH2(user(false));
+
+                assertEquals(first.getId(), second.getId());
+                assertEquals("Chris Gaucho", second.getFullName());
+                assertFalse(second.getAdmin());
+                assertEquals(1, userRepository.count());
+        }
+
+        @Test
+        public void upsert_promotes_but_never_demotes_admin() throws Exception {
+                userRepository.upsertByEmailH2(user(false));
+
+                assertTrue(userRepository.upsertByEmailH2(user(true)).getAdmin());
+                assertTrue(userRepository.upsertByEmailH2(user(false)).getAdmin());
+                assertTrue(userRepository.findByEmail("cgaucho@ucsb.edu").get().getAdmin());
+        }
+
+        @Test
+        public void saving_or_deleting_a_user_drops_it_from_the_caches() throws Exception {
+                User user = userRepository.save(user(false));
+                userCache.put(user);
+                assertFalse(adminService.isAdmin("cgaucho@ucsb.edu"));
+
+                user.setAdmin(true);
+                userRepository.save(user);
+                assertTrue(userCache.get("cgaucho@ucsb.edu").isEmpty());
+                assertTrue(adminService.isAdmin("cgaucho@ucsb.edu"));
+
+                userCache.put(user);
+                userRepository.delete(user);
+                assertTrue(userCache.get("cgaucho@ucsb.edu").isEmpty());
+                assertFalse(adminService.isAdmin("cgaucho@ucsb.edu"));
+        }
+
+        @Test
+        public void email_is_unique() throws Exception {
+                userRepository.save(user(false));
+                assertThrows(DataIntegrityViolationException.class, () -> userRepository.save(user(false)));
+        }
+
+        @Test
+        public void summaries_leave_out_the_picture_url_unless_asked_for() throws Exception {
+                User user = user(true);
+                user.setPictureUrl("https://example.org/cgaucho.png");
+                User saved = userRepository.save(user);
+
+                List<UserSummary> without = userRepository.findSummaries(0, false, Limit.of(10));
+                List<UserSummary> with = userRepository.findSummaries(0, true, Limit.of(10));
+
+                assertEquals(List.of(UserSummary.builder().id(saved.getId()).email("cgaucho@ucsb.edu")
+                                .fullName("Chris Gaucho").givenName("Chris").familyName("Gaucho").emailVerified(true)
+                                .locale("en").hostedDomain("ucsb.edu").admin(true).build()), without);
+                assertEquals("https://example.org/cgaucho.png", with.get(0).getPictureUrl());
+        }
+
+        @Test
+        @Transactional
+        public void summaries_are_streamed_in_id_order_after_the_cursor() throws Exception {
+                long first = userRepository.save(user(false)).getId();
+                long second = userRepository.save(user("ldelplaya@ucsb.edu")).getId();
+                long third = userRepository.save(user("pconrad@ucsb.edu")).getId();
+
+                try (Stream<UserSummary> summaries = userRepository.streamSummaries(first, false)) {
+                        assertEquals(List.of(second, third), summaries.map(UserSummary::getId).toList());
+                }
+                assertEquals(List.of(second), userRepository.findSummaries(first, false, Limit.of(1))
+                                .stream().map(UserSummary::getId).toList());
+        }
+}
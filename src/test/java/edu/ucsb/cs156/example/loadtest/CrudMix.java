@@ -0,0 +1,118 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import static edu.ucsb.cs156.example.loadtest.SyntheticUser.encode;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * A realistic mix of requests against every <code>/api</code> controller, as made
+ * by one {@link SyntheticUser}: mostly listing and reading, with some creating,
+ * editing and deleting of rows that user created earlier.
+ */
+public class CrudMix {
+
+  /**
+   * One CRUD controller.
+   * @param path the base path, e.g. <code>/api/restaurants</code>
+   * @param keyField the field of the JSON response that holds the key, e.g. <code>id</code>
+   * @param keyParam the request parameter that selects a row by key
+   * @param postParams builds the query string of <code>/post</code> from a unique number and the user's email
+   */
+  record Resource(String path, String keyField, String keyParam, BiFunction<Long, String, String> postParams) {
+  }
+
+  private static final String DATE = encode("2022-01-03T00:00:00");
+
+  static final List<Resource> RESOURCES = List.of(
+      new Resource("/api/articles", "id", "id", (n, email) -> "title=Article+" + n
+          + "&url=" + encode("https://example.org/" + n) + "&explanation=Load+test&email=" + encode(email)
+          + "&dateAdded=" + DATE),
+      new Resource("/api/helprequests", "id", "id", (n, email) -> "requesterEmail=" + encode(email)
+          + "&teamId=s22-5pm-3&tableOrBreakoutRoom=" + n + "&requestTime=" + DATE
+          + "&explanation=Load+test&solved=false"),
+      new Resource("/api/menuitemreview", "id", "id", (n, email) -> "itemId=" + n
+          + "&reviewerEmail=" + encode(email) + "&stars=4&dateReviewed=" + DATE + "&comments=Load+test"),
+      new Resource("/api/recommendationrequests", "id", "id", (n, email) -> "requesterEmail=" + encode(email)
+          + "&professorEmail=phtcon%40ucsb.edu&explanation=Load+test&dateRequested=" + DATE
+          + "&dateNeeded=" + DATE + "&doneBool=false"),
+      new Resource("/api/restaurants", "id", "id", (n, email) -> "name=Restaurant+" + n
+          + "&description=Load+test"),
+      new Resource("/api/ucsbdates", "id", "id", (n, email) -> "quarterYYYYQ=20222&name=date" + n
+          + "&localDateTime=" + DATE),
+      new Resource("/api/ucsbdiningcommons", "code", "code", (n, email) -> "code=load" + n
+          + "&name=Commons+" + n + "&hasSackMeal=true&hasTakeOutMeal=true&hasDiningCam=false"
+          + "&latitude=34.41&longitude=-119.85"),
+      new Resource("/api/ucsbdiningcommonsmenuitem", "id", "id", (n, email) -> "diningCommonsCode=ortega"
+          + "&name=Item+" + n + "&station=Entrees"),
+      new Resource("/api/ucsborganization", "orgCode", "id", (n, email) -> "orgCode=LOAD" + n
+          + "&orgTranslationShort=Org+" + n + "&orgTranslation=Organization+" + n + "&inactive=false"));
+
+  private static final AtomicLong uniqueNumbers = new AtomicLong();
+
+  private final SyntheticUser user;
+  private final Random random;
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final Map<Resource, Deque<JsonNode>> created = new HashMap<>();
+
+  /**
+   * @param user the user making the requests
+   * @param seed seed for choosing requests, so that runs are repeatable
+   */
+  public CrudMix(SyntheticUser user, long seed) {
+    this.user = user;
+    this.random = new Random(seed);
+  }
+
+  /**
+   * Make one request, chosen at random: 8% current user and system info,
+   * 32% list, 25% get by key, 20% create, 10% update, 5% delete.
+   * @throws Exception if a request cannot be sent
+   */
+  public void next() throws Exception {
+    int roll = random.nextInt(100);
+    if (roll < 5) {
+      user.get("/api/currentUser", "GET /api/currentUser");
+      return;
+    }
+    if (roll < 8) {
+      user.get("/api/systemInfo", "GET /api/systemInfo");
+      return;
+    }
+    Resource resource = RESOURCES.get(random.nextInt(RESOURCES.size()));
+    Deque<JsonNode> mine = created.computeIfAbsent(resource, r -> new ArrayDeque<>());
+    if (roll < 24) {
+      user.get(resource.path() + "/all", "GET " + resource.path() + "/all");
+    } else if (roll < 40) {
+      user.get(resource.path() + "/all?limit=50", "GET " + resource.path() + "/all?limit");
+    } else if (roll < 65 && !mine.isEmpty()) {
+      user.get(resource.path() + keyQuery(resource, mine.peekLast()), "GET " + resource.path());
+    } else if (roll < 85 || mine.isEmpty()) {
+      HttpResponse<String> response = user.post(
+          resource.path() + "/post?" + resource.postParams().apply(uniqueNumbers.incrementAndGet(), user.getEmail()),
+          "POST " + resource.path() + "/post");
+      if (response.statusCode() == 200) {
+        mine.addLast(mapper.readTree(response.body()));
+      }
+    } else if (roll < 95) {
+      JsonNode row = mine.peekFirst();
+      user.put(resource.path() + keyQuery(resource, row), row.toString(), "PUT " + resource.path());
+    } else {
+      user.delete(resource.path() + keyQuery(resource, mine.pollFirst()), "DELETE " + resource.path());
+    }
+  }
+
+  private static String keyQuery(Resource resource, JsonNode row) {
+    return "?" + resource.keyParam() + "=" + encode(row.get(resource.keyField()).asText());
+  }
+}
@@ -0,0 +1,90 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the latency and outcome of every request made during a load test,
+ * grouped by a label such as <code>GET /api/restaurants/all</code>, and reports
+ * throughput and latency percentiles.
+ */
+public class LatencyRecorder {
+
+  private final Map<String, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentHashMap<>();
+
+  private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+  /**
+   * Record one request.
+   * @param label what was requested, e.g. <code>GET /api/restaurants/all</code>
+   * @param nanos how long the request took
+   * @param status the HTTP status of the response
+   */
+  public void record(String label, long nanos, int status) {
+    latencies.computeIfAbsent(label, l -> new ConcurrentLinkedQueue<>()).add(nanos);
+    if (status >= 400) {
+      errors.computeIfAbsent(label, l -> new AtomicLong()).incrementAndGet();
+    }
+  }
+
+  /**
+   * @return the number of requests recorded
+   */
+  public long totalRequests() {
+    return latencies.values().stream().mapToLong(ConcurrentLinkedQueue::size).sum();
+  }
+
+  /**
+   * @return the number of requests that got a 4xx or 5xx response
+   */
+  public long totalErrors() {
+    return errors.values().stream().mapToLong(AtomicLong::get).sum();
+  }
+
+  /**
+   * Build a report with one line per label, plus a line for all requests.
+   * @param elapsedNanos the wall clock time of the whole run, for throughput
+   * @return the report, as a table
+   */
+  public String report(long elapsedNanos) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("%-50s %8s %7s %9s %9s %9s %9s %9s%n",
+        "request", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+    List<Long> all = new ArrayList<>();
+    for (Map.Entry<String, ConcurrentLinkedQueue<Long>> entry : new TreeMap<>(latencies).entrySet()) {
+      List<Long> sorted = new ArrayList<>(entry.getValue());
+      all.addAll(sorted);
+      AtomicLong errorCount = errors.get(entry.getKey());
+      line(sb, entry.getKey(), sorted, errorCount == null ? 0 : errorCount.get(), elapsedNanos);
+    }
+    line(sb, "ALL", all, totalErrors(), elapsedNanos);
+    return sb.toString();
+  }
+
+  private static void line(StringBuilder sb, String label, List<Long> values, long errorCount, long elapsedNanos) {
+    values.sort(null);
+    sb.append(String.format("%-50s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+        label, values.size(), errorCount, values.size() / (elapsedNanos / 1e9),
+        percentile(values, 50) / 1e6, percentile(values, 95) / 1e6, percentile(values, 99) / 1e6,
+        percentile(values, 100) / 1e6));
+  }
+
+  /**
+   * Nearest-rank percentile of a sorted list.
+   * @param sorted values in ascending order
+   * @param p the percentile, 0 to 100
+   * @return the value at that percentile, or 0 if there are no values
+   */
+  static long percentile(List<Long> sorted, double p) {
+    if (sorted.isEmpty()) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(p / 100.0 * sorted.size());
+    return sorted.get(Math.max(0, rank - 1));
+  }
+}
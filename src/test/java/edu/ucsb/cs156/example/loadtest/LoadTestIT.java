@@ -0,0 +1,125 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+import edu.ucsb.cs156.example.services.wiremock.WiremockServiceImpl;
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Load test: logs in <code>loadtest.users</code> synthetic users through the WireMock
+ * OAuth stub and has each make <code>loadtest.requests</code> requests from
+ * {@link CrudMix}, with <code>loadtest.concurrency</code> users active at a time.
+ * Throughput and latency percentiles per endpoint are logged at the end.
+ * 
+ * It only runs when <code>-Dloadtest=true</code> is given, e.g.
+ * <pre>
+ * mvn test-compile failsafe:integration-test -Dit.test=LoadTestIT -Dloadtest=true \
+ *   -Dloadtest.users=50 -Dloadtest.concurrency=16 -Dloadtest.requests=500
+ * </pre>
+ * By default it uses the in-memory H2 database of the integration profile.  To run
+ * against a local Postgres instead, also pass e.g.
+ * <code>-Dspring.datasource.url=jdbc:postgresql://localhost:5432/team02</code>,
+ * <code>-Dspring.datasource.username=...</code>, <code>-Dspring.datasource.password=...</code>
+ * and <code>-Dspring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect</code>.
+ * Every synthetic user is an admin, so that all of the CRUD endpoints can be exercised.
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+@ActiveProfiles("integration")
+@TestPropertySource(properties = {
+    "logging.level.sql=WARN",
+    "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+    "app.access-log.mode=off"
+})
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+public class LoadTestIT {
+
+  private static final int users = Integer.getInteger("loadtest.users", 20);
+  private static final int concurrency = Integer.getInteger("loadtest.concurrency", 8);
+  private static final int requestsPerUser = Integer.getInteger("loadtest.requests", 200);
+
+  private static WireMockServer wireMockServer;
+
+  @LocalServerPort
+  private int port;
+
+  @DynamicPropertySource
+  static void syntheticAdmins(DynamicPropertyRegistry registry) {
+    registry.add("app.admin.emails", () -> IntStream.range(0, users)
+        .mapToObj(i -> "loaduser" + i + "@ucsb.edu")
+        .collect(Collectors.joining(",")));
+  }
+
+  @BeforeAll
+  public static void setupWireMock() {
+    wireMockServer = new WireMockServer(options()
+        .port(8090)
+        .globalTemplating(true));
+
+    WiremockServiceImpl.setupSyntheticUserMocks(wireMockServer);
+
+    wireMockServer.start();
+  }
+
+  @AfterAll
+  public static void teardownWiremock() {
+    wireMockServer.stop();
+  }
+
+  @Test
+  public void synthetic_users_run_a_crud_mix_against_every_controller() throws Exception {
+    LatencyRecorder recorder = new LatencyRecorder();
+    String baseUrl = "http://localhost:" + port;
+    String oauthUrl = "http://localhost:" + wireMockServer.port();
+
+    ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+    long start = System.nanoTime();
+    List<Future<?>> results = new ArrayList<>();
+    for (int i = 0; i < users; i++) {
+      SyntheticUser user = new SyntheticUser("loaduser" + i, baseUrl, oauthUrl, recorder);
+      CrudMix mix = new CrudMix(user, i);
+      results.add(pool.submit(() -> {
+        user.login();
+        for (int r = 0; r < requestsPerUser; r++) {
+          mix.next();
+        }
+        return null;
+      }));
+    }
+    for (Future<?> result : results) {
+      result.get();
+    }
+    long elapsed = System.nanoTime() - start;
+    pool.shutdown();
+
+    log.info("Load test: {} users, concurrency {}, {} requests each, {} s\n{}",
+        users, concurrency, requestsPerUser, String.format("%.1f", elapsed / 1e9), recorder.report(elapsed));
+
+    assertEquals(0, recorder.totalErrors());
+  }
+}
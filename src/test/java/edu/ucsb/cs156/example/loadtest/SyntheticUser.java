@@ -0,0 +1,166 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One synthetic user: an HTTP client with its own cookies (session and CSRF token)
+ * that logs in through the WireMock OAuth stub set up by
+ * {@link edu.ucsb.cs156.example.services.wiremock.WiremockServiceImpl#setupSyntheticUserMocks}
+ * and then makes timed API requests.
+ */
+public class SyntheticUser {
+
+  private final String username;
+  private final String baseUrl;
+  private final String oauthUrl;
+  private final LatencyRecorder recorder;
+  private final CookieManager cookies = new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+  private final HttpClient client;
+
+  /**
+   * @param username the username, e.g. <code>loaduser17</code> (the email is username@ucsb.edu)
+   * @param baseUrl where the app is running, e.g. <code>http://localhost:8080</code>
+   * @param oauthUrl where the WireMock OAuth stub is running, e.g. <code>http://localhost:8090</code>
+   * @param recorder where to record latencies
+   */
+  public SyntheticUser(String username, String baseUrl, String oauthUrl, LatencyRecorder recorder) {
+    this.username = username;
+    this.baseUrl = baseUrl;
+    this.oauthUrl = oauthUrl;
+    this.recorder = recorder;
+    this.client = HttpClient.newBuilder()
+        .cookieHandler(cookies)
+        .followRedirects(HttpClient.Redirect.NEVER)
+        .build();
+  }
+
+  /**
+   * @return the email of this user
+   */
+  public String getEmail() {
+    return username + "@ucsb.edu";
+  }
+
+  /**
+   * Log in the way a browser would: start the OAuth2 flow on the app, submit the
+   * WireMock login form, and follow the redirect back to the app with the code.
+   * @throws Exception if any step fails
+   */
+  public void login() throws Exception {
+    HttpResponse<String> start = send("LOGIN", HttpRequest.newBuilder(
+        URI.create(baseUrl + "/oauth2/authorization/my-oauth-provider")).GET());
+    Map<String, String> authorize = queryParams(location(start));
+
+    String form = "state=" + encode(authorize.get("state"))
+        + "&redirectUri=" + encode(authorize.get("redirect_uri"))
+        + "&username=" + encode(username)
+        + "&password=password";
+    HttpResponse<String> login = send("LOGIN", HttpRequest.newBuilder(URI.create(oauthUrl + "/login"))
+        .header("Content-Type", "application/x-www-form-urlencoded")
+        .POST(HttpRequest.BodyPublishers.ofString(form)));
+
+    HttpResponse<String> callback = send("LOGIN", HttpRequest.newBuilder(URI.create(location(login))).GET());
+    if (callback.statusCode() != 302 || location(callback).contains("error")) {
+      throw new IllegalStateException("login failed for " + username + ": " + callback.statusCode()
+          + " " + callback.headers().firstValue("Location").orElse(""));
+    }
+
+    // the first request after login issues the CSRF cookie used by PUT, POST and DELETE
+    get("/api/currentUser", "GET /api/currentUser");
+  }
+
+  /**
+   * @param pathAndQuery e.g. <code>/api/restaurants?id=1</code>
+   * @param label how to group this request in the report
+   * @return the response
+   * @throws Exception if the request cannot be sent
+   */
+  public HttpResponse<String> get(String pathAndQuery, String label) throws Exception {
+    return send(label, request(pathAndQuery).GET());
+  }
+
+  /**
+   * @param pathAndQuery e.g. <code>/api/restaurants/post?name=...</code>
+   * @param label how to group this request in the report
+   * @return the response
+   * @throws Exception if the request cannot be sent
+   */
+  public HttpResponse<String> post(String pathAndQuery, String label) throws Exception {
+    return send(label, withCsrf(request(pathAndQuery)).POST(HttpRequest.BodyPublishers.noBody()));
+  }
+
+  /**
+   * @param pathAndQuery e.g. <code>/api/restaurants?id=1</code>
+   * @param json the request body
+   * @param label how to group this request in the report
+   * @return the response
+   * @throws Exception if the request cannot be sent
+   */
+  public HttpResponse<String> put(String pathAndQuery, String json, String label) throws Exception {
+    return send(label, withCsrf(request(pathAndQuery))
+        .header("Content-Type", "application/json")
+        .PUT(HttpRequest.BodyPublishers.ofString(json)));
+  }
+
+  /**
+   * @param pathAndQuery e.g. <code>/api/restaurants?id=1</code>
+   * @param label how to group this request in the report
+   * @return the response
+   * @throws Exception if the request cannot be sent
+   */
+  public HttpResponse<String> delete(String pathAndQuery, String label) throws Exception {
+    return send(label, withCsrf(request(pathAndQuery)).DELETE());
+  }
+
+  private HttpRequest.Builder request(String pathAndQuery) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + pathAndQuery)).header("Accept", "application/json");
+  }
+
+  private HttpRequest.Builder withCsrf(HttpRequest.Builder builder) {
+    return cookies.getCookieStore().get(URI.create(baseUrl)).stream()
+        .filter(c -> c.getName().equals("XSRF-TOKEN"))
+        .map(HttpCookie::getValue)
+        .findFirst()
+        .map(token -> builder.header("X-XSRF-TOKEN", token))
+        .orElse(builder);
+  }
+
+  private HttpResponse<String> send(String label, HttpRequest.Builder builder) throws IOException, InterruptedException {
+    long start = System.nanoTime();
+    HttpResponse<String> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    recorder.record(label, System.nanoTime() - start, response.statusCode());
+    return response;
+  }
+
+  private static String location(HttpResponse<String> response) {
+    return response.headers().firstValue("Location")
+        .orElseThrow(() -> new IllegalStateException("expected a redirect, got " + response.statusCode()));
+  }
+
+  private static Map<String, String> queryParams(String url) {
+    Map<String, String> params = new HashMap<>();
+    String query = URI.create(url).getRawQuery();
+    for (String pair : query.split("&")) {
+      int eq = pair.indexOf('=');
+      params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+          URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+    }
+    return params;
+  }
+
+  static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+class AdminServiceTests {
+
+  private AdminService adminService;
+
+  private UserRepository userRepository;
+
+  @BeforeEach
+  void setup() {
+    userRepository = mock(UserRepository.class);
+    adminService = new AdminService(List.of("admingaucho@ucsb.edu"), 100, Duration.ofMinutes(5));
+    adminService.userRepository = userRepository;
+  }
+
+  @Test
+  void test_configured_admin_is_admin_without_a_query() {
+    assertTrue(adminService.isConfiguredAdmin("admingaucho@ucsb.edu"));
+    assertTrue(adminService.isAdmin("admingaucho@ucsb.edu"));
+    verify(userRepository, never()).findByEmail("admingaucho@ucsb.edu");
+  }
+
+  @Test
+  void test_database_admin_is_read_once_and_cached() {
+    User user = User.builder().email("dbadmin@ucsb.edu").admin(true).build();
+    when(userRepository.findByEmail("dbadmin@ucsb.edu")).thenReturn(Optional.of(user));
+
+    assertFalse(adminService.isConfiguredAdmin("dbadmin@ucsb.edu"));
+    assertTrue(adminService.isAdmin("dbadmin@ucsb.edu"));
+    assertTrue(adminService.isAdmin("dbadmin@ucsb.edu"));
+    verify(userRepository, times(1)).findByEmail("dbadmin@ucsb.edu");
+  }
+
+  @Test
+  void test_unknown_user_is_not_admin_and_negative_answer_is_cached() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty());
+
+    assertFalse(adminService.isAdmin("cgaucho@ucsb.edu"));
+    assertFalse(adminService.isAdmin("cgaucho@ucsb.edu"));
+    verify(userRepository, times(1)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  void test_invalidate_rereads_the_database() {
+    User user = User.builder().email("cgaucho@ucsb.edu").admin(false).build();
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(user));
+    assertFalse(adminService.isAdmin("cgaucho@ucsb.edu"));
+
+    assertTrue(adminService.getCache().asMap().containsKey("cgaucho@ucsb.edu"));
+
+    user.setAdmin(true);
+    adminService.invalidate("cgaucho@ucsb.edu");
+    assertFalse(adminService.getCache().asMap().containsKey("cgaucho@ucsb.edu"));
+    assertTrue(adminService.isAdmin("cgaucho@ucsb.edu"));
+    verify(userRepository, times(2)).findByEmail("cgaucho@ucsb.edu");
+  }
+}
@@ -0,0 +1,134 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+
+class ArticleSearchServiceTests {
+
+  private final ArticleSearchService articleSearchService = new ArticleSearchService();
+
+  ArticleSearchServiceTests() {
+    articleSearchService.articlesRepository = mock(ArticlesRepository.class);
+  }
+
+  private List<Long> ids(String query, int offset, int limit) {
+    return articleSearchService.search(query, offset, limit).stream().map(ArticleSearchService.Hit::id).toList();
+  }
+
+  private static ArticlesRepository.Text text(long id, String title, String explanation, String url) {
+    return new ArticlesRepository.Text() {
+      public long getId() {
+        return id;
+      }
+
+      public String getTitle() {
+        return title;
+      }
+
+      public String getExplanation() {
+        return explanation;
+      }
+
+      public String getUrl() {
+        return url;
+      }
+    };
+  }
+
+  @Test
+  void test_words_splits_lowercase_text_at_anything_but_letters_and_digits() {
+    assertEquals(List.of("https", "news", "ucsb", "edu", "2024", "café", "über"),
+        ArticleSearchService.words("https://News.UCSB.edu/2024 -- Café, Über!"));
+    assertEquals(List.of(), ArticleSearchService.words(null));
+    assertEquals(List.of(), ArticleSearchService.words("  ...  "));
+    assertEquals(List.of("pasta"), ArticleSearchService.words(" (pasta)"));
+  }
+
+  @Test
+  void test_nothing_is_found_in_an_empty_index() {
+    assertEquals(List.of(), ids("pasta", 0, 10));
+  }
+
+  @Test
+  void test_nothing_is_found_for_a_query_without_words() {
+    articleSearchService.index(1, "Pasta", null, null);
+    assertEquals(List.of(), ids(" ?! ", 0, 10));
+  }
+
+  @Test
+  void test_a_word_in_the_title_counts_more_than_one_in_the_explanation_or_url() {
+    // all the same length, once the title counts TITLE_WEIGHT times
+    articleSearchService.index(1, "Menu", "pasta", "https://example.org/one");
+    articleSearchService.index(2, "Pasta", "menu", "https://example.org/two");
+    articleSearchService.index(3, "Menu", "one", "https://example.org/pasta");
+    articleSearchService.index(4, "Menu", "soup", "https://example.org/four");
+
+    assertEquals(List.of(2L, 1L, 3L), ids("pasta", 0, 10));
+  }
+
+  @Test
+  void test_articles_with_more_of_the_words_rank_higher_and_ties_go_to_the_lower_id() {
+    articleSearchService.index(3, "Pasta", "soup", null);
+    articleSearchService.index(2, "Pasta", "salad", null);
+    articleSearchService.index(1, "Pasta", "salad", null);
+    articleSearchService.index(4, "Bread", "water", null);
+
+    List<ArticleSearchService.Hit> hits = articleSearchService.search("soup pasta", 0, 10);
+
+    assertEquals(List.of(3L, 1L, 2L), hits.stream().map(ArticleSearchService.Hit::id).toList());
+    assertTrue(hits.get(0).score() > hits.get(1).score());
+    assertEquals(hits.get(1).score(), hits.get(2).score());
+  }
+
+  @Test
+  void test_search_returns_one_page_of_the_matches() {
+    for (long id = 1; id <= 5; id++) {
+      articleSearchService.index(id, "Pasta", null, null);
+    }
+
+    assertEquals(List.of(1L, 2L), ids("pasta", 0, 2));
+    assertEquals(List.of(3L, 4L), ids("pasta", 2, 2));
+    assertEquals(List.of(5L), ids("pasta", 4, 2));
+    assertEquals(List.of(), ids("pasta", 6, 2));
+  }
+
+  @Test
+  void test_indexing_a_changed_article_replaces_its_words() {
+    articleSearchService.index(1, "Pasta", null, null);
+    articleSearchService.index(1, "Soup", null, null);
+
+    assertEquals(List.of(), ids("pasta", 0, 10));
+    assertEquals(List.of(1L), ids("soup", 0, 10));
+  }
+
+  @Test
+  void test_removed_articles_are_not_found() {
+    articleSearchService.index(1, "Pasta soup", null, null);
+    articleSearchService.index(2, "Pasta", null, null);
+
+    articleSearchService.remove(1);
+    articleSearchService.remove(1);
+    articleSearchService.remove(7);
+
+    assertEquals(List.of(2L), ids("pasta soup", 0, 10));
+  }
+
+  @Test
+  void test_load_indexes_the_stored_articles() {
+    when(articleSearchService.articlesRepository.streamTextBy())
+        .thenReturn(Stream.of(text(1, "Pasta", "at Ortega", "https://example.org"), text(2, null, null, null)));
+
+    articleSearchService.load();
+
+    assertEquals(List.of(1L), ids("ortega", 0, 10));
+  }
+}
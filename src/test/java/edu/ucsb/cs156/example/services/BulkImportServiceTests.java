@@ -0,0 +1,88 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.errors.BulkImportException;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+
+class BulkImportServiceTests {
+
+  private final BulkImportService bulkImportService = new BulkImportService(2);
+
+  @Test
+  void test_readCsv_reads_columns_by_header_in_any_order() {
+    List<UCSBDate> rows = bulkImportService.readCsv(
+        "name,localDateTime,quarterYYYYQ\n"
+            + "firstDayOfClasses,2022-01-03T00:00:00,20222\n"
+            + "lastDayOfClasses,2022-03-11T00:00:00,20222\n",
+        UCSBDate.class);
+
+    assertEquals(List.of(
+        UCSBDate.builder().quarterYYYYQ("20222").name("firstDayOfClasses")
+            .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00")).build(),
+        UCSBDate.builder().quarterYYYYQ("20222").name("lastDayOfClasses")
+            .localDateTime(LocalDateTime.parse("2022-03-11T00:00:00")).build()),
+        rows);
+  }
+
+  @Test
+  void test_readCsv_throws_when_a_value_cannot_be_read() {
+    BulkImportException e = assertThrows(BulkImportException.class,
+        () -> bulkImportService.readCsv("quarterYYYYQ,localDateTime\n20222,yesterday\n", UCSBDate.class));
+    assertEquals(true, e.getMessage().startsWith("could not read CSV: "));
+  }
+
+  @Test
+  void test_readCsv_reads_up_to_the_most_rows() {
+    List<UCSBDate> rows = bulkImportService.readCsv("name\na\nb\n", UCSBDate.class);
+
+    assertEquals(List.of(UCSBDate.builder().name("a").build(), UCSBDate.builder().name("b").build()), rows);
+  }
+
+  @Test
+  void test_readCsv_stops_at_the_first_row_over_the_most_rows() {
+    BulkImportException e = assertThrows(BulkImportException.class,
+        () -> bulkImportService.readCsv("quarterYYYYQ,localDateTime\n20222,2022-01-03T00:00:00\n"
+            + "20222,2022-01-04T00:00:00\n20222,2022-01-05T00:00:00\n20222,not a date\n", UCSBDate.class));
+    assertEquals("at most 2 rows can be created at once, but more were sent", e.getMessage());
+  }
+
+  @Test
+  void test_createAll_saves_all_the_rows() {
+    UCSBDateRepository repository = mock(UCSBDateRepository.class);
+    List<UCSBDate> rows = List.of(
+        UCSBDate.builder().name("firstDayOfClasses").build(),
+        UCSBDate.builder().name("lastDayOfClasses").build());
+    List<UCSBDate> saved = List.of(
+        UCSBDate.builder().id(50).name("firstDayOfClasses").build(),
+        UCSBDate.builder().id(51).name("lastDayOfClasses").build());
+    when(repository.saveAll(rows)).thenReturn(saved);
+
+    assertEquals(saved, bulkImportService.createAll(repository, rows));
+  }
+
+  @Test
+  void test_createAll_throws_when_there_are_too_many_rows() {
+    UCSBDateRepository repository = mock(UCSBDateRepository.class);
+    List<UCSBDate> rows = List.of(
+        UCSBDate.builder().name("a").build(),
+        UCSBDate.builder().name("b").build(),
+        UCSBDate.builder().name("c").build());
+
+    BulkImportException e = assertThrows(BulkImportException.class,
+        () -> bulkImportService.createAll(repository, rows));
+    assertEquals("at most 2 rows can be created at once, but 3 were sent", e.getMessage());
+    verify(repository, never()).saveAll(rows);
+  }
+}
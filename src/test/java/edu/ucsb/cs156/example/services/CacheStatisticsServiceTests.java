@@ -0,0 +1,60 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.spi.StatisticsImplementor;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.models.CacheStatistics;
+import jakarta.persistence.EntityManagerFactory;
+
+class CacheStatisticsServiceTests {
+
+  @Test
+  void test_getCacheStatistics_reports_each_region_in_name_order() {
+    EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+    SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class);
+    SessionFactoryOptions options = mock(SessionFactoryOptions.class);
+    StatisticsImplementor statistics = mock(StatisticsImplementor.class);
+    CacheRegionStatistics dates = mock(CacheRegionStatistics.class);
+
+    when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+    when(sessionFactory.getSessionFactoryOptions()).thenReturn(options);
+    when(sessionFactory.getStatistics()).thenReturn(statistics);
+    when(options.isSecondLevelCacheEnabled()).thenReturn(true);
+    when(options.isQueryCacheEnabled()).thenReturn(true);
+    when(statistics.isStatisticsEnabled()).thenReturn(true);
+    when(statistics.getQueryCacheHitCount()).thenReturn(3L);
+    when(statistics.getQueryCacheMissCount()).thenReturn(1L);
+    when(statistics.getQueryCachePutCount()).thenReturn(1L);
+    when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[] { "ucsbdates", "articles" });
+    when(statistics.getCacheRegionStatistics("ucsbdates")).thenReturn(dates);
+    when(statistics.getCacheRegionStatistics("articles")).thenReturn(null);
+    when(dates.getHitCount()).thenReturn(5L);
+    when(dates.getMissCount()).thenReturn(2L);
+    when(dates.getPutCount()).thenReturn(2L);
+    when(dates.getElementCountInMemory()).thenReturn(2L);
+
+    CacheStatisticsService service = new CacheStatisticsService();
+    service.entityManagerFactory = entityManagerFactory;
+
+    CacheStatistics expected = CacheStatistics.builder()
+        .secondLevelCacheEnabled(true)
+        .queryCacheEnabled(true)
+        .statisticsEnabled(true)
+        .queryCacheHitCount(3L)
+        .queryCacheMissCount(1L)
+        .queryCachePutCount(1L)
+        .regions(List.of(CacheStatistics.Region.builder()
+            .name("ucsbdates").hitCount(5L).missCount(2L).putCount(2L).elementCountInMemory(2L).build()))
+        .build();
+    assertEquals(expected, service.getCacheStatistics());
+  }
+}
@@ -0,0 +1,143 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+
+class DiningCommonsLocationServiceTests {
+
+  private final DiningCommonsLocationService diningCommonsLocationService = new DiningCommonsLocationService();
+
+  DiningCommonsLocationServiceTests() {
+    diningCommonsLocationService.ucsbDiningCommonsRepository = mock(UCSBDiningCommonsRepository.class);
+    // the repository returns a dining commons that has only its code
+    when(diningCommonsLocationService.ucsbDiningCommonsRepository.findById(any()))
+        .thenAnswer(invocation -> Optional.of(UCSBDiningCommons.builder().code(invocation.getArgument(0)).build()));
+  }
+
+  private static UCSBDiningCommons commons(String code, Double latitude, Double longitude) {
+    return UCSBDiningCommons.builder().code(code).latitude(latitude).longitude(longitude).build();
+  }
+
+  private static UCSBDiningCommonsRepository.Location location(String code, Double latitude, Double longitude) {
+    return new UCSBDiningCommonsRepository.Location() {
+      public String getCode() {
+        return code;
+      }
+
+      public Double getLatitude() {
+        return latitude;
+      }
+
+      public Double getLongitude() {
+        return longitude;
+      }
+    };
+  }
+
+  private List<String> nearestCodes(double latitude, double longitude, int k) {
+    return diningCommonsLocationService.nearest(latitude, longitude, k).stream()
+        .map(nearby -> nearby.getDiningCommons().getCode()).toList();
+  }
+
+  @Test
+  void test_there_is_nothing_near_when_there_are_no_dining_commons() {
+    assertEquals(List.of(), diningCommonsLocationService.nearest(34.41, -119.85, 3));
+  }
+
+  @Test
+  void test_nearest_matches_a_brute_force_search() {
+    Random random = new Random(156);
+    List<UCSBDiningCommons> all = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      UCSBDiningCommons c = commons("c" + i, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+      all.add(c);
+      diningCommonsLocationService.put(c.getCode(), c.getLatitude(), c.getLongitude());
+    }
+
+    for (int query = 0; query < 50; query++) {
+      double latitude = random.nextDouble() * 180 - 90;
+      double longitude = random.nextDouble() * 360 - 180;
+      int k = 1 + random.nextInt(5);
+      double[] target = DiningCommonsLocationService.xyz(latitude, longitude);
+      List<String> expected = all.stream()
+          .sorted(Comparator.comparingDouble(c -> chordSquared(target, c)))
+          .limit(k)
+          .map(UCSBDiningCommons::getCode)
+          .toList();
+      assertEquals(expected, nearestCodes(latitude, longitude, k));
+    }
+  }
+
+  private static double chordSquared(double[] target, UCSBDiningCommons c) {
+    double[] xyz = DiningCommonsLocationService.xyz(c.getLatitude(), c.getLongitude());
+    double dx = target[0] - xyz[0];
+    double dy = target[1] - xyz[1];
+    double dz = target[2] - xyz[2];
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  @Test
+  void test_nearest_returns_great_circle_distances_across_the_antimeridian() {
+    diningCommonsLocationService.put("east", 0.0, 179.9);
+    diningCommonsLocationService.put("west", 0.0, -170.0);
+
+    List<NearbyDiningCommons> nearest = diningCommonsLocationService.nearest(0.0, -179.9, 2);
+
+    assertEquals("east", nearest.get(0).getDiningCommons().getCode());
+    // 0.2 degrees of the equator
+    assertEquals(Math.toRadians(0.2) * DiningCommonsLocationService.EARTH_RADIUS_METERS,
+        nearest.get(0).getDistanceMeters(), 0.01);
+    assertEquals("west", nearest.get(1).getDiningCommons().getCode());
+  }
+
+  @Test
+  void test_changes_are_seen_by_the_next_lookup() {
+    diningCommonsLocationService.put("ortega", 34.410987, -119.84709);
+    diningCommonsLocationService.put("carrillo", 34.409953, -119.85277);
+    assertEquals(List.of("ortega"), nearestCodes(34.411, -119.847, 1));
+
+    diningCommonsLocationService.put("ortega", 10.0, 10.0);
+    assertEquals(List.of("carrillo"), nearestCodes(34.411, -119.847, 1));
+
+    diningCommonsLocationService.remove("carrillo");
+    assertEquals(List.of("ortega"), nearestCodes(34.411, -119.847, 1));
+
+    diningCommonsLocationService.put("ortega", null, 10.0);
+    diningCommonsLocationService.put("portola", 10.0, null);
+    assertEquals(List.of(), nearestCodes(34.411, -119.847, 1));
+  }
+
+  @Test
+  void test_nearest_skips_dining_commons_that_are_no_longer_in_the_repository() {
+    diningCommonsLocationService.put("ortega", 34.410987, -119.84709);
+    diningCommonsLocationService.put("carrillo", 34.409953, -119.85277);
+    when(diningCommonsLocationService.ucsbDiningCommonsRepository.findById("ortega")).thenReturn(Optional.empty());
+
+    assertEquals(List.of("carrillo"), nearestCodes(34.411, -119.847, 2));
+  }
+
+  @Test
+  void test_load_reads_the_locations_of_all_dining_commons() {
+    when(diningCommonsLocationService.ucsbDiningCommonsRepository.streamLocationsBy())
+        .thenReturn(Stream.of(location("ortega", 34.410987, -119.84709), location("portola", null, null)));
+
+    diningCommonsLocationService.load();
+
+    assertEquals(List.of("ortega"), nearestCodes(0.0, 0.0, 5));
+  }
+}
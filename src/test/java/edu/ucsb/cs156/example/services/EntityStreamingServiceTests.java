@@ -0,0 +1,116 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.UserSummary;
+import jakarta.persistence.EntityManager;
+
+class EntityStreamingServiceTests {
+
+  private EntityStreamingService service(EntityManager entityManager) {
+    EntityStreamingService service = new EntityStreamingService();
+    service.mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    service.entityManager = entityManager;
+    return service;
+  }
+
+  @Test
+  void test_writeNdjson_writes_one_line_per_row_and_detaches_each_row() throws Exception {
+    // arrange
+    EntityManager entityManager = mock(EntityManager.class);
+    Restaurant r1 = Restaurant.builder().id(1L).name("Freebirds").description("Burritos").build();
+    Restaurant r2 = Restaurant.builder().id(2L).name("Woodstocks").description("Pizza").build();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // act
+    service(entityManager).writeNdjson(() -> Stream.of(r1, r2), out);
+
+    // assert
+    assertEquals(
+        "{\"id\":1,\"name\":\"Freebirds\",\"description\":\"Burritos\"}\n"
+            + "{\"id\":2,\"name\":\"Woodstocks\",\"description\":\"Pizza\"}\n",
+        out.toString());
+    verify(entityManager, times(1)).detach(r1);
+    verify(entityManager, times(1)).detach(r2);
+  }
+
+  @Test
+  void test_writeNdjson_writes_nothing_for_an_empty_table() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    service(null).writeNdjson(Stream::empty, out);
+    assertEquals("", out.toString());
+  }
+
+  @Test
+  void test_writeCsv_writes_a_header_and_one_line_per_row_and_detaches_each_row() throws Exception {
+    // arrange
+    EntityManager entityManager = mock(EntityManager.class);
+    UCSBDate d1 = UCSBDate.builder().id(1L).quarterYYYYQ("20222").name("firstDayOfClasses")
+        .localDateTime(LocalDateTime.parse("2022-03-28T00:00:00")).build();
+    UCSBDate d2 = UCSBDate.builder().id(2L).quarterYYYYQ("20222").name("last day, finals")
+        .localDateTime(LocalDateTime.parse("2022-06-10T17:00:00")).build();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // act
+    service(entityManager).writeCsv(UCSBDate.class, () -> Stream.of(d1, d2), out);
+
+    // assert
+    assertEquals(
+        "id,quarterYYYYQ,name,localDateTime\n"
+            + "1,20222,firstDayOfClasses,2022-03-28T00:00:00\n"
+            + "2,20222,\"last day, finals\",2022-06-10T17:00:00\n",
+        out.toString());
+    verify(entityManager, times(1)).detach(d1);
+    verify(entityManager, times(1)).detach(d2);
+  }
+
+  @Test
+  void test_writeCsv_writes_only_the_header_for_an_empty_table() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    service(null).writeCsv(Restaurant.class, Stream::empty, out);
+    assertEquals("id,name,description\n", out.toString());
+  }
+
+  @Test
+  void test_writeJsonArray_writes_one_array_and_only_detaches_entities() throws Exception {
+    // arrange
+    EntityManager entityManager = mock(EntityManager.class);
+    UserSummary u1 = UserSummary.builder().id(1L).email("cgaucho@ucsb.edu").build();
+    Restaurant r1 = Restaurant.builder().id(1L).name("Freebirds").description("Burritos").build();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // act
+    service(entityManager).writeJsonArray(() -> Stream.of(u1, r1), out);
+
+    // assert
+    assertEquals(
+        "[{\"id\":1,\"email\":\"cgaucho@ucsb.edu\",\"fullName\":null,\"givenName\":null,\"familyName\":null,"
+            + "\"emailVerified\":false,\"locale\":null,\"hostedDomain\":null,\"admin\":false},"
+            + "{\"id\":1,\"name\":\"Freebirds\",\"description\":\"Burritos\"}]",
+        out.toString());
+    verify(entityManager, never()).detach(u1);
+    verify(entityManager, times(1)).detach(r1);
+  }
+
+  @Test
+  void test_writeJsonArray_writes_an_empty_array_for_an_empty_table() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    service(null).writeJsonArray(Stream::empty, out);
+    assertEquals("[]", out.toString());
+  }
+}
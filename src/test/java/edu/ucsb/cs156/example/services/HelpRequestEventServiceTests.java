@@ -0,0 +1,261 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+
+class HelpRequestEventServiceTests {
+
+  /** An emitter that records what is sent through it, and the callbacks it is given */
+  static class RecordingEmitter extends SseEmitter {
+    final List<String> sent = new ArrayList<>();
+    boolean broken = false;
+    boolean completed = false;
+    Runnable completionCallback;
+    Consumer<Throwable> errorCallback;
+    Runnable timeoutCallback;
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      if (broken) {
+        throw new IOException("Broken pipe");
+      }
+      sent.add(builder.build().stream().map(d -> d.getData().toString()).collect(Collectors.joining()));
+    }
+
+    @Override
+    public void complete() {
+      completed = true;
+    }
+
+    @Override
+    public void onCompletion(Runnable callback) {
+      completionCallback = callback;
+    }
+
+    @Override
+    public void onError(Consumer<Throwable> callback) {
+      errorCallback = callback;
+    }
+
+    @Override
+    public void onTimeout(Runnable callback) {
+      timeoutCallback = callback;
+    }
+  }
+
+  private final List<RecordingEmitter> emitters = new ArrayList<>();
+  private boolean nextEmitterBroken = false;
+
+  // the sends that a deferring executor has not run yet
+  private final List<Runnable> deferred = new ArrayList<>();
+
+  private HelpRequestEventService service(int replaySize) {
+    return service(replaySize, 10, Runnable::run);
+  }
+
+  private HelpRequestEventService service(int replaySize, int maxPending, Executor executor) {
+    ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    return new HelpRequestEventService(mapper, executor, replaySize, maxPending, Duration.ofMinutes(30)) {
+      @Override
+      SseEmitter createEmitter() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.broken = nextEmitterBroken;
+        emitters.add(emitter);
+        return emitter;
+      }
+    };
+  }
+
+  private HelpRequest helpRequest(long id) {
+    return HelpRequest.builder().id(id).requesterEmail("cgaucho@ucsb.edu").teamId("s22-5pm-3").build();
+  }
+
+  private String json(long id) {
+    return "{\"id\":" + id + ",\"requesterEmail\":\"cgaucho@ucsb.edu\",\"teamId\":\"s22-5pm-3\","
+        + "\"tableOrBreakoutRoom\":null,\"requestTime\":null,\"explanation\":null,\"solved\":false}";
+  }
+
+  // the id of the event sent to a subscriber, e.g. "id:abc-1\n..." gives "abc-1"
+  private String idOf(String sent) {
+    return sent.substring(3, sent.indexOf('\n'));
+  }
+
+  @Test
+  void test_a_new_subscriber_is_given_an_id_and_then_sent_every_event() {
+    HelpRequestEventService service = service(10);
+    service.subscribe(null);
+    service.subscribe(null);
+
+    service.publish(HelpRequestEventService.CREATED, helpRequest(7));
+
+    assertEquals(2, service.subscriberCount());
+    for (RecordingEmitter emitter : emitters) {
+      assertEquals(2, emitter.sent.size());
+      assertTrue(emitter.sent.get(0).endsWith("-0\n:subscribed\n\n"));
+      assertEquals("id:" + idOf(emitter.sent.get(1)) + "\nevent:created\ndata:" + json(7) + "\n\n", emitter.sent.get(1));
+    }
+  }
+
+  @Test
+  void test_a_reconnecting_subscriber_is_sent_the_events_it_missed() {
+    HelpRequestEventService service = service(10);
+    service.subscribe(null);
+    service.publish(HelpRequestEventService.CREATED, helpRequest(7));
+    service.publish(HelpRequestEventService.UPDATED, helpRequest(7));
+    service.publish(HelpRequestEventService.DELETED, helpRequest(7));
+    String firstId = idOf(emitters.get(0).sent.get(1));
+
+    service.subscribe(firstId);
+
+    List<String> replayed = emitters.get(1).sent;
+    assertEquals(2, replayed.size());
+    assertTrue(replayed.get(0).contains("\nevent:updated\n"));
+    assertTrue(replayed.get(1).contains("\nevent:deleted\n"));
+  }
+
+  @Test
+  void test_a_subscriber_that_is_up_to_date_is_sent_nothing_on_reconnect() {
+    HelpRequestEventService service = service(10);
+    service.subscribe(null);
+    String subscribedId = idOf(emitters.get(0).sent.get(0));
+
+    service.subscribe(subscribedId);
+
+    assertEquals(List.of(), emitters.get(1).sent);
+  }
+
+  @Test
+  void test_a_subscriber_that_missed_more_than_the_replay_buffer_is_told_to_reset() {
+    HelpRequestEventService service = service(2);
+    service.subscribe(null);
+    service.publish(HelpRequestEventService.CREATED, helpRequest(1));
+    service.publish(HelpRequestEventService.CREATED, helpRequest(2));
+    service.publish(HelpRequestEventService.CREATED, helpRequest(3));
+    String firstId = idOf(emitters.get(0).sent.get(1));
+    String lastId = idOf(emitters.get(0).sent.get(3));
+
+    service.subscribe(firstId);
+
+    assertEquals(List.of("id:" + lastId + "\nevent:reset\ndata:{}\n\n"), emitters.get(1).sent);
+  }
+
+  @Test
+  void test_a_subscriber_with_an_id_from_before_a_restart_is_told_to_reset() {
+    HelpRequestEventService service = service(10);
+    service.subscribe("lqz3k2a-12");
+    assertEquals(1, emitters.get(0).sent.size());
+    assertTrue(emitters.get(0).sent.get(0).contains("\nevent:reset\n"));
+  }
+
+  @Test
+  void test_a_subscriber_that_cannot_be_sent_to_is_dropped() {
+    HelpRequestEventService service = service(10);
+    service.subscribe(null);
+    service.subscribe(null);
+    assertEquals(2, service.subscriberCount());
+
+    emitters.get(0).broken = true;
+    service.publish(HelpRequestEventService.CREATED, helpRequest(7));
+    assertEquals(1, service.subscriberCount());
+
+    emitters.get(1).broken = true;
+    service.heartbeat();
+    assertEquals(0, service.subscriberCount());
+  }
+
+  @Test
+  void test_a_subscriber_whose_first_send_fails_is_dropped() {
+    HelpRequestEventService service = service(10);
+    nextEmitterBroken = true;
+    service.subscribe(null);
+    assertEquals(0, service.subscriberCount());
+  }
+
+  @Test
+  void test_events_are_sent_outside_publish_by_one_task_per_subscriber_in_order() {
+    HelpRequestEventService service = service(10, 10, deferred::add);
+    service.subscribe(null);
+    service.publish(HelpRequestEventService.CREATED, helpRequest(7));
+    service.publish(HelpRequestEventService.UPDATED, helpRequest(7));
+    service.heartbeat();
+
+    assertEquals(List.of(), emitters.get(0).sent);
+    assertEquals(1, deferred.size());
+
+    deferred.remove(0).run();
+    List<String> sent = emitters.get(0).sent;
+    assertEquals(4, sent.size());
+    assertTrue(sent.get(1).contains("\nevent:created\n"));
+    assertTrue(sent.get(2).contains("\nevent:updated\n"));
+    assertEquals(":heartbeat\n\n", sent.get(3));
+
+    service.publish(HelpRequestEventService.DELETED, helpRequest(7));
+    assertEquals(1, deferred.size());
+    deferred.remove(0).run();
+    assertTrue(sent.get(4).contains("\nevent:deleted\n"));
+  }
+
+  @Test
+  void test_a_subscriber_that_falls_too_far_behind_is_dropped_and_completed() {
+    HelpRequestEventService service = service(10, 3, deferred::add);
+    service.subscribe(null);
+    service.subscribe(null);
+    deferred.remove(1).run();
+
+    service.publish(HelpRequestEventService.CREATED, helpRequest(1));
+    service.publish(HelpRequestEventService.CREATED, helpRequest(2));
+    assertEquals(2, service.subscriberCount());
+    service.publish(HelpRequestEventService.CREATED, helpRequest(3));
+    assertEquals(1, service.subscriberCount());
+
+    deferred.forEach(Runnable::run);
+    assertEquals(List.of(), emitters.get(0).sent);
+    assertTrue(emitters.get(0).completed);
+    assertEquals(4, emitters.get(1).sent.size());
+    assertEquals(false, emitters.get(1).completed);
+  }
+
+  @Test
+  void test_heartbeat_sends_a_comment() {
+    HelpRequestEventService service = service(10);
+    service.subscribe(null);
+    service.heartbeat();
+    assertEquals(":heartbeat\n\n", emitters.get(0).sent.get(1));
+  }
+
+  @Test
+  void test_completed_errored_and_timed_out_subscribers_are_removed() {
+    HelpRequestEventService service = service(10);
+    service.subscribe(null);
+    service.subscribe(null);
+
+    emitters.get(0).completionCallback.run();
+    assertEquals(1, service.subscriberCount());
+    emitters.get(1).timeoutCallback.run();
+    emitters.get(1).errorCallback.accept(new IOException("Connection reset"));
+    assertEquals(0, service.subscriberCount());
+  }
+
+  @Test
+  void test_default_emitter_uses_the_timeout() {
+    HelpRequestEventService service = new HelpRequestEventService(new ObjectMapper(), Runnable::run, 10, 10,
+        Duration.ofMinutes(30));
+    assertEquals(Duration.ofMinutes(30).toMillis(), service.createEmitter().getTimeout());
+  }
+}
@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Test;
+
+class InMemoryIndexLoaderServiceTests {
+
+  @Test
+  void test_every_index_is_loaded_once_the_beans_are_created() {
+    InMemoryIndexLoaderService loader = new InMemoryIndexLoaderService();
+    loader.articleSearchService = mock(ArticleSearchService.class);
+    loader.menuItemRatingService = mock(MenuItemRatingService.class);
+    loader.menuItemTypeaheadService = mock(MenuItemTypeaheadService.class);
+    loader.diningCommonsLocationService = mock(DiningCommonsLocationService.class);
+    loader.ucsbDateCalendarService = mock(UCSBDateCalendarService.class);
+
+    loader.afterSingletonsInstantiated();
+
+    verify(loader.articleSearchService).load();
+    verify(loader.menuItemRatingService).load();
+    verify(loader.menuItemTypeaheadService).load();
+    verify(loader.diningCommonsLocationService).load();
+    verify(loader.ucsbDateCalendarService).load();
+  }
+}
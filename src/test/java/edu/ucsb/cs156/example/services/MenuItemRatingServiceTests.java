@@ -0,0 +1,98 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.models.MenuItemRating;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+
+class MenuItemRatingServiceTests {
+
+  private final MenuItemRatingService menuItemRatingService = new MenuItemRatingService();
+
+  MenuItemRatingServiceTests() {
+    menuItemRatingService.menuItemReviewRepository = mock(MenuItemReviewRepository.class);
+  }
+
+  private static MenuItemRating rating(long itemId, long count, long sum, Double average, Map<Integer, Long> histogram) {
+    return MenuItemRating.builder()
+        .itemId(itemId).count(count).sum(sum).average(average).histogram(new TreeMap<>(histogram)).build();
+  }
+
+  private static MenuItemReviewRepository.Stars stars(long id, long itemId, int stars) {
+    return new MenuItemReviewRepository.Stars() {
+      public long getId() {
+        return id;
+      }
+
+      public long getItemId() {
+        return itemId;
+      }
+
+      public int getStars() {
+        return stars;
+      }
+    };
+  }
+
+  @Test
+  void test_an_item_with_no_reviews_has_no_average() {
+    assertEquals(rating(7, 0, 0, null, Map.of()), menuItemRatingService.rating(7));
+  }
+
+  @Test
+  void test_load_counts_the_stored_reviews() {
+    when(menuItemRatingService.menuItemReviewRepository.streamStarsBy())
+        .thenReturn(Stream.of(stars(1, 7, 4), stars(2, 7, 5), stars(3, 8, 1)));
+
+    menuItemRatingService.load();
+
+    assertEquals(rating(7, 2, 9, 4.5, Map.of(4, 1L, 5, 1L)), menuItemRatingService.rating(7));
+    assertEquals(rating(8, 1, 1, 1.0, Map.of(1, 1L)), menuItemRatingService.rating(8));
+  }
+
+  @Test
+  void test_recording_a_changed_review_takes_back_its_old_stars() {
+    menuItemRatingService.record(1, 7, 4);
+    menuItemRatingService.record(2, 7, 2);
+    menuItemRatingService.record(2, 7, 5);
+
+    assertEquals(rating(7, 2, 9, 4.5, Map.of(4, 1L, 5, 1L)), menuItemRatingService.rating(7));
+  }
+
+  @Test
+  void test_recording_a_review_moved_to_another_item() {
+    menuItemRatingService.record(1, 7, 4);
+    menuItemRatingService.record(1, 8, 4);
+
+    assertEquals(rating(7, 0, 0, null, Map.of()), menuItemRatingService.rating(7));
+    assertEquals(rating(8, 1, 4, 4.0, Map.of(4, 1L)), menuItemRatingService.rating(8));
+  }
+
+  @Test
+  void test_recording_the_same_review_twice_counts_it_once() {
+    menuItemRatingService.record(1, 7, 4);
+    menuItemRatingService.record(1, 7, 4);
+
+    assertEquals(rating(7, 1, 4, 4.0, Map.of(4, 1L)), menuItemRatingService.rating(7));
+  }
+
+  @Test
+  void test_remove_takes_back_the_stars_of_a_review() {
+    menuItemRatingService.record(1, 7, 4);
+    menuItemRatingService.record(2, 7, 2);
+
+    menuItemRatingService.remove(2);
+    menuItemRatingService.remove(2);
+    menuItemRatingService.remove(3);
+
+    assertEquals(rating(7, 1, 4, 4.0, Map.of(4, 1L)), menuItemRatingService.rating(7));
+  }
+}
@@ -0,0 +1,170 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+
+class MenuItemTypeaheadServiceTests {
+
+  private final MenuItemTypeaheadService menuItemTypeaheadService = new MenuItemTypeaheadService();
+
+  MenuItemTypeaheadServiceTests() {
+    menuItemTypeaheadService.ucsbDiningCommonsMenuItemRepository = mock(UCSBDiningCommonsMenuItemRepository.class);
+  }
+
+  private static UCSBDiningCommonsMenuItem item(long id, String diningCommonsCode, String name, String station) {
+    return UCSBDiningCommonsMenuItem.builder()
+        .id(id).diningCommonsCode(diningCommonsCode).name(name).station(station).build();
+  }
+
+  private static UCSBDiningCommonsMenuItemRepository.Name name(long id, String diningCommonsCode, String name, String station) {
+    return new UCSBDiningCommonsMenuItemRepository.Name() {
+      public long getId() {
+        return id;
+      }
+
+      public String getDiningCommonsCode() {
+        return diningCommonsCode;
+      }
+
+      public String getName() {
+        return name;
+      }
+
+      public String getStation() {
+        return station;
+      }
+    };
+  }
+
+  private void put(UCSBDiningCommonsMenuItem item) {
+    menuItemTypeaheadService.put(item.getId(), item.getDiningCommonsCode(), item.getName(), item.getStation());
+  }
+
+  private List<Long> ids(String prefix, String diningCommonsCode, String station, int limit) {
+    return menuItemTypeaheadService.suggest(prefix, diningCommonsCode, station, limit).stream()
+        .map(UCSBDiningCommonsMenuItem::getId)
+        .toList();
+  }
+
+  @Test
+  void test_suffixes_start_at_each_word() {
+    assertEquals(List.of("grilled chicken", "chicken"), MenuItemTypeaheadService.suffixes(" Grilled Chicken "));
+    assertEquals(List.of("mac & cheese", "cheese"), MenuItemTypeaheadService.suffixes("Mac & Cheese"));
+    assertEquals(List.of("vegan) tofu", "tofu"), MenuItemTypeaheadService.suffixes("(Vegan) Tofu"));
+    assertEquals(List.of(), MenuItemTypeaheadService.suffixes(null));
+  }
+
+  @Test
+  void test_suggest_on_an_empty_index() {
+    assertEquals(List.of(), ids("chi", null, null, 10));
+  }
+
+  @Test
+  void test_suggest_matches_the_start_of_any_word_ignoring_case() {
+    put(item(1, "ortega", "Chicken Tenders", "Entrees"));
+    put(item(2, "ortega", "Grilled Chicken", "Grill"));
+    put(item(3, "ortega", "Chili", "Soups"));
+    put(item(4, "ortega", "Baked Ziti", "Entrees"));
+
+    assertEquals(List.of(2L, 1L, 3L), ids("CHI", null, null, 10));
+    assertEquals(List.of(2L, 1L), ids(" chicken", null, null, 10));
+    assertEquals(List.of(4L), ids("zi", null, null, 10));
+    assertEquals(List.of(), ids("pizza", null, null, 10));
+  }
+
+  @Test
+  void test_suggest_returns_an_item_once_when_several_of_its_words_match() {
+    put(item(1, "ortega", "Cheese Curds and Cheddar", "Snacks"));
+
+    assertEquals(List.of(1L), ids("ch", null, null, 10));
+  }
+
+  @Test
+  void test_suggest_with_an_empty_prefix_returns_every_item() {
+    put(item(1, "ortega", "Soup", "Soups"));
+    put(item(2, "ortega", "Apple", "Fruit"));
+
+    assertEquals(List.of(2L, 1L), ids("", null, null, 10));
+  }
+
+  @Test
+  void test_suggest_filters_by_dining_commons_and_station() {
+    put(item(1, "ortega", "Chicken Tenders", "Entrees"));
+    put(item(2, "carrillo", "Chicken Tenders", "Entrees"));
+    put(item(3, "carrillo", "Chicken Soup", "Soups"));
+
+    assertEquals(List.of(3L, 2L), ids("chicken", "carrillo", null, 10));
+    assertEquals(List.of(1L, 2L), ids("chicken", null, "Entrees", 10));
+    assertEquals(List.of(3L), ids("chicken", "carrillo", "Soups", 10));
+    assertEquals(List.of(), ids("chicken", "ortega", "Soups", 10));
+  }
+
+  @Test
+  void test_suggest_stops_at_the_limit() {
+    put(item(1, "ortega", "Chicken Tenders", "Entrees"));
+    put(item(2, "ortega", "Chicken Soup", "Soups"));
+    put(item(3, "ortega", "Chicken Wrap", "Grill"));
+
+    assertEquals(List.of(2L, 1L), ids("chicken", null, null, 2));
+  }
+
+  @Test
+  void test_suggest_returns_the_indexed_fields() {
+    put(item(1, "ortega", "Chicken Tenders", "Entrees"));
+
+    assertEquals(List.of(item(1, "ortega", "Chicken Tenders", "Entrees")),
+        menuItemTypeaheadService.suggest("chicken", null, null, 10));
+  }
+
+  @Test
+  void test_putting_a_renamed_item_takes_it_out_under_its_old_name() {
+    put(item(1, "ortega", "Grilled Chicken", "Grill"));
+    put(item(1, "ortega", "Grilled Salmon", "Grill"));
+
+    assertEquals(List.of(), ids("chicken", null, null, 10));
+    assertEquals(List.of(1L), ids("salmon", null, null, 10));
+    assertEquals(List.of(item(1, "ortega", "Grilled Salmon", "Grill")),
+        menuItemTypeaheadService.suggest("grilled", null, null, 10));
+  }
+
+  @Test
+  void test_putting_an_item_moved_to_another_station_keeps_it_under_its_name() {
+    put(item(1, "ortega", "Grilled Chicken", "Grill"));
+    put(item(1, "ortega", "Grilled Chicken", "Entrees"));
+
+    assertEquals(List.of(item(1, "ortega", "Grilled Chicken", "Entrees")),
+        menuItemTypeaheadService.suggest("chicken", null, null, 10));
+    assertEquals(List.of(), ids("chicken", null, "Grill", 10));
+  }
+
+  @Test
+  void test_remove_takes_an_item_out_of_the_index() {
+    put(item(1, "ortega", "Grilled Chicken", "Grill"));
+    put(item(2, "ortega", "Chicken Soup", "Soups"));
+
+    menuItemTypeaheadService.remove(1);
+    menuItemTypeaheadService.remove(99);
+
+    assertEquals(List.of(2L), ids("chicken", null, null, 10));
+    assertEquals(List.of(), ids("grilled", null, null, 10));
+  }
+
+  @Test
+  void test_load_indexes_the_stored_menu_items() {
+    when(menuItemTypeaheadService.ucsbDiningCommonsMenuItemRepository.streamNamesBy())
+        .thenReturn(Stream.of(name(1, "ortega", "Chicken Tenders", "Entrees"), name(2, "ortega", "Chili", "Soups")));
+
+    menuItemTypeaheadService.load();
+
+    assertEquals(List.of(1L, 2L), ids("chi", null, null, 10));
+  }
+}
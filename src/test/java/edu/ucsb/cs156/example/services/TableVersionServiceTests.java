@@ -0,0 +1,34 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+
+class TableVersionServiceTests {
+
+  @Test
+  void test_version_starts_at_zero_and_counts_changes_per_table() {
+    TableVersionService tableVersionService = new TableVersionService();
+    assertEquals(0, tableVersionService.version(UCSBDate.class));
+    tableVersionService.increment(UCSBDate.class);
+    tableVersionService.increment(UCSBDate.class);
+    assertEquals(2, tableVersionService.version(UCSBDate.class));
+    assertEquals(0, tableVersionService.version(Restaurant.class));
+  }
+
+  @Test
+  void test_etag_is_quoted_and_changes_with_the_version() {
+    TableVersionService tableVersionService = new TableVersionService();
+    String before = tableVersionService.etag(UCSBDate.class);
+    assertTrue(before.startsWith("\"UCSBDate-"));
+    assertTrue(before.endsWith("-0\""));
+    tableVersionService.increment(UCSBDate.class);
+    assertNotEquals(before, tableVersionService.etag(UCSBDate.class));
+    assertTrue(tableVersionService.etag(UCSBDate.class).endsWith("-1\""));
+  }
+}
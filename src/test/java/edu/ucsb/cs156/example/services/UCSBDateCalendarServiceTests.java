@@ -0,0 +1,175 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+
+class UCSBDateCalendarServiceTests {
+
+  private final UCSBDateCalendarService ucsbDateCalendarService = new UCSBDateCalendarService();
+
+  UCSBDateCalendarServiceTests() {
+    ucsbDateCalendarService.ucsbDateRepository = mock(UCSBDateRepository.class);
+  }
+
+  private static UCSBDate date(long id, String quarterYYYYQ, String name, String localDateTime) {
+    return UCSBDate.builder()
+        .id(id).quarterYYYYQ(quarterYYYYQ).name(name).localDateTime(LocalDateTime.parse(localDateTime)).build();
+  }
+
+  private static UCSBDateRepository.CalendarEntry entry(UCSBDate date) {
+    return new UCSBDateRepository.CalendarEntry() {
+      public long getId() {
+        return date.getId();
+      }
+
+      public String getQuarterYYYYQ() {
+        return date.getQuarterYYYYQ();
+      }
+
+      public String getName() {
+        return date.getName();
+      }
+
+      public LocalDateTime getLocalDateTime() {
+        return date.getLocalDateTime();
+      }
+    };
+  }
+
+  private void put(UCSBDate date) {
+    ucsbDateCalendarService.put(date.getId(), date.getQuarterYYYYQ(), date.getName(), date.getLocalDateTime());
+  }
+
+  private List<Long> ids(List<UCSBDate> dates) {
+    return dates.stream().map(UCSBDate::getId).toList();
+  }
+
+  private List<Long> between(String start, String end) {
+    return ids(ucsbDateCalendarService.between(LocalDateTime.parse(start), LocalDateTime.parse(end)));
+  }
+
+  @Test
+  void test_an_empty_calendar() {
+    assertEquals(List.of(), ucsbDateCalendarService.quarters("20241", "20244"));
+    assertEquals(List.of(), between("2024-01-01T00:00:00", "2025-01-01T00:00:00"));
+  }
+
+  @Test
+  void test_quarters_returns_a_span_of_quarters_in_quarter_and_time_order() {
+    put(date(1, "20242", "lastDayOfClasses", "2024-06-07T00:00:00"));
+    put(date(2, "20241", "firstDayOfClasses", "2024-01-08T00:00:00"));
+    put(date(3, "20242", "firstDayOfClasses", "2024-04-01T00:00:00"));
+    put(date(4, "20244", "firstDayOfClasses", "2024-09-26T00:00:00"));
+    put(date(5, "20242", "finals", "2024-06-08T00:00:00"));
+
+    assertEquals(List.of(2L, 3L, 1L, 5L), ids(ucsbDateCalendarService.quarters("20241", "20243")));
+    assertEquals(List.of(3L, 1L, 5L), ids(ucsbDateCalendarService.quarters("20242", "20242")));
+    assertEquals(List.of(3L, 1L, 5L, 4L), ids(ucsbDateCalendarService.quarters("20242", "20251")));
+  }
+
+  @Test
+  void test_quarters_returns_the_kept_fields() {
+    put(date(1, "20241", "firstDayOfClasses", "2024-01-08T00:00:00"));
+
+    assertEquals(List.of(date(1, "20241", "firstDayOfClasses", "2024-01-08T00:00:00")),
+        ucsbDateCalendarService.quarters("20241", "20241"));
+  }
+
+  @Test
+  void test_dates_at_the_same_time_are_in_id_order() {
+    put(date(2, "20241", "b", "2024-01-08T00:00:00"));
+    put(date(1, "20241", "a", "2024-01-08T00:00:00"));
+
+    assertEquals(List.of(1L, 2L), ids(ucsbDateCalendarService.quarters("20241", "20241")));
+    assertEquals(List.of(1L, 2L), between("2024-01-08T00:00:00", "2024-01-09T00:00:00"));
+  }
+
+  @Test
+  void test_between_includes_the_start_and_not_the_end() {
+    put(date(1, "20241", "a", "2024-01-08T00:00:00"));
+    put(date(2, "20241", "b", "2024-01-15T00:00:00"));
+    put(date(3, "20241", "c", "2024-01-22T00:00:00"));
+
+    assertEquals(List.of(1L, 2L), between("2024-01-08T00:00:00", "2024-01-22T00:00:00"));
+    assertEquals(List.of(2L), between("2024-01-08T00:00:01", "2024-01-21T00:00:00"));
+    assertEquals(List.of(), between("2024-01-09T00:00:00", "2024-01-10T00:00:00"));
+  }
+
+  @Test
+  void test_between_skips_quarters_outside_the_window() {
+    put(date(1, "20241", "a", "2024-01-08T00:00:00"));
+    put(date(2, "20241", "b", "2024-03-15T00:00:00"));
+    put(date(3, "20242", "c", "2024-04-01T00:00:00"));
+    put(date(4, "20244", "d", "2024-09-26T00:00:00"));
+
+    assertEquals(List.of(2L, 3L), between("2024-03-01T00:00:00", "2024-04-15T00:00:00"));
+    assertEquals(List.of(), between("2023-01-01T00:00:00", "2024-01-01T00:00:00"));
+    assertEquals(List.of(), between("2024-12-01T00:00:00", "2025-01-01T00:00:00"));
+  }
+
+  @Test
+  void test_between_merges_quarters_whose_dates_overlap() {
+    put(date(1, "20242", "firstDayOfClasses", "2024-04-01T00:00:00"));
+    put(date(2, "20243", "registrationOpens", "2024-03-20T00:00:00"));
+    put(date(3, "20241", "finals", "2024-03-22T00:00:00"));
+
+    assertEquals(List.of(2L, 3L, 1L), between("2024-03-01T00:00:00", "2024-04-15T00:00:00"));
+  }
+
+  @Test
+  void test_putting_a_changed_date_moves_it() {
+    put(date(1, "20241", "a", "2024-01-08T00:00:00"));
+    put(date(2, "20241", "b", "2024-01-15T00:00:00"));
+    put(date(1, "20242", "a", "2024-04-01T00:00:00"));
+    put(date(2, "20241", "b", "2024-01-01T00:00:00"));
+
+    assertEquals(List.of(2L), ids(ucsbDateCalendarService.quarters("20241", "20241")));
+    assertEquals(List.of(1L), ids(ucsbDateCalendarService.quarters("20242", "20242")));
+    assertEquals(List.of(2L), between("2024-01-01T00:00:00", "2024-01-20T00:00:00"));
+  }
+
+  @Test
+  void test_dates_without_a_quarter_or_a_time_are_not_kept() {
+    put(date(1, "20241", "a", "2024-01-08T00:00:00"));
+    ucsbDateCalendarService.put(1, null, "a", LocalDateTime.parse("2024-01-08T00:00:00"));
+    ucsbDateCalendarService.put(2, "20241", "b", null);
+
+    assertEquals(List.of(), ucsbDateCalendarService.quarters("00000", "99999"));
+    assertEquals(List.of(), between("2024-01-01T00:00:00", "2024-02-01T00:00:00"));
+  }
+
+  @Test
+  void test_remove_takes_a_date_out_of_its_quarter() {
+    put(date(1, "20241", "a", "2024-01-08T00:00:00"));
+    put(date(2, "20241", "b", "2024-01-15T00:00:00"));
+    put(date(3, "20242", "c", "2024-04-01T00:00:00"));
+
+    ucsbDateCalendarService.remove(1);
+    ucsbDateCalendarService.remove(3);
+    ucsbDateCalendarService.remove(99);
+
+    assertEquals(List.of(2L), ids(ucsbDateCalendarService.quarters("20241", "20244")));
+    assertEquals(List.of(2L), between("2024-01-01T00:00:00", "2024-05-01T00:00:00"));
+  }
+
+  @Test
+  void test_load_keeps_the_stored_dates() {
+    when(ucsbDateCalendarService.ucsbDateRepository.streamCalendarBy()).thenReturn(Stream.of(
+        entry(date(1, "20242", "a", "2024-04-01T00:00:00")),
+        entry(date(2, "20241", "b", "2024-01-08T00:00:00"))));
+
+    ucsbDateCalendarService.load();
+
+    assertEquals(List.of(2L, 1L), ids(ucsbDateCalendarService.quarters("20241", "20242")));
+  }
+}
@@ -0,0 +1,45 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.User;
+
+class UserCacheServiceTests {
+
+  private final User user = User.builder().id(1L).email("cgaucho@ucsb.edu").build();
+
+  @Test
+  void test_get_returns_the_user_after_put() {
+    UserCacheService userCache = new UserCacheService(100, Duration.ofMinutes(5));
+    userCache.put(user);
+    assertEquals(Optional.of(user), userCache.get("cgaucho@ucsb.edu"));
+    assertEquals(1, userCache.getCache().stats().hitCount());
+  }
+
+  @Test
+  void test_get_returns_empty_for_unknown_email() {
+    UserCacheService userCache = new UserCacheService(100, Duration.ofMinutes(5));
+    assertTrue(userCache.get("nobody@ucsb.edu").isEmpty());
+  }
+
+  @Test
+  void test_invalidate_removes_the_user() {
+    UserCacheService userCache = new UserCacheService(100, Duration.ofMinutes(5));
+    userCache.put(user);
+    userCache.invalidate("cgaucho@ucsb.edu");
+    assertTrue(userCache.get("cgaucho@ucsb.edu").isEmpty());
+  }
+
+  @Test
+  void test_entries_expire_after_ttl() {
+    UserCacheService userCache = new UserCacheService(100, Duration.ZERO);
+    userCache.put(user);
+    assertTrue(userCache.get("cgaucho@ucsb.edu").isEmpty());
+  }
+}
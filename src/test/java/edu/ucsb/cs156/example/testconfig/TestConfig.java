@@ -5,12 +5,19 @@ import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 
 
+import edu.ucsb.cs156.example.services.AdminService;
+import edu.ucsb.cs156.example.services.BulkImportService;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.EntityStreamingService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.HelpRequestEventService;
+import edu.ucsb.cs156.example.services.TableVersionService;
+import edu.ucsb.cs156.example.services.UserCacheService;
 import org.springframework.context.annotation.Import;
 
 @TestConfiguration
-@Import(SecurityConfig.class)
+@Import({ SecurityConfig.class, EntityStreamingService.class, UserCacheService.class, AdminService.class,
+        TableVersionService.class, BulkImportService.class, HelpRequestEventService.class })
 public class TestConfig {
 
     @Bean